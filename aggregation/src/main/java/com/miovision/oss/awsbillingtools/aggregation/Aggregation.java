@@ -0,0 +1,359 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.FixedPoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The mutable result of a GroupBy over detailed line items.
+ *
+ * <p>Each group keeps a row count and, for every measure, the sum, minimum, maximum and number of records that had a
+ * value, all in primitive arrays indexed by group number. Costs are exact FixedPoint longs whose sums are overflow
+ * checked, so totals match the invoice to the cent no matter how many rows are added; measures that are not exact (see
+ * Measure.isExact()) are decoded, summed and compared as doubles, so neither a single value nor a sum can overflow.
+ *
+ * <p>An aggregation is not thread safe; parallel streams give every worker its own aggregation and merge them when
+ * the workers finish, so no locks are taken while aggregating.
+ */
+public final class Aggregation {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final GroupBy groupBy;
+    private final GroupKeys groupKeys;
+    private final Measure[] measures;
+    private final boolean[] exact;
+    private long[] counts = new long[INITIAL_CAPACITY];
+    private long[] sums;
+    private double[] approximateSums;
+    private long[] minimums;
+    private long[] maximums;
+    private double[] approximateMinimums;
+    private double[] approximateMaximums;
+    private long[] valueCounts;
+
+    Aggregation(GroupBy groupBy) {
+        this.groupBy = groupBy;
+        this.groupKeys = new GroupKeys(groupBy.getDimensions());
+        this.measures = groupBy.getMeasures().toArray(new Measure[0]);
+        this.exact = new boolean[measures.length];
+        for(int i = 0; i < measures.length; ++i) {
+            exact[i] = measures[i].isExact();
+        }
+        this.sums = new long[INITIAL_CAPACITY * measures.length];
+        this.approximateSums = new double[INITIAL_CAPACITY * measures.length];
+        this.minimums = newValues(INITIAL_CAPACITY * measures.length, Long.MAX_VALUE);
+        this.maximums = newValues(INITIAL_CAPACITY * measures.length, Long.MIN_VALUE);
+        this.approximateMinimums = newValues(INITIAL_CAPACITY * measures.length, Double.POSITIVE_INFINITY);
+        this.approximateMaximums = newValues(INITIAL_CAPACITY * measures.length, Double.NEGATIVE_INFINITY);
+        this.valueCounts = new long[INITIAL_CAPACITY * measures.length];
+    }
+
+    public GroupBy getGroupBy() {
+        return groupBy;
+    }
+
+    /**
+     * Get the number of groups.
+     *
+     * @return The number of groups.
+     */
+    public int size() {
+        return groupKeys.size();
+    }
+
+    /**
+     * Add a record to its group. The record is not retained, so cursor views can be passed directly.
+     *
+     * @param record The record.
+     *
+     * @throws ArithmeticException Thrown when a cost sum overflows.
+     */
+    public void add(DetailedLineItem record) {
+        final int group = ensureCapacity(groupKeys.group(record));
+        ++counts[group];
+
+        final int offset = group * measures.length;
+        for(int i = 0; i < measures.length; ++i) {
+            if(exact[i]) {
+                final long value = measures[i].getValue(record);
+                if(value != FixedPoint.NO_VALUE) {
+                    addValue(offset + i, value);
+                }
+            }
+            else {
+                final double value = measures[i].getDoubleValue(record);
+                if(!Double.isNaN(value)) {
+                    addApproximateValue(offset + i, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Merge the groups of another aggregation of the same GroupBy into this one.
+     *
+     * @param other The other aggregation, which is left unchanged.
+     *
+     * @return This aggregation.
+     *
+     * @throws ArithmeticException Thrown when a cost sum overflows.
+     */
+    public Aggregation merge(Aggregation other) {
+        if(other.groupBy != groupBy) {
+            throw new IllegalArgumentException("Only aggregations of the same GroupBy can be merged");
+        }
+
+        for(int otherGroup = 0; otherGroup < other.size(); ++otherGroup) {
+            final int group = ensureCapacity(groupKeys.group(other.groupKeys, otherGroup));
+            counts[group] += other.counts[otherGroup];
+
+            final int offset = group * measures.length;
+            final int otherOffset = otherGroup * measures.length;
+            for(int i = 0; i < measures.length; ++i) {
+                final int index = offset + i;
+                final int otherIndex = otherOffset + i;
+                if(exact[i]) {
+                    sums[index] = FixedPoint.add(sums[index], other.sums[otherIndex]);
+                    minimums[index] = Math.min(minimums[index], other.minimums[otherIndex]);
+                    maximums[index] = Math.max(maximums[index], other.maximums[otherIndex]);
+                }
+                else {
+                    approximateSums[index] += other.approximateSums[otherIndex];
+                    approximateMinimums[index] =
+                            Math.min(approximateMinimums[index], other.approximateMinimums[otherIndex]);
+                    approximateMaximums[index] =
+                            Math.max(approximateMaximums[index], other.approximateMaximums[otherIndex]);
+                }
+                valueCounts[offset + i] += other.valueCounts[otherOffset + i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Get the groups.
+     *
+     * @return Views of the groups in the order they were first seen. The views reflect later changes.
+     */
+    public List<Group> getGroups() {
+        final List<Group> groups = new ArrayList<>(size());
+        for(int group = 0; group < size(); ++group) {
+            groups.add(new Group(group));
+        }
+        return Collections.unmodifiableList(groups);
+    }
+
+    private int ensureCapacity(int group) {
+        if(group == counts.length) {
+            grow(group * 2);
+        }
+        return group;
+    }
+
+    private void addValue(int index, long value) {
+        sums[index] = FixedPoint.add(sums[index], value);
+        if(value < minimums[index]) {
+            minimums[index] = value;
+        }
+        if(value > maximums[index]) {
+            maximums[index] = value;
+        }
+        ++valueCounts[index];
+    }
+
+    private void addApproximateValue(int index, double value) {
+        approximateSums[index] += value;
+        if(value < approximateMinimums[index]) {
+            approximateMinimums[index] = value;
+        }
+        if(value > approximateMaximums[index]) {
+            approximateMaximums[index] = value;
+        }
+        ++valueCounts[index];
+    }
+
+    private void grow(int capacity) {
+        final int oldLength = sums.length;
+        counts = Arrays.copyOf(counts, capacity);
+        sums = Arrays.copyOf(sums, capacity * measures.length);
+        approximateSums = Arrays.copyOf(approximateSums, capacity * measures.length);
+        minimums = Arrays.copyOf(minimums, capacity * measures.length);
+        Arrays.fill(minimums, oldLength, minimums.length, Long.MAX_VALUE);
+        maximums = Arrays.copyOf(maximums, capacity * measures.length);
+        Arrays.fill(maximums, oldLength, maximums.length, Long.MIN_VALUE);
+        approximateMinimums = Arrays.copyOf(approximateMinimums, capacity * measures.length);
+        Arrays.fill(approximateMinimums, oldLength, approximateMinimums.length, Double.POSITIVE_INFINITY);
+        approximateMaximums = Arrays.copyOf(approximateMaximums, capacity * measures.length);
+        Arrays.fill(approximateMaximums, oldLength, approximateMaximums.length, Double.NEGATIVE_INFINITY);
+        valueCounts = Arrays.copyOf(valueCounts, capacity * measures.length);
+    }
+
+    private int indexOf(int group, Measure measure) {
+        for(int i = 0; i < measures.length; ++i) {
+            if(measures[i] == measure) {
+                return group * measures.length + i;
+            }
+        }
+        throw new IllegalArgumentException("The measure " + measure + " is not aggregated");
+    }
+
+    private static long[] newValues(int length, long value) {
+        final long[] values = new long[length];
+        Arrays.fill(values, value);
+        return values;
+    }
+
+    private static double[] newValues(int length, double value) {
+        final double[] values = new double[length];
+        Arrays.fill(values, value);
+        return values;
+    }
+
+    /**
+     * A view of one group of an aggregation.
+     */
+    public final class Group {
+        private final int group;
+
+        Group(int group) {
+            this.group = group;
+        }
+
+        /**
+         * Get a key component.
+         *
+         * @param dimension The index of the dimension in the GroupBy.
+         *
+         * @return The value: a String for column and tag dimensions, a DateTime for time dimensions, or null if the
+         *         records of the group have no value.
+         */
+        public Object getKey(int dimension) {
+            return groupKeys.getKey(group, dimension);
+        }
+
+        public Object getKey(Dimension dimension) {
+            return groupKeys.getKey(group, dimension);
+        }
+
+        public List<Object> getKeys() {
+            return groupKeys.getKeys(group);
+        }
+
+        /**
+         * Get the number of records in the group.
+         *
+         * @return The count.
+         */
+        public long getCount() {
+            return counts[group];
+        }
+
+        /**
+         * Get the number of records in the group that have a value for a measure.
+         *
+         * @param measure The measure.
+         *
+         * @return The count.
+         */
+        public long getCount(Measure measure) {
+            return valueCounts[indexOf(group, measure)];
+        }
+
+        public double getSum(Measure measure) {
+            final int index = indexOf(group, measure);
+            return measure.isExact() ? FixedPoint.toDouble(sums[index]) : approximateSums[index];
+        }
+
+        /**
+         * Get the sum of a measure as a fixed-point number.
+         *
+         * @param measure The measure.
+         *
+         * @return The sum as a FixedPoint value, which is exact if the measure is (see Measure.isExact()) and rounded
+         *         from the double sum otherwise.
+         *
+         * @throws ArithmeticException Thrown when the sum of a measure that is not exact does not fit in a long.
+         */
+        public long getFixedPointSum(Measure measure) {
+            final int index = indexOf(group, measure);
+            if(measure.isExact()) {
+                return sums[index];
+            }
+            return FixedPoint.fromDouble(approximateSums[index]);
+        }
+
+        /**
+         * Get the smallest value of a measure.
+         *
+         * @param measure The measure.
+         *
+         * @return The minimum, or NaN if no record of the group has a value.
+         */
+        public double getMin(Measure measure) {
+            final int index = indexOf(group, measure);
+            if(valueCounts[index] == 0) {
+                return Double.NaN;
+            }
+            return measure.isExact() ? FixedPoint.toDouble(minimums[index]) : approximateMinimums[index];
+        }
+
+        /**
+         * Get the largest value of a measure.
+         *
+         * @param measure The measure.
+         *
+         * @return The maximum, or NaN if no record of the group has a value.
+         */
+        public double getMax(Measure measure) {
+            final int index = indexOf(group, measure);
+            if(valueCounts[index] == 0) {
+                return Double.NaN;
+            }
+            return measure.isExact() ? FixedPoint.toDouble(maximums[index]) : approximateMaximums[index];
+        }
+
+        /**
+         * Get the mean value of a measure.
+         *
+         * @param measure The measure.
+         *
+         * @return The mean, or NaN if no record of the group has a value.
+         */
+        public double getAverage(Measure measure) {
+            final int index = indexOf(group, measure);
+            return valueCounts[index] == 0 ? Double.NaN : getSum(measure) / valueCounts[index];
+        }
+
+        @Override
+        public String toString() {
+            return getKeys() + " count=" + getCount();
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.StringDictionary;
+import com.miovision.oss.awsbillingtools.parser.TagHandle;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
+
+/**
+ * A property of a detailed line item that records are grouped by.
+ *
+ * <p>Every dimension maps a record to an int key component. String dimensions use dictionary codes and time
+ * dimensions use whole hours, days or calendar months since the epoch, so group keys never hold objects. Column and
+ * tag dimensions are equal to any other dimension of the same column or tag name.
+ */
+public abstract class Dimension {
+    public static final Dimension PAYER_ACCOUNT = column(DetailedLineItemColumn.PAYER_ACCOUNT_ID);
+    public static final Dimension LINKED_ACCOUNT = column(DetailedLineItemColumn.LINKED_ACCOUNT_ID);
+    public static final Dimension PRODUCT = column(DetailedLineItemColumn.PRODUCT_NAME);
+    public static final Dimension USAGE_TYPE = column(DetailedLineItemColumn.USAGE_TYPE);
+    public static final Dimension OPERATION = column(DetailedLineItemColumn.OPERATION);
+    public static final Dimension AVAILABILITY_ZONE = column(DetailedLineItemColumn.AVAILABILITY_ZONE);
+    public static final Dimension USAGE_HOUR = new TimeDimension("UsageHour", 3600000L);
+    public static final Dimension USAGE_DAY = new TimeDimension("UsageDay", 86400000L);
+    public static final Dimension USAGE_MONTH = new MonthDimension("UsageMonth");
+
+    private final String name;
+
+    Dimension(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Create a dimension that groups by a fixed column.
+     *
+     * @param column The column.
+     *
+     * @return The dimension.
+     */
+    public static Dimension column(DetailedLineItemColumn column) {
+        return new ColumnDimension(column);
+    }
+
+    /**
+     * Create a dimension that groups by a user tag. Records of files without the tag are grouped under a null key.
+     *
+     * @param tagName The tag name, e.g. {@code user:Environment}.
+     *
+     * @return The dimension.
+     */
+    public static Dimension tag(String tagName) {
+        return new TagDimension(tagName);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the column of a column dimension.
+     *
+     * @return The column, or null for tag and time dimensions.
+     */
+    public DetailedLineItemColumn getColumn() {
+        return null;
+    }
+
+    /**
+     * Get the key component of a record.
+     */
+    abstract int encode(DetailedLineItem record, KeyEncoder encoder);
+
+    /**
+     * Get the value of a key component.
+     */
+    abstract Object decode(int key, StringDictionary keys);
+
+    /**
+     * Get the value of a record without encoding it, for summaries that only keep some of the values they see.
+     */
+    abstract Object getValue(DetailedLineItem record);
+
+    /**
+     * Translate a key component of another aggregation into the code space of this one.
+     */
+    int translate(int key, StringDictionary sourceKeys, KeyEncoder encoder) {
+        return key == GroupKeyTable.NO_KEY ? key : encoder.encode(sourceKeys.get(key));
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static final class ColumnDimension extends Dimension {
+        private final DetailedLineItemColumn column;
+
+        ColumnDimension(DetailedLineItemColumn column) {
+            super(column.getHeaderName());
+            this.column = column;
+        }
+
+        @Override
+        public DetailedLineItemColumn getColumn() {
+            return column;
+        }
+
+        @Override
+        int encode(DetailedLineItem record, KeyEncoder encoder) {
+            final int code = record.getDictionaryCode(column);
+            return code == StringDictionary.NOT_ENCODED
+                    ? encoder.encode(record.get(column))
+                    : encoder.encode(record.getDictionary(), code);
+        }
+
+        @Override
+        Object decode(int key, StringDictionary keys) {
+            return key == GroupKeyTable.NO_KEY ? null : keys.get(key);
+        }
+
+        @Override
+        Object getValue(DetailedLineItem record) {
+            return record.get(column);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ColumnDimension && ((ColumnDimension) other).column == column;
+        }
+
+        @Override
+        public int hashCode() {
+            return column.hashCode();
+        }
+    }
+
+    private static final class TagDimension extends Dimension {
+        private final TagHandle tagHandle;
+
+        TagDimension(String tagName) {
+            super(tagName);
+            this.tagHandle = TagHandle.of(tagName);
+        }
+
+        @Override
+        int encode(DetailedLineItem record, KeyEncoder encoder) {
+            final int code = record.getTagDictionaryCode(tagHandle);
+            return code == StringDictionary.NOT_ENCODED
+                    ? encoder.encode(record.getTag(tagHandle))
+                    : encoder.encode(record.getDictionary(), code);
+        }
+
+        @Override
+        Object decode(int key, StringDictionary keys) {
+            return key == GroupKeyTable.NO_KEY ? null : keys.get(key);
+        }
+
+        @Override
+        Object getValue(DetailedLineItem record) {
+            return record.getTag(tagHandle);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TagDimension && ((TagDimension) other).getName().equals(getName());
+        }
+
+        @Override
+        public int hashCode() {
+            return getName().hashCode();
+        }
+    }
+
+    private static final class TimeDimension extends Dimension {
+        private final long unitMillis;
+
+        TimeDimension(String name, long unitMillis) {
+            super(name);
+            this.unitMillis = unitMillis;
+        }
+
+        @Override
+        int encode(DetailedLineItem record, KeyEncoder encoder) {
+            final long millis = record.getUsageStartMillis();
+            return millis == DetailedLineItem.NO_TIMESTAMP
+                    ? GroupKeyTable.NO_KEY
+                    : (int) Math.floorDiv(millis, unitMillis);
+        }
+
+        @Override
+        Object decode(int key, StringDictionary keys) {
+            return key == GroupKeyTable.NO_KEY ? null : new DateTime(key * unitMillis, DateTimeZone.UTC);
+        }
+
+        @Override
+        Object getValue(DetailedLineItem record) {
+            return decode(encode(record, null), null);
+        }
+
+        @Override
+        int translate(int key, StringDictionary sourceKeys, KeyEncoder encoder) {
+            return key;
+        }
+    }
+
+    private static final class MonthDimension extends Dimension {
+        private static final ISOChronology CHRONOLOGY = ISOChronology.getInstanceUTC();
+        private static final int EPOCH_YEAR = 1970;
+        private static final int MONTHS_PER_YEAR = 12;
+
+        MonthDimension(String name) {
+            super(name);
+        }
+
+        @Override
+        int encode(DetailedLineItem record, KeyEncoder encoder) {
+            final long millis = record.getUsageStartMillis();
+            if(millis == DetailedLineItem.NO_TIMESTAMP) {
+                return GroupKeyTable.NO_KEY;
+            }
+            final int year = CHRONOLOGY.year().get(millis);
+            final int month = CHRONOLOGY.monthOfYear().get(millis);
+            return (year - EPOCH_YEAR) * MONTHS_PER_YEAR + month - 1;
+        }
+
+        @Override
+        Object decode(int key, StringDictionary keys) {
+            if(key == GroupKeyTable.NO_KEY) {
+                return null;
+            }
+            final int year = EPOCH_YEAR + Math.floorDiv(key, MONTHS_PER_YEAR);
+            final int month = Math.floorMod(key, MONTHS_PER_YEAR) + 1;
+            return new DateTime(year, month, 1, 0, 0, DateTimeZone.UTC);
+        }
+
+        @Override
+        Object getValue(DetailedLineItem record) {
+            return decode(encode(record, null), null);
+        }
+
+        @Override
+        int translate(int key, StringDictionary sourceKeys, KeyEncoder encoder) {
+            return key;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * An immutable description of an approximate count of the distinct values of one dimension, grouped by others.
+ *
+ * <p>Example: the number of distinct resources each linked account ran, serialized per account so that months can be
+ * merged into a yearly answer later.
+ * <pre>
+ * DistinctCount distinctCount = DistinctCount.of(Dimension.column(DetailedLineItemColumn.RESOURCE_ID),
+ *         Dimension.LINKED_ACCOUNT);
+ * for(DistinctCounts.Group group : distinctCount.aggregate(parser.parse(inputStream).parallel()).getGroups()) {
+ *     store.put(group.getKey(0), group.getSketch().toByteArray());
+ * }
+ * </pre>
+ */
+public final class DistinctCount {
+    private final Dimension counted;
+    private final List<Dimension> dimensions;
+    private final int precision;
+
+    private DistinctCount(Dimension counted, List<Dimension> dimensions, int precision) {
+        this.counted = counted;
+        this.dimensions = dimensions;
+        this.precision = precision;
+    }
+
+    /**
+     * Create a distinct count with sketches of the default precision.
+     *
+     * @param counted The dimension whose distinct values are counted. Records without a value are not counted.
+     * @param dimensions The dimensions to group by, in key order.
+     *
+     * @return The distinct count.
+     */
+    public static DistinctCount of(Dimension counted, Dimension... dimensions) {
+        return new DistinctCount(
+                counted,
+                Collections.unmodifiableList(Arrays.asList(dimensions.clone())),
+                HyperLogLog.DEFAULT_PRECISION);
+    }
+
+    /**
+     * Create a copy of this distinct count with sketches of another precision.
+     *
+     * @param precision The HyperLogLog precision.
+     *
+     * @return The new distinct count.
+     */
+    public DistinctCount withPrecision(int precision) {
+        HyperLogLog.checkPrecision(precision);
+        return new DistinctCount(counted, dimensions, precision);
+    }
+
+    public Dimension getCounted() {
+        return counted;
+    }
+
+    public List<Dimension> getDimensions() {
+        return dimensions;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Create empty distinct counts.
+     *
+     * @return The distinct counts.
+     */
+    public DistinctCounts newDistinctCounts() {
+        return new DistinctCounts(this);
+    }
+
+    /**
+     * Create a collector that counts a stream. Parallel streams count into one DistinctCounts per worker, which are
+     * merged at the end.
+     *
+     * @return The collector.
+     */
+    public Collector<DetailedLineItem, ?, DistinctCounts> toCollector() {
+        return Collector.of(
+                this::newDistinctCounts,
+                DistinctCounts::add,
+                DistinctCounts::merge,
+                Collector.Characteristics.UNORDERED,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Count the distinct values of a stream of records.
+     *
+     * @param records The records.
+     *
+     * @return The distinct counts.
+     */
+    public DistinctCounts aggregate(Stream<? extends DetailedLineItem> records) {
+        return records.collect(toCollector());
+    }
+}
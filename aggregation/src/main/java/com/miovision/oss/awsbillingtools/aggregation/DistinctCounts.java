@@ -0,0 +1,172 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The mutable result of a DistinctCount over detailed line items: one HyperLogLog sketch per group.
+ *
+ * <p>Like an Aggregation, distinct counts are not thread safe; parallel streams count into one instance per worker
+ * and merge them when the workers finish.
+ */
+public final class DistinctCounts {
+    private final DistinctCount distinctCount;
+    private final Dimension counted;
+    private final GroupKeys groupKeys;
+    private final List<HyperLogLog> sketches = new ArrayList<>();
+
+    DistinctCounts(DistinctCount distinctCount) {
+        this.distinctCount = distinctCount;
+        this.counted = distinctCount.getCounted();
+        this.groupKeys = new GroupKeys(distinctCount.getDimensions());
+    }
+
+    public DistinctCount getDistinctCount() {
+        return distinctCount;
+    }
+
+    /**
+     * Get the number of groups.
+     *
+     * @return The number of groups.
+     */
+    public int size() {
+        return groupKeys.size();
+    }
+
+    /**
+     * Add the counted value of a record to the sketch of its group. Records without a value are skipped.
+     *
+     * @param record The record.
+     */
+    public void add(DetailedLineItem record) {
+        final Object value = counted.getValue(record);
+        if(value == null) {
+            return;
+        }
+        final String string = value.toString();
+        if(string.isEmpty()) {
+            return;
+        }
+
+        sketch(groupKeys.group(record)).add(string);
+    }
+
+    /**
+     * Merge the groups of other distinct counts of the same DistinctCount into these.
+     *
+     * @param other The other distinct counts, which are left unchanged.
+     *
+     * @return These distinct counts.
+     */
+    public DistinctCounts merge(DistinctCounts other) {
+        if(other.distinctCount != distinctCount) {
+            throw new IllegalArgumentException("Only distinct counts of the same DistinctCount can be merged");
+        }
+
+        for(int otherGroup = 0; otherGroup < other.size(); ++otherGroup) {
+            sketch(groupKeys.group(other.groupKeys, otherGroup)).merge(other.sketches.get(otherGroup));
+        }
+        return this;
+    }
+
+    /**
+     * Get the groups.
+     *
+     * @return Views of the groups in the order they were first seen. The views reflect later changes.
+     */
+    public List<Group> getGroups() {
+        final List<Group> groups = new ArrayList<>(size());
+        for(int group = 0; group < size(); ++group) {
+            groups.add(new Group(group));
+        }
+        return Collections.unmodifiableList(groups);
+    }
+
+    private HyperLogLog sketch(int group) {
+        if(group == sketches.size()) {
+            sketches.add(new HyperLogLog(distinctCount.getPrecision()));
+        }
+        return sketches.get(group);
+    }
+
+    /**
+     * A view of one group of distinct counts.
+     */
+    public final class Group {
+        private final int group;
+
+        Group(int group) {
+            this.group = group;
+        }
+
+        /**
+         * Get a key component.
+         *
+         * @param dimension The index of the dimension in the DistinctCount.
+         *
+         * @return The value: a String for column and tag dimensions, a DateTime for time dimensions, or null if the
+         *         records of the group have no value.
+         */
+        public Object getKey(int dimension) {
+            return groupKeys.getKey(group, dimension);
+        }
+
+        public Object getKey(Dimension dimension) {
+            return groupKeys.getKey(group, dimension);
+        }
+
+        public List<Object> getKeys() {
+            return groupKeys.getKeys(group);
+        }
+
+        /**
+         * Get the sketch of the group, which can be serialized and merged with sketches of other periods.
+         *
+         * @return The live sketch.
+         */
+        public HyperLogLog getSketch() {
+            return sketches.get(group);
+        }
+
+        /**
+         * Estimate the number of distinct values in the group.
+         *
+         * @return The estimate.
+         */
+        public long getEstimate() {
+            return getSketch().estimate();
+        }
+
+        @Override
+        public String toString() {
+            return getKeys() + " distinct=" + getEstimate();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import org.joda.time.DateTime;
+
+/**
+ * The length of the periods that a Rollup summarizes hourly records into.
+ */
+public enum Granularity {
+    DAY(Dimension.USAGE_DAY, "DailyRollup") {
+        @Override
+        public DateTime getPeriodEnd(DateTime periodStart) {
+            return periodStart.plusDays(1);
+        }
+    },
+    MONTH(Dimension.USAGE_MONTH, "MonthlyRollup") {
+        @Override
+        public DateTime getPeriodEnd(DateTime periodStart) {
+            return periodStart.plusMonths(1);
+        }
+    };
+
+    private final Dimension dimension;
+    private final String recordType;
+
+    Granularity(Dimension dimension, String recordType) {
+        this.dimension = dimension;
+        this.recordType = recordType;
+    }
+
+    /**
+     * Get the time dimension that groups records into periods of this granularity.
+     *
+     * @return The dimension.
+     */
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Get the record type of summary records of this granularity.
+     *
+     * @return The record type, e.g. {@code DailyRollup}.
+     */
+    public String getRecordType() {
+        return recordType;
+    }
+
+    /**
+     * Get the exclusive end of a period.
+     *
+     * @param periodStart The start of the period.
+     *
+     * @return The end of the period.
+     */
+    public abstract DateTime getPeriodEnd(DateTime periodStart);
+}
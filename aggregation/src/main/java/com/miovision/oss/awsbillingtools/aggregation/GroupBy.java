@@ -0,0 +1,126 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * An immutable description of a multi-dimension group-by over detailed line items.
+ *
+ * <p>Example: daily cost per linked account and team.
+ * <pre>
+ * GroupBy groupBy = GroupBy.of(Dimension.LINKED_ACCOUNT, Dimension.tag("user:Team"), Dimension.USAGE_DAY)
+ *         .withMeasures(Measure.COST);
+ * Aggregation aggregation = groupBy.aggregate(parser.parse(inputStream).parallel());
+ * </pre>
+ *
+ * <p>Records that were dictionary encoded by the parser are grouped by their codes, so sharing the parser's
+ * dictionary between files avoids hashing repeated values altogether.
+ */
+public final class GroupBy {
+    private final List<Dimension> dimensions;
+    private final Set<Measure> measures;
+
+    private GroupBy(List<Dimension> dimensions, Set<Measure> measures) {
+        this.dimensions = dimensions;
+        this.measures = measures;
+    }
+
+    /**
+     * Create a group-by that aggregates every measure.
+     *
+     * @param dimensions The dimensions, in key order. No dimensions aggregates all records into one group.
+     *
+     * @return The group-by.
+     */
+    public static GroupBy of(Dimension... dimensions) {
+        return new GroupBy(
+                Collections.unmodifiableList(Arrays.asList(dimensions.clone())),
+                Collections.unmodifiableSet(EnumSet.allOf(Measure.class)));
+    }
+
+    /**
+     * Create a copy of this group-by that only aggregates some measures. Record counts are always kept.
+     *
+     * @param measures The measures.
+     *
+     * @return The new group-by.
+     */
+    public GroupBy withMeasures(Measure... measures) {
+        final Set<Measure> measureSet = EnumSet.noneOf(Measure.class);
+        Collections.addAll(measureSet, measures);
+        return new GroupBy(dimensions, Collections.unmodifiableSet(measureSet));
+    }
+
+    public List<Dimension> getDimensions() {
+        return dimensions;
+    }
+
+    public Set<Measure> getMeasures() {
+        return measures;
+    }
+
+    /**
+     * Create an empty aggregation.
+     *
+     * @return The aggregation.
+     */
+    public Aggregation newAggregation() {
+        return new Aggregation(this);
+    }
+
+    /**
+     * Create a collector that aggregates a stream. Parallel streams aggregate into one Aggregation per worker, which
+     * are merged at the end.
+     *
+     * @return The collector.
+     */
+    public Collector<DetailedLineItem, ?, Aggregation> toCollector() {
+        return Collector.of(
+                this::newAggregation,
+                Aggregation::add,
+                Aggregation::merge,
+                Collector.Characteristics.UNORDERED,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Aggregate a stream of records.
+     *
+     * @param records The records.
+     *
+     * @return The aggregation.
+     */
+    public Aggregation aggregate(Stream<? extends DetailedLineItem> records) {
+        return records.collect(toCollector());
+    }
+}
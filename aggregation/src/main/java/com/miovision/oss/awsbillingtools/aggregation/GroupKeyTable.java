@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table from fixed width int keys to dense group numbers.
+ *
+ * <p>Keys are stored back to back in one int array in group order, and the table itself only holds group numbers,
+ * so neither lookups nor inserts allocate. Tables are not thread safe.
+ */
+final class GroupKeyTable {
+    /**
+     * The key component of a missing value.
+     */
+    static final int NO_KEY = Integer.MIN_VALUE;
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int width;
+    private int[] keys;
+    private int[] hashes;
+    private int[] slots = newSlots(INITIAL_CAPACITY);
+    private int size;
+
+    GroupKeyTable(int width) {
+        this.width = width;
+        this.keys = new int[INITIAL_CAPACITY * Math.max(width, 1)];
+        this.hashes = new int[INITIAL_CAPACITY];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get a key component of a group.
+     */
+    int getKey(int group, int component) {
+        return keys[group * width + component];
+    }
+
+    /**
+     * Get the group of a key, adding a new group if the key has not been seen.
+     *
+     * @param key The key, which is copied if it is added.
+     *
+     * @return The group number. New groups are numbered consecutively from zero.
+     */
+    int findOrInsert(int[] key) {
+        final int hash = hash(key);
+        final int mask = slots.length - 1;
+        int slot = hash & mask;
+        for(int group = slots[slot]; group != EMPTY; group = slots[slot]) {
+            if(hashes[group] == hash && keyEquals(group, key)) {
+                return group;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        final int group = size++;
+        if(group == hashes.length) {
+            hashes = Arrays.copyOf(hashes, group * 2);
+            keys = Arrays.copyOf(keys, group * 2 * Math.max(width, 1));
+        }
+        hashes[group] = hash;
+        System.arraycopy(key, 0, keys, group * width, width);
+        slots[slot] = group;
+        if(2 * size > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return group;
+    }
+
+    private boolean keyEquals(int group, int[] key) {
+        final int offset = group * width;
+        for(int i = 0; i < width; ++i) {
+            if(keys[offset + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        slots = newSlots(capacity);
+        final int mask = capacity - 1;
+        for(int group = 0; group < size; ++group) {
+            int slot = hashes[group] & mask;
+            while(slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = group;
+        }
+    }
+
+    private int hash(int[] key) {
+        int hash = 0;
+        for(int i = 0; i < width; ++i) {
+            hash = (hash + key[i]) * 0x9E3779B9;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int[] newSlots(int capacity) {
+        final int[] slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+}
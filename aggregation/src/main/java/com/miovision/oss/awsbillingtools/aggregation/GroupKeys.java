@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The group keys of an Aggregation, DistinctCounts or QuantileSketches: the grouped dimensions, the encoder of their
+ * string components and the table that numbers the distinct keys.
+ *
+ * <p>Groups are numbered consecutively from zero in the order they are first seen, so owners keep their per-group
+ * state in arrays or lists indexed by group number and only have to grow them when a new number comes back.
+ */
+final class GroupKeys {
+    private final Dimension[] dimensions;
+    private final KeyEncoder encoder = new KeyEncoder();
+    private final GroupKeyTable table;
+    private final int[] key;
+
+    GroupKeys(List<Dimension> dimensions) {
+        this.dimensions = dimensions.toArray(new Dimension[0]);
+        this.table = new GroupKeyTable(this.dimensions.length);
+        this.key = new int[this.dimensions.length];
+    }
+
+    int size() {
+        return table.size();
+    }
+
+    /**
+     * Get the group of a record, adding a new group if its key has not been seen.
+     */
+    int group(DetailedLineItem record) {
+        for(int i = 0; i < dimensions.length; ++i) {
+            key[i] = dimensions[i].encode(record, encoder);
+        }
+        return table.findOrInsert(key);
+    }
+
+    /**
+     * Get the group with the key of a group of other group keys over the same dimensions, adding a new group if the
+     * key has not been seen.
+     */
+    int group(GroupKeys other, int otherGroup) {
+        for(int i = 0; i < dimensions.length; ++i) {
+            key[i] = translate(dimensions[i], other.table.getKey(otherGroup, i), other);
+        }
+        return table.findOrInsert(key);
+    }
+
+    /**
+     * Encode the value of a dimension that is not grouped by, such as a bucket, with the encoder of the groups.
+     */
+    int encode(Dimension dimension, DetailedLineItem record) {
+        return dimension.encode(record, encoder);
+    }
+
+    /**
+     * Translate a code that other group keys encoded into the code space of these.
+     */
+    int translate(Dimension dimension, int otherCode, GroupKeys other) {
+        return dimension.translate(otherCode, other.encoder.getKeys(), encoder);
+    }
+
+    /**
+     * Get a key component of a group.
+     *
+     * @return The value: a String for column and tag dimensions, a DateTime for time dimensions, or null if the
+     *         records of the group have no value.
+     */
+    Object getKey(int group, int dimension) {
+        return dimensions[dimension].decode(table.getKey(group, dimension), encoder.getKeys());
+    }
+
+    Object getKey(int group, Dimension dimension) {
+        return getKey(group, indexOf(dimension));
+    }
+
+    List<Object> getKeys(int group) {
+        final List<Object> keys = new ArrayList<>(dimensions.length);
+        for(int i = 0; i < dimensions.length; ++i) {
+            keys.add(getKey(group, i));
+        }
+        return keys;
+    }
+
+    private int indexOf(Dimension dimension) {
+        for(int i = 0; i < dimensions.length; ++i) {
+            if(dimensions[i].equals(dimension)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("The dimension " + dimension + " is not grouped by");
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import com.miovision.oss.awsbillingtools.parser.StringDictionary;
+
+/**
+ * Maps the string components of group keys to dense codes that are local to one Aggregation.
+ *
+ * <p>Records that were dictionary encoded by the parser carry codes from the parser's dictionary. Those codes are
+ * translated through an array indexed by source code, so a value is only hashed the first time it is seen.
+ */
+final class KeyEncoder {
+    private static final int[] NO_TRANSLATIONS = new int[0];
+    private final StringDictionary keys = new StringDictionary(Integer.MAX_VALUE);
+    private StringDictionary source;
+    private int[] translations = NO_TRANSLATIONS;
+
+    StringDictionary getKeys() {
+        return keys;
+    }
+
+    /**
+     * Encode a value.
+     *
+     * @return The local code, or GroupKeyTable.NO_KEY if the value is null.
+     */
+    int encode(String value) {
+        return value == null ? GroupKeyTable.NO_KEY : keys.intern(value);
+    }
+
+    /**
+     * Encode a value that a record carries as a code of another dictionary.
+     */
+    int encode(StringDictionary sourceDictionary, int sourceCode) {
+        if(sourceDictionary != source) {
+            source = sourceDictionary;
+            translations = NO_TRANSLATIONS;
+        }
+        if(sourceCode >= translations.length) {
+            final int[] grownTranslations = new int[Math.max(sourceCode + 1, translations.length * 2)];
+            System.arraycopy(translations, 0, grownTranslations, 0, translations.length);
+            translations = grownTranslations;
+        }
+
+        // Translations are stored off by one so that a freshly allocated array means "not translated yet".
+        final int translation = translations[sourceCode] - 1;
+        if(translation >= 0) {
+            return translation;
+        }
+        final int code = keys.intern(sourceDictionary.get(sourceCode));
+        translations[sourceCode] = code + 1;
+        return code;
+    }
+}
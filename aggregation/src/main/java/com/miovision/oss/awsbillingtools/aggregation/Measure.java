@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+
+/**
+ * A numeric column of a detailed line item that can be aggregated.
+ *
+ * <p>Only cost is decoded and summed exactly. Usage quantities count things like S3 requests, whose values and monthly
+ * sums can pass the 9.2 billion a FixedPoint long holds, so they and rates are decoded and summed as doubles.
+ */
+public enum Measure {
+    USAGE_QUANTITY(false) {
+        @Override
+        long getValue(DetailedLineItem record) {
+            return record.getUsageQuantityFixedPoint();
+        }
+
+        @Override
+        double getDoubleValue(DetailedLineItem record) {
+            return record.getUsageQuantityValue();
+        }
+    },
+    RATE(false) {
+        @Override
+        long getValue(DetailedLineItem record) {
+            return record.getRateFixedPoint();
+        }
+
+        @Override
+        double getDoubleValue(DetailedLineItem record) {
+            return record.getRateValue();
+        }
+    },
+    COST(true) {
+        @Override
+        long getValue(DetailedLineItem record) {
+            return record.getCostFixedPoint();
+        }
+
+        @Override
+        double getDoubleValue(DetailedLineItem record) {
+            return record.getCostValue();
+        }
+    };
+
+    private final boolean exact;
+
+    Measure(boolean exact) {
+        this.exact = exact;
+    }
+
+    /**
+     * Check whether sums of this measure are exact FixedPoint longs rather than doubles.
+     *
+     * @return True if sums are exact.
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Get the value of this measure as an exact fixed-point number.
+     *
+     * @return The value, or FixedPoint.NO_VALUE if the record does not have one.
+     *
+     * @throws ArithmeticException Thrown when the value does not fit in a FixedPoint long, which only measures that
+     *                             are not exact can reach.
+     */
+    abstract long getValue(DetailedLineItem record);
+
+    /**
+     * Get the value of this measure as a double, which is how measures that are not exact are aggregated.
+     *
+     * @return The value, or NaN if the record does not have one.
+     */
+    abstract double getDoubleValue(DetailedLineItem record);
+}
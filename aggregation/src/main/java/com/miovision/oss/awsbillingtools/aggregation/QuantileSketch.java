@@ -0,0 +1,377 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import com.miovision.oss.awsbillingtools.parser.FixedPoint;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A KLL sketch that estimates quantiles of a stream of FixedPoint values, or of doubles, in a single pass.
+ *
+ * <p>Values are kept in a stack of compactors. Level h holds values that each stand for 2^h original values, and when
+ * the sketch is full the lowest overfull level is sorted and every other value is promoted to the next level. Lower
+ * levels get geometrically smaller capacities, so a sketch of parameter k keeps O(k) values and estimates ranks to
+ * within about 1.65% for the default k of 200, independently of the number of values added.
+ *
+ * <p>Sketches merge by concatenating their levels and compacting again, so sketches of files, months and parallel
+ * workers can be combined, and toByteArray lets them be stored between runs.
+ *
+ * <p>Sketches created with ofDoubles keep doubles instead, for measures that are not exact (see Measure.isExact())
+ * and can exceed the fixed-point range. Their values are stored as longs whose order matches the order of the
+ * doubles, so both kinds of sketch compact and merge the same way.
+ */
+public final class QuantileSketch {
+    public static final int DEFAULT_K = 200;
+    public static final int MIN_K = 8;
+    private static final byte FIXED_POINT_FORMAT = 1;
+    private static final byte DOUBLE_FORMAT = 2;
+    private static final double CAPACITY_RATIO = 2.0 / 3.0;
+    private static final long INITIAL_SEED = 0x9e3779b97f4a7c15L;
+
+    private final int k;
+    private final boolean doubles;
+    private long[][] levels = new long[0][];
+    private int[] levelSizes = new int[0];
+    private int size;
+    private int maxSize;
+    private long count;
+    private long minimum = Long.MAX_VALUE;
+    private long maximum = Long.MIN_VALUE;
+    private long seed = INITIAL_SEED;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Create an empty sketch.
+     *
+     * @param k The accuracy parameter, at least MIN_K. The sketch keeps about 3k values.
+     */
+    public QuantileSketch(int k) {
+        this(k, false);
+    }
+
+    private QuantileSketch(int k, boolean doubles) {
+        this.k = checkK(k);
+        this.doubles = doubles;
+        grow();
+    }
+
+    /**
+     * Create an empty sketch of doubles.
+     *
+     * @param k The accuracy parameter, at least MIN_K. The sketch keeps about 3k values.
+     *
+     * @return The sketch.
+     */
+    public static QuantileSketch ofDoubles(int k) {
+        return new QuantileSketch(k, true);
+    }
+
+    /**
+     * Read a sketch written by toByteArray.
+     *
+     * @param bytes The serialized sketch.
+     *
+     * @return The sketch.
+     */
+    public static QuantileSketch fromByteArray(byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final byte version = buffer.get();
+        if(version != FIXED_POINT_FORMAT && version != DOUBLE_FORMAT) {
+            throw new IllegalArgumentException("Unsupported sketch version " + version);
+        }
+
+        final QuantileSketch sketch = new QuantileSketch(buffer.getInt(), version == DOUBLE_FORMAT);
+        sketch.count = buffer.getLong();
+        sketch.minimum = buffer.getLong();
+        sketch.maximum = buffer.getLong();
+        final int levelCount = buffer.getInt();
+        while(sketch.levels.length < levelCount) {
+            sketch.grow();
+        }
+        for(int level = 0; level < levelCount; ++level) {
+            final int levelSize = buffer.getInt();
+            sketch.ensureCapacity(level, levelSize);
+            for(int i = 0; i < levelSize; ++i) {
+                sketch.levels[level][i] = buffer.getLong();
+            }
+            sketch.levelSizes[level] = levelSize;
+            sketch.size += levelSize;
+        }
+        return sketch;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Get the number of values that were added.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Add a value.
+     *
+     * @param value The value as a FixedPoint number. FixedPoint.NO_VALUE is ignored.
+     */
+    public void add(long value) {
+        if(value != FixedPoint.NO_VALUE) {
+            addEncoded(doubles ? encode(FixedPoint.toDouble(value)) : value);
+        }
+    }
+
+    /**
+     * Add a double value.
+     *
+     * @param value The value. NaN is ignored.
+     *
+     * @throws ArithmeticException Thrown when the sketch keeps FixedPoint values and the value does not fit in one.
+     */
+    public void addDouble(double value) {
+        if(!Double.isNaN(value)) {
+            addEncoded(doubles ? encode(value) : FixedPoint.fromDouble(value));
+        }
+    }
+
+    private void addEncoded(long value) {
+        ++count;
+        minimum = Math.min(minimum, value);
+        maximum = Math.max(maximum, value);
+        append(0, value);
+        ++size;
+        if(size >= maxSize) {
+            compress();
+        }
+    }
+
+    /**
+     * Merge another sketch into this one.
+     *
+     * @param other The other sketch, which is left unchanged.
+     *
+     * @return This sketch.
+     */
+    public QuantileSketch merge(QuantileSketch other) {
+        if(other.k != k || other.doubles != doubles) {
+            throw new IllegalArgumentException("Only sketches with the same k and kind of values can be merged");
+        }
+        while(levels.length < other.levels.length) {
+            grow();
+        }
+        for(int level = 0; level < other.levels.length; ++level) {
+            for(int i = 0; i < other.levelSizes[level]; ++i) {
+                append(level, other.levels[level][i]);
+            }
+            size += other.levelSizes[level];
+        }
+        count += other.count;
+        minimum = Math.min(minimum, other.minimum);
+        maximum = Math.max(maximum, other.maximum);
+        while(size >= maxSize) {
+            compress();
+        }
+        return this;
+    }
+
+    public double getQuantile(double fraction) {
+        final long quantile = getEncodedQuantile(fraction);
+        if(!doubles) {
+            return FixedPoint.toDouble(quantile);
+        }
+        return quantile == FixedPoint.NO_VALUE ? Double.NaN : decode(quantile);
+    }
+
+    /**
+     * Estimate a quantile.
+     *
+     * @param fraction The fraction of values that are at most the quantile, from 0 to 1, e.g. 0.95 for p95.
+     *
+     * @return The quantile as a FixedPoint value, or FixedPoint.NO_VALUE if the sketch is empty.
+     *
+     * @throws ArithmeticException Thrown when the sketch keeps doubles and the quantile does not fit in a FixedPoint.
+     */
+    public long getFixedPointQuantile(double fraction) {
+        final long quantile = getEncodedQuantile(fraction);
+        return doubles && quantile != FixedPoint.NO_VALUE ? FixedPoint.fromDouble(decode(quantile)) : quantile;
+    }
+
+    private long getEncodedQuantile(double fraction) {
+        if(fraction < 0.0 || fraction > 1.0) {
+            throw new IllegalArgumentException("The fraction must be between 0 and 1");
+        }
+        if(count == 0) {
+            return FixedPoint.NO_VALUE;
+        }
+        if(fraction == 0.0) {
+            return minimum;
+        }
+        if(fraction == 1.0) {
+            return maximum;
+        }
+
+        final long[] values = new long[size];
+        final long[] weights = new long[size];
+        int index = 0;
+        for(int level = 0; level < levels.length; ++level) {
+            for(int i = 0; i < levelSizes[level]; ++i) {
+                values[index] = levels[level][i];
+                weights[index++] = 1L << level;
+            }
+        }
+        final Integer[] order = new Integer[size];
+        for(int i = 0; i < size; ++i) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (first, second) -> Long.compare(values[first], values[second]));
+
+        final double target = fraction * count;
+        long weight = 0;
+        for(Integer i : order) {
+            weight += weights[i];
+            if(weight >= target) {
+                return values[i];
+            }
+        }
+        return maximum;
+    }
+
+    /**
+     * Serialize the sketch.
+     *
+     * @return The bytes, which fromByteArray reads back.
+     */
+    public byte[] toByteArray() {
+        final ByteBuffer buffer = ByteBuffer.allocate(
+                1 + Integer.BYTES + 3 * Long.BYTES + Integer.BYTES * (1 + levels.length) + Long.BYTES * size);
+        buffer.put(doubles ? DOUBLE_FORMAT : FIXED_POINT_FORMAT);
+        buffer.putInt(k);
+        buffer.putLong(count);
+        buffer.putLong(minimum);
+        buffer.putLong(maximum);
+        buffer.putInt(levels.length);
+        for(int level = 0; level < levels.length; ++level) {
+            buffer.putInt(levelSizes[level]);
+            for(int i = 0; i < levelSizes[level]; ++i) {
+                buffer.putLong(levels[level][i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Check that an accuracy parameter is supported.
+     *
+     * @return The parameter.
+     */
+    static int checkK(int k) {
+        if(k < MIN_K) {
+            throw new IllegalArgumentException("k must be at least " + MIN_K);
+        }
+        return k;
+    }
+
+    private int capacity(int level) {
+        final int depth = levels.length - level - 1;
+        return (int) Math.ceil(Math.pow(CAPACITY_RATIO, depth) * k) + 1;
+    }
+
+    private void grow() {
+        levels = Arrays.copyOf(levels, levels.length + 1);
+        levels[levels.length - 1] = new long[0];
+        levelSizes = Arrays.copyOf(levelSizes, levelSizes.length + 1);
+        maxSize = 0;
+        for(int level = 0; level < levels.length; ++level) {
+            maxSize += capacity(level);
+        }
+    }
+
+    private void append(int level, long value) {
+        ensureCapacity(level, levelSizes[level] + 1);
+        levels[level][levelSizes[level]++] = value;
+    }
+
+    private void ensureCapacity(int level, int capacity) {
+        if(levels[level].length < capacity) {
+            levels[level] = Arrays.copyOf(levels[level], Math.max(capacity, 2 * levels[level].length));
+        }
+    }
+
+    /**
+     * Compact the lowest overfull levels until the sketch fits again. A compaction sorts a level and promotes the
+     * values at either the odd or the even positions, chosen at random, to the next level. An odd value out stays.
+     */
+    private void compress() {
+        for(int level = 0; level < levels.length; ++level) {
+            if(levelSizes[level] >= capacity(level)) {
+                if(level + 1 == levels.length) {
+                    grow();
+                }
+                final long[] values = levels[level];
+                final int levelSize = levelSizes[level];
+                Arrays.sort(values, 0, levelSize);
+                final int offset = nextBit();
+                final int pairs = levelSize / 2;
+                for(int i = 0; i < pairs; ++i) {
+                    append(level + 1, values[2 * i + offset]);
+                }
+                if(levelSize % 2 == 1) {
+                    values[0] = values[levelSize - 1];
+                }
+                levelSizes[level] = levelSize % 2;
+                size -= pairs;
+                if(size < maxSize) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private int nextBit() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) (seed >>> 63);
+    }
+
+    /**
+     * Map a double to a long with the same order, so that negative values sort below positive ones.
+     */
+    private static long encode(double value) {
+        final long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    private static double decode(long value) {
+        return Double.longBitsToDouble(value ^ ((value >> 63) & Long.MAX_VALUE));
+    }
+}
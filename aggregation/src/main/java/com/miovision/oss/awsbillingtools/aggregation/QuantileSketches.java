@@ -0,0 +1,264 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.FixedPoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The mutable result of Quantiles over detailed line items: one QuantileSketch per group.
+ *
+ * <p>When the quantiles have a bucket dimension, bucket totals are kept in primitive arrays until the groups are read,
+ * so a bucket that is split between parallel workers or files of the same run is still sketched as one value. Like an
+ * Aggregation, exact measures are summed as overflow checked FixedPoint longs and the other measures as doubles,
+ * which are sketched with QuantileSketch.ofDoubles. Quantile sketches are not thread safe.
+ */
+public final class QuantileSketches {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int BUCKET_GROUP = 0;
+    private static final int BUCKET_CODE = 1;
+
+    private final Quantiles quantiles;
+    private final Measure measure;
+    private final boolean exact;
+    private final Dimension bucket;
+    private final GroupKeys groupKeys;
+    private final List<QuantileSketch> sketches = new ArrayList<>();
+    private final GroupKeyTable bucketTable = new GroupKeyTable(2);
+    private final int[] bucketKey = new int[2];
+    private long[] bucketSums = new long[INITIAL_CAPACITY];
+    private double[] approximateBucketSums = new double[INITIAL_CAPACITY];
+
+    QuantileSketches(Quantiles quantiles) {
+        this.quantiles = quantiles;
+        this.measure = quantiles.getMeasure();
+        this.exact = measure.isExact();
+        this.bucket = quantiles.getBucket();
+        this.groupKeys = new GroupKeys(quantiles.getDimensions());
+    }
+
+    public Quantiles getQuantiles() {
+        return quantiles;
+    }
+
+    /**
+     * Get the number of groups.
+     *
+     * @return The number of groups.
+     */
+    public int size() {
+        return groupKeys.size();
+    }
+
+    /**
+     * Add the value of a record to its group. Records without a value are skipped.
+     *
+     * @param record The record.
+     *
+     * @throws ArithmeticException Thrown when a bucket total of an exact measure overflows.
+     */
+    public void add(DetailedLineItem record) {
+        if(exact) {
+            final long value = measure.getValue(record);
+            if(value != FixedPoint.NO_VALUE) {
+                addValue(groupKeys.group(record), encodeBucket(record), value);
+            }
+        }
+        else {
+            final double value = measure.getDoubleValue(record);
+            if(!Double.isNaN(value)) {
+                addApproximateValue(groupKeys.group(record), encodeBucket(record), value);
+            }
+        }
+    }
+
+    /**
+     * Merge the groups of other quantile sketches of the same Quantiles into these.
+     *
+     * @param other The other quantile sketches, which are left unchanged.
+     *
+     * @return These quantile sketches.
+     *
+     * @throws ArithmeticException Thrown when a bucket total of an exact measure overflows.
+     */
+    public QuantileSketches merge(QuantileSketches other) {
+        if(other.quantiles != quantiles) {
+            throw new IllegalArgumentException("Only quantile sketches of the same Quantiles can be merged");
+        }
+
+        if(bucket == null) {
+            for(int otherGroup = 0; otherGroup < other.sketches.size(); ++otherGroup) {
+                sketch(groupKeys.group(other.groupKeys, otherGroup)).merge(other.sketches.get(otherGroup));
+            }
+            return this;
+        }
+
+        for(int otherBucket = 0; otherBucket < other.bucketTable.size(); ++otherBucket) {
+            final int group = groupKeys.group(other.groupKeys, other.bucketTable.getKey(otherBucket, BUCKET_GROUP));
+            final int bucketCode =
+                    groupKeys.translate(bucket, other.bucketTable.getKey(otherBucket, BUCKET_CODE), other.groupKeys);
+            if(exact) {
+                addValue(group, bucketCode, other.bucketSums[otherBucket]);
+            }
+            else {
+                addApproximateValue(group, bucketCode, other.approximateBucketSums[otherBucket]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Get the groups. With a bucket dimension, the sketches are built from the bucket totals on every call.
+     *
+     * @return Views of the groups in the order they were first seen.
+     */
+    public List<Group> getGroups() {
+        List<QuantileSketch> groupSketches = sketches;
+        if(bucket != null) {
+            groupSketches = new ArrayList<>(size());
+            for(int group = 0; group < size(); ++group) {
+                groupSketches.add(newSketch());
+            }
+            for(int i = 0; i < bucketTable.size(); ++i) {
+                final QuantileSketch sketch = groupSketches.get(bucketTable.getKey(i, BUCKET_GROUP));
+                if(exact) {
+                    sketch.add(bucketSums[i]);
+                }
+                else {
+                    sketch.addDouble(approximateBucketSums[i]);
+                }
+            }
+        }
+
+        final List<Group> groups = new ArrayList<>(size());
+        for(int group = 0; group < size(); ++group) {
+            groups.add(new Group(group, groupSketches.get(group)));
+        }
+        return Collections.unmodifiableList(groups);
+    }
+
+    private int encodeBucket(DetailedLineItem record) {
+        return bucket == null ? GroupKeyTable.NO_KEY : groupKeys.encode(bucket, record);
+    }
+
+    private void addValue(int group, int bucketCode, long value) {
+        if(bucket == null) {
+            sketch(group).add(value);
+        }
+        else {
+            final int index = bucketIndex(group, bucketCode);
+            bucketSums[index] = FixedPoint.add(bucketSums[index], value);
+        }
+    }
+
+    private void addApproximateValue(int group, int bucketCode, double value) {
+        if(bucket == null) {
+            sketch(group).addDouble(value);
+        }
+        else {
+            approximateBucketSums[bucketIndex(group, bucketCode)] += value;
+        }
+    }
+
+    private QuantileSketch sketch(int group) {
+        if(group == sketches.size()) {
+            sketches.add(newSketch());
+        }
+        return sketches.get(group);
+    }
+
+    private QuantileSketch newSketch() {
+        return exact ? new QuantileSketch(quantiles.getK()) : QuantileSketch.ofDoubles(quantiles.getK());
+    }
+
+    /**
+     * Get the index of the total of a bucket of a group, adding an empty total if the bucket has not been seen.
+     */
+    private int bucketIndex(int group, int bucketCode) {
+        bucketKey[BUCKET_GROUP] = group;
+        bucketKey[BUCKET_CODE] = bucketCode;
+        final int index = bucketTable.findOrInsert(bucketKey);
+        if(index == bucketSums.length) {
+            bucketSums = Arrays.copyOf(bucketSums, 2 * index);
+            approximateBucketSums = Arrays.copyOf(approximateBucketSums, 2 * index);
+        }
+        return index;
+    }
+
+    /**
+     * A view of one group of quantile sketches.
+     */
+    public final class Group {
+        private final int group;
+        private final QuantileSketch sketch;
+
+        Group(int group, QuantileSketch sketch) {
+            this.group = group;
+            this.sketch = sketch;
+        }
+
+        /**
+         * Get a key component.
+         *
+         * @param dimension The index of the dimension in the Quantiles.
+         *
+         * @return The value: a String for column and tag dimensions, a DateTime for time dimensions, or null if the
+         *         records of the group have no value.
+         */
+        public Object getKey(int dimension) {
+            return groupKeys.getKey(group, dimension);
+        }
+
+        public Object getKey(Dimension dimension) {
+            return groupKeys.getKey(group, dimension);
+        }
+
+        public List<Object> getKeys() {
+            return groupKeys.getKeys(group);
+        }
+
+        /**
+         * Get the sketch of the group, which can be serialized and merged with sketches of other files or months.
+         *
+         * @return The sketch.
+         */
+        public QuantileSketch getSketch() {
+            return sketch;
+        }
+
+        public double getQuantile(double fraction) {
+            return sketch.getQuantile(fraction);
+        }
+
+        @Override
+        public String toString() {
+            return getKeys() + " p50=" + getQuantile(0.5) + " p95=" + getQuantile(0.95);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * An immutable description of streaming quantile sketches of a measure, grouped by dimensions.
+ *
+ * <p>By default every record's value is added to the sketch of its group. With a bucket dimension, values are first
+ * summed per group and bucket and the bucket totals are sketched instead, so that quantiles describe, for example,
+ * the hourly spend of each account rather than the cost of single line items.
+ * <pre>
+ * Quantiles quantiles = Quantiles.of(Measure.COST, Dimension.LINKED_ACCOUNT).withBucket(Dimension.USAGE_HOUR);
+ * for(QuantileSketches.Group group : quantiles.aggregate(parser.parse(inputStream).parallel()).getGroups()) {
+ *     System.out.println(group.getKey(0) + " p95 hourly spend: " + group.getSketch().getQuantile(0.95));
+ * }
+ * </pre>
+ */
+public final class Quantiles {
+    private final Measure measure;
+    private final List<Dimension> dimensions;
+    private final Dimension bucket;
+    private final int k;
+
+    private Quantiles(Measure measure, List<Dimension> dimensions, Dimension bucket, int k) {
+        this.measure = measure;
+        this.dimensions = dimensions;
+        this.bucket = bucket;
+        this.k = k;
+    }
+
+    /**
+     * Create quantile sketches of the values of single records.
+     *
+     * @param measure The measure.
+     * @param dimensions The dimensions to group by, in key order.
+     *
+     * @return The quantiles.
+     */
+    public static Quantiles of(Measure measure, Dimension... dimensions) {
+        return new Quantiles(
+                measure,
+                Collections.unmodifiableList(Arrays.asList(dimensions.clone())),
+                null,
+                QuantileSketch.DEFAULT_K);
+    }
+
+    /**
+     * Create a copy of these quantiles that sketches the totals of buckets instead of single values.
+     *
+     * @param bucket The bucket dimension, typically Dimension.USAGE_HOUR or Dimension.USAGE_DAY.
+     *
+     * @return The new quantiles.
+     */
+    public Quantiles withBucket(Dimension bucket) {
+        return new Quantiles(measure, dimensions, bucket, k);
+    }
+
+    /**
+     * Create a copy of these quantiles with another sketch accuracy.
+     *
+     * @param k The KLL accuracy parameter.
+     *
+     * @return The new quantiles.
+     */
+    public Quantiles withK(int k) {
+        QuantileSketch.checkK(k);
+        return new Quantiles(measure, dimensions, bucket, k);
+    }
+
+    public Measure getMeasure() {
+        return measure;
+    }
+
+    public List<Dimension> getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Get the bucket dimension.
+     *
+     * @return The bucket dimension, or null if single values are sketched.
+     */
+    public Dimension getBucket() {
+        return bucket;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Create empty quantile sketches.
+     *
+     * @return The quantile sketches.
+     */
+    public QuantileSketches newQuantileSketches() {
+        return new QuantileSketches(this);
+    }
+
+    /**
+     * Create a collector that sketches a stream. Parallel streams sketch into one QuantileSketches per worker, which
+     * are merged at the end.
+     *
+     * @return The collector.
+     */
+    public Collector<DetailedLineItem, ?, QuantileSketches> toCollector() {
+        return Collector.of(
+                this::newQuantileSketches,
+                QuantileSketches::add,
+                QuantileSketches::merge,
+                Collector.Characteristics.UNORDERED,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Sketch a stream of records.
+     *
+     * @param records The records.
+     *
+     * @return The quantile sketches.
+     */
+    public QuantileSketches aggregate(Stream<? extends DetailedLineItem> records) {
+        return records.collect(toCollector());
+    }
+}
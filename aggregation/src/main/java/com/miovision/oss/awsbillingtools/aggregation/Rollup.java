@@ -0,0 +1,172 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * An immutable description of a rollup of hourly detailed line items into daily and monthly summary records.
+ *
+ * <p>Example: daily and monthly cost per linked account, product and team, indexed instead of the raw rows.
+ * <pre>
+ * Rollup rollup = Rollup.of(Dimension.LINKED_ACCOUNT, Dimension.PRODUCT, Dimension.tag("user:Team"));
+ * indexer.index(rollup.rollup(parser.parse(inputStream)));
+ * </pre>
+ *
+ * <p>Every granularity is a GroupBy with its time dimension in front of the configured dimensions, so memory is
+ * proportional to the number of summary records rather than the number of input rows. Records without a usage start
+ * date, such as invoice and account totals, are skipped so that they are not counted twice.
+ *
+ * <p>Summary records only measure COST, whose sums are exact, and USAGE_QUANTITY, whose sums are doubles that cannot
+ * overflow however large the period is (see Measure).
+ */
+public final class Rollup {
+    private final List<Dimension> dimensions;
+    private final Set<Granularity> granularities;
+    private final GroupBy[] groupBys;
+
+    private Rollup(List<Dimension> dimensions, Set<Granularity> granularities) {
+        this.dimensions = dimensions;
+        this.granularities = granularities;
+        this.groupBys = new GroupBy[granularities.size()];
+
+        int index = 0;
+        for(Granularity granularity : granularities) {
+            final Dimension[] keyDimensions = new Dimension[dimensions.size() + 1];
+            keyDimensions[0] = granularity.getDimension();
+            for(int i = 0; i < dimensions.size(); ++i) {
+                keyDimensions[i + 1] = dimensions.get(i);
+            }
+            groupBys[index++] = GroupBy.of(keyDimensions).withMeasures(Measure.COST, Measure.USAGE_QUANTITY);
+        }
+    }
+
+    /**
+     * Create a daily and monthly rollup.
+     *
+     * @param dimensions The dimensions that summary records are keyed by, in addition to their period.
+     *
+     * @return The rollup.
+     */
+    public static Rollup of(Dimension... dimensions) {
+        return new Rollup(
+                Collections.unmodifiableList(Arrays.asList(dimensions.clone())),
+                Collections.unmodifiableSet(EnumSet.allOf(Granularity.class)));
+    }
+
+    /**
+     * Create a copy of this rollup that only summarizes some granularities.
+     *
+     * @param granularities The granularities.
+     *
+     * @return The new rollup.
+     */
+    public Rollup withGranularities(Granularity... granularities) {
+        final Set<Granularity> granularitySet = EnumSet.noneOf(Granularity.class);
+        Collections.addAll(granularitySet, granularities);
+        return new Rollup(dimensions, Collections.unmodifiableSet(granularitySet));
+    }
+
+    public List<Dimension> getDimensions() {
+        return dimensions;
+    }
+
+    public Set<Granularity> getGranularities() {
+        return granularities;
+    }
+
+    /**
+     * Create a collector that rolls up a stream. Parallel streams roll up into separate aggregations per worker,
+     * which are merged at the end.
+     *
+     * @return The collector.
+     */
+    public Collector<DetailedLineItem, ?, List<RollupRecord>> toCollector() {
+        return Collector.of(
+                this::newAggregations,
+                Rollup::add,
+                Rollup::merge,
+                this::toRecords,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Roll up a stream of records. The input is consumed before the first summary record is returned.
+     *
+     * @param records The hourly records.
+     *
+     * @return The summary records, grouped by granularity.
+     */
+    public Stream<RollupRecord> rollup(Stream<? extends DetailedLineItem> records) {
+        return records.collect(toCollector()).stream();
+    }
+
+    private Aggregation[] newAggregations() {
+        final Aggregation[] aggregations = new Aggregation[groupBys.length];
+        for(int i = 0; i < groupBys.length; ++i) {
+            aggregations[i] = groupBys[i].newAggregation();
+        }
+        return aggregations;
+    }
+
+    private static void add(Aggregation[] aggregations, DetailedLineItem record) {
+        if(record.getUsageStartMillis() != DetailedLineItem.NO_TIMESTAMP) {
+            for(Aggregation aggregation : aggregations) {
+                aggregation.add(record);
+            }
+        }
+    }
+
+    private static Aggregation[] merge(Aggregation[] aggregations, Aggregation[] others) {
+        for(int i = 0; i < aggregations.length; ++i) {
+            aggregations[i].merge(others[i]);
+        }
+        return aggregations;
+    }
+
+    private List<RollupRecord> toRecords(Aggregation[] aggregations) {
+        int size = 0;
+        for(Aggregation aggregation : aggregations) {
+            size += aggregation.size();
+        }
+
+        final List<RollupRecord> records = new ArrayList<>(size);
+        int index = 0;
+        for(Granularity granularity : granularities) {
+            for(Aggregation.Group group : aggregations[index++].getGroups()) {
+                records.add(new RollupRecord(granularity, dimensions, group));
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import org.joda.time.DateTime;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A summary of the detailed line items of one period and one combination of rollup dimension values.
+ */
+public final class RollupRecord {
+    private static final char ID_SEPARATOR = '\u0000';
+
+    private final Granularity granularity;
+    private final List<Dimension> dimensions;
+    private final Aggregation.Group group;
+
+    RollupRecord(Granularity granularity, List<Dimension> dimensions, Aggregation.Group group) {
+        this.granularity = granularity;
+        this.dimensions = dimensions;
+        this.group = group;
+    }
+
+    /**
+     * Get a stable ID for the record. Rolling up the same period again gives the same ID, so re-indexing a billing
+     * file that AWS has rewritten replaces the summary records instead of duplicating them.
+     *
+     * @return The ID.
+     */
+    public String getRecordId() {
+        final StringBuilder builder = new StringBuilder(granularity.getRecordType())
+                .append(ID_SEPARATOR)
+                .append(getPeriodStart().getMillis());
+        for(int i = 0; i < dimensions.size(); ++i) {
+            builder.append(ID_SEPARATOR).append(getKey(i));
+        }
+        return UUID.nameUUIDFromBytes(builder.toString().getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public DateTime getPeriodStart() {
+        return (DateTime) group.getKey(0);
+    }
+
+    public DateTime getPeriodEnd() {
+        return granularity.getPeriodEnd(getPeriodStart());
+    }
+
+    public List<Dimension> getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Get a key component.
+     *
+     * @param dimension The index of the dimension in the Rollup.
+     *
+     * @return The value, or null if the records of the summary have no value.
+     */
+    public Object getKey(int dimension) {
+        return group.getKey(dimension + 1);
+    }
+
+    public Object getKey(Dimension dimension) {
+        final int index = dimensions.indexOf(dimension);
+        if(index < 0) {
+            throw new IllegalArgumentException("The dimension " + dimension + " is not rolled up by");
+        }
+        return getKey(index);
+    }
+
+    public List<Object> getKeys() {
+        final List<Object> keys = new ArrayList<>(dimensions.size());
+        for(int i = 0; i < dimensions.size(); ++i) {
+            keys.add(getKey(i));
+        }
+        return keys;
+    }
+
+    /**
+     * Get the number of hourly records that were summarized.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        return group.getCount();
+    }
+
+    /**
+     * Get the sum of a measure.
+     *
+     * @param measure COST or USAGE_QUANTITY, the measures that rollups aggregate.
+     *
+     * @return The sum.
+     */
+    public double getSum(Measure measure) {
+        return group.getSum(measure);
+    }
+
+    /**
+     * Get the sum of a measure as a FixedPoint value, which is exact for COST.
+     *
+     * @param measure COST or USAGE_QUANTITY.
+     *
+     * @return The sum as a FixedPoint value.
+     */
+    public long getFixedPointSum(Measure measure) {
+        return group.getFixedPointSum(measure);
+    }
+
+    public double getMin(Measure measure) {
+        return group.getMin(measure);
+    }
+
+    public double getMax(Measure measure) {
+        return group.getMax(measure);
+    }
+
+    @Override
+    public String toString() {
+        return granularity + " " + getPeriodStart() + " " + getKeys() + " count=" + getCount();
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A weighted Space-Saving summary that keeps the heaviest keys of a stream in a fixed number of counters.
+ *
+ * <p>When every counter is taken, a new key replaces the key with the smallest count and inherits that count as its
+ * error, so counts never underestimate and overestimate by at most the total weight divided by the capacity. The
+ * counters are kept in a binary min-heap so the smallest one is always at the root.
+ */
+final class SpaceSaving {
+    private final int capacity;
+    private final Map<Object, Integer> counters;
+    private final Object[] keys;
+    private final double[] counts;
+    private final double[] errors;
+    private final int[] heap;
+    private final int[] positions;
+    private int size;
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(2 * capacity);
+        this.keys = new Object[capacity];
+        this.counts = new double[capacity];
+        this.errors = new double[capacity];
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Add weight to a key.
+     */
+    void add(Object key, double weight) {
+        final Integer counter = counters.get(key);
+        if(counter != null) {
+            counts[counter] += weight;
+            siftDown(positions[counter]);
+        }
+        else if(size < capacity) {
+            insert(key, weight, 0);
+        }
+        else {
+            final int smallest = heap[0];
+            counters.remove(keys[smallest]);
+            counters.put(key, smallest);
+            keys[smallest] = key;
+            errors[smallest] = counts[smallest];
+            counts[smallest] += weight;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Merge another summary into this one. A key missing from a full summary may have been counted up to that
+     * summary's smallest count, so that count is added to both its estimate and its error.
+     *
+     * @return This summary.
+     */
+    SpaceSaving merge(SpaceSaving other) {
+        final double smallest = getSmallestCount();
+        final double otherSmallest = other.getSmallestCount();
+        final List<TopKEntry> entries = new ArrayList<>(size + other.size);
+        for(int i = 0; i < size; ++i) {
+            final Integer otherCounter = other.counters.get(keys[i]);
+            final double otherCount = otherCounter == null ? otherSmallest : other.counts[otherCounter];
+            final double otherError = otherCounter == null ? otherSmallest : other.errors[otherCounter];
+            entries.add(new TopKEntry(keys[i], counts[i] + otherCount, errors[i] + otherError));
+        }
+        for(int i = 0; i < other.size; ++i) {
+            if(!counters.containsKey(other.keys[i])) {
+                entries.add(new TopKEntry(other.keys[i], other.counts[i] + smallest, other.errors[i] + smallest));
+            }
+        }
+        entries.sort(TopKEntry.BY_SUM_DESCENDING);
+
+        counters.clear();
+        size = 0;
+        for(TopKEntry entry : entries.subList(0, Math.min(capacity, entries.size()))) {
+            insert(entry.getKey(), entry.getSum(), entry.getError());
+        }
+        return this;
+    }
+
+    /**
+     * Get the keys with the largest counts.
+     *
+     * @return Up to k entries, largest first.
+     */
+    List<TopKEntry> top(int k) {
+        final List<TopKEntry> entries = new ArrayList<>(size);
+        for(int i = 0; i < size; ++i) {
+            entries.add(new TopKEntry(keys[i], counts[i], errors[i]));
+        }
+        entries.sort(TopKEntry.BY_SUM_DESCENDING);
+        return new ArrayList<>(entries.subList(0, Math.min(k, entries.size())));
+    }
+
+    private double getSmallestCount() {
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    private void insert(Object key, double count, double error) {
+        final int counter = size++;
+        counters.put(key, counter);
+        keys[counter] = key;
+        counts[counter] = count;
+        errors[counter] = error;
+        heap[counter] = counter;
+        positions[counter] = counter;
+        siftUp(counter);
+    }
+
+    private void siftUp(int position) {
+        int child = position;
+        while(child > 0) {
+            final int parent = (child - 1) / 2;
+            if(counts[heap[parent]] <= counts[heap[child]]) {
+                break;
+            }
+            swap(parent, child);
+            child = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        int parent = position;
+        while(true) {
+            final int left = 2 * parent + 1;
+            if(left >= size) {
+                break;
+            }
+            final int right = left + 1;
+            final int child = right < size && counts[heap[right]] < counts[heap[left]] ? right : left;
+            if(counts[heap[parent]] <= counts[heap[child]]) {
+                break;
+            }
+            swap(parent, child);
+            parent = child;
+        }
+    }
+
+    private void swap(int first, int second) {
+        final int counter = heap[first];
+        heap[first] = heap[second];
+        heap[second] = counter;
+        positions[heap[first]] = first;
+        positions[heap[second]] = second;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * An immutable description of a search for the values of a dimension with the largest sums of a measure, such as the
+ * 100 most expensive resources of a month.
+ *
+ * <p>Exact searches sum every value in an Aggregation, whose memory grows with the number of distinct values, and
+ * keep the largest sums in a bounded heap. Approximate searches use a Space-Saving summary with a fixed number of
+ * counters instead: sums never underestimate and overestimate by at most the total of the measure divided by the
+ * capacity, which every entry reports as its error. Approximate searches only count positive values, so credits and
+ * refunds do not reduce the sums, and keep their counters as doubles. Exact searches rank exact measures by their
+ * FixedPoint sums and the other measures by their double sums, so no search overflows on large usage quantities.
+ *
+ * <p>Both kinds of search are mergeable, so parallel streams search in separate summaries per worker.
+ */
+public final class TopK {
+    private final Dimension dimension;
+    private final Measure measure;
+    private final int k;
+    private final int capacity;
+
+    private TopK(Dimension dimension, Measure measure, int k, int capacity) {
+        if(k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        this.dimension = dimension;
+        this.measure = measure;
+        this.k = k;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Create an exact search.
+     *
+     * @param dimension The dimension, e.g. {@code Dimension.column(DetailedLineItemColumn.RESOURCE_ID)}.
+     * @param measure The measure to sum.
+     * @param k The number of values to find.
+     *
+     * @return The search.
+     */
+    public static TopK exact(Dimension dimension, Measure measure, int k) {
+        return new TopK(dimension, measure, k, 0);
+    }
+
+    /**
+     * Create an approximate search with bounded memory.
+     *
+     * @param dimension The dimension, e.g. {@code Dimension.column(DetailedLineItemColumn.RESOURCE_ID)}.
+     * @param measure The measure to sum.
+     * @param k The number of values to find.
+     * @param capacity The number of values to keep counters for, at least k. More counters give smaller errors.
+     *
+     * @return The search.
+     */
+    public static TopK approximate(Dimension dimension, Measure measure, int k, int capacity) {
+        if(capacity < k) {
+            throw new IllegalArgumentException("The capacity must be at least k");
+        }
+        return new TopK(dimension, measure, k, capacity);
+    }
+
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    public Measure getMeasure() {
+        return measure;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public boolean isExact() {
+        return capacity == 0;
+    }
+
+    /**
+     * Create a collector that searches a stream.
+     *
+     * @return The collector, which returns up to k entries, largest sum first.
+     */
+    public Collector<DetailedLineItem, ?, List<TopKEntry>> toCollector() {
+        if(isExact()) {
+            final GroupBy groupBy = GroupBy.of(dimension).withMeasures(measure);
+            return Collector.of(
+                    groupBy::newAggregation,
+                    Aggregation::add,
+                    Aggregation::merge,
+                    this::topGroups,
+                    Collector.Characteristics.UNORDERED);
+        }
+        return Collector.of(
+                () -> new SpaceSaving(capacity),
+                this::add,
+                SpaceSaving::merge,
+                summary -> summary.top(k),
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Search a stream of records.
+     *
+     * @param records The records.
+     *
+     * @return Up to k entries, largest sum first.
+     */
+    public List<TopKEntry> top(Stream<? extends DetailedLineItem> records) {
+        return records.collect(toCollector());
+    }
+
+    private void add(SpaceSaving summary, DetailedLineItem record) {
+        final double value = measure.getDoubleValue(record);
+        if(value > 0) {
+            summary.add(dimension.getValue(record), value);
+        }
+    }
+
+    private List<TopKEntry> topGroups(Aggregation aggregation) {
+        final Comparator<Aggregation.Group> bySum = measure.isExact()
+                ? Comparator.comparingLong(group -> group.getFixedPointSum(measure))
+                : Comparator.comparingDouble(group -> group.getSum(measure));
+        final PriorityQueue<Aggregation.Group> smallest = new PriorityQueue<>(k + 1, bySum);
+        for(Aggregation.Group group : aggregation.getGroups()) {
+            if(group.getCount(measure) > 0) {
+                smallest.add(group);
+                if(smallest.size() > k) {
+                    smallest.poll();
+                }
+            }
+        }
+
+        final List<TopKEntry> entries = new ArrayList<>(smallest.size());
+        while(!smallest.isEmpty()) {
+            final Aggregation.Group group = smallest.poll();
+            entries.add(measure.isExact()
+                    ? new TopKEntry(group.getKey(0), group.getFixedPointSum(measure))
+                    : new TopKEntry(group.getKey(0), group.getSum(measure), 0));
+        }
+        Collections.reverse(entries);
+        return entries;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import com.miovision.oss.awsbillingtools.parser.FixedPoint;
+import java.math.BigDecimal;
+import java.util.Comparator;
+
+/**
+ * One of the top values of a dimension found by a TopK.
+ *
+ * <p>Exact searches of exact measures keep their sums as FixedPoint values. Other sums are doubles, so that usage
+ * quantities and rates beyond the fixed-point range can still be ranked.
+ */
+public final class TopKEntry {
+    static final Comparator<TopKEntry> BY_SUM_DESCENDING = Comparator.comparingDouble(TopKEntry::getSum).reversed();
+
+    private final Object key;
+    private final double sum;
+    private final double error;
+    private final long fixedPointSum;
+
+    TopKEntry(Object key, long fixedPointSum) {
+        this.key = key;
+        this.sum = FixedPoint.toDouble(fixedPointSum);
+        this.error = 0;
+        this.fixedPointSum = fixedPointSum;
+    }
+
+    TopKEntry(Object key, double sum, double error) {
+        this.key = key;
+        this.sum = sum;
+        this.error = error;
+        this.fixedPointSum = FixedPoint.NO_VALUE;
+    }
+
+    /**
+     * Get the value of the dimension.
+     *
+     * @return The value: a String for column and tag dimensions, a DateTime for time dimensions, or null for records
+     *         without a value.
+     */
+    public Object getKey() {
+        return key;
+    }
+
+    /**
+     * Get the sum of the measure. Approximate sums never underestimate the true sum.
+     *
+     * @return The sum.
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Get the sum of the measure as a fixed-point number.
+     *
+     * @return The sum as a FixedPoint value, which is exact for exact searches of exact measures and rounded from
+     *         the double sum otherwise.
+     *
+     * @throws ArithmeticException Thrown when a double sum does not fit in a fixed-point long.
+     */
+    public long getFixedPointSum() {
+        return fixedPointSum != FixedPoint.NO_VALUE ? fixedPointSum : FixedPoint.fromDouble(sum);
+    }
+
+    /**
+     * Get the largest amount by which the sum can overestimate the true sum.
+     *
+     * @return The error, which is 0 for exact sums.
+     */
+    public double getError() {
+        return error;
+    }
+
+    /**
+     * Get the largest amount by which the sum can overestimate the true sum as a fixed-point number.
+     *
+     * @return The error as a FixedPoint value.
+     *
+     * @throws ArithmeticException Thrown when the error does not fit in a fixed-point long.
+     */
+    public long getFixedPointError() {
+        return FixedPoint.fromDouble(error);
+    }
+
+    @Override
+    public String toString() {
+        final String formattedSum =
+                fixedPointSum != FixedPoint.NO_VALUE ? FixedPoint.toString(fixedPointSum) : format(sum);
+        return key + "=" + formattedSum + (error == 0 ? "" : " (error " + format(error) + ")");
+    }
+
+    private static String format(double value) {
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import static org.junit.Assert.assertEquals;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.FastDetailedLineItemParser;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the DistinctCount class.
+ */
+public class DistinctCountTest {
+    // CHECKSTYLE.OFF: LineLengthCheck
+    private static final String HEADER = "\"InvoiceID\",\"PayerAccountId\",\"LinkedAccountId\",\"RecordType\",\"RecordId\",\"ProductName\",\"RateId\",\"SubscriptionId\",\"PricingPlanId\",\"UsageType\",\"Operation\",\"AvailabilityZone\",\"ReservedInstance\",\"ItemDescription\",\"UsageStartDate\",\"UsageEndDate\",\"UsageQuantity\",\"Rate\",\"Cost\",\"ResourceId\",\"user:Team\"\n";
+    // CHECKSTYLE.ON: LineLengthCheck
+    private static final Dimension RESOURCE = Dimension.column(DetailedLineItemColumn.RESOURCE_ID);
+
+    @Test
+    public void testAggregate_ByAccount() throws IOException {
+        // Setup
+        StringBuilder fileContents = new StringBuilder(HEADER);
+        for(int hour = 0; hour < 24; ++hour) {
+            for(int i = 0; i < 50; ++i) {
+                fileContents.append(givenRecord("111111111111", "i-" + i));
+            }
+            for(int i = 0; i < 20; ++i) {
+                fileContents.append(givenRecord("222222222222", "i-" + i));
+            }
+            fileContents.append(givenRecord("222222222222", ""));
+        }
+        DistinctCount distinctCount = DistinctCount.of(RESOURCE, Dimension.LINKED_ACCOUNT);
+
+        // Execute
+        DistinctCounts counts = aggregate(distinctCount, fileContents.toString(), true);
+
+        // Verify
+        Map<Object, Long> estimates = counts.getGroups().stream()
+                .collect(Collectors.toMap(group -> group.getKey(0), DistinctCounts.Group::getEstimate));
+        assertEquals(2, estimates.size());
+        assertEquals(Long.valueOf(50), estimates.get("111111111111"));
+        assertEquals(Long.valueOf(20), estimates.get("222222222222"));
+    }
+
+    @Test
+    public void testGetSketch_MergeAcrossMonths() throws IOException {
+        // Setup
+        DistinctCount distinctCount = DistinctCount.of(RESOURCE).withPrecision(12);
+        DistinctCounts january = aggregate(distinctCount,
+                HEADER + givenRecord("111111111111", "i-1") + givenRecord("111111111111", "i-2"), false);
+        DistinctCounts february = aggregate(distinctCount,
+                HEADER + givenRecord("111111111111", "i-2") + givenRecord("111111111111", "i-3"), false);
+        byte[] stored = january.getGroups().get(0).getSketch().toByteArray();
+
+        // Execute
+        HyperLogLog quarter = HyperLogLog.fromByteArray(stored).merge(february.getGroups().get(0).getSketch());
+
+        // Verify
+        assertEquals(3, quarter.estimate());
+    }
+
+    private static String givenRecord(String linkedAccountId, String resourceId) {
+        return "\"12345678\",\"111111111111\",\"" + linkedAccountId + "\",\"LineItem\",\"1\",\"Product\",\"1\",\"1\","
+                + "\"1\",\"Usage\",\"Hourly\",\"us-east-1\",\"N\",\"Description\",\"2015-12-01 00:00:00\",\"\","
+                + "\"1\",\"0.05\",\"1\",\"" + resourceId + "\",\"\"\n";
+    }
+
+    private static DistinctCounts aggregate(DistinctCount distinctCount, String fileContents, boolean parallel)
+            throws IOException {
+        try(Stream<DetailedLineItem> stream = new FastDetailedLineItemParser().parse(new StringReader(fileContents))) {
+            return distinctCount.aggregate(parallel ? stream.parallel() : stream);
+        }
+    }
+}
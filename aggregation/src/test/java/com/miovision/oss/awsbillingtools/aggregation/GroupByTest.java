@@ -0,0 +1,291 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.FastDetailedLineItemParser;
+import com.miovision.oss.awsbillingtools.parser.FixedPoint;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the GroupBy class.
+ */
+public class GroupByTest {
+    // CHECKSTYLE.OFF: LineLengthCheck
+    private static final String HEADER = "\"InvoiceID\",\"PayerAccountId\",\"LinkedAccountId\",\"RecordType\",\"RecordId\",\"ProductName\",\"RateId\",\"SubscriptionId\",\"PricingPlanId\",\"UsageType\",\"Operation\",\"AvailabilityZone\",\"ReservedInstance\",\"ItemDescription\",\"UsageStartDate\",\"UsageEndDate\",\"UsageQuantity\",\"Rate\",\"Cost\",\"ResourceId\",\"user:Team\"\n";
+    // CHECKSTYLE.ON: LineLengthCheck
+
+    @Test
+    public void testAggregate_ByAccountAndTag() throws IOException {
+        // Setup
+        String fileContents = HEADER
+                + givenRecord("111111111111", "2015-12-01 00:00:00", "1.5", "red")
+                + givenRecord("111111111111", "2015-12-01 01:00:00", "2.5", "red")
+                + givenRecord("111111111111", "2015-12-01 01:00:00", "", "red")
+                + givenRecord("222222222222", "2015-12-02 00:00:00", "4", "blue");
+        GroupBy groupBy = GroupBy.of(Dimension.LINKED_ACCOUNT, Dimension.tag("user:Team"));
+
+        // Execute
+        Aggregation aggregation = aggregate(groupBy, fileContents, new FastDetailedLineItemParser());
+
+        // Verify
+        assertEquals(2, aggregation.size());
+        Aggregation.Group red = aggregation.getGroups().get(0);
+        assertEquals(Arrays.asList("111111111111", "red"), red.getKeys());
+        assertEquals(3, red.getCount());
+        assertEquals(2, red.getCount(Measure.COST));
+        assertEquals(4.0, red.getSum(Measure.COST), 0.0);
+        assertEquals(1.5, red.getMin(Measure.COST), 0.0);
+        assertEquals(2.5, red.getMax(Measure.COST), 0.0);
+        assertEquals(2.0, red.getAverage(Measure.COST), 0.0);
+        Aggregation.Group blue = aggregation.getGroups().get(1);
+        assertEquals("blue", blue.getKey(1));
+        assertEquals(1, blue.getCount());
+    }
+
+    @Test
+    public void testGetKey_EqualDimension() throws IOException {
+        // Setup
+        String fileContents = HEADER + givenRecord("111111111111", "2015-12-01 00:00:00", "1", "red");
+        GroupBy groupBy = GroupBy.of(
+                Dimension.column(DetailedLineItemColumn.LINKED_ACCOUNT_ID), Dimension.tag("user:Team"));
+
+        // Execute
+        Aggregation.Group group = aggregate(groupBy, fileContents, new FastDetailedLineItemParser()).getGroups().get(0);
+
+        // Verify
+        assertEquals("111111111111", group.getKey(Dimension.LINKED_ACCOUNT));
+        assertEquals("red", group.getKey(Dimension.tag("user:Team")));
+        assertEquals(Dimension.LINKED_ACCOUNT, Dimension.column(DetailedLineItemColumn.LINKED_ACCOUNT_ID));
+        assertEquals(Dimension.tag("user:Team").hashCode(), Dimension.tag("user:Team").hashCode());
+        assertNotEquals(Dimension.tag("user:Team"), Dimension.tag("user:Owner"));
+    }
+
+    @Test
+    public void testAggregate_ByUsageDay() throws IOException {
+        // Setup
+        String fileContents = HEADER
+                + givenRecord("111111111111", "2015-12-01 00:00:00", "1", "red")
+                + givenRecord("111111111111", "2015-12-01 23:00:00", "2", "red")
+                + givenRecord("111111111111", "2015-12-02 00:00:00", "4", "red")
+                + givenRecord("111111111111", "", "8", "red");
+        GroupBy groupBy = GroupBy.of(Dimension.USAGE_DAY).withMeasures(Measure.COST);
+
+        // Execute
+        Aggregation aggregation = aggregate(groupBy, fileContents, new FastDetailedLineItemParser());
+
+        // Verify
+        Map<Object, Double> costs = toCosts(aggregation);
+        assertEquals(3, costs.size());
+        assertEquals(3.0, costs.get(new DateTime(2015, 12, 1, 0, 0, DateTimeZone.UTC)), 0.0);
+        assertEquals(4.0, costs.get(new DateTime(2015, 12, 2, 0, 0, DateTimeZone.UTC)), 0.0);
+        assertEquals(8.0, costs.get(null), 0.0);
+    }
+
+    @Test
+    public void testAggregate_MissingTag() throws IOException {
+        // Setup
+        String fileContents = HEADER + givenRecord("111111111111", "2015-12-01 00:00:00", "1", "red");
+        GroupBy groupBy = GroupBy.of(Dimension.tag("user:Missing"));
+
+        // Execute
+        Aggregation aggregation = aggregate(groupBy, fileContents, new FastDetailedLineItemParser());
+
+        // Verify
+        assertEquals(1, aggregation.size());
+        assertNull(aggregation.getGroups().get(0).getKey(0));
+    }
+
+    @Test
+    public void testAggregate_NoDimensions() throws IOException {
+        // Setup
+        String fileContents = HEADER
+                + givenRecord("111111111111", "2015-12-01 00:00:00", "1", "red")
+                + givenRecord("222222222222", "2015-12-01 00:00:00", "2", "blue");
+
+        // Execute
+        Aggregation aggregation = aggregate(GroupBy.of(), fileContents, new FastDetailedLineItemParser());
+
+        // Verify
+        assertEquals(1, aggregation.size());
+        assertEquals(2, aggregation.getGroups().get(0).getCount());
+        assertEquals(3.0, aggregation.getGroups().get(0).getSum(Measure.COST), 0.0);
+    }
+
+    @Test
+    public void testAggregate_ParallelSameAsSequential() throws IOException {
+        // Setup
+        StringBuilder fileContents = new StringBuilder(HEADER);
+        for(int i = 0; i < 5000; ++i) {
+            fileContents.append(givenRecord(
+                    "11111111111" + (i % 7),
+                    String.format("2015-12-%02d %02d:00:00", 1 + i % 28, i % 24),
+                    Integer.toString(i % 100),
+                    "team" + (i % 3)));
+        }
+        GroupBy groupBy = GroupBy.of(Dimension.LINKED_ACCOUNT, Dimension.tag("user:Team"), Dimension.USAGE_HOUR);
+
+        // Execute
+        Aggregation sequential = aggregate(groupBy, fileContents.toString(), new FastDetailedLineItemParser());
+        Aggregation parallel;
+        try(Stream<DetailedLineItem> stream = new FastDetailedLineItemParser().withDictionaryEncoding()
+                .parse(new StringReader(fileContents.toString()))) {
+            parallel = groupBy.aggregate(stream.collect(Collectors.toList()).parallelStream());
+        }
+
+        // Verify
+        assertEquals(sequential.size(), parallel.size());
+        assertEquals(toCountsByKey(sequential), toCountsByKey(parallel));
+        assertEquals(toSumsByKey(sequential), toSumsByKey(parallel));
+    }
+
+    @Test
+    public void testAggregate_ExactSums() throws IOException {
+        // Setup
+        StringBuilder fileContents = new StringBuilder(HEADER);
+        for(int i = 0; i < 1000; ++i) {
+            fileContents.append(givenRecord("111111111111", "2015-12-01 00:00:00", "0.01", "red"));
+        }
+
+        // Execute
+        Aggregation aggregation = aggregate(GroupBy.of(), fileContents.toString(), new FastDetailedLineItemParser());
+
+        // Verify
+        assertEquals(10 * FixedPoint.ONE, aggregation.getGroups().get(0).getFixedPointSum(Measure.COST));
+        assertEquals(10.0, aggregation.getGroups().get(0).getSum(Measure.COST), 0.0);
+    }
+
+    @Test
+    public void testAggregate_UsageQuantityPastFixedPointRange() throws IOException {
+        // Setup
+        StringBuilder fileContents = new StringBuilder(HEADER);
+        for(int i = 0; i < 4; ++i) {
+            fileContents.append(givenRecord("111111111111", "2015-12-01 00:00:00", "0.01", "red")
+                    .replace("\"1\",\"0.05\"", "\"5000000000\",\"0.05\""));
+        }
+        GroupBy groupBy = GroupBy.of(Dimension.LINKED_ACCOUNT);
+
+        // Execute
+        Aggregation first = aggregate(groupBy, fileContents.toString(), new FastDetailedLineItemParser());
+        Aggregation second = aggregate(groupBy, fileContents.toString(), new FastDetailedLineItemParser());
+        first.merge(second);
+
+        // Verify
+        Aggregation.Group group = first.getGroups().get(0);
+        assertEquals(4e10, group.getSum(Measure.USAGE_QUANTITY), 0.0);
+        assertEquals(5e9, group.getAverage(Measure.USAGE_QUANTITY), 0.0);
+        assertEquals(8 * FixedPoint.ONE / 100, group.getFixedPointSum(Measure.COST));
+    }
+
+    @Test
+    public void testAggregate_UsageQuantityPastFixedPointRangeInOneRow() throws IOException {
+        // Setup
+        String record = givenRecord("111111111111", "2015-12-01 00:00:00", "0.01", "red")
+                .replace("\"1\",\"0.05\"", "\"20000000000\",\"0.0000000000125\"");
+
+        // Execute
+        Aggregation aggregation = aggregate(GroupBy.of(), HEADER + record, new FastDetailedLineItemParser());
+
+        // Verify
+        Aggregation.Group group = aggregation.getGroups().get(0);
+        assertEquals(2e10, group.getSum(Measure.USAGE_QUANTITY), 0.0);
+        assertEquals(2e10, group.getMax(Measure.USAGE_QUANTITY), 0.0);
+        assertEquals(2e10, group.getMin(Measure.USAGE_QUANTITY), 0.0);
+        assertEquals(0.0000000000125, group.getSum(Measure.RATE), 0.0);
+        assertEquals(0.0000000000125, group.getMin(Measure.RATE), 0.0);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testGetFixedPointSum_ApproximateSumOutOfRange() throws IOException {
+        // Setup
+        String record = givenRecord("111111111111", "2015-12-01 00:00:00", "0.01", "red")
+                .replace("\"1\",\"0.05\"", "\"5000000000\",\"0.05\"");
+        Aggregation aggregation = aggregate(GroupBy.of(), HEADER + record + record, new FastDetailedLineItemParser());
+
+        // Execute
+        aggregation.getGroups().get(0).getFixedPointSum(Measure.USAGE_QUANTITY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMerge_DifferentGroupBy() {
+        // Execute
+        GroupBy.of(Dimension.PRODUCT).newAggregation().merge(GroupBy.of(Dimension.PRODUCT).newAggregation());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetSum_MeasureNotAggregated() throws IOException {
+        // Setup
+        String fileContents = HEADER + givenRecord("111111111111", "2015-12-01 00:00:00", "1", "red");
+        GroupBy groupBy = GroupBy.of(Dimension.PRODUCT).withMeasures(Measure.COST);
+        Aggregation aggregation = aggregate(groupBy, fileContents, new FastDetailedLineItemParser());
+
+        // Execute
+        aggregation.getGroups().get(0).getSum(Measure.RATE);
+    }
+
+    private static String givenRecord(String linkedAccountId, String usageStartDate, String cost, String team) {
+        return "\"12345678\",\"111111111111\",\"" + linkedAccountId + "\",\"LineItem\",\"1\",\"Product\",\"1\",\"1\","
+                + "\"1\",\"Usage\",\"Hourly\",\"us-east-1\",\"N\",\"Description\",\"" + usageStartDate + "\",\"\","
+                + "\"1\",\"0.05\",\"" + cost + "\",\"\",\"" + team + "\"\n";
+    }
+
+    private static Aggregation aggregate(GroupBy groupBy, String fileContents, FastDetailedLineItemParser parser)
+            throws IOException {
+        try(Stream<DetailedLineItem> stream = parser.parse(new StringReader(fileContents))) {
+            return groupBy.aggregate(stream);
+        }
+    }
+
+    private static Map<Object, Double> toCosts(Aggregation aggregation) {
+        final Map<Object, Double> costs = new HashMap<>();
+        aggregation.getGroups().forEach(group -> costs.put(group.getKey(0), group.getSum(Measure.COST)));
+        return costs;
+    }
+
+    private static Map<List<Object>, Long> toCountsByKey(Aggregation aggregation) {
+        return aggregation.getGroups().stream()
+                .collect(Collectors.toMap(Aggregation.Group::getKeys, Aggregation.Group::getCount));
+    }
+
+    private static Map<List<Object>, Double> toSumsByKey(Aggregation aggregation) {
+        return aggregation.getGroups().stream()
+                .collect(Collectors.toMap(Aggregation.Group::getKeys, group -> group.getSum(Measure.COST)));
+    }
+}
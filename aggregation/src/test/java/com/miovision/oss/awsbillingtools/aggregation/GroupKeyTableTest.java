@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the GroupKeyTable class.
+ */
+public class GroupKeyTableTest {
+    @Test
+    public void testFindOrInsert_NumbersGroupsInOrder() {
+        // Setup
+        GroupKeyTable table = new GroupKeyTable(2);
+
+        // Execute
+        int first = table.findOrInsert(new int[] {1, 2});
+        int second = table.findOrInsert(new int[] {2, 1});
+        int again = table.findOrInsert(new int[] {1, 2});
+
+        // Verify
+        assertEquals(0, first);
+        assertEquals(1, second);
+        assertEquals(0, again);
+        assertEquals(2, table.size());
+        assertEquals(2, table.getKey(1, 0));
+        assertEquals(1, table.getKey(1, 1));
+    }
+
+    @Test
+    public void testFindOrInsert_ManyKeys() {
+        // Setup
+        GroupKeyTable table = new GroupKeyTable(3);
+
+        // Execute
+        for(int i = 0; i < 10000; ++i) {
+            table.findOrInsert(new int[] {i % 10, i / 10, GroupKeyTable.NO_KEY});
+        }
+
+        // Verify
+        assertEquals(10000, table.size());
+        for(int i = 0; i < 10000; ++i) {
+            assertEquals(i, table.findOrInsert(new int[] {i % 10, i / 10, GroupKeyTable.NO_KEY}));
+        }
+        assertEquals(10000, table.size());
+    }
+
+    @Test
+    public void testFindOrInsert_NoComponents() {
+        // Setup
+        GroupKeyTable table = new GroupKeyTable(0);
+
+        // Execute
+        table.findOrInsert(new int[0]);
+        table.findOrInsert(new int[0]);
+
+        // Verify
+        assertEquals(1, table.size());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the HyperLogLog class.
+ */
+public class HyperLogLogTest {
+    @Test
+    public void testEstimate_Empty() {
+        // Execute
+        long estimate = new HyperLogLog().estimate();
+
+        // Verify
+        assertEquals(0, estimate);
+    }
+
+    @Test
+    public void testEstimate_SmallCountsAreExact() {
+        // Setup
+        HyperLogLog sketch = new HyperLogLog();
+
+        // Execute
+        for(int i = 0; i < 100; ++i) {
+            sketch.add("i-" + i);
+            sketch.add("i-" + i);
+        }
+
+        // Verify
+        assertEquals(100, sketch.estimate());
+    }
+
+    @Test
+    public void testEstimate_LargeCounts() {
+        // Setup
+        HyperLogLog sketch = new HyperLogLog();
+
+        // Execute
+        for(int i = 0; i < 1000000; ++i) {
+            sketch.add("arn:aws:ec2:us-east-1:111111111111:instance/i-" + i);
+        }
+
+        // Verify
+        assertEquals(1000000.0, sketch.estimate(), 1000000 * 0.03);
+    }
+
+    @Test
+    public void testMerge() {
+        // Setup
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        for(int i = 0; i < 60000; ++i) {
+            first.add("i-" + i);
+            second.add("i-" + (i + 30000));
+        }
+
+        // Execute
+        first.merge(second);
+
+        // Verify
+        assertEquals(90000.0, first.estimate(), 90000 * 0.06);
+    }
+
+    @Test
+    public void testToByteArray_RoundTrip() {
+        // Setup
+        HyperLogLog sketch = new HyperLogLog(10);
+        for(int i = 0; i < 5000; ++i) {
+            sketch.add("i-" + i);
+        }
+
+        // Execute
+        HyperLogLog copy = HyperLogLog.fromByteArray(sketch.toByteArray());
+
+        // Verify
+        assertEquals(sketch, copy);
+        assertEquals(10, copy.getPrecision());
+        assertEquals(sketch.estimate(), copy.estimate());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMerge_DifferentPrecisions() {
+        // Execute
+        new HyperLogLog(10).merge(new HyperLogLog(12));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_InvalidPrecision() {
+        // Execute
+        new HyperLogLog(HyperLogLog.MAX_PRECISION + 1);
+    }
+}
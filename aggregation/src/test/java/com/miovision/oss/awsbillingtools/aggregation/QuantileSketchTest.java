@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import static org.junit.Assert.assertEquals;
+
+import com.miovision.oss.awsbillingtools.parser.FixedPoint;
+import org.junit.Test;
+import java.util.Random;
+
+/**
+ * Unit tests for the QuantileSketch class.
+ */
+public class QuantileSketchTest {
+    private static final int VALUE_COUNT = 100000;
+
+    @Test
+    public void testGetQuantile_Empty() {
+        // Execute
+        long quantile = new QuantileSketch().getFixedPointQuantile(0.5);
+
+        // Verify
+        assertEquals(FixedPoint.NO_VALUE, quantile);
+    }
+
+    @Test
+    public void testGetQuantile_SmallCountsAreExact() {
+        // Setup
+        QuantileSketch sketch = new QuantileSketch();
+
+        // Execute
+        for(int i = 1; i <= 100; ++i) {
+            sketch.add(i * FixedPoint.ONE);
+        }
+
+        // Verify
+        assertEquals(100, sketch.getCount());
+        assertEquals(1.0, sketch.getQuantile(0.0), 0.0);
+        assertEquals(50.0, sketch.getQuantile(0.5), 0.0);
+        assertEquals(95.0, sketch.getQuantile(0.95), 0.0);
+        assertEquals(100.0, sketch.getQuantile(1.0), 0.0);
+    }
+
+    @Test
+    public void testGetQuantile_Shuffled() {
+        // Setup
+        QuantileSketch sketch = new QuantileSketch();
+
+        // Execute
+        for(long value : shuffledValues(new Random(7))) {
+            sketch.add(value);
+        }
+
+        // Verify
+        assertEquals(VALUE_COUNT, sketch.getCount());
+        assertEquals(0.5 * VALUE_COUNT, sketch.getFixedPointQuantile(0.5), 0.02 * VALUE_COUNT);
+        assertEquals(0.95 * VALUE_COUNT, sketch.getFixedPointQuantile(0.95), 0.02 * VALUE_COUNT);
+        assertEquals(0.99 * VALUE_COUNT, sketch.getFixedPointQuantile(0.99), 0.02 * VALUE_COUNT);
+    }
+
+    @Test
+    public void testMerge() {
+        // Setup
+        QuantileSketch first = new QuantileSketch();
+        QuantileSketch second = new QuantileSketch();
+        long[] values = shuffledValues(new Random(11));
+        for(int i = 0; i < values.length; ++i) {
+            (i < values.length / 4 ? first : second).add(values[i]);
+        }
+
+        // Execute
+        first.merge(second);
+
+        // Verify
+        assertEquals(VALUE_COUNT, first.getCount());
+        assertEquals(0.5 * VALUE_COUNT, first.getFixedPointQuantile(0.5), 0.02 * VALUE_COUNT);
+        assertEquals(0.95 * VALUE_COUNT, first.getFixedPointQuantile(0.95), 0.02 * VALUE_COUNT);
+        assertEquals(VALUE_COUNT, first.getFixedPointQuantile(1.0));
+    }
+
+    @Test
+    public void testToByteArray_RoundTrip() {
+        // Setup
+        QuantileSketch sketch = new QuantileSketch(50);
+        for(long value : shuffledValues(new Random(3))) {
+            sketch.add(value);
+        }
+
+        // Execute
+        QuantileSketch copy = QuantileSketch.fromByteArray(sketch.toByteArray());
+
+        // Verify
+        assertEquals(50, copy.getK());
+        assertEquals(sketch.getCount(), copy.getCount());
+        for(double fraction = 0.0; fraction <= 1.0; fraction += 0.05) {
+            assertEquals(sketch.getFixedPointQuantile(fraction), copy.getFixedPointQuantile(fraction));
+        }
+    }
+
+    @Test
+    public void testOfDoubles_KeepsValuesPastFixedPointRange() {
+        // Setup
+        QuantileSketch sketch = QuantileSketch.ofDoubles(QuantileSketch.DEFAULT_K);
+        for(double value : new double[] {3e10, -2.5, 1.5, 0.0, 1.2e10}) {
+            sketch.addDouble(value);
+        }
+
+        // Execute
+        QuantileSketch copy = QuantileSketch.fromByteArray(sketch.toByteArray());
+
+        // Verify
+        assertEquals(5, copy.getCount());
+        assertEquals(-2.5, copy.getQuantile(0.0), 0.0);
+        assertEquals(1.5, copy.getQuantile(0.5), 0.0);
+        assertEquals(3e10, copy.getQuantile(1.0), 0.0);
+        assertEquals(FixedPoint.ONE * 3 / 2, copy.getFixedPointQuantile(0.5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMerge_DifferentKinds() {
+        // Execute
+        new QuantileSketch().merge(QuantileSketch.ofDoubles(QuantileSketch.DEFAULT_K));
+    }
+
+    private static long[] shuffledValues(Random random) {
+        final long[] values = new long[VALUE_COUNT];
+        for(int i = 0; i < VALUE_COUNT; ++i) {
+            values[i] = i + 1;
+        }
+        for(int i = VALUE_COUNT - 1; i > 0; --i) {
+            final int other = random.nextInt(i + 1);
+            final long value = values[i];
+            values[i] = values[other];
+            values[other] = value;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import static org.junit.Assert.assertEquals;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.FastDetailedLineItemParser;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the Quantiles class.
+ */
+public class QuantilesTest {
+    // CHECKSTYLE.OFF: LineLengthCheck
+    private static final String HEADER = "\"InvoiceID\",\"PayerAccountId\",\"LinkedAccountId\",\"RecordType\",\"RecordId\",\"ProductName\",\"RateId\",\"SubscriptionId\",\"PricingPlanId\",\"UsageType\",\"Operation\",\"AvailabilityZone\",\"ReservedInstance\",\"ItemDescription\",\"UsageStartDate\",\"UsageEndDate\",\"UsageQuantity\",\"Rate\",\"Cost\",\"ResourceId\",\"user:Team\"\n";
+    // CHECKSTYLE.ON: LineLengthCheck
+
+    @Test
+    public void testAggregate_RecordValues() throws IOException {
+        // Setup
+        StringBuilder fileContents = new StringBuilder(HEADER);
+        for(int i = 1; i <= 100; ++i) {
+            fileContents.append(givenRecord("111111111111", "2015-12-01 00:00:00", Integer.toString(i)));
+        }
+        fileContents.append(givenRecord("111111111111", "2015-12-01 00:00:00", ""));
+        Quantiles quantiles = Quantiles.of(Measure.COST, Dimension.LINKED_ACCOUNT);
+
+        // Execute
+        QuantileSketches sketches = aggregate(quantiles, fileContents.toString(), true);
+
+        // Verify
+        assertEquals(1, sketches.size());
+        QuantileSketches.Group group = sketches.getGroups().get(0);
+        assertEquals("111111111111", group.getKey(Dimension.LINKED_ACCOUNT));
+        assertEquals(100, group.getSketch().getCount());
+        assertEquals(50.0, group.getQuantile(0.5), 0.0);
+        assertEquals(99.0, group.getQuantile(0.99), 0.0);
+    }
+
+    @Test
+    public void testAggregate_HourlyBuckets() throws IOException {
+        // Setup
+        StringBuilder fileContents = new StringBuilder(HEADER);
+        for(int hour = 0; hour < 10; ++hour) {
+            String usageStartDate = String.format("2015-12-01 %02d:00:00", hour);
+            fileContents.append(givenRecord("111111111111", usageStartDate, Integer.toString(hour)));
+            fileContents.append(givenRecord("111111111111", usageStartDate, "1"));
+            fileContents.append(givenRecord("222222222222", usageStartDate, "5"));
+        }
+        Quantiles quantiles = Quantiles.of(Measure.COST, Dimension.LINKED_ACCOUNT).withBucket(Dimension.USAGE_HOUR);
+
+        // Execute
+        QuantileSketches sketches = aggregate(quantiles, fileContents.toString(), true);
+
+        // Verify
+        List<QuantileSketches.Group> groups = sketches.getGroups();
+        assertEquals(2, groups.size());
+        QuantileSketches.Group first = groups.get(0);
+        assertEquals(10, first.getSketch().getCount());
+        assertEquals(1.0, first.getQuantile(0.0), 0.0);
+        assertEquals(5.0, first.getQuantile(0.5), 0.0);
+        assertEquals(10.0, first.getQuantile(1.0), 0.0);
+        QuantileSketches.Group second = groups.get(1);
+        assertEquals(10, second.getSketch().getCount());
+        assertEquals(5.0, second.getQuantile(0.95), 0.0);
+    }
+
+    @Test
+    public void testAggregate_UsageQuantityPastFixedPointRange() throws IOException {
+        // Setup
+        String fileContents = HEADER
+                + givenRecord("111111111111", "2015-12-01 00:00:00", "6000000000", "1")
+                + givenRecord("111111111111", "2015-12-01 00:00:00", "6000000000", "1")
+                + givenRecord("111111111111", "2015-12-01 01:00:00", "20000000000", "1");
+        Quantiles quantiles =
+                Quantiles.of(Measure.USAGE_QUANTITY, Dimension.LINKED_ACCOUNT).withBucket(Dimension.USAGE_HOUR);
+
+        // Execute
+        QuantileSketches sketches = aggregate(quantiles, fileContents, true);
+
+        // Verify
+        QuantileSketches.Group group = sketches.getGroups().get(0);
+        assertEquals(2, group.getSketch().getCount());
+        assertEquals(12e9, group.getQuantile(0.0), 0.0);
+        assertEquals(20e9, group.getQuantile(1.0), 0.0);
+    }
+
+    private static String givenRecord(String linkedAccountId, String usageStartDate, String cost) {
+        return givenRecord(linkedAccountId, usageStartDate, "1", cost);
+    }
+
+    private static String givenRecord(
+            String linkedAccountId,
+            String usageStartDate,
+            String usageQuantity,
+            String cost) {
+        return "\"12345678\",\"111111111111\",\"" + linkedAccountId + "\",\"LineItem\",\"1\",\"Product\",\"1\",\"1\","
+                + "\"1\",\"Usage\",\"Hourly\",\"us-east-1\",\"N\",\"Description\",\"" + usageStartDate + "\",\"\","
+                + "\"" + usageQuantity + "\",\"0.05\",\"" + cost + "\",\"\",\"\"\n";
+    }
+
+    private static QuantileSketches aggregate(Quantiles quantiles, String fileContents, boolean parallel)
+            throws IOException {
+        try(Stream<DetailedLineItem> stream = new FastDetailedLineItemParser().parse(new StringReader(fileContents))) {
+            return quantiles.aggregate(parallel ? stream.parallel() : stream);
+        }
+    }
+}
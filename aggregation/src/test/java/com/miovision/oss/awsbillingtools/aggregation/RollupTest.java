@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.FastDetailedLineItemParser;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the Rollup class.
+ */
+public class RollupTest {
+    // CHECKSTYLE.OFF: LineLengthCheck
+    private static final String HEADER = "\"InvoiceID\",\"PayerAccountId\",\"LinkedAccountId\",\"RecordType\",\"RecordId\",\"ProductName\",\"RateId\",\"SubscriptionId\",\"PricingPlanId\",\"UsageType\",\"Operation\",\"AvailabilityZone\",\"ReservedInstance\",\"ItemDescription\",\"UsageStartDate\",\"UsageEndDate\",\"UsageQuantity\",\"Rate\",\"Cost\",\"ResourceId\",\"user:Team\"\n";
+    // CHECKSTYLE.ON: LineLengthCheck
+    private static final String FILE_CONTENTS = HEADER
+            + givenRecord("111111111111", "2015-12-01 00:00:00", "1.5", "red")
+            + givenRecord("111111111111", "2015-12-01 23:00:00", "2.5", "red")
+            + givenRecord("111111111111", "2015-12-02 00:00:00", "3", "red")
+            + givenRecord("222222222222", "2015-12-02 05:00:00", "4", "blue")
+            + givenRecord("111111111111", "", "100", "");
+
+    @Test
+    public void testRollup_DailyAndMonthly() throws IOException {
+        // Setup
+        Rollup rollup = Rollup.of(Dimension.LINKED_ACCOUNT);
+
+        // Execute
+        List<RollupRecord> records = rollup(rollup, FILE_CONTENTS, false);
+
+        // Verify
+        assertEquals(5, records.size());
+        RollupRecord firstDay = records.get(0);
+        assertEquals(Granularity.DAY, firstDay.getGranularity());
+        assertEquals(new DateTime(2015, 12, 1, 0, 0, DateTimeZone.UTC), firstDay.getPeriodStart());
+        assertEquals(new DateTime(2015, 12, 2, 0, 0, DateTimeZone.UTC), firstDay.getPeriodEnd());
+        assertEquals("111111111111", firstDay.getKey(Dimension.LINKED_ACCOUNT));
+        assertEquals(2, firstDay.getCount());
+        assertEquals(4.0, firstDay.getSum(Measure.COST), 0.0);
+        RollupRecord month = records.get(3);
+        assertEquals(Granularity.MONTH, month.getGranularity());
+        assertEquals(new DateTime(2015, 12, 1, 0, 0, DateTimeZone.UTC), month.getPeriodStart());
+        assertEquals(new DateTime(2016, 1, 1, 0, 0, DateTimeZone.UTC), month.getPeriodEnd());
+        assertEquals(Arrays.asList("111111111111"), month.getKeys());
+        assertEquals(3, month.getCount());
+        assertEquals(7.0, month.getSum(Measure.COST), 0.0);
+        assertEquals(1.5, month.getMin(Measure.COST), 0.0);
+        assertEquals(3.0, month.getMax(Measure.COST), 0.0);
+    }
+
+    @Test
+    public void testRollup_Parallel() throws IOException {
+        // Setup
+        Rollup rollup = Rollup.of(Dimension.LINKED_ACCOUNT, Dimension.tag("user:Team"))
+                .withGranularities(Granularity.MONTH);
+
+        // Execute
+        List<RollupRecord> records = rollup(rollup, FILE_CONTENTS, true);
+
+        // Verify
+        assertEquals(2, records.size());
+        double total = records.stream().mapToDouble(record -> record.getSum(Measure.COST)).sum();
+        assertEquals(11.0, total, 0.0);
+    }
+
+    @Test
+    public void testRollup_CostAndUsageOnly() throws IOException {
+        // Setup
+        Rollup rollup = Rollup.of(Dimension.LINKED_ACCOUNT).withGranularities(Granularity.MONTH);
+
+        // Execute
+        RollupRecord month = rollup(rollup, FILE_CONTENTS, false).get(0);
+
+        // Verify
+        assertEquals(3.0, month.getSum(Measure.USAGE_QUANTITY), 0.0);
+        assertEquals(7.0, month.getSum(Measure.COST), 0.0);
+        try {
+            month.getSum(Measure.RATE);
+            fail("Rates should not be rolled up");
+        }
+        catch(IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testGetRecordId() throws IOException {
+        // Setup
+        Rollup rollup = Rollup.of(Dimension.LINKED_ACCOUNT);
+
+        // Execute
+        List<String> firstIds = rollup(rollup, FILE_CONTENTS, false).stream()
+                .map(RollupRecord::getRecordId)
+                .collect(Collectors.toList());
+        List<String> secondIds = rollup(rollup, FILE_CONTENTS, false).stream()
+                .map(RollupRecord::getRecordId)
+                .collect(Collectors.toList());
+
+        // Verify
+        assertEquals(firstIds, secondIds);
+        assertEquals(firstIds.size(), firstIds.stream().distinct().count());
+        assertNotEquals(firstIds.get(0), firstIds.get(3));
+    }
+
+    private static String givenRecord(String linkedAccountId, String usageStartDate, String cost, String team) {
+        return "\"12345678\",\"111111111111\",\"" + linkedAccountId + "\",\"LineItem\",\"1\",\"Product\",\"1\",\"1\","
+                + "\"1\",\"Usage\",\"Hourly\",\"us-east-1\",\"N\",\"Description\",\"" + usageStartDate + "\",\"\","
+                + "\"1\",\"0.05\",\"" + cost + "\",\"\",\"" + team + "\"\n";
+    }
+
+    private static List<RollupRecord> rollup(Rollup rollup, String fileContents, boolean parallel) throws IOException {
+        try(Stream<DetailedLineItem> stream = new FastDetailedLineItemParser().parse(new StringReader(fileContents))) {
+            return rollup.rollup(parallel ? stream.parallel() : stream).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Unit tests for the SpaceSaving class.
+ */
+public class SpaceSavingTest {
+    @Test
+    public void testAdd_ExactBelowCapacity() {
+        // Setup
+        SpaceSaving summary = new SpaceSaving(4);
+
+        // Execute
+        summary.add("a", 5);
+        summary.add("b", 7);
+        summary.add("a", 3);
+
+        // Verify
+        List<TopKEntry> top = summary.top(10);
+        assertEquals(2, top.size());
+        assertEquals("a", top.get(0).getKey());
+        assertEquals(8.0, top.get(0).getSum(), 0.0);
+        assertEquals(0.0, top.get(0).getError(), 0.0);
+        assertEquals("b", top.get(1).getKey());
+    }
+
+    @Test
+    public void testAdd_EvictsSmallest() {
+        // Setup
+        SpaceSaving summary = new SpaceSaving(2);
+
+        // Execute
+        summary.add("a", 10);
+        summary.add("b", 1);
+        summary.add("c", 2);
+
+        // Verify
+        List<TopKEntry> top = summary.top(2);
+        assertEquals("a", top.get(0).getKey());
+        assertEquals("c", top.get(1).getKey());
+        assertEquals(3.0, top.get(1).getSum(), 0.0);
+        assertEquals(1.0, top.get(1).getError(), 0.0);
+    }
+
+    @Test
+    public void testMerge_BoundsHold() {
+        // Setup
+        Random random = new Random(42);
+        SpaceSaving first = new SpaceSaving(50);
+        SpaceSaving second = new SpaceSaving(50);
+        Map<Object, Long> sums = new HashMap<>();
+        long total = 0;
+        for(int i = 0; i < 20000; ++i) {
+            String key = "key" + (int) (Math.pow(random.nextDouble(), 4) * 1000);
+            long weight = 1 + random.nextInt(10);
+            (i % 2 == 0 ? first : second).add(key, weight);
+            sums.merge(key, weight, Long::sum);
+            total += weight;
+        }
+
+        // Execute
+        List<TopKEntry> top = first.merge(second).top(10);
+
+        // Verify
+        assertEquals(50, first.size());
+        for(TopKEntry entry : top) {
+            long sum = sums.get(entry.getKey());
+            assertTrue(entry.getSum() >= sum);
+            assertTrue(entry.getSum() - entry.getError() <= sum);
+            assertTrue(entry.getError() <= 2 * total / 50);
+        }
+        assertEquals("key0", top.get(0).getKey());
+    }
+}
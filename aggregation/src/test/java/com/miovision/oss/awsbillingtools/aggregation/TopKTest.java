@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.FastDetailedLineItemParser;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the TopK class.
+ */
+public class TopKTest {
+    // CHECKSTYLE.OFF: LineLengthCheck
+    private static final String HEADER = "\"InvoiceID\",\"PayerAccountId\",\"LinkedAccountId\",\"RecordType\",\"RecordId\",\"ProductName\",\"RateId\",\"SubscriptionId\",\"PricingPlanId\",\"UsageType\",\"Operation\",\"AvailabilityZone\",\"ReservedInstance\",\"ItemDescription\",\"UsageStartDate\",\"UsageEndDate\",\"UsageQuantity\",\"Rate\",\"Cost\",\"ResourceId\",\"user:Team\"\n";
+    // CHECKSTYLE.ON: LineLengthCheck
+    private static final Dimension RESOURCE = Dimension.column(DetailedLineItemColumn.RESOURCE_ID);
+
+    @Test
+    public void testTop_Exact() throws IOException {
+        // Setup
+        String fileContents = HEADER
+                + givenRecord("i-1", "1.5", "red")
+                + givenRecord("i-2", "4", "blue")
+                + givenRecord("i-1", "2", "red")
+                + givenRecord("i-3", "0.25", "red")
+                + givenRecord("i-4", "", "red");
+        TopK topK = TopK.exact(RESOURCE, Measure.COST, 2);
+
+        // Execute
+        List<TopKEntry> top = top(topK, fileContents, false);
+
+        // Verify
+        assertEquals(2, top.size());
+        assertEquals("i-2", top.get(0).getKey());
+        assertEquals(4.0, top.get(0).getSum(), 0.0);
+        assertEquals("i-1", top.get(1).getKey());
+        assertEquals(3.5, top.get(1).getSum(), 0.0);
+        assertEquals(0.0, top.get(1).getError(), 0.0);
+    }
+
+    @Test
+    public void testTop_ExactByTag() throws IOException {
+        // Setup
+        String fileContents = HEADER
+                + givenRecord("i-1", "1.5", "red")
+                + givenRecord("i-2", "4", "blue")
+                + givenRecord("i-3", "3", "red");
+        TopK topK = TopK.exact(Dimension.tag("user:Team"), Measure.COST, 5);
+
+        // Execute
+        List<TopKEntry> top = top(topK, fileContents, true);
+
+        // Verify
+        assertEquals(2, top.size());
+        assertEquals("red", top.get(0).getKey());
+        assertEquals(4.5, top.get(0).getSum(), 0.0);
+    }
+
+    @Test
+    public void testTop_Approximate() throws IOException {
+        // Setup
+        StringBuilder fileContents = new StringBuilder(HEADER);
+        for(int i = 0; i < 1000; ++i) {
+            fileContents.append(givenRecord("i-big" + (i % 3), "10", "red"));
+            fileContents.append(givenRecord("i-small" + i, "1", "red"));
+        }
+        TopK topK = TopK.approximate(RESOURCE, Measure.COST, 3, 20);
+
+        // Execute
+        List<TopKEntry> top = top(topK, fileContents.toString(), true);
+
+        // Verify
+        assertEquals(3, top.size());
+        for(TopKEntry entry : top) {
+            assertTrue(entry.getKey().toString().startsWith("i-big"));
+            assertTrue(entry.getSum() >= 3330.0);
+        }
+    }
+
+    @Test
+    public void testTop_UsageQuantityPastFixedPointRange() throws IOException {
+        // Setup
+        String fileContents = HEADER
+                + givenRecord("i-1", "6000000000", "1", "red")
+                + givenRecord("i-1", "6000000000", "1", "red")
+                + givenRecord("i-2", "1", "1", "red");
+
+        // Execute
+        List<TopKEntry> exact = top(TopK.exact(RESOURCE, Measure.USAGE_QUANTITY, 1), fileContents, false);
+        List<TopKEntry> approximate =
+                top(TopK.approximate(RESOURCE, Measure.USAGE_QUANTITY, 1, 4), fileContents, true);
+
+        // Verify
+        assertEquals("i-1", exact.get(0).getKey());
+        assertEquals(12e9, exact.get(0).getSum(), 0.0);
+        assertEquals("i-1", approximate.get(0).getKey());
+        assertEquals(12e9, approximate.get(0).getSum(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testApproximate_CapacityBelowK() {
+        // Execute
+        TopK.approximate(RESOURCE, Measure.COST, 10, 5);
+    }
+
+    private static String givenRecord(String resourceId, String cost, String team) {
+        return givenRecord(resourceId, "1", cost, team);
+    }
+
+    private static String givenRecord(String resourceId, String usageQuantity, String cost, String team) {
+        return "\"12345678\",\"111111111111\",\"222222222222\",\"LineItem\",\"1\",\"Product\",\"1\",\"1\","
+                + "\"1\",\"Usage\",\"Hourly\",\"us-east-1\",\"N\",\"Description\",\"2015-12-01 00:00:00\",\"\","
+                + "\"" + usageQuantity + "\",\"0.05\",\"" + cost + "\",\"" + resourceId + "\",\"" + team + "\"\n";
+    }
+
+    private static List<TopKEntry> top(TopK topK, String fileContents, boolean parallel) throws IOException {
+        try(Stream<DetailedLineItem> stream = new FastDetailedLineItemParser().parse(new StringReader(fileContents))) {
+            return topK.top(parallel ? stream.parallel() : stream);
+        }
+    }
+}
@@ -0,0 +1,471 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.arrow;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.StringDictionary;
+import com.miovision.oss.awsbillingtools.parser.TagHandle;
+import com.miovision.oss.awsbillingtools.parser.TagHeader;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.StructVector;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills a reusable Arrow VectorSchemaRoot with detailed line items, one batch at a time.
+ *
+ * <p>Every fixed column becomes a vector named after its header. Timestamps are UTC millisecond timestamps, usage
+ * quantities, rates and costs are decimal(38, 18) values taken from the field text without rounding, and the remaining
+ * columns are strings. String columns other than RecordId are dictionary encoded with 32-bit indexes; their
+ * dictionaries grow across batches so that an index keeps its value for the lifetime of the builder. Tags are the
+ * string children of a struct named {@code tags}. Empty strings and missing values are null.
+ */
+public class ArrowBatchBuilder implements AutoCloseable {
+    public static final String TAGS_FIELD_NAME = "tags";
+    public static final String TIMEZONE = "UTC";
+    public static final int DECIMAL_PRECISION = 38;
+    public static final int DECIMAL_SCALE = 18;
+
+    private static final ArrowType.Int INDEX_TYPE = new ArrowType.Int(32, true);
+
+    private final int batchSize;
+    private final TagHeader tagHeader;
+    private final VectorSchemaRoot root;
+    private final List<ColumnWriter> columnWriters = new ArrayList<>();
+    private final List<DictionaryColumnWriter> dictionaryColumnWriters = new ArrayList<>();
+    private final DictionaryProvider.MapDictionaryProvider dictionaryProvider =
+            new DictionaryProvider.MapDictionaryProvider();
+    private int rowCount;
+
+    /**
+     * Create a builder.
+     *
+     * @param allocator The allocator of the vectors.
+     * @param tagHeader The tags of the records that will be added.
+     * @param batchSize The number of records in a full batch.
+     */
+    public ArrowBatchBuilder(BufferAllocator allocator, TagHeader tagHeader, int batchSize) {
+        if(batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive");
+        }
+
+        this.batchSize = batchSize;
+        this.tagHeader = tagHeader;
+
+        final List<FieldVector> vectors = new ArrayList<>();
+        try {
+            for(DetailedLineItemColumn column : DetailedLineItemColumn.values()) {
+                vectors.add(createColumn(allocator, column));
+            }
+            vectors.add(createTags(allocator));
+        }
+        catch(RuntimeException e) {
+            for(DictionaryColumnWriter dictionaryColumnWriter : dictionaryColumnWriters) {
+                vectors.add(dictionaryColumnWriter.values);
+            }
+            closeAll(vectors);
+            throw e;
+        }
+
+        root = new VectorSchemaRoot(vectors);
+        for(FieldVector vector : vectors) {
+            vector.setInitialCapacity(batchSize);
+            vector.allocateNew();
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public TagHeader getTagHeader() {
+        return tagHeader;
+    }
+
+    /**
+     * Get the root that holds the current batch.
+     *
+     * @return The root. Its row count is only up to date after finishBatch.
+     */
+    public VectorSchemaRoot getRoot() {
+        return root;
+    }
+
+    public DictionaryProvider.MapDictionaryProvider getDictionaryProvider() {
+        return dictionaryProvider;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public boolean isFull() {
+        return rowCount >= batchSize;
+    }
+
+    /**
+     * Add a record to the current batch.
+     *
+     * @param record The record. It is not retained, so cursor views can be passed directly.
+     *
+     * @throws IllegalArgumentException If the record has different tags than this builder.
+     * @throws IllegalStateException If the batch is full.
+     */
+    public void add(DetailedLineItem record) {
+        final TagHeader recordTagHeader = record.getTagHeader();
+        if(recordTagHeader != tagHeader && !recordTagHeader.getNames().equals(tagHeader.getNames())) {
+            throw new IllegalArgumentException("All records of an Arrow batch must have the same tags");
+        }
+        if(isFull()) {
+            throw new IllegalStateException("The batch is full");
+        }
+
+        for(ColumnWriter columnWriter : columnWriters) {
+            columnWriter.write(rowCount, record);
+        }
+        ++rowCount;
+    }
+
+    /**
+     * Set the value counts of the batch and the dictionaries so that they can be read or written.
+     */
+    public void finishBatch() {
+        for(DictionaryColumnWriter dictionaryColumnWriter : dictionaryColumnWriters) {
+            dictionaryColumnWriter.finish();
+        }
+        root.setRowCount(rowCount);
+    }
+
+    /**
+     * Empty the batch, keeping its buffers and the dictionaries for the next batch.
+     */
+    public void clear() {
+        for(FieldVector vector : root.getFieldVectors()) {
+            vector.reset();
+        }
+        root.setRowCount(0);
+        rowCount = 0;
+    }
+
+    @Override
+    public void close() {
+        final List<FieldVector> vectors = new ArrayList<>(root.getFieldVectors());
+        for(DictionaryColumnWriter dictionaryColumnWriter : dictionaryColumnWriters) {
+            vectors.add(dictionaryColumnWriter.values);
+        }
+        closeAll(vectors);
+    }
+
+    private FieldVector createColumn(BufferAllocator allocator, DetailedLineItemColumn column) {
+        final String name = column.getHeaderName();
+        switch(column) {
+            case USAGE_START_DATE:
+            case USAGE_END_DATE:
+                final TimeStampMilliTZVector timestamps = new TimeStampMilliTZVector(name, allocator, TIMEZONE);
+                columnWriters.add(new TimestampColumnWriter(column, timestamps));
+                return timestamps;
+            case USAGE_QUANTITY:
+            case RATE:
+            case COST:
+                final DecimalVector decimals = new DecimalVector(name, allocator, DECIMAL_PRECISION, DECIMAL_SCALE);
+                columnWriters.add(new DecimalColumnWriter(column, decimals));
+                return decimals;
+            case RECORD_ID:
+                final VarCharVector strings = new VarCharVector(name, allocator);
+                columnWriters.add(new StringColumnWriter(column, strings));
+                return strings;
+            default:
+                return createDictionaryColumn(allocator, column);
+        }
+    }
+
+    private FieldVector createDictionaryColumn(BufferAllocator allocator, DetailedLineItemColumn column) {
+        final DictionaryEncoding encoding = new DictionaryEncoding(dictionaryColumnWriters.size(), false, INDEX_TYPE);
+        final VarCharVector values = new VarCharVector(column.getHeaderName(), allocator);
+        final IntVector indexes = new IntVector(
+                new Field(column.getHeaderName(), new FieldType(true, INDEX_TYPE, encoding), null), allocator);
+        values.allocateNew();
+
+        final DictionaryColumnWriter columnWriter = new DictionaryColumnWriter(column, indexes, values);
+        dictionaryColumnWriters.add(columnWriter);
+        columnWriters.add(columnWriter);
+        dictionaryProvider.put(new Dictionary(values, encoding));
+        return indexes;
+    }
+
+    private FieldVector createTags(BufferAllocator allocator) {
+        final StructVector tags = StructVector.empty(TAGS_FIELD_NAME, allocator);
+        final List<VarCharVector> tagVectors = new ArrayList<>();
+        final List<TagHandle> tagHandles = new ArrayList<>();
+        for(String name : tagHeader.getNames()) {
+            tagVectors.add(tags.addOrGet(name, FieldType.nullable(ArrowType.Utf8.INSTANCE), VarCharVector.class));
+            tagHandles.add(TagHandle.of(name));
+        }
+        columnWriters.add(new TagsColumnWriter(tags, tagVectors, tagHandles));
+        return tags;
+    }
+
+    private static void closeAll(List<FieldVector> vectors) {
+        for(FieldVector vector : vectors) {
+            vector.close();
+        }
+    }
+
+    private static byte[] toBytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private abstract static class ColumnWriter {
+        abstract void write(int row, DetailedLineItem record);
+    }
+
+    private static final class StringColumnWriter extends ColumnWriter {
+        private final DetailedLineItemColumn column;
+        private final VarCharVector vector;
+
+        StringColumnWriter(DetailedLineItemColumn column, VarCharVector vector) {
+            this.column = column;
+            this.vector = vector;
+        }
+
+        @Override
+        void write(int row, DetailedLineItem record) {
+            final String value = record.get(column);
+            if(value.isEmpty()) {
+                vector.setNull(row);
+            }
+            else {
+                vector.setSafe(row, toBytes(value));
+            }
+        }
+    }
+
+    /**
+     * Writes the dictionary index of a string column. Records that were dictionary encoded by the parser are mapped
+     * from their parser codes through an array, so the value only has to be hashed the first time its code is seen.
+     */
+    private static final class DictionaryColumnWriter extends ColumnWriter {
+        private final DetailedLineItemColumn column;
+        private final IntVector indexes;
+        private final VarCharVector values;
+        private final Map<String, Integer> indexByValue = new HashMap<>();
+        private StringDictionary codeDictionary;
+        private int[] indexByCode = new int[0];
+
+        DictionaryColumnWriter(DetailedLineItemColumn column, IntVector indexes, VarCharVector values) {
+            this.column = column;
+            this.indexes = indexes;
+            this.values = values;
+        }
+
+        @Override
+        void write(int row, DetailedLineItem record) {
+            final int code = record.getDictionaryCode(column);
+            final boolean cacheable = code != StringDictionary.NOT_ENCODED
+                    && updateCodeDictionary(record.getDictionary());
+            if(cacheable && code < indexByCode.length && indexByCode[code] != 0) {
+                indexes.setSafe(row, indexByCode[code] - 1);
+                return;
+            }
+
+            final String value = record.get(column);
+            if(value.isEmpty()) {
+                indexes.setNull(row);
+                return;
+            }
+
+            Integer index = indexByValue.get(value);
+            if(index == null) {
+                index = indexByValue.size();
+                values.setSafe(index, toBytes(value));
+                indexByValue.put(value, index);
+            }
+            if(cacheable) {
+                if(code >= indexByCode.length) {
+                    indexByCode = Arrays.copyOf(indexByCode, Math.max(code + 1, indexByCode.length * 2));
+                }
+                indexByCode[code] = index + 1;
+            }
+            indexes.setSafe(row, index);
+        }
+
+        void finish() {
+            values.setValueCount(indexByValue.size());
+        }
+
+        private boolean updateCodeDictionary(StringDictionary dictionary) {
+            if(dictionary != codeDictionary) {
+                codeDictionary = dictionary;
+                indexByCode = new int[0];
+            }
+            return dictionary != null;
+        }
+    }
+
+    private static final class TimestampColumnWriter extends ColumnWriter {
+        private final boolean start;
+        private final TimeStampMilliTZVector vector;
+
+        TimestampColumnWriter(DetailedLineItemColumn column, TimeStampMilliTZVector vector) {
+            this.start = column == DetailedLineItemColumn.USAGE_START_DATE;
+            this.vector = vector;
+        }
+
+        @Override
+        void write(int row, DetailedLineItem record) {
+            if(start ? record.hasUsageStartDate() : record.hasUsageEndDate()) {
+                vector.setSafe(row, start ? record.getUsageStartMillis() : record.getUsageEndMillis());
+            }
+            else {
+                vector.setNull(row);
+            }
+        }
+    }
+
+    private static final class DecimalColumnWriter extends ColumnWriter {
+        private static final long NOT_A_LONG = Long.MIN_VALUE;
+        private static final long MAXIMUM_MANTISSA = (Long.MAX_VALUE - 9) / 10;
+
+        private final DetailedLineItemColumn column;
+        private final DecimalVector vector;
+
+        DecimalColumnWriter(DetailedLineItemColumn column, DecimalVector vector) {
+            this.column = column;
+            this.vector = vector;
+        }
+
+        @Override
+        void write(int row, DetailedLineItem record) {
+            final String value = record.get(column);
+            if(value == null || value.isEmpty()) {
+                vector.setNull(row);
+                return;
+            }
+            final long unscaled = parseUnscaled(value);
+            if(unscaled != NOT_A_LONG) {
+                vector.setSafe(row, unscaled);
+            }
+            else {
+                vector.setSafe(row, new BigDecimal(value).setScale(DECIMAL_SCALE, RoundingMode.HALF_EVEN));
+            }
+        }
+
+        /**
+         * Parse a plain decimal number into its unscaled value at DECIMAL_SCALE.
+         *
+         * @return The unscaled value, or NOT_A_LONG when it does not fit in a long, has more than DECIMAL_SCALE
+         *         fraction digits or is not a plain decimal number.
+         */
+        private static long parseUnscaled(String value) {
+            final int length = value.length();
+            int index = 0;
+            boolean negative = false;
+            final char sign = value.charAt(0);
+            if(sign == '-' || sign == '+') {
+                negative = sign == '-';
+                ++index;
+            }
+
+            long mantissa = 0;
+            int digits = 0;
+            int scale = -1;
+            for(; index < length; ++index) {
+                final char ch = value.charAt(index);
+                if(ch >= '0' && ch <= '9') {
+                    if(mantissa > MAXIMUM_MANTISSA || scale >= DECIMAL_SCALE) {
+                        return NOT_A_LONG;
+                    }
+                    mantissa = mantissa * 10 + (ch - '0');
+                    ++digits;
+                    if(scale >= 0) {
+                        ++scale;
+                    }
+                }
+                else if(ch == '.' && scale < 0) {
+                    scale = 0;
+                }
+                else {
+                    return NOT_A_LONG;
+                }
+            }
+            if(digits == 0) {
+                return NOT_A_LONG;
+            }
+
+            for(int i = Math.max(scale, 0); i < DECIMAL_SCALE; ++i) {
+                if(mantissa > Long.MAX_VALUE / 10) {
+                    return NOT_A_LONG;
+                }
+                mantissa *= 10;
+            }
+            return negative ? -mantissa : mantissa;
+        }
+    }
+
+    private static final class TagsColumnWriter extends ColumnWriter {
+        private final StructVector tags;
+        private final List<VarCharVector> tagVectors;
+        private final List<TagHandle> tagHandles;
+
+        TagsColumnWriter(StructVector tags, List<VarCharVector> tagVectors, List<TagHandle> tagHandles) {
+            this.tags = tags;
+            this.tagVectors = tagVectors;
+            this.tagHandles = tagHandles;
+        }
+
+        @Override
+        void write(int row, DetailedLineItem record) {
+            tags.setIndexDefined(row);
+            for(int i = 0; i < tagVectors.size(); ++i) {
+                final String value = record.getTag(tagHandles.get(i));
+                if(value == null || value.isEmpty()) {
+                    tagVectors.get(i).setNull(row);
+                }
+                else {
+                    tagVectors.get(i).setSafe(row, toBytes(value));
+                }
+            }
+        }
+    }
+}
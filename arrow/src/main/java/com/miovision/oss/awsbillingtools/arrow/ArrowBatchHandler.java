@@ -0,0 +1,47 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.arrow;
+
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import java.io.IOException;
+
+/**
+ * A callback that receives each Arrow record batch produced by a DetailedLineItemArrowConverter.
+ */
+@FunctionalInterface
+public interface ArrowBatchHandler {
+    /**
+     * Handle a record batch.
+     *
+     * @param root The batch. The root and its vectors are reused for the next batch once this method returns, so
+     *             callers that need to keep the data must copy or transfer it first.
+     * @param dictionaries The dictionaries of the dictionary encoded columns. Dictionaries only grow between batches,
+     *                     so an index read from an earlier batch still refers to the same value.
+     *
+     * @throws IOException If the batch could not be handled.
+     */
+    void handle(VectorSchemaRoot root, DictionaryProvider dictionaries) throws IOException;
+}
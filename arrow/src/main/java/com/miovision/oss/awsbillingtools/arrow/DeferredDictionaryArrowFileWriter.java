@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.arrow;
+
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.message.ArrowBlock;
+import org.apache.arrow.vector.ipc.message.ArrowDictionaryBatch;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collections;
+
+/**
+ * An Arrow IPC file writer that writes the dictionaries after the last record batch instead of before the first one.
+ *
+ * <p>The dictionaries of an ArrowBatchBuilder keep growing while batches are streamed, so they are only complete
+ * at the end. The IPC file format allows dictionary batches anywhere before the footer, which lists their offsets.
+ */
+final class DeferredDictionaryArrowFileWriter extends ArrowFileWriter {
+    private final DictionaryProvider.MapDictionaryProvider dictionaries;
+    private boolean writingDictionaries;
+
+    DeferredDictionaryArrowFileWriter(
+            VectorSchemaRoot root, DictionaryProvider.MapDictionaryProvider dictionaries, WritableByteChannel out) {
+        super(root, dictionaries, out);
+        this.dictionaries = dictionaries;
+    }
+
+    @Override
+    protected ArrowBlock writeDictionaryBatch(ArrowDictionaryBatch batch) throws IOException {
+        // The base class offers the (still incomplete) dictionaries before the first record batch.
+        return writingDictionaries ? super.writeDictionaryBatch(batch) : null;
+    }
+
+    @Override
+    public void end() throws IOException {
+        if(!writingDictionaries) {
+            start();
+            writingDictionaries = true;
+            for(long id : dictionaries.getDictionaryIds()) {
+                final FieldVector vector = dictionaries.lookup(id).getVector();
+                final VectorSchemaRoot dictionaryRoot = new VectorSchemaRoot(
+                        Collections.singletonList(vector.getField()),
+                        Collections.singletonList(vector),
+                        vector.getValueCount());
+                try(ArrowDictionaryBatch batch = new ArrowDictionaryBatch(
+                        id, new VectorUnloader(dictionaryRoot).getRecordBatch(), false)) {
+                    super.writeDictionaryBatch(batch);
+                }
+            }
+        }
+        super.end();
+    }
+}
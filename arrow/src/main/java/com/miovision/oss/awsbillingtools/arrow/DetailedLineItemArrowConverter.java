@@ -0,0 +1,164 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.arrow;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.TagHeader;
+import org.apache.arrow.memory.BufferAllocator;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Converts a stream of detailed line items into Arrow record batches, or into an Arrow IPC file.
+ *
+ * <p>Records are consumed as they are parsed and only one batch is held in memory at a time, plus the dictionaries
+ * of the dictionary encoded columns. See ArrowBatchBuilder for the schema. All records of a stream must have the same
+ * tags, which is the case for the records of a single billing file.
+ *
+ * <p>An IPC file can be reloaded with Arrow's ArrowFileReader without parsing the billing file again.
+ */
+public class DetailedLineItemArrowConverter {
+    public static final int DEFAULT_BATCH_SIZE = 8192;
+
+    private final BufferAllocator allocator;
+    private final int batchSize;
+
+    public DetailedLineItemArrowConverter(BufferAllocator allocator) {
+        this(allocator, DEFAULT_BATCH_SIZE);
+    }
+
+    public DetailedLineItemArrowConverter(BufferAllocator allocator, int batchSize) {
+        if(batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive");
+        }
+
+        this.allocator = allocator;
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Convert records into record batches.
+     *
+     * @param records The records. The stream is consumed but not closed.
+     * @param handler The handler that receives each batch. No batch is produced for an empty stream.
+     *
+     * @return The number of records converted.
+     *
+     * @throws IOException If the handler fails.
+     */
+    public long convert(Stream<DetailedLineItem> records, ArrowBatchHandler handler) throws IOException {
+        final Iterator<DetailedLineItem> iterator = records.iterator();
+        if(!iterator.hasNext()) {
+            return 0;
+        }
+
+        final DetailedLineItem first = iterator.next();
+        try(ArrowBatchBuilder builder = new ArrowBatchBuilder(allocator, first.getTagHeader(), batchSize)) {
+            builder.add(first);
+            return 1 + convertBatches(iterator, builder, handler);
+        }
+    }
+
+    /**
+     * Write records to an Arrow IPC file.
+     *
+     * @param records The records. The stream is consumed but not closed.
+     * @param out The channel to write to. It is not closed.
+     *
+     * @return The number of records written.
+     *
+     * @throws IOException If writing fails.
+     */
+    public long write(Stream<DetailedLineItem> records, WritableByteChannel out) throws IOException {
+        final Iterator<DetailedLineItem> iterator = records.iterator();
+        final DetailedLineItem first = iterator.hasNext() ? iterator.next() : null;
+        final TagHeader tagHeader = first == null ? TagHeader.of(Collections.emptyList()) : first.getTagHeader();
+
+        try(ArrowBatchBuilder builder = new ArrowBatchBuilder(allocator, tagHeader, batchSize)) {
+            final DeferredDictionaryArrowFileWriter writer = new DeferredDictionaryArrowFileWriter(
+                    builder.getRoot(), builder.getDictionaryProvider(), out);
+            writer.start();
+
+            long count = 0;
+            if(first == null) {
+                // An empty batch releases the dictionary snapshot the writer took when it was created.
+                builder.finishBatch();
+                writer.writeBatch();
+            }
+            else {
+                builder.add(first);
+                count = 1 + convertBatches(iterator, builder, (root, dictionaries) -> writer.writeBatch());
+            }
+            writer.end();
+            return count;
+        }
+    }
+
+    /**
+     * Write records to an Arrow IPC file.
+     *
+     * @param records The records. The stream is consumed but not closed.
+     * @param path The file to create or replace.
+     *
+     * @return The number of records written.
+     *
+     * @throws IOException If writing fails.
+     */
+    public long write(Stream<DetailedLineItem> records, Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return write(records, channel);
+        }
+    }
+
+    private static long convertBatches(Iterator<DetailedLineItem> records, ArrowBatchBuilder builder,
+            ArrowBatchHandler handler) throws IOException {
+        long count = 0;
+        while(true) {
+            final boolean hasNext = records.hasNext();
+            if(builder.isFull() || !hasNext && builder.getRowCount() > 0) {
+                builder.finishBatch();
+                handler.handle(builder.getRoot(), builder.getDictionaryProvider());
+                builder.clear();
+            }
+            if(!hasNext) {
+                return count;
+            }
+
+            builder.add(records.next());
+            ++count;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.arrow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemParser;
+import com.miovision.oss.awsbillingtools.parser.FastDetailedLineItemParser;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.StructVector;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the DetailedLineItemArrowConverter class.
+ */
+public class DetailedLineItemArrowConverterTest {
+    // CHECKSTYLE.OFF: LineLengthCheck
+    private static final String HEADER = "\"InvoiceID\",\"PayerAccountId\",\"LinkedAccountId\",\"RecordType\",\"RecordId\",\"ProductName\",\"RateId\",\"SubscriptionId\",\"PricingPlanId\",\"UsageType\",\"Operation\",\"AvailabilityZone\",\"ReservedInstance\",\"ItemDescription\",\"UsageStartDate\",\"UsageEndDate\",\"UsageQuantity\",\"Rate\",\"Cost\",\"ResourceId\",\"user:foo\",\"user:baz\"\n";
+    private static final String RECORD_1 = "\"12345678\",\"111111111111\",\"222222222222\",\"LineItem\",\"1\",\"Product Name Here\",\"9191919\",\"723456723\",\"515253\",\"Usage Type Here\",\"Hourly\",\"us-east-1\",\"Y\",\"$0.05 per hour for a thing\",\"2015-12-01 00:00:00\",\"2015-12-01 01:00:00\",\"1.02007083\",\"0.0500000000\",\"0.05100354\",\"Resource ID\",\"bar\",\"\"\n";
+    private static final String RECORD_2 = "\"12345678\",\"111111111111\",\"333333333333\",\"Rounding\",\"\",\"\",\"\",\"\",\"\",\"\",\"\",\"\",\"N\",\"Rounding\",\"\",\"\",\"\",\"\",\"-0.00000012\",\"\",\"\",\"qux\"\n";
+    private static final String RECORD_3 = "\"12345678\",\"111111111111\",\"222222222222\",\"LineItem\",\"3\",\"Product Name Here\",\"9191919\",\"723456723\",\"515253\",\"Usage Type Here\",\"Hourly\",\"us-east-1\",\"N\",\"$0.05 per hour for a thing\",\"2015-12-31 23:00:00\",\"2015-12-31 23:59:59\",\"2\",\"0.05\",\"0.1\",\"Resource ID\",\"bar\",\"\"\n";
+    // CHECKSTYLE.ON: LineLengthCheck
+    private static final String FILE_CONTENTS = HEADER + RECORD_1 + RECORD_2 + RECORD_3;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private BufferAllocator allocator;
+
+    @Before
+    public void setUp() {
+        allocator = new RootAllocator(Long.MAX_VALUE);
+    }
+
+    @After
+    public void tearDown() {
+        // Fails if a buffer leaked.
+        allocator.close();
+    }
+
+    @Test
+    public void testConvert_Batches() throws IOException {
+        // Setup
+        final List<String> batches = new ArrayList<>();
+        final DetailedLineItemArrowConverter converter = new DetailedLineItemArrowConverter(allocator, 2);
+
+        // Execute
+        final long count = converter.convert(fastParse(FILE_CONTENTS), (root, dictionaries) -> {
+            final StringBuilder batch = new StringBuilder();
+            for(int row = 0; row < root.getRowCount(); ++row) {
+                batch.append(describeRow(root, dictionaries, row)).append('\n');
+            }
+            batches.add(batch.toString());
+        });
+
+        // Verify
+        assertEquals(3, count);
+        assertEquals(2, batches.size());
+        assertEquals(describeRecord(RECORD_1) + describeRecord(RECORD_2), batches.get(0));
+        assertEquals(describeRecord(RECORD_3), batches.get(1));
+    }
+
+    @Test
+    public void testConvert_DecimalsKeepEveryDigit() throws IOException {
+        // Setup
+        final String line = RECORD_3.replace("\"2\",\"0.05\"", "\"20000000000.5\",\"0.0000000000125\"");
+        final List<String> values = new ArrayList<>();
+
+        // Execute
+        new DetailedLineItemArrowConverter(allocator).convert(fastParse(HEADER + line), (root, dictionaries) -> {
+            values.add(((DecimalVector) root.getVector("UsageQuantity")).getObject(0).toPlainString());
+            values.add(((DecimalVector) root.getVector("Rate")).getObject(0).toPlainString());
+        });
+
+        // Verify
+        assertEquals(Arrays.asList("20000000000.500000000000000000", "0.000000000012500000"), values);
+    }
+
+    @Test
+    public void testConvert_DictionaryIndexesAreStable() throws IOException {
+        // Setup
+        final List<Integer> indexes = new ArrayList<>();
+        final DetailedLineItemArrowConverter converter = new DetailedLineItemArrowConverter(allocator, 1);
+
+        // Execute
+        converter.convert(new DetailedLineItemParser().parse(new StringReader(FILE_CONTENTS)), (root, dictionaries) -> {
+            final IntVector linkedAccounts = (IntVector) root.getVector("LinkedAccountId");
+            indexes.add(linkedAccounts.get(0));
+        });
+
+        // Verify
+        assertEquals(3, indexes.size());
+        assertEquals(indexes.get(0), indexes.get(2));
+        assertTrue(!indexes.get(0).equals(indexes.get(1)));
+    }
+
+    @Test
+    public void testConvert_Empty() throws IOException {
+        // Setup
+        final List<Integer> batches = new ArrayList<>();
+        final DetailedLineItemArrowConverter converter = new DetailedLineItemArrowConverter(allocator);
+
+        // Execute
+        final long count = converter.convert(fastParse(HEADER), (root, dictionaries) -> batches.add(0));
+
+        // Verify
+        assertEquals(0, count);
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    public void testWrite_ReadBack() throws IOException {
+        // Setup
+        final Path path = temporaryFolder.newFile("billing.arrow").toPath();
+        final DetailedLineItemArrowConverter converter = new DetailedLineItemArrowConverter(allocator, 2);
+
+        // Execute
+        final long count = converter.write(fastParse(FILE_CONTENTS), path);
+
+        // Verify
+        assertEquals(3, count);
+        final StringBuilder rows = new StringBuilder();
+        try(FileChannel channel = FileChannel.open(path);
+                ArrowFileReader reader = new ArrowFileReader(channel, allocator)) {
+            final VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals(2, reader.getRecordBlocks().size());
+            while(reader.loadNextBatch()) {
+                for(int row = 0; row < root.getRowCount(); ++row) {
+                    rows.append(describeRow(root, reader, row)).append('\n');
+                }
+            }
+        }
+        assertEquals(describeRecord(RECORD_1) + describeRecord(RECORD_2) + describeRecord(RECORD_3), rows.toString());
+    }
+
+    @Test
+    public void testWrite_Empty() throws IOException {
+        // Setup
+        final Path path = temporaryFolder.newFile("empty.arrow").toPath();
+        final DetailedLineItemArrowConverter converter = new DetailedLineItemArrowConverter(allocator);
+
+        // Execute
+        final long count = converter.write(Stream.empty(), path);
+
+        // Verify
+        assertEquals(0, count);
+        try(FileChannel channel = FileChannel.open(path);
+                ArrowFileReader reader = new ArrowFileReader(channel, allocator)) {
+            final VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertTrue(reader.loadNextBatch());
+            assertEquals(0, root.getRowCount());
+            assertNull(root.getVector("user:foo"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConvert_DifferentTags() throws IOException {
+        // Setup
+        final DetailedLineItem other = new DetailedLineItemParser()
+                .parse(new StringReader(HEADER.replace("user:baz", "user:other") + RECORD_1))
+                .findFirst()
+                .get();
+
+        // Execute
+        new DetailedLineItemArrowConverter(allocator).convert(
+                Stream.concat(fastParse(FILE_CONTENTS), Stream.of(other)), (root, dictionaries) -> { });
+    }
+
+    private static Stream<DetailedLineItem> fastParse(String fileContents) throws IOException {
+        return new FastDetailedLineItemParser().parse(new StringReader(fileContents));
+    }
+
+    private static String describeRecord(String line) throws IOException {
+        final DetailedLineItem record = new DetailedLineItemParser().parse(new StringReader(HEADER + line))
+                .findFirst()
+                .get();
+        return String.join("|",
+                nullIfEmpty(record.getLinkedAccountId()),
+                nullIfEmpty(record.getRecordId()),
+                nullIfEmpty(record.getProductName()),
+                record.hasUsageStartDate() ? record.getUsageStartDate().toString() : null,
+                toDecimal(record.get(DetailedLineItemColumn.COST)),
+                toDecimal(record.get(DetailedLineItemColumn.RATE)),
+                nullIfEmpty(record.getTag("user:foo")),
+                nullIfEmpty(record.getTag("user:baz"))) + "\n";
+    }
+
+    private static String describeRow(VectorSchemaRoot root, DictionaryProvider dictionaries, int row) {
+        final TimeStampMilliTZVector start = (TimeStampMilliTZVector) root.getVector("UsageStartDate");
+        final BigDecimal cost = ((DecimalVector) root.getVector("Cost")).getObject(row);
+        final BigDecimal rate = ((DecimalVector) root.getVector("Rate")).getObject(row);
+        final StructVector tags = (StructVector) root.getVector(ArrowBatchBuilder.TAGS_FIELD_NAME);
+        return String.join("|",
+                decode(root, dictionaries, "LinkedAccountId", row),
+                toString((VarCharVector) root.getVector("RecordId"), row),
+                decode(root, dictionaries, "ProductName", row),
+                start.isNull(row) ? null : new DateTime(start.get(row), DateTimeZone.UTC).toString(),
+                cost == null ? null : cost.toString(),
+                rate == null ? null : rate.toString(),
+                toString(tags.getChild("user:foo", VarCharVector.class), row),
+                toString(tags.getChild("user:baz", VarCharVector.class), row));
+    }
+
+    private static String decode(VectorSchemaRoot root, DictionaryProvider dictionaries, String name, int row) {
+        final IntVector indexes = (IntVector) root.getVector(name);
+        if(indexes.isNull(row)) {
+            return null;
+        }
+        final long id = indexes.getField().getDictionary().getId();
+        return toString((VarCharVector) dictionaries.lookup(id).getVector(), indexes.get(row));
+    }
+
+    private static String toString(VarCharVector vector, int row) {
+        return vector.isNull(row) ? null : vector.getObject(row).toString();
+    }
+
+    private static String toDecimal(String value) {
+        return value.isEmpty()
+                ? null
+                : new BigDecimal(value).setScale(ArrowBatchBuilder.DECIMAL_SCALE, RoundingMode.HALF_EVEN).toString();
+    }
+
+    private static String nullIfEmpty(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.benchmarks;
+
+import com.miovision.oss.awsbillingtools.generator.BillingFileGenerator;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemParser;
+import com.miovision.oss.awsbillingtools.parser.FastDetailedLineItemParser;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Generates and parses the detailed line item files that benchmarks run against.
+ *
+ * <p>Files come from BillingFileGenerator with its default seed and settings other than the row and tag counts, so
+ * every benchmark measures the same realistic, skewed data from run to run.
+ */
+final class BillingFileFixture {
+    static final int ROW_COUNT = 10000;
+
+    private BillingFileFixture() {
+    }
+
+    /**
+     * Generate the contents of a file.
+     *
+     * @param rowCount The number of rows.
+     * @param tagCount The number of user tag columns.
+     *
+     * @return The file contents, including the header.
+     */
+    static String generate(int rowCount, int tagCount) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            new BillingFileGenerator().withRowCount(rowCount).withTagCount(tagCount).write(outputStream);
+        }
+        catch(IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parse a file into records that stay valid after the stream advances.
+     *
+     * @param parserName {@code csv} for DetailedLineItemParser or {@code fast} for FastDetailedLineItemParser.
+     * @param contents The file contents.
+     *
+     * @return The records.
+     */
+    static List<DetailedLineItem> parse(String parserName, String contents) {
+        try {
+            if("fast".equals(parserName)) {
+                final FastDetailedLineItemParser fastParser = new FastDetailedLineItemParser();
+                try(Stream<DetailedLineItem> records = fastParser.parse(new StringReader(contents))) {
+                    return records.map(DetailedLineItem::copy).collect(Collectors.toList());
+                }
+            }
+            try(Stream<DetailedLineItem> records = new DetailedLineItemParser().parse(new StringReader(contents))) {
+                return records.collect(Collectors.toList());
+            }
+        }
+        catch(IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.benchmarks;
+
+import com.miovision.oss.awsbillingtools.elasticsearch.DefaultElasticsearchIndexer;
+import com.miovision.oss.awsbillingtools.elasticsearch.DetailedLineItemRecordConverter;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks DefaultElasticsearchIndexer against a connection that builds index and bulk requests but never sends
+ * them, which is the indexing CPU budget per row for a given batch size. Scores are rows per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkRequestBenchmark {
+    private static final int TAG_COUNT = 20;
+
+    @Param({"100", "1000", "5000"})
+    private int batchSize;
+
+    private List<DetailedLineItem> records;
+    private NoOpElasticsearchConnection connection;
+    private DefaultElasticsearchIndexer<DetailedLineItem> indexer;
+
+    @Setup
+    public void setUp() {
+        records = BillingFileFixture.parse("csv", BillingFileFixture.generate(BillingFileFixture.ROW_COUNT, TAG_COUNT));
+        connection = new NoOpElasticsearchConnection();
+        indexer = new DefaultElasticsearchIndexer<>(
+                () -> connection, new DetailedLineItemRecordConverter(), "billing", batchSize);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public long index() throws Exception {
+        indexer.index(records.stream());
+        return connection.getExecutedBytes() + connection.getExecutedBatches();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.benchmarks;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the accessors of parsed records, separately from parsing.
+ *
+ * <p>Records are parsed once per trial by the parser named by the parser parameter. Scores are rows per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetailedLineItemAccessorBenchmark {
+    @Param({"csv", "fast"})
+    private String parser;
+
+    private List<DetailedLineItem> records;
+
+    @Setup
+    public void setUp() {
+        records = BillingFileFixture.parse(parser, BillingFileFixture.generate(BillingFileFixture.ROW_COUNT, 10));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void getUsageStartDate(Blackhole blackhole) {
+        for(DetailedLineItem record : records) {
+            blackhole.consume(record.getUsageStartDate());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void getUsageStartMillis(Blackhole blackhole) {
+        for(DetailedLineItem record : records) {
+            blackhole.consume(record.getUsageStartMillis());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void getCost(Blackhole blackhole) {
+        for(DetailedLineItem record : records) {
+            blackhole.consume(record.getCost());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void getCostValue(Blackhole blackhole) {
+        for(DetailedLineItem record : records) {
+            blackhole.consume(record.getCostValue());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void getCostFixedPoint(Blackhole blackhole) {
+        for(DetailedLineItem record : records) {
+            blackhole.consume(record.getCostFixedPoint());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void getUsageQuantity(Blackhole blackhole) {
+        for(DetailedLineItem record : records) {
+            blackhole.consume(record.getUsageQuantity());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void getProductName(Blackhole blackhole) {
+        for(DetailedLineItem record : records) {
+            blackhole.consume(record.getProductName());
+        }
+    }
+}
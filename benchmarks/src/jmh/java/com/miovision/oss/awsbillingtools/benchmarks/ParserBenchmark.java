@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.benchmarks;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemParser;
+import com.miovision.oss.awsbillingtools.parser.FastDetailedLineItemParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks parsing a whole file, from reader to records whose dates and cost have been read.
+ *
+ * <p>Scores are rows per second; with the gc profiler, gc.alloc.rate.norm is the number of bytes allocated per row.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+    @Param({"0", "10", "50"})
+    private int tagCount;
+
+    private String contents;
+
+    @Setup
+    public void setUp() {
+        contents = BillingFileFixture.generate(BillingFileFixture.ROW_COUNT, tagCount);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void detailedLineItemParser(Blackhole blackhole) throws IOException {
+        try(Stream<DetailedLineItem> records = new DetailedLineItemParser().parse(new StringReader(contents))) {
+            records.forEach(record -> consume(record, blackhole));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void fastDetailedLineItemParser(Blackhole blackhole) throws IOException {
+        try(Stream<DetailedLineItem> records = new FastDetailedLineItemParser().parse(new StringReader(contents))) {
+            records.forEach(record -> consume(record, blackhole));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void fastDetailedLineItemParserWithDictionary(Blackhole blackhole) throws IOException {
+        final FastDetailedLineItemParser parser = new FastDetailedLineItemParser().withDictionaryEncoding();
+        try(Stream<DetailedLineItem> records = parser.parse(new StringReader(contents))) {
+            records.forEach(record -> consume(record, blackhole));
+        }
+    }
+
+    private static void consume(DetailedLineItem record, Blackhole blackhole) {
+        blackhole.consume(record.getLinkedAccountId());
+        blackhole.consume(record.getUsageStartMillis());
+        blackhole.consume(record.getCostFixedPoint());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.benchmarks;
+
+import com.miovision.oss.awsbillingtools.elasticsearch.DetailedLineItemRecordConverter;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks converting records to Elasticsearch source maps and serializing the maps to JSON, the two per-row steps
+ * of indexing that do not depend on the network. Scores are rows per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecordConverterBenchmark {
+    @Param({"0", "20", "200"})
+    private int tagCount;
+
+    private final DetailedLineItemRecordConverter converter = new DetailedLineItemRecordConverter();
+    private List<DetailedLineItem> records;
+    private List<Map<String, ?>> sources;
+
+    @Setup
+    public void setUp() {
+        records = BillingFileFixture.parse("csv", BillingFileFixture.generate(BillingFileFixture.ROW_COUNT, tagCount));
+        sources = records.stream().map(converter::getRecordFields).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void getRecordFields(Blackhole blackhole) {
+        for(DetailedLineItem record : records) {
+            blackhole.consume(converter.getRecordFields(record));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void serializeSource(Blackhole blackhole) throws IOException {
+        for(Map<String, ?> source : sources) {
+            blackhole.consume(XContentFactory.jsonBuilder().map(source).bytes());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void convertAndSerialize(Blackhole blackhole) throws IOException {
+        for(DetailedLineItem record : records) {
+            blackhole.consume(XContentFactory.jsonBuilder().map(converter.getRecordFields(record)).bytes());
+        }
+    }
+}
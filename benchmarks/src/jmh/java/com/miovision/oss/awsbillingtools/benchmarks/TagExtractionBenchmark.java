@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.benchmarks;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.TagHandle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading tags from records of files with narrow and wide tag headers.
+ *
+ * <p>Accounts that activate many cost allocation tags produce hundreds of mostly empty tag columns, so lookups are
+ * measured for the last tag of the header as well as the whole tag map. Scores are rows per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TagExtractionBenchmark {
+    @Param({"10", "100", "400"})
+    private int tagCount;
+
+    @Param({"csv", "fast"})
+    private String parser;
+
+    private List<DetailedLineItem> records;
+    private String lastTagName;
+    private TagHandle lastTagHandle;
+
+    @Setup
+    public void setUp() {
+        records = BillingFileFixture.parse(parser, BillingFileFixture.generate(BillingFileFixture.ROW_COUNT, tagCount));
+        lastTagName = records.get(0).getTagHeader().getNames().get(tagCount - 1);
+        lastTagHandle = TagHandle.of(lastTagName);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void getTagByName(Blackhole blackhole) {
+        for(DetailedLineItem record : records) {
+            blackhole.consume(record.getTag(lastTagName));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void getTagByHandle(Blackhole blackhole) {
+        for(DetailedLineItem record : records) {
+            blackhole.consume(record.getTag(lastTagHandle));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void getTags(Blackhole blackhole) {
+        for(DetailedLineItem record : records) {
+            blackhole.consume(record.getTags().get(lastTagName));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BillingFileFixture.ROW_COUNT)
+    public void iterateTags(Blackhole blackhole) {
+        for(DetailedLineItem record : records) {
+            for(Map.Entry<String, String> tag : record.getTags().entrySet()) {
+                blackhole.consume(tag.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.StringDictionary;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.Stream;
+
+/**
+ * A directory of columnar files keyed by the ETag of the billing file they were parsed from.
+ *
+ * <p>Closed months never change again, so their ETag identifies their content. All files read through one cache
+ * share a StringDictionary, so dictionary codes are comparable across months.
+ */
+public class BillingRecordCache {
+    private static final String FILE_SUFFIX = ".columns";
+    private final Path directory;
+    private final StringDictionary dictionary;
+
+    public BillingRecordCache(Path directory) {
+        this(directory, new StringDictionary());
+    }
+
+    public BillingRecordCache(Path directory, StringDictionary dictionary) {
+        this.directory = directory;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Get the file that caches the records of a billing file.
+     *
+     * @param eTag The ETag of the billing file.
+     *
+     * @return The path of the cache file, which may not exist.
+     */
+    public Path getFile(String eTag) {
+        final StringBuilder fileName = new StringBuilder(eTag.length() + FILE_SUFFIX.length());
+        for(int i = 0; i < eTag.length(); ++i) {
+            final char ch = eTag.charAt(i);
+            final boolean safe = (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9')
+                    || ch == '-';
+            fileName.append(safe ? ch : '_');
+        }
+        return directory.resolve(fileName.append(FILE_SUFFIX).toString());
+    }
+
+    public boolean contains(String eTag) {
+        return Files.isRegularFile(getFile(eTag));
+    }
+
+    /**
+     * Read the cached records of a billing file.
+     *
+     * @param eTag The ETag of the billing file.
+     *
+     * @return The records.
+     *
+     * @throws IOException Thrown when the file is not cached or cannot be read.
+     */
+    public ColumnarFile read(String eTag) throws IOException {
+        return ColumnarFile.read(getFile(eTag), dictionary);
+    }
+
+    /**
+     * Cache the records of a billing file. The cache file is replaced atomically, so concurrent readers never see a
+     * partially written file.
+     *
+     * @param eTag The ETag of the billing file.
+     * @param records The records of the billing file.
+     *
+     * @throws IOException Thrown when the file cannot be written.
+     */
+    public void write(String eTag, Stream<? extends DetailedLineItem> records) throws IOException {
+        final ColumnarFileWriter writer = new ColumnarFileWriter();
+        records.forEachOrdered(writer::add);
+
+        Files.createDirectories(directory);
+        final Path temporaryFile = Files.createTempFile(directory, "billing", ".tmp");
+        try {
+            try(OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+                writer.write(outputStream, eTag);
+            }
+            Files.move(temporaryFile, getFile(eTag), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+}
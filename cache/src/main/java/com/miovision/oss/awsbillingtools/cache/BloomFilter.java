@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * A Bloom filter over the values of a column in one block of a columnar file.
+ *
+ * <p>Filters are sized for their number of distinct values at about ten bits per value, rounded up to a power of two,
+ * and probed HASH_COUNT times by double hashing, which gives a false positive rate of about one percent.
+ */
+final class BloomFilter {
+    private static final int HASH_COUNT = 7;
+    private static final int BITS_PER_VALUE = 10;
+
+    private final LongBuffer words;
+    private final long mask;
+
+    private BloomFilter(LongBuffer words) {
+        this.words = words;
+        this.mask = (long) words.limit() * Long.SIZE - 1;
+    }
+
+    /**
+     * Build a filter.
+     *
+     * @param hashes The hashes of the values, which are sorted in place. Duplicates are allowed.
+     * @param count The number of hashes.
+     */
+    static BloomFilter create(long[] hashes, int count) {
+        Arrays.sort(hashes, 0, count);
+        int distinct = 0;
+        for(int i = 0; i < count; ++i) {
+            if(i == 0 || hashes[i] != hashes[i - 1]) {
+                ++distinct;
+            }
+        }
+
+        final long wantedBits = Math.max(Long.SIZE, (long) distinct * BITS_PER_VALUE);
+        final long bits = Long.highestOneBit(wantedBits - 1) << 1;
+        final BloomFilter filter = new BloomFilter(LongBuffer.allocate((int) (bits / Long.SIZE)));
+        for(int i = 0; i < count; ++i) {
+            filter.add(hashes[i]);
+        }
+        return filter;
+    }
+
+    static BloomFilter read(ByteBuffer buffer) {
+        final int wordCount = buffer.getInt();
+        return new BloomFilter(ColumnarFormat.slice(buffer, wordCount * Long.BYTES).asLongBuffer());
+    }
+
+    boolean mightContain(long hash) {
+        final long increment = (hash >>> 32) | 1;
+        long bit = hash;
+        for(int i = 0; i < HASH_COUNT; ++i) {
+            final long index = bit & mask;
+            if((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+            bit += increment;
+        }
+        return true;
+    }
+
+    void write(DataOutputStream outputStream) throws IOException {
+        outputStream.writeInt(words.limit());
+        for(int i = 0; i < words.limit(); ++i) {
+            outputStream.writeLong(words.get(i));
+        }
+    }
+
+    private void add(long hash) {
+        final long increment = (hash >>> 32) | 1;
+        long bit = hash;
+        for(int i = 0; i < HASH_COUNT; ++i) {
+            final long index = bit & mask;
+            final int word = (int) (index >>> 6);
+            words.put(word, words.get(word) | (1L << index));
+            bit += increment;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.RecordFilter;
+import com.miovision.oss.awsbillingtools.s3.loader.S3BillingRecordLoader;
+import com.miovision.oss.awsbillingtools.s3.scanner.BillingRecordFileNotFoundException;
+import com.miovision.oss.awsbillingtools.s3.scanner.S3BillingRecordFile;
+import java.io.IOException;
+import java.util.stream.Stream;
+
+/**
+ * Loads detailed line items from S3 through a BillingRecordCache.
+ *
+ * <p>The first load of a billing file downloads and parses it and writes a columnar file keyed by its ETag. Later loads
+ * of the same version only read the columnar file. A rewritten file gets a new ETag and is downloaded again.
+ */
+public class CachingS3BillingRecordLoader {
+    private static final int MAXIMUM_ATTEMPTS = 3;
+
+    private final S3BillingRecordLoader<DetailedLineItem> billingRecordLoader;
+    private final BillingRecordCache cache;
+
+    public CachingS3BillingRecordLoader(
+            S3BillingRecordLoader<DetailedLineItem> billingRecordLoader,
+            BillingRecordCache cache) {
+        this.billingRecordLoader = billingRecordLoader;
+        this.cache = cache;
+    }
+
+    public Stream<DetailedLineItem> load(int year, int month) throws BillingRecordFileNotFoundException, IOException {
+        return load(billingRecordLoader.find(year, month));
+    }
+
+    public Stream<DetailedLineItem> load(S3BillingRecordFile billingRecordFile) throws IOException {
+        return loadColumns(billingRecordFile).stream();
+    }
+
+    /**
+     * Load the records of a billing file that are accepted by a filter, skipping the cached blocks that cannot match.
+     *
+     * @param billingRecordFile The file.
+     * @param filter The filter.
+     *
+     * @return The accepted records.
+     *
+     * @throws IOException Thrown when the file cannot be loaded or cached.
+     */
+    public Stream<DetailedLineItem> load(S3BillingRecordFile billingRecordFile, RecordFilter filter)
+            throws IOException {
+        return loadColumns(billingRecordFile).stream(filter);
+    }
+
+    /**
+     * Load a billing file as columns. The download is pinned to the ETag the columns are cached under, so a file that
+     * is rewritten while it is being downloaded is fetched again under its new ETag instead of being cached stale.
+     *
+     * @param billingRecordFile The file.
+     *
+     * @return The columns of the file.
+     *
+     * @throws IOException Thrown when the file cannot be loaded or cached.
+     */
+    public ColumnarFile loadColumns(S3BillingRecordFile billingRecordFile) throws IOException {
+        for(int attempt = 0; attempt < MAXIMUM_ATTEMPTS; ++attempt) {
+            final String eTag = billingRecordLoader.getETag(billingRecordFile);
+            if(cache.contains(eTag)) {
+                return cache.read(eTag);
+            }
+            try(Stream<DetailedLineItem> records = billingRecordLoader.load(billingRecordFile, eTag)) {
+                if(records != null) {
+                    cache.write(eTag, records);
+                    return cache.read(eTag);
+                }
+            }
+        }
+        throw new IOException(billingRecordFile.getKey() + " kept changing while it was downloaded");
+    }
+}
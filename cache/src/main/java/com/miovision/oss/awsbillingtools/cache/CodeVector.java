@@ -0,0 +1,122 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Dictionary codes stored with the smallest width that fits the dictionary, read in place from the file's buffer.
+ */
+abstract class CodeVector {
+    /**
+     * Get a code.
+     */
+    abstract int get(int index);
+
+    /**
+     * Write codes with the smallest width that fits a dictionary.
+     */
+    static void write(DataOutputStream outputStream, int[] codes, int count, int dictionarySize) throws IOException {
+        if(dictionarySize <= 1 << Byte.SIZE) {
+            outputStream.writeByte(Byte.BYTES);
+            for(int i = 0; i < count; ++i) {
+                outputStream.writeByte(codes[i]);
+            }
+        }
+        else if(dictionarySize <= 1 << Short.SIZE) {
+            outputStream.writeByte(Short.BYTES);
+            for(int i = 0; i < count; ++i) {
+                outputStream.writeShort(codes[i]);
+            }
+        }
+        else {
+            outputStream.writeByte(Integer.BYTES);
+            for(int i = 0; i < count; ++i) {
+                outputStream.writeInt(codes[i]);
+            }
+        }
+    }
+
+    /**
+     * Read codes written by write.
+     */
+    static CodeVector read(ByteBuffer buffer, int count) {
+        final int width = buffer.get();
+        final ByteBuffer codes = ColumnarFormat.slice(buffer, count * width);
+        switch(width) {
+            case Byte.BYTES:
+                return new ByteCodeVector(codes);
+            case Short.BYTES:
+                return new ShortCodeVector(codes.asShortBuffer());
+            case Integer.BYTES:
+                return new IntCodeVector(codes.asIntBuffer());
+            default:
+                throw new IllegalArgumentException("Invalid code width " + width);
+        }
+    }
+
+    private static final class ByteCodeVector extends CodeVector {
+        private final ByteBuffer codes;
+
+        ByteCodeVector(ByteBuffer codes) {
+            this.codes = codes;
+        }
+
+        @Override
+        int get(int index) {
+            return codes.get(index) & 0xFF;
+        }
+    }
+
+    private static final class ShortCodeVector extends CodeVector {
+        private final ShortBuffer codes;
+
+        ShortCodeVector(ShortBuffer codes) {
+            this.codes = codes;
+        }
+
+        @Override
+        int get(int index) {
+            return codes.get(index) & 0xFFFF;
+        }
+    }
+
+    private static final class IntCodeVector extends CodeVector {
+        private final IntBuffer codes;
+
+        IntCodeVector(IntBuffer codes) {
+            this.codes = codes;
+        }
+
+        @Override
+        int get(int index) {
+            return codes.get(index);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import com.miovision.oss.awsbillingtools.parser.BlockStatistics;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.Hashing;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A block of consecutive rows of a columnar file and its statistics: the range of usage start dates and costs, and
+ * Bloom filters over the resource IDs and linked account IDs.
+ *
+ * <p>RecordFilter.mightMatch uses the statistics to skip blocks without reading their rows.
+ */
+public final class ColumnarBlock implements BlockStatistics {
+    private final int firstRow;
+    private final int endRow;
+    private final long minimumUsageStart;
+    private final long maximumUsageStart;
+    private final long minimumCost;
+    private final long maximumCost;
+    private final BloomFilter resourceIds;
+    private final BloomFilter linkedAccountIds;
+
+    ColumnarBlock(
+            int firstRow,
+            int endRow,
+            long minimumUsageStart,
+            long maximumUsageStart,
+            long minimumCost,
+            long maximumCost,
+            BloomFilter resourceIds,
+            BloomFilter linkedAccountIds) {
+        this.firstRow = firstRow;
+        this.endRow = endRow;
+        this.minimumUsageStart = minimumUsageStart;
+        this.maximumUsageStart = maximumUsageStart;
+        this.minimumCost = minimumCost;
+        this.maximumCost = maximumCost;
+        this.resourceIds = resourceIds;
+        this.linkedAccountIds = linkedAccountIds;
+    }
+
+    static ColumnarBlock read(ByteBuffer buffer, int firstRow, int endRow) {
+        final long minimumUsageStart = buffer.getLong();
+        final long maximumUsageStart = buffer.getLong();
+        final long minimumCost = buffer.getLong();
+        final long maximumCost = buffer.getLong();
+        final BloomFilter resourceIds = BloomFilter.read(buffer);
+        return new ColumnarBlock(firstRow, endRow, minimumUsageStart, maximumUsageStart, minimumCost, maximumCost,
+                resourceIds, BloomFilter.read(buffer));
+    }
+
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    /**
+     * Get the end of the block.
+     *
+     * @return The row after the last row of the block.
+     */
+    public int getEndRow() {
+        return endRow;
+    }
+
+    @Override
+    public long getMinimum(DetailedLineItemColumn column) {
+        switch(column) {
+            case USAGE_START_DATE:
+                return minimumUsageStart;
+            case COST:
+                return minimumCost;
+            default:
+                return Long.MIN_VALUE;
+        }
+    }
+
+    @Override
+    public long getMaximum(DetailedLineItemColumn column) {
+        switch(column) {
+            case USAGE_START_DATE:
+                return maximumUsageStart;
+            case COST:
+                return maximumCost;
+            default:
+                return Long.MAX_VALUE;
+        }
+    }
+
+    @Override
+    public boolean mightContain(DetailedLineItemColumn column, String value) {
+        switch(column) {
+            case RESOURCE_ID:
+                return resourceIds.mightContain(Hashing.hash(value));
+            case LINKED_ACCOUNT_ID:
+                return linkedAccountIds.mightContain(Hashing.hash(value));
+            default:
+                return true;
+        }
+    }
+
+    void write(DataOutputStream outputStream) throws IOException {
+        outputStream.writeLong(minimumUsageStart);
+        outputStream.writeLong(maximumUsageStart);
+        outputStream.writeLong(minimumCost);
+        outputStream.writeLong(maximumCost);
+        resourceIds.write(outputStream);
+        linkedAccountIds.write(outputStream);
+    }
+}
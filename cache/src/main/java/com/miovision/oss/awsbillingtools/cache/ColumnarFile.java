@@ -0,0 +1,348 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.RecordFilter;
+import com.miovision.oss.awsbillingtools.parser.StringDictionary;
+import com.miovision.oss.awsbillingtools.parser.TagHeader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A month of detailed line items read from a columnar file written by ColumnarFileWriter.
+ *
+ * <p>The file is memory-mapped and the codes, timestamps and decimals are read in place, so opening a file only costs
+ * decoding its dictionaries. Records can be read as column vectors or as DetailedLineItem views of single rows. Columns
+ * with at most MAXIMUM_ENCODED_DICTIONARY_SIZE distinct values are also encoded in a StringDictionary, so the views
+ * carry dictionary codes exactly like records of a dictionary encoding parser; record IDs and columns with more
+ * distinct values are stored as plain strings and carry no codes. Instances are immutable and safe to share between
+ * threads.
+ */
+public final class ColumnarFile {
+    public static final int MAXIMUM_ENCODED_DICTIONARY_SIZE = 1 << 16;
+
+    private final String eTag;
+    private final int size;
+    private final TagHeader tagHeader;
+    private final StringDictionary dictionary;
+    private final StringColumn[] stringColumns;
+    private final LongColumn[] longColumns;
+    private final List<ColumnarBlock> blocks;
+
+    private ColumnarFile(
+            String eTag,
+            int size,
+            TagHeader tagHeader,
+            StringDictionary dictionary,
+            StringColumn[] stringColumns,
+            LongColumn[] longColumns,
+            List<ColumnarBlock> blocks) {
+        this.eTag = eTag;
+        this.size = size;
+        this.tagHeader = tagHeader;
+        this.dictionary = dictionary;
+        this.stringColumns = stringColumns;
+        this.longColumns = longColumns;
+        this.blocks = blocks;
+    }
+
+    /**
+     * Read a columnar file.
+     *
+     * @param file The file.
+     *
+     * @return The records of the file.
+     *
+     * @throws IOException Thrown when the file cannot be read or is not a columnar file.
+     */
+    public static ColumnarFile read(Path file) throws IOException {
+        return read(file, new StringDictionary());
+    }
+
+    /**
+     * Read a columnar file.
+     *
+     * @param file The file.
+     * @param dictionary The dictionary to encode values in. Sharing one dictionary between files, parsers and
+     *                   aggregations keeps codes comparable.
+     *
+     * @return The records of the file.
+     *
+     * @throws IOException Thrown when the file cannot be read or is not a columnar file.
+     */
+    public static ColumnarFile read(Path file, StringDictionary dictionary) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Columnar files larger than 2GB are not supported: " + file);
+            }
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), dictionary);
+        }
+    }
+
+    /**
+     * Read a columnar file from a buffer. The buffer is used in place and must not be modified afterwards.
+     *
+     * @param buffer The buffer, positioned at the start of the file.
+     * @param dictionary The dictionary to encode values in.
+     *
+     * @return The records of the file.
+     *
+     * @throws IOException Thrown when the buffer does not hold a columnar file.
+     */
+    public static ColumnarFile read(ByteBuffer buffer, StringDictionary dictionary) throws IOException {
+        if(buffer.getInt() != ColumnarFormat.MAGIC) {
+            throw new IOException("Not a columnar billing record file");
+        }
+        final int version = buffer.getInt();
+        if(version < 1 || version > ColumnarFormat.VERSION) {
+            throw new IOException("Unsupported columnar file version " + version);
+        }
+
+        final String eTag = ColumnarFormat.readString(buffer);
+        final int size = buffer.getInt();
+        final List<String> tagNames = new ArrayList<>();
+        for(int i = buffer.getInt(); i > 0; --i) {
+            tagNames.add(ColumnarFormat.readString(buffer));
+        }
+        final List<ColumnarBlock> blocks = version >= ColumnarFormat.FIRST_VERSION_WITH_BLOCKS
+                ? readBlocks(buffer, size)
+                : Collections.emptyList();
+
+        final int columnCount = DetailedLineItemColumn.FIRST_TAG_INDEX + tagNames.size();
+        final StringColumn[] stringColumns = new StringColumn[columnCount];
+        final LongColumn[] longColumns = new LongColumn[columnCount];
+        for(int index = 0; index < DetailedLineItemColumn.FIRST_TAG_INDEX; ++index) {
+            if(ColumnarFormat.isTimestamp(index) || ColumnarFormat.isDecimal(index)) {
+                longColumns[index] = readLongColumn(buffer, size, index, version);
+            }
+            else {
+                stringColumns[index] = readStringColumn(buffer, size, version, dictionary);
+            }
+        }
+        for(int index = DetailedLineItemColumn.FIRST_TAG_INDEX; index < columnCount; ++index) {
+            stringColumns[index] = readSparseStringColumn(buffer, size, version, dictionary);
+        }
+
+        return new ColumnarFile(eTag, size, TagHeader.of(tagNames), dictionary, stringColumns, longColumns, blocks);
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Get the number of records.
+     *
+     * @return The number of records.
+     */
+    public int size() {
+        return size;
+    }
+
+    public TagHeader getTagHeader() {
+        return tagHeader;
+    }
+
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Get a record.
+     *
+     * @param row The row of the record.
+     *
+     * @return A view of the row, which is safe to retain.
+     */
+    public DetailedLineItem get(int row) {
+        return new DetailedLineItem(new ColumnarRecordFields(this, row), tagHeader);
+    }
+
+    /**
+     * Stream the records in file order. The stream can be split for parallel processing.
+     *
+     * @return The records.
+     */
+    public Stream<DetailedLineItem> stream() {
+        return IntStream.range(0, size).mapToObj(this::get);
+    }
+
+    /**
+     * Stream the records accepted by a filter, in file order. Blocks whose statistics rule out every row are skipped
+     * without reading their rows.
+     *
+     * @param filter The filter.
+     *
+     * @return The accepted records.
+     */
+    public Stream<DetailedLineItem> stream(RecordFilter filter) {
+        if(blocks.isEmpty()) {
+            return stream().filter(filter::test);
+        }
+        return blocks.stream()
+                .filter(filter::mightMatch)
+                .flatMap(block -> IntStream.range(block.getFirstRow(), block.getEndRow()).mapToObj(this::get))
+                .filter(filter::test);
+    }
+
+    /**
+     * Get the blocks of rows and their statistics.
+     *
+     * @return The blocks in file order, which are empty for files written before blocks were introduced.
+     */
+    public List<ColumnarBlock> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Get a string column.
+     *
+     * @param column The column, which must not be a timestamp or decimal column.
+     *
+     * @return The column.
+     */
+    public StringColumn getStringColumn(DetailedLineItemColumn column) {
+        final StringColumn stringColumn = stringColumns[column.getIndex()];
+        if(stringColumn == null) {
+            throw new IllegalArgumentException(column + " is not a string column");
+        }
+        return stringColumn;
+    }
+
+    /**
+     * Get a timestamp or decimal column.
+     *
+     * @param column The column, e.g. USAGE_START_DATE or COST.
+     *
+     * @return The column.
+     */
+    public LongColumn getLongColumn(DetailedLineItemColumn column) {
+        final LongColumn longColumn = longColumns[column.getIndex()];
+        if(longColumn == null) {
+            throw new IllegalArgumentException(column + " is not a timestamp or decimal column");
+        }
+        return longColumn;
+    }
+
+    /**
+     * Get a tag column.
+     *
+     * @param tagName The tag name.
+     *
+     * @return The column, or null if the file does not have the tag.
+     */
+    public StringColumn getTagColumn(String tagName) {
+        final int tagIndex = tagHeader.indexOf(tagName);
+        return tagIndex < 0 ? null : stringColumns[DetailedLineItemColumn.FIRST_TAG_INDEX + tagIndex];
+    }
+
+    StringColumn stringColumnAt(int index) {
+        return stringColumns[index];
+    }
+
+    LongColumn longColumnAt(int index) {
+        return longColumns[index];
+    }
+
+    private static StringColumn readStringColumn(ByteBuffer buffer, int size, int version,
+                                                 StringDictionary dictionary) {
+        if(version >= ColumnarFormat.FIRST_VERSION_WITH_PLAIN_STRINGS
+                && buffer.get() == ColumnarFormat.PLAIN_ENCODING) {
+            return PlainStringColumn.read(buffer, size);
+        }
+        final String[] values = readDictionary(buffer);
+        return new DenseStringColumn(values, encode(values, dictionary), CodeVector.read(buffer, size), size);
+    }
+
+    private static StringColumn readSparseStringColumn(ByteBuffer buffer, int size, int version,
+                                                       StringDictionary dictionary) {
+        if(version >= ColumnarFormat.FIRST_VERSION_WITH_PLAIN_STRINGS) {
+            final int count = buffer.getInt();
+            final IntBuffer rows = ColumnarFormat.slice(buffer, count * Integer.BYTES).asIntBuffer();
+            return new SparseStringColumn(rows, readStringColumn(buffer, count, version, dictionary), size);
+        }
+        final String[] values = readDictionary(buffer);
+        final int count = buffer.getInt();
+        final IntBuffer rows = ColumnarFormat.slice(buffer, count * Integer.BYTES).asIntBuffer();
+        final StringColumn present = new DenseStringColumn(
+                values, encode(values, dictionary), CodeVector.read(buffer, count), count);
+        return new SparseStringColumn(rows, present, size);
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer) {
+        final String[] values = new String[buffer.getInt()];
+        for(int i = 0; i < values.length; ++i) {
+            values[i] = ColumnarFormat.readString(buffer);
+        }
+        return values;
+    }
+
+    private static int[] encode(String[] values, StringDictionary dictionary) {
+        if(values.length > MAXIMUM_ENCODED_DICTIONARY_SIZE) {
+            return null;
+        }
+        final int[] codes = new int[values.length];
+        for(int i = 0; i < values.length; ++i) {
+            codes[i] = dictionary.intern(values[i]);
+        }
+        return codes;
+    }
+
+    private static List<ColumnarBlock> readBlocks(ByteBuffer buffer, int size) {
+        final int blockSize = buffer.getInt();
+        final List<ColumnarBlock> blocks = new ArrayList<>();
+        for(int i = buffer.getInt(), firstRow = 0; i > 0; --i, firstRow += blockSize) {
+            blocks.add(ColumnarBlock.read(buffer, firstRow, Math.min(size, firstRow + blockSize)));
+        }
+        return Collections.unmodifiableList(blocks);
+    }
+
+    private static LongColumn readLongColumn(ByteBuffer buffer, int size, int index, int version) {
+        final boolean timestamps = ColumnarFormat.isTimestamp(index);
+        final LongBuffer values = ColumnarFormat.slice(buffer, size * Long.BYTES).asLongBuffer();
+        final ByteBuffer scales = !timestamps && version >= ColumnarFormat.FIRST_VERSION_WITH_SCALES
+                ? ColumnarFormat.slice(buffer, size)
+                : null;
+        final int[] textRows = new int[buffer.getInt()];
+        final String[] texts = new String[textRows.length];
+        for(int i = 0; i < textRows.length; ++i) {
+            textRows[i] = buffer.getInt();
+            texts[i] = ColumnarFormat.readString(buffer);
+        }
+        return new LongColumn(values, scales, textRows, texts, timestamps);
+    }
+}
@@ -0,0 +1,433 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.Hashing;
+import com.miovision.oss.awsbillingtools.parser.TagHandle;
+import com.miovision.oss.awsbillingtools.parser.TagHeader;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects detailed line items of one billing file and writes them as a columnar file that ColumnarFile reads.
+ *
+ * <p>Records are not retained, so cursor views can be added directly. All records must share the same tags. Writers
+ * are not thread safe.
+ */
+public class ColumnarFileWriter {
+    public static final int DEFAULT_BLOCK_SIZE = 8192;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int USAGE_START_INDEX = DetailedLineItemColumn.USAGE_START_DATE.getIndex();
+    private static final int COST_INDEX = DetailedLineItemColumn.COST.getIndex();
+    private static final int RECORD_ID_INDEX = DetailedLineItemColumn.RECORD_ID.getIndex();
+
+    private final StringColumnBuilder[] stringColumns = new StringColumnBuilder[DetailedLineItemColumn.FIRST_TAG_INDEX];
+    private final LongColumnBuilder[] longColumns = new LongColumnBuilder[DetailedLineItemColumn.FIRST_TAG_INDEX];
+    private TagHeader tagHeader;
+    private TagHandle[] tagHandles;
+    private final List<ColumnarBlock> blocks = new ArrayList<>();
+    private final BlockBuilder block;
+    private final int maximumDictionarySize;
+    private StringColumnBuilder[] tagColumns;
+    private int size;
+
+    public ColumnarFileWriter() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Create a writer.
+     *
+     * @param blockSize The number of rows in each block of the file's zone maps and Bloom filters.
+     */
+    public ColumnarFileWriter(int blockSize) {
+        this(blockSize, ColumnarFile.MAXIMUM_ENCODED_DICTIONARY_SIZE);
+    }
+
+    /**
+     * Create a writer.
+     *
+     * @param blockSize The number of rows in each block of the file's zone maps and Bloom filters.
+     * @param maximumDictionarySize The number of distinct values past which a string column is stored as plain
+     *                              strings rather than a dictionary.
+     */
+    ColumnarFileWriter(int blockSize, int maximumDictionarySize) {
+        if(blockSize <= 0) {
+            throw new IllegalArgumentException("The block size must be positive");
+        }
+
+        block = new BlockBuilder(blockSize);
+        this.maximumDictionarySize = maximumDictionarySize;
+        for(int index = 0; index < DetailedLineItemColumn.FIRST_TAG_INDEX; ++index) {
+            if(ColumnarFormat.isTimestamp(index) || ColumnarFormat.isDecimal(index)) {
+                longColumns[index] = new LongColumnBuilder(index);
+            }
+            else {
+                // Record IDs are unique per row, so a dictionary would only cost heap.
+                stringColumns[index] = new StringColumnBuilder(false, index == RECORD_ID_INDEX, maximumDictionarySize);
+            }
+        }
+    }
+
+    /**
+     * Get the number of records added so far.
+     *
+     * @return The number of records.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add a record.
+     *
+     * @param record The record.
+     *
+     * @throws IllegalArgumentException Thrown when the record has different tags than the previous records.
+     */
+    public void add(DetailedLineItem record) {
+        checkTagHeader(record.getTagHeader());
+        final int row = size++;
+        for(DetailedLineItemColumn column : DetailedLineItemColumn.values()) {
+            final int index = column.getIndex();
+            final String text = record.get(column);
+            if(stringColumns[index] != null) {
+                stringColumns[index].add(row, text);
+            }
+            else {
+                final long value = text.isEmpty() ? ColumnarFormat.NO_VALUE : ColumnarFormat.decodeLong(record, index);
+                longColumns[index].add(row, value, text);
+            }
+        }
+        for(int i = 0; i < tagHandles.length; ++i) {
+            final String value = record.getTag(tagHandles[i]);
+            if(value != null && !value.isEmpty()) {
+                tagColumns[i].add(row, value);
+            }
+        }
+
+        block.add(longColumns[USAGE_START_INDEX].get(row), longColumns[COST_INDEX].get(row),
+                record.getResourceId(), record.getLinkedAccountId());
+        if(block.isFull()) {
+            blocks.add(block.build());
+            block.reset(size);
+        }
+    }
+
+    /**
+     * Write the records added so far.
+     *
+     * @param outputStream The stream to write to, which is flushed but not closed.
+     * @param eTag The ETag of the billing file the records were read from.
+     *
+     * @throws IOException Thrown when the file cannot be written.
+     */
+    public void write(OutputStream outputStream, String eTag) throws IOException {
+        final DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(outputStream));
+        dataOutputStream.writeInt(ColumnarFormat.MAGIC);
+        dataOutputStream.writeInt(ColumnarFormat.VERSION);
+        ColumnarFormat.writeString(dataOutputStream, eTag == null ? "" : eTag);
+        dataOutputStream.writeInt(size);
+
+        final List<String> tagNames = tagHeader == null ? new ArrayList<>() : tagHeader.getNames();
+        dataOutputStream.writeInt(tagNames.size());
+        for(String tagName : tagNames) {
+            ColumnarFormat.writeString(dataOutputStream, tagName);
+        }
+
+        dataOutputStream.writeInt(block.blockSize);
+        dataOutputStream.writeInt(blocks.size() + (block.isEmpty() ? 0 : 1));
+        for(ColumnarBlock columnarBlock : blocks) {
+            columnarBlock.write(dataOutputStream);
+        }
+        if(!block.isEmpty()) {
+            block.build().write(dataOutputStream);
+        }
+
+        for(int index = 0; index < DetailedLineItemColumn.FIRST_TAG_INDEX; ++index) {
+            if(stringColumns[index] != null) {
+                stringColumns[index].write(dataOutputStream);
+            }
+            else {
+                longColumns[index].write(dataOutputStream);
+            }
+        }
+        for(int i = 0; i < tagNames.size(); ++i) {
+            tagColumns[i].write(dataOutputStream);
+        }
+        dataOutputStream.flush();
+    }
+
+    private void checkTagHeader(TagHeader recordTagHeader) {
+        if(tagHeader == null) {
+            tagHeader = recordTagHeader;
+            tagHandles = new TagHandle[tagHeader.size()];
+            tagColumns = new StringColumnBuilder[tagHeader.size()];
+            for(int i = 0; i < tagHandles.length; ++i) {
+                tagHandles[i] = TagHandle.of(tagHeader.getNames().get(i));
+                tagColumns[i] = new StringColumnBuilder(true, false, maximumDictionarySize);
+            }
+        }
+        else if(recordTagHeader != tagHeader && !recordTagHeader.getNames().equals(tagHeader.getNames())) {
+            throw new IllegalArgumentException("All records of a columnar file must have the same tags");
+        }
+    }
+
+    /**
+     * The values of the rows that have a value, as a dictionary and codes until the column has more than the maximum
+     * number of distinct values and as UTF-8 bytes and end offsets from then on.
+     */
+    private static final class StringColumnBuilder {
+        private final int maximumDictionarySize;
+        private int[] rows;
+        private Map<String, Integer> codesByValue = new HashMap<>();
+        private List<String> values = new ArrayList<>();
+        private int[] codes = new int[INITIAL_CAPACITY];
+        private int[] ends;
+        private byte[] bytes;
+        private int byteCount;
+        private int count;
+
+        /**
+         * Create a builder.
+         *
+         * @param sparse Whether to keep the rows of the values, for columns that only some rows have a value for.
+         * @param plain Whether to store plain strings from the start.
+         */
+        StringColumnBuilder(boolean sparse, boolean plain, int maximumDictionarySize) {
+            this.maximumDictionarySize = maximumDictionarySize;
+            rows = sparse ? new int[INITIAL_CAPACITY] : null;
+            if(plain) {
+                toPlain();
+            }
+        }
+
+        void add(int row, String value) {
+            if(rows != null) {
+                if(count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count] = row;
+            }
+            if(codesByValue != null) {
+                Integer code = codesByValue.get(value);
+                if(code == null && values.size() < maximumDictionarySize) {
+                    code = values.size();
+                    codesByValue.put(value, code);
+                    values.add(value);
+                }
+                if(code != null) {
+                    if(count == codes.length) {
+                        codes = Arrays.copyOf(codes, count * 2);
+                    }
+                    codes[count++] = code;
+                    return;
+                }
+                toPlain();
+            }
+            addPlain(value);
+        }
+
+        void write(DataOutputStream outputStream) throws IOException {
+            if(rows != null) {
+                outputStream.writeInt(count);
+                for(int i = 0; i < count; ++i) {
+                    outputStream.writeInt(rows[i]);
+                }
+            }
+            if(codesByValue == null) {
+                outputStream.writeByte(ColumnarFormat.PLAIN_ENCODING);
+                for(int i = 0; i < count; ++i) {
+                    outputStream.writeInt(ends[i]);
+                }
+                outputStream.write(bytes, 0, byteCount);
+            }
+            else {
+                outputStream.writeByte(ColumnarFormat.DICTIONARY_ENCODING);
+                outputStream.writeInt(values.size());
+                for(String value : values) {
+                    ColumnarFormat.writeString(outputStream, value);
+                }
+                CodeVector.write(outputStream, codes, count, values.size());
+            }
+        }
+
+        /**
+         * Switch to plain strings, re-adding the values of the rows added so far.
+         */
+        private void toPlain() {
+            final int[] previousCodes = codes;
+            final int previousCount = count;
+            ends = new int[Math.max(INITIAL_CAPACITY, count)];
+            bytes = new byte[INITIAL_CAPACITY];
+            count = 0;
+            for(int i = 0; i < previousCount; ++i) {
+                addPlain(values.get(previousCodes[i]));
+            }
+            codesByValue = null;
+            values = null;
+            codes = null;
+        }
+
+        private void addPlain(String value) {
+            final byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+            if(count == ends.length) {
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            if(byteCount + valueBytes.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, byteCount + valueBytes.length));
+            }
+            System.arraycopy(valueBytes, 0, bytes, byteCount, valueBytes.length);
+            byteCount += valueBytes.length;
+            ends[count++] = byteCount;
+        }
+    }
+
+    /**
+     * The values of a timestamp or decimal column plus the text of the values that the longs cannot reproduce.
+     */
+    private static final class LongColumnBuilder {
+        private final List<String> texts = new ArrayList<>();
+        private final int index;
+        private final boolean decimal;
+        private long[] values = new long[INITIAL_CAPACITY];
+        private byte[] scales;
+        private int[] textRows = new int[INITIAL_CAPACITY];
+        private int count;
+
+        LongColumnBuilder(int index) {
+            this.index = index;
+            decimal = ColumnarFormat.isDecimal(index);
+            scales = decimal ? new byte[INITIAL_CAPACITY] : null;
+        }
+
+        void add(int row, long value, String text) {
+            if(count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+                scales = decimal ? Arrays.copyOf(scales, count * 2) : null;
+            }
+            final int scale = decimal ? ColumnarFormat.scale(text) : ColumnarFormat.NO_SCALE;
+            if(decimal) {
+                scales[count] = (byte) Math.max(scale, 0);
+            }
+            values[count++] = value;
+            if(!ColumnarFormat.isExact(index, text, value, scale)) {
+                if(texts.size() == textRows.length) {
+                    textRows = Arrays.copyOf(textRows, texts.size() * 2);
+                }
+                textRows[texts.size()] = row;
+                texts.add(text);
+            }
+        }
+
+        long get(int row) {
+            return values[row];
+        }
+
+        void write(DataOutputStream outputStream) throws IOException {
+            for(int i = 0; i < count; ++i) {
+                outputStream.writeLong(values[i]);
+            }
+            if(decimal) {
+                outputStream.write(scales, 0, count);
+            }
+            outputStream.writeInt(texts.size());
+            for(int i = 0; i < texts.size(); ++i) {
+                outputStream.writeInt(textRows[i]);
+                ColumnarFormat.writeString(outputStream, texts.get(i));
+            }
+        }
+    }
+
+    /**
+     * The statistics of the block of rows that is being added.
+     */
+    private static final class BlockBuilder {
+        private final int blockSize;
+        private final long[] resourceIdHashes;
+        private final long[] linkedAccountIdHashes;
+        private int firstRow;
+        private int count;
+        private long minimumUsageStart;
+        private long maximumUsageStart;
+        private long minimumCost;
+        private long maximumCost;
+
+        BlockBuilder(int blockSize) {
+            this.blockSize = blockSize;
+            resourceIdHashes = new long[blockSize];
+            linkedAccountIdHashes = new long[blockSize];
+            reset(0);
+        }
+
+        void add(long usageStart, long cost, String resourceId, String linkedAccountId) {
+            if(usageStart != ColumnarFormat.NO_VALUE) {
+                minimumUsageStart = Math.min(minimumUsageStart, usageStart);
+                maximumUsageStart = Math.max(maximumUsageStart, usageStart);
+            }
+            if(cost != ColumnarFormat.NO_VALUE) {
+                minimumCost = Math.min(minimumCost, cost);
+                maximumCost = Math.max(maximumCost, cost);
+            }
+            resourceIdHashes[count] = Hashing.hash(resourceId);
+            linkedAccountIdHashes[count] = Hashing.hash(linkedAccountId);
+            ++count;
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        boolean isFull() {
+            return count == blockSize;
+        }
+
+        ColumnarBlock build() {
+            return new ColumnarBlock(firstRow, firstRow + count, minimumUsageStart, maximumUsageStart,
+                    minimumCost, maximumCost, BloomFilter.create(resourceIdHashes, count),
+                    BloomFilter.create(linkedAccountIdHashes, count));
+        }
+
+        void reset(int nextRow) {
+            firstRow = nextRow;
+            count = 0;
+            minimumUsageStart = Long.MAX_VALUE;
+            maximumUsageStart = Long.MIN_VALUE;
+            minimumCost = Long.MAX_VALUE;
+            maximumCost = Long.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.FixedPoint;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constants and helpers shared by the columnar file writer and reader.
+ *
+ * <p>A columnar file holds, in big-endian order: the magic number and format version, the ETag of the source file,
+ * the row count, the tag names, the block size and the statistics of each block of rows (since version 2), one block
+ * per fixed column and one sparse block per tag. String columns start with their encoding (since version 4): either
+ * a dictionary followed by one code per row, or for record IDs and columns with more than
+ * ColumnarFile.MAXIMUM_ENCODED_DICTIONARY_SIZE distinct values, the end offset of each row followed by the UTF-8 bytes
+ * of every row. Sparse columns are the number of rows with a value and those rows, followed by their values encoded
+ * the same way (since version 4). Timestamp and decimal columns are one long per row (epoch milliseconds and
+ * FixedPoint values), then for decimals the number of fraction digits of each row's text (since version 3), followed
+ * by the original text of any values that those cannot reproduce exactly.
+ */
+final class ColumnarFormat {
+    static final int MAGIC = 0x41425443;
+    static final int VERSION = 4;
+    static final int FIRST_VERSION_WITH_BLOCKS = 2;
+    static final int FIRST_VERSION_WITH_SCALES = 3;
+    static final int FIRST_VERSION_WITH_PLAIN_STRINGS = 4;
+
+    static final int DICTIONARY_ENCODING = 0;
+    static final int PLAIN_ENCODING = 1;
+
+    /**
+     * The value of a missing timestamp or decimal, which is both DetailedLineItem.NO_TIMESTAMP and FixedPoint.NO_VALUE.
+     */
+    static final long NO_VALUE = Long.MIN_VALUE;
+
+    /**
+     * The scale of values that are formatted without trailing zeros, as files written before version 3 store them.
+     */
+    static final int NO_SCALE = -1;
+
+    /**
+     * The largest number of fraction digits that is stored as a scale rather than as text.
+     */
+    static final int MAX_SCALE = Byte.MAX_VALUE;
+
+    private ColumnarFormat() {
+
+    }
+
+    static boolean isTimestamp(int index) {
+        return index == DetailedLineItemColumn.USAGE_START_DATE.getIndex()
+                || index == DetailedLineItemColumn.USAGE_END_DATE.getIndex();
+    }
+
+    static boolean isDecimal(int index) {
+        return index == DetailedLineItemColumn.USAGE_QUANTITY.getIndex()
+                || index == DetailedLineItemColumn.RATE.getIndex()
+                || index == DetailedLineItemColumn.COST.getIndex();
+    }
+
+    /**
+     * Decode a timestamp or decimal field to epoch milliseconds or a FixedPoint value.
+     *
+     * @return The value, or NO_VALUE if the field is empty or cannot be decoded.
+     */
+    static long decodeLong(DetailedLineItem record, int index) {
+        try {
+            switch(DetailedLineItemColumn.values()[index]) {
+                case USAGE_START_DATE:
+                    return record.getUsageStartMillis();
+                case USAGE_END_DATE:
+                    return record.getUsageEndMillis();
+                case USAGE_QUANTITY:
+                    return record.getUsageQuantityFixedPoint();
+                case RATE:
+                    return record.getRateFixedPoint();
+                default:
+                    return record.getCostFixedPoint();
+            }
+        }
+        catch(IllegalArgumentException | ArithmeticException e) {
+            return NO_VALUE;
+        }
+    }
+
+    /**
+     * Get the number of fraction digits of a decimal field, which formatLong needs to reproduce its trailing zeros.
+     *
+     * @return The scale, or NO_SCALE if the text has more than MAX_SCALE fraction digits.
+     */
+    static int scale(String text) {
+        final int point = text.indexOf('.');
+        final int scale = point < 0 ? 0 : text.length() - point - 1;
+        return scale <= MAX_SCALE ? scale : NO_SCALE;
+    }
+
+    /**
+     * Check whether the decoded value of a timestamp or decimal field reproduces the field's text exactly.
+     *
+     * @param scale The scale the value is formatted with, see scale(String). Timestamps ignore it.
+     */
+    static boolean isExact(int index, String text, long value, int scale) {
+        if(text.isEmpty()) {
+            return true;
+        }
+        if(value == NO_VALUE || (scale == NO_SCALE && !isTimestamp(index))) {
+            return false;
+        }
+        return text.equals(formatLong(isTimestamp(index), value, scale));
+    }
+
+    /**
+     * Format a timestamp or decimal value as it would appear in a billing file.
+     *
+     * @param scale The number of fraction digits of a decimal, or NO_SCALE to drop trailing zeros.
+     *
+     * @return The text, which is an empty string for NO_VALUE.
+     */
+    static String formatLong(boolean timestamp, long value, int scale) {
+        if(value == NO_VALUE) {
+            return "";
+        }
+        if(timestamp) {
+            return DetailedLineItem.DATE_TIME_FORMATTER.print(value);
+        }
+        if(scale == NO_SCALE) {
+            return FixedPoint.toString(value);
+        }
+        // Rounding only happens for values that isExact() rejects, whose text is stored instead.
+        return FixedPoint.toBigDecimal(value).setScale(scale, RoundingMode.HALF_EVEN).toPlainString();
+    }
+
+    static void writeString(DataOutputStream outputStream, String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get a view of the next bytes of a buffer and skip over them.
+     */
+    static ByteBuffer slice(ByteBuffer buffer, int length) {
+        final ByteBuffer slice = buffer.slice();
+        slice.limit(length);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.FixedPoint;
+import com.miovision.oss.awsbillingtools.parser.RecordFields;
+import com.miovision.oss.awsbillingtools.parser.StringDictionary;
+
+/**
+ * The fields of one row of a columnar file. Timestamps and decimals are returned without going through text.
+ */
+final class ColumnarRecordFields implements RecordFields {
+    private final ColumnarFile file;
+    private final int row;
+
+    ColumnarRecordFields(ColumnarFile file, int row) {
+        this.file = file;
+        this.row = row;
+    }
+
+    @Override
+    public int size() {
+        return DetailedLineItemColumn.FIRST_TAG_INDEX + file.getTagHeader().size();
+    }
+
+    @Override
+    public String get(int index) {
+        final LongColumn longColumn = file.longColumnAt(index);
+        return longColumn != null ? longColumn.getText(row) : file.stringColumnAt(index).get(row);
+    }
+
+    @Override
+    public CharSequence getChars(int index) {
+        return get(index);
+    }
+
+    @Override
+    public int getCode(int index) {
+        final StringColumn stringColumn = file.stringColumnAt(index);
+        return stringColumn == null ? StringDictionary.NOT_ENCODED : stringColumn.getCode(row);
+    }
+
+    @Override
+    public StringDictionary getDictionary() {
+        return file.getDictionary();
+    }
+
+    @Override
+    public boolean isEmpty(int index) {
+        final LongColumn longColumn = file.longColumnAt(index);
+        if(longColumn == null) {
+            return file.stringColumnAt(index).get(row).isEmpty();
+        }
+        return longColumn.get(row) == Long.MIN_VALUE && longColumn.getOriginalText(row) == null;
+    }
+
+    @Override
+    public long getEpochMillis(int index) {
+        final LongColumn longColumn = file.longColumnAt(index);
+        return isExact(longColumn) ? longColumn.get(row) : RecordFields.super.getEpochMillis(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        final LongColumn longColumn = file.longColumnAt(index);
+        if(!isExact(longColumn)) {
+            return RecordFields.super.getDouble(index);
+        }
+        final long value = longColumn.get(row);
+        return value == FixedPoint.NO_VALUE ? Double.NaN : FixedPoint.toDouble(value);
+    }
+
+    @Override
+    public long getFixedPoint(int index) {
+        final LongColumn longColumn = file.longColumnAt(index);
+        return isExact(longColumn) ? longColumn.get(row) : RecordFields.super.getFixedPoint(index);
+    }
+
+    @Override
+    public RecordFields copy() {
+        return this;
+    }
+
+    private boolean isExact(LongColumn longColumn) {
+        return longColumn != null && longColumn.getOriginalText(row) == null;
+    }
+}
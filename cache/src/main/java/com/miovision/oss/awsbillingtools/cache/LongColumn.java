@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * A timestamp or decimal column of a columnar file, read in place from the file's buffer.
+ *
+ * <p>Timestamps are epoch milliseconds and decimals are FixedPoint values. Missing values are Long.MIN_VALUE, which is
+ * both DetailedLineItem.NO_TIMESTAMP and FixedPoint.NO_VALUE. Decimals keep the number of fraction digits of their
+ * text, so trailing zeros survive. The few values that cannot be reproduced exactly from their long and scale, such
+ * as rates with more than nine fraction digits, keep their original text.
+ */
+public final class LongColumn {
+    private final LongBuffer values;
+    private final ByteBuffer scales;
+    private final int[] textRows;
+    private final String[] texts;
+    private final boolean timestamps;
+
+    /**
+     * Create a column.
+     *
+     * @param scales The scale of each row, or null for timestamps and for files that do not store scales.
+     */
+    LongColumn(LongBuffer values, ByteBuffer scales, int[] textRows, String[] texts, boolean timestamps) {
+        this.values = values;
+        this.scales = scales;
+        this.textRows = textRows;
+        this.texts = texts;
+        this.timestamps = timestamps;
+    }
+
+    public int size() {
+        return values.limit();
+    }
+
+    /**
+     * Get the value of a row.
+     *
+     * @param row The row.
+     *
+     * @return The epoch milliseconds or FixedPoint value, or Long.MIN_VALUE if the row has no value.
+     */
+    public long get(int row) {
+        return values.get(row);
+    }
+
+    /**
+     * Get the text of a row as it would appear in a billing file.
+     *
+     * @param row The row.
+     *
+     * @return The text, which is an empty string if the row has no value.
+     */
+    public String getText(int row) {
+        final String text = getOriginalText(row);
+        if(text != null) {
+            return text;
+        }
+
+        final int scale = scales == null ? ColumnarFormat.NO_SCALE : scales.get(row);
+        return ColumnarFormat.formatLong(timestamps, values.get(row), scale);
+    }
+
+    /**
+     * Get the original text of a row whose value cannot be reproduced from its long.
+     *
+     * @return The text, or null if the long is exact.
+     */
+    String getOriginalText(int row) {
+        if(textRows.length == 0) {
+            return null;
+        }
+        final int index = Arrays.binarySearch(textRows, row);
+        return index < 0 ? null : texts[index];
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import com.miovision.oss.awsbillingtools.parser.FixedPoint;
+import com.miovision.oss.awsbillingtools.parser.RecordFields;
+import com.miovision.oss.awsbillingtools.parser.StringDictionary;
+
+/**
+ * The fields of one row of an off-heap record store. Timestamps and decimals are returned without going through text.
+ */
+final class OffHeapRecordFields implements RecordFields {
+    private final OffHeapRecordStore store;
+    private final int row;
+
+    OffHeapRecordFields(OffHeapRecordStore store, int row) {
+        this.store = store;
+        this.row = row;
+    }
+
+    @Override
+    public int size() {
+        return store.fieldCount();
+    }
+
+    @Override
+    public String get(int index) {
+        final int slot = store.getSlot(row, index);
+        if(isExact(index, slot)) {
+            final int scale = slot >= 0 ? slot : ColumnarFormat.NO_SCALE;
+            return ColumnarFormat.formatLong(ColumnarFormat.isTimestamp(index), store.getLong(row, index), scale);
+        }
+        return store.getString(slot);
+    }
+
+    @Override
+    public CharSequence getChars(int index) {
+        return get(index);
+    }
+
+    @Override
+    public int getCode(int index) {
+        final int slot = store.getSlot(row, index);
+        return OffHeapRecordStore.isLong(index) || slot < 0 ? StringDictionary.NOT_ENCODED : slot;
+    }
+
+    @Override
+    public StringDictionary getDictionary() {
+        return store.getDictionary();
+    }
+
+    @Override
+    public boolean isEmpty(int index) {
+        final boolean emptySlot = store.getSlot(row, index) == OffHeapRecordStore.EMPTY_SLOT;
+        if(!OffHeapRecordStore.isLong(index)) {
+            return emptySlot;
+        }
+        return emptySlot && store.getLong(row, index) == ColumnarFormat.NO_VALUE;
+    }
+
+    @Override
+    public long getEpochMillis(int index) {
+        return isExact(index) ? store.getLong(row, index) : RecordFields.super.getEpochMillis(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        if(!isExact(index)) {
+            return RecordFields.super.getDouble(index);
+        }
+        final long value = store.getLong(row, index);
+        return value == FixedPoint.NO_VALUE ? Double.NaN : FixedPoint.toDouble(value);
+    }
+
+    @Override
+    public long getFixedPoint(int index) {
+        return isExact(index) ? store.getLong(row, index) : RecordFields.super.getFixedPoint(index);
+    }
+
+    @Override
+    public RecordFields copy() {
+        return this;
+    }
+
+    private boolean isExact(int index) {
+        return isExact(index, store.getSlot(row, index));
+    }
+
+    /**
+     * Check whether the long of a field reproduces its text, in which case the slot is EMPTY_SLOT or the scale.
+     */
+    private static boolean isExact(int index, int slot) {
+        return OffHeapRecordStore.isLong(index) && (slot >= 0 || slot == OffHeapRecordStore.EMPTY_SLOT);
+    }
+}
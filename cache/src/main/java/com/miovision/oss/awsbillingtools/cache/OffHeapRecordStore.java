@@ -0,0 +1,288 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.StringDictionary;
+import com.miovision.oss.awsbillingtools.parser.TagHandle;
+import com.miovision.oss.awsbillingtools.parser.TagHeader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * An in-memory store of detailed line items that keeps the records outside of the Java heap.
+ *
+ * <p>Each record is a fixed-width row slot in a chunk of direct memory: one long per timestamp or decimal column
+ * (epoch milliseconds and FixedPoint values) followed by one int per column and tag. The int of a string column is
+ * either the code of a dictionary encoded value or a reference into an off-heap string arena; the int of a
+ * timestamp or decimal column references the original text of a value that its long cannot reproduce exactly, and
+ * otherwise holds the number of fraction digits of a decimal so that its trailing zeros are kept. Heap
+ * usage is a few objects per chunk plus the dictionary, whatever the number of records.
+ *
+ * <p>get(int) returns a lightweight DetailedLineItem view of a row. Records are added by a single thread; once
+ * loaded, the store can be read from any number of threads. All records must share the same tags.
+ */
+public final class OffHeapRecordStore {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 24;
+
+    static final int EMPTY_SLOT = ~OffHeapStringArena.EMPTY;
+
+    private static final int FIRST_LONG_INDEX = DetailedLineItemColumn.USAGE_START_DATE.getIndex();
+    private static final int LONG_COLUMN_COUNT = DetailedLineItemColumn.COST.getIndex() - FIRST_LONG_INDEX + 1;
+    private static final int SLOTS_OFFSET = LONG_COLUMN_COUNT * Long.BYTES;
+
+    private final int chunkSize;
+    private final OffHeapStringArena arena;
+    private final List<ByteBuffer> rowChunks = new ArrayList<>();
+    private StringDictionary dictionary;
+    private TagHeader tagHeader;
+    private TagHandle[] tagHandles;
+    private int rowSize;
+    private int rowsPerChunk;
+    private int size;
+    private String[] lastValues;
+    private int[] lastSlots;
+
+    public OffHeapRecordStore() {
+        this(null, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Create a store.
+     *
+     * @param dictionary The dictionary whose codes are stored for dictionary encoded values, or null to use the
+     *                   dictionary of the first encoded record.
+     * @param chunkSize The size in bytes of each block of direct memory, a multiple of eight.
+     */
+    public OffHeapRecordStore(StringDictionary dictionary, int chunkSize) {
+        if(chunkSize <= 0 || chunkSize % Long.BYTES != 0) {
+            throw new IllegalArgumentException("The chunk size must be a positive multiple of 8");
+        }
+
+        this.dictionary = dictionary;
+        this.chunkSize = chunkSize;
+        arena = new OffHeapStringArena(chunkSize);
+    }
+
+    /**
+     * Add a record.
+     *
+     * @param record The record. It is not retained, so cursor views can be added directly.
+     *
+     * @throws IllegalArgumentException Thrown when the record has different tags than the previous records.
+     */
+    public void add(DetailedLineItem record) {
+        checkTagHeader(record.getTagHeader());
+        if(dictionary == null) {
+            dictionary = record.getDictionary();
+        }
+
+        final int row = size;
+        if(row / rowsPerChunk == rowChunks.size()) {
+            rowChunks.add(ByteBuffer.allocateDirect(chunkSize));
+        }
+        final ByteBuffer chunk = rowChunk(row);
+        final int offset = rowOffset(row);
+        for(DetailedLineItemColumn column : DetailedLineItemColumn.values()) {
+            final int index = column.getIndex();
+            final String text = record.get(column);
+            final int slot;
+            if(isLong(index)) {
+                final long value = text.isEmpty() ? ColumnarFormat.NO_VALUE : ColumnarFormat.decodeLong(record, index);
+                chunk.putLong(offset + (index - FIRST_LONG_INDEX) * Long.BYTES, value);
+                slot = toLongSlot(index, text, value);
+            }
+            else {
+                slot = toSlot(index, text, record, record.getDictionaryCode(column));
+            }
+            chunk.putInt(offset + SLOTS_OFFSET + index * Integer.BYTES, slot);
+        }
+        for(int i = 0; i < tagHandles.length; ++i) {
+            final String value = record.getTag(tagHandles[i]);
+            final int index = DetailedLineItemColumn.FIRST_TAG_INDEX + i;
+            final int slot = toSlot(index, value, record, record.getTagDictionaryCode(tagHandles[i]));
+            chunk.putInt(offset + SLOTS_OFFSET + index * Integer.BYTES, slot);
+        }
+        ++size;
+    }
+
+    /**
+     * Add every record of a stream.
+     *
+     * @param records The records. The stream is consumed but not closed.
+     */
+    public void addAll(Stream<DetailedLineItem> records) {
+        records.forEachOrdered(this::add);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the tags of the records.
+     *
+     * @return The tag header, which is empty until the first record is added.
+     */
+    public TagHeader getTagHeader() {
+        return tagHeader == null ? TagHeader.of(Collections.emptyList()) : tagHeader;
+    }
+
+    /**
+     * Get the dictionary of the stored codes.
+     *
+     * @return The dictionary, or null if no encoded records were added.
+     */
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Get the number of bytes of direct memory allocated by the store.
+     *
+     * @return The number of bytes.
+     */
+    public long getOffHeapSize() {
+        return (long) rowChunks.size() * chunkSize + arena.getCapacity();
+    }
+
+    /**
+     * Get a view of a record.
+     *
+     * @param row The row.
+     *
+     * @return A record that reads its fields from the store.
+     */
+    public DetailedLineItem get(int row) {
+        if(row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return new DetailedLineItem(new OffHeapRecordFields(this, row), tagHeader);
+    }
+
+    /**
+     * Get views of every record, in the order they were added.
+     *
+     * @return The records.
+     */
+    public Stream<DetailedLineItem> stream() {
+        return IntStream.range(0, size).mapToObj(this::get);
+    }
+
+    int fieldCount() {
+        return DetailedLineItemColumn.FIRST_TAG_INDEX + tagHandles.length;
+    }
+
+    static boolean isLong(int index) {
+        return ColumnarFormat.isTimestamp(index) || ColumnarFormat.isDecimal(index);
+    }
+
+    long getLong(int row, int index) {
+        return rowChunk(row).getLong(rowOffset(row) + (index - FIRST_LONG_INDEX) * Long.BYTES);
+    }
+
+    int getSlot(int row, int index) {
+        return rowChunk(row).getInt(rowOffset(row) + SLOTS_OFFSET + index * Integer.BYTES);
+    }
+
+    /**
+     * Get the string of a slot, which is a dictionary code when it is not negative and an arena reference otherwise.
+     */
+    String getString(int slot) {
+        return slot >= 0 ? dictionary.get(slot) : arena.get(~slot);
+    }
+
+    /**
+     * Get the slot of a timestamp or decimal: its scale, or EMPTY_SLOT if it needs none, when the long reproduces the
+     * text exactly and a reference to the text otherwise.
+     */
+    private int toLongSlot(int index, String text, long value) {
+        if(text.isEmpty() || ColumnarFormat.isTimestamp(index)) {
+            final boolean exact = ColumnarFormat.isExact(index, text, value, ColumnarFormat.NO_SCALE);
+            return exact ? EMPTY_SLOT : toSlot(index, text);
+        }
+        final int scale = ColumnarFormat.scale(text);
+        return ColumnarFormat.isExact(index, text, value, scale) ? scale : toSlot(index, text);
+    }
+
+    private int toSlot(int index, String value, DetailedLineItem record, int code) {
+        if(value == null || value.isEmpty()) {
+            return EMPTY_SLOT;
+        }
+        if(code != StringDictionary.NOT_ENCODED && record.getDictionary() == dictionary) {
+            return code;
+        }
+        return toSlot(index, value);
+    }
+
+    /**
+     * Add a value to the arena, unless it repeats the previous value of its column.
+     */
+    private int toSlot(int index, String value) {
+        if(value.equals(lastValues[index])) {
+            return lastSlots[index];
+        }
+
+        final int slot = ~arena.add(value);
+        lastValues[index] = value;
+        lastSlots[index] = slot;
+        return slot;
+    }
+
+    private void checkTagHeader(TagHeader recordTagHeader) {
+        if(tagHeader == null) {
+            tagHeader = recordTagHeader;
+            tagHandles = new TagHandle[tagHeader.size()];
+            for(int i = 0; i < tagHandles.length; ++i) {
+                tagHandles[i] = TagHandle.of(tagHeader.getNames().get(i));
+            }
+
+            // Rows are padded to a multiple of eight bytes so that their longs stay aligned.
+            rowSize = (SLOTS_OFFSET + fieldCount() * Integer.BYTES + Long.BYTES - 1) & -Long.BYTES;
+            if(rowSize > chunkSize) {
+                throw new IllegalArgumentException("A record with " + tagHandles.length + " tags exceeds a chunk");
+            }
+            rowsPerChunk = chunkSize / rowSize;
+            lastValues = new String[fieldCount()];
+            lastSlots = new int[fieldCount()];
+        }
+        else if(recordTagHeader != tagHeader && !recordTagHeader.getNames().equals(tagHeader.getNames())) {
+            throw new IllegalArgumentException("All records of an off-heap store must have the same tags");
+        }
+    }
+
+    private ByteBuffer rowChunk(int row) {
+        return rowChunks.get(row / rowsPerChunk);
+    }
+
+    private int rowOffset(int row) {
+        return (row % rowsPerChunk) * rowSize;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only arena of UTF-8 strings in direct byte buffers.
+ *
+ * <p>Each string is a length followed by its bytes, aligned to four bytes, and is referenced by its offset divided by
+ * four so that an int reference addresses 8GB. Strings never span two chunks. Reference zero is the empty string.
+ */
+final class OffHeapStringArena {
+    static final int EMPTY = 0;
+
+    private static final int ALIGNMENT_BITS = 2;
+    private static final int ALIGNMENT = 1 << ALIGNMENT_BITS;
+    private static final int MAXIMUM_REFERENCE = Integer.MAX_VALUE;
+
+    private final int chunkSize;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+
+    OffHeapStringArena(int chunkSize) {
+        this.chunkSize = chunkSize;
+        current = ByteBuffer.allocateDirect(chunkSize);
+        chunks.add(current);
+        current.putInt(0);
+    }
+
+    /**
+     * Append a string.
+     *
+     * @return The reference of the string.
+     */
+    int add(String value) {
+        if(value.isEmpty()) {
+            return EMPTY;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        final int entrySize = align(Integer.BYTES + bytes.length);
+        if(entrySize > chunkSize) {
+            throw new IllegalArgumentException("The string is longer than an arena chunk");
+        }
+        if(current.remaining() < entrySize) {
+            if(((long) (chunks.size() + 1) * chunkSize >>> ALIGNMENT_BITS) > MAXIMUM_REFERENCE) {
+                throw new IllegalStateException("The string arena is full");
+            }
+            current = ByteBuffer.allocateDirect(chunkSize);
+            chunks.add(current);
+        }
+
+        final long offset = (long) (chunks.size() - 1) * chunkSize + current.position();
+        current.putInt(bytes.length);
+        current.put(bytes);
+        current.position(current.position() + entrySize - Integer.BYTES - bytes.length);
+        return (int) (offset >>> ALIGNMENT_BITS);
+    }
+
+    String get(int reference) {
+        if(reference == EMPTY) {
+            return "";
+        }
+
+        final long offset = (long) reference << ALIGNMENT_BITS;
+        final ByteBuffer chunk = chunks.get((int) (offset / chunkSize));
+        final int position = (int) (offset % chunkSize);
+        final byte[] bytes = new byte[chunk.getInt(position)];
+        final ByteBuffer view = chunk.duplicate();
+        view.position(position + Integer.BYTES);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the number of off-heap bytes allocated by the arena.
+     */
+    long getCapacity() {
+        return (long) chunks.size() * chunkSize;
+    }
+
+    private static int align(int size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
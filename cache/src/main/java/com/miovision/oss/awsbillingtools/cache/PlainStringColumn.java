@@ -0,0 +1,74 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import com.miovision.oss.awsbillingtools.parser.StringDictionary;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A string column that stores the UTF-8 bytes of every row, for values that are rarely repeated such as record IDs.
+ * Its values are never encoded in the file's StringDictionary.
+ */
+final class PlainStringColumn implements StringColumn {
+    private final IntBuffer ends;
+    private final ByteBuffer bytes;
+
+    PlainStringColumn(IntBuffer ends, ByteBuffer bytes) {
+        this.ends = ends;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Read a column written as the end offset of each row followed by the bytes of every row.
+     */
+    static PlainStringColumn read(ByteBuffer buffer, int size) {
+        final IntBuffer ends = ColumnarFormat.slice(buffer, size * Integer.BYTES).asIntBuffer();
+        final int length = size == 0 ? 0 : ends.get(size - 1);
+        return new PlainStringColumn(ends, ColumnarFormat.slice(buffer, length));
+    }
+
+    @Override
+    public int size() {
+        return ends.limit();
+    }
+
+    @Override
+    public String get(int row) {
+        final int start = row == 0 ? 0 : ends.get(row - 1);
+        final byte[] value = new byte[ends.get(row) - start];
+        // Absolute gets leave the buffer's position alone, so rows can be read from any number of threads.
+        for(int i = 0; i < value.length; ++i) {
+            value[i] = bytes.get(start + i);
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int getCode(int row) {
+        return StringDictionary.NOT_ENCODED;
+    }
+}
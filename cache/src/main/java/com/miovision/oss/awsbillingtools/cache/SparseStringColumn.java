@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import com.miovision.oss.awsbillingtools.parser.StringDictionary;
+import java.nio.IntBuffer;
+
+/**
+ * A string column that only stores the rows that have a value, such as a tag that few resources carry.
+ */
+final class SparseStringColumn implements StringColumn {
+    private final IntBuffer rows;
+    private final StringColumn values;
+    private final int size;
+
+    /**
+     * Create a column.
+     *
+     * @param rows The rows that have a value, in ascending order.
+     * @param values The value of each of those rows.
+     * @param size The number of rows, including those without a value.
+     */
+    SparseStringColumn(IntBuffer rows, StringColumn values, int size) {
+        this.rows = rows;
+        this.values = values;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int row) {
+        final int index = indexOf(row);
+        return index < 0 ? "" : values.get(index);
+    }
+
+    @Override
+    public int getCode(int row) {
+        final int index = indexOf(row);
+        return index < 0 ? StringDictionary.NOT_ENCODED : values.getCode(index);
+    }
+
+    private int indexOf(int row) {
+        int low = 0;
+        int high = rows.limit() - 1;
+        while(low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int middleRow = rows.get(middle);
+            if(middleRow < row) {
+                low = middle + 1;
+            }
+            else if(middleRow > row) {
+                high = middle - 1;
+            }
+            else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.miovision.oss.awsbillingtools.parser.Hashing;
+import org.junit.Test;
+
+/**
+ * Unit tests for the BloomFilter class.
+ */
+public class BloomFilterTest {
+    @Test
+    public void testMightContain() {
+        // Setup
+        final int count = 1000;
+        final long[] hashes = new long[count * 2];
+        for(int i = 0; i < hashes.length; ++i) {
+            hashes[i] = Hashing.hash("i-" + (i % count));
+        }
+
+        // Execute
+        final BloomFilter filter = BloomFilter.create(hashes, hashes.length);
+
+        // Verify
+        for(int i = 0; i < count; ++i) {
+            assertTrue(filter.mightContain(Hashing.hash("i-" + i)));
+        }
+        int falsePositives = 0;
+        for(int i = count; i < count * 11; ++i) {
+            if(filter.mightContain(Hashing.hash("i-" + i))) {
+                ++falsePositives;
+            }
+        }
+        assertTrue("False positives: " + falsePositives, falsePositives < count * 10 / 20);
+    }
+
+    @Test
+    public void testMightContain_Empty() {
+        // Execute
+        final BloomFilter filter = BloomFilter.create(new long[0], 0);
+
+        // Verify
+        assertFalse(filter.mightContain(Hashing.hash("")));
+        assertFalse(filter.mightContain(Hashing.hash("i-0")));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.miovision.oss.awsbillingtools.FileType;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.FastDetailedLineItemParser;
+import com.miovision.oss.awsbillingtools.s3.loader.S3BillingRecordLoader;
+import com.miovision.oss.awsbillingtools.s3.scanner.S3BillingRecordFile;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the CachingS3BillingRecordLoader class.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CachingS3BillingRecordLoaderTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private S3BillingRecordLoader<DetailedLineItem> billingRecordLoader;
+
+    private S3BillingRecordFile billingRecordFile;
+
+    private BillingRecordCache cache;
+
+    private CachingS3BillingRecordLoader cachingLoader;
+
+    @Before
+    public void setUp() {
+        billingRecordFile = new S3BillingRecordFile(
+                "bucket", "123456789012-aws-billing-detailed-line-items-with-resources-and-tags-2015-12.csv.zip",
+                "123456789012", FileType.DETAILED_LINE_ITEMS, 2015, 12, true);
+        cache = new BillingRecordCache(temporaryFolder.getRoot().toPath().resolve("cache"));
+        cachingLoader = new CachingS3BillingRecordLoader(billingRecordLoader, cache);
+    }
+
+    @Test
+    public void testLoad_ParsesOncePerETag() throws IOException {
+        // Setup
+        String fileContents = ColumnarFileTest.HEADER + ColumnarFileTest.RECORD_1 + ColumnarFileTest.RECORD_2;
+        when(billingRecordLoader.getETag(billingRecordFile)).thenReturn("\"abc-1\"");
+        when(billingRecordLoader.load(billingRecordFile, "\"abc-1\"")).thenReturn(parse(fileContents));
+
+        // Execute
+        final List<DetailedLineItem> first = load();
+        List<DetailedLineItem> second = load();
+
+        // Verify
+        verify(billingRecordLoader, times(1)).load(billingRecordFile, "\"abc-1\"");
+        assertTrue(cache.contains("\"abc-1\""));
+        assertFalse(cache.contains("\"abc-2\""));
+        assertEquals("_abc-1_.columns", cache.getFile("\"abc-1\"").getFileName().toString());
+        List<DetailedLineItem> expected = ColumnarFileTest.parse(fileContents);
+        assertEquals(expected.size(), first.size());
+        for(int i = 0; i < expected.size(); ++i) {
+            ColumnarFileTest.assertSameRecord(expected.get(i), first.get(i));
+            ColumnarFileTest.assertSameRecord(expected.get(i), second.get(i));
+        }
+    }
+
+    @Test
+    public void testLoad_RetriesWhenTheFileChangesDuringTheDownload() throws IOException {
+        // Setup
+        String fileContents = ColumnarFileTest.HEADER + ColumnarFileTest.RECORD_1;
+        when(billingRecordLoader.getETag(billingRecordFile)).thenReturn("\"abc-1\"", "\"abc-2\"");
+        when(billingRecordLoader.load(billingRecordFile, "\"abc-1\"")).thenReturn(null);
+        when(billingRecordLoader.load(billingRecordFile, "\"abc-2\"")).thenReturn(parse(fileContents));
+
+        // Execute
+        final List<DetailedLineItem> records = load();
+
+        // Verify
+        assertFalse(cache.contains("\"abc-1\""));
+        assertTrue(cache.contains("\"abc-2\""));
+        assertEquals(1, records.size());
+        ColumnarFileTest.assertSameRecord(ColumnarFileTest.parse(fileContents).get(0), records.get(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoad_GivesUpWhenTheFileKeepsChanging() throws IOException {
+        // Setup
+        when(billingRecordLoader.getETag(billingRecordFile)).thenReturn("\"abc-1\"");
+        when(billingRecordLoader.load(billingRecordFile, "\"abc-1\"")).thenReturn(null);
+
+        // Execute
+        load();
+    }
+
+    private List<DetailedLineItem> load() throws IOException {
+        try(Stream<DetailedLineItem> stream = cachingLoader.load(billingRecordFile)) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
+    private static Stream<DetailedLineItem> parse(String fileContents) throws IOException {
+        return new FastDetailedLineItemParser().parse(new StringReader(fileContents));
+    }
+}
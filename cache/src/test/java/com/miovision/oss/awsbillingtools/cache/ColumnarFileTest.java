@@ -0,0 +1,292 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemParser;
+import com.miovision.oss.awsbillingtools.parser.FastDetailedLineItemParser;
+import com.miovision.oss.awsbillingtools.parser.FixedPoint;
+import com.miovision.oss.awsbillingtools.parser.RecordFilter;
+import com.miovision.oss.awsbillingtools.parser.StringDictionary;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the ColumnarFile class.
+ */
+public class ColumnarFileTest {
+    // CHECKSTYLE.OFF: LineLengthCheck
+    static final String HEADER = "\"InvoiceID\",\"PayerAccountId\",\"LinkedAccountId\",\"RecordType\",\"RecordId\",\"ProductName\",\"RateId\",\"SubscriptionId\",\"PricingPlanId\",\"UsageType\",\"Operation\",\"AvailabilityZone\",\"ReservedInstance\",\"ItemDescription\",\"UsageStartDate\",\"UsageEndDate\",\"UsageQuantity\",\"Rate\",\"Cost\",\"ResourceId\",\"user:foo\",\"user:baz\"\n";
+    static final String RECORD_1 = "\"12345678\",\"111111111111\",\"222222222222\",\"LineItem\",\"12345678901234567890123456\",\"Product Name Here\",\"9191919\",\"723456723\",\"515253\",\"Usage Type Here\",\"Hourly\",\"us-east-1\",\"Y\",\"$0.05 per hour for a thing\",\"2015-12-01 00:00:00\",\"2015-12-01 01:00:00\",\"1.02007083\",\"0.0500000000\",\"0.05100354\",\"Resource ID\",\"bar\",\"\"\n";
+    static final String RECORD_2 = "\"12345678\",\"111111111111\",\"333333333333\",\"Rounding\",\"\",\"\",\"\",\"\",\"\",\"\",\"\",\"\",\"N\",\"Rounding of \"\"cents\"\"\",\"\",\"\",\"\",\"\",\"-0.00000012\",\"\",\"\",\"qux\"\n";
+    static final String RECORD_3 = "\"12345678\",\"111111111111\",\"222222222222\",\"LineItem\",\"3\",\"Product Name Here\",\"9191919\",\"723456723\",\"515253\",\"Usage Type Here\",\"Hourly\",\"us-east-1\",\"N\",\"A rate with many digits\",\"2015-12-31 23:00:00\",\"2015-12-31 23:59:59\",\"1.5E-5\",\"0.00000000286\",\"0.1\",\"Resource ID\",\"bar\",\"\"\n";
+    // CHECKSTYLE.ON: LineLengthCheck
+
+    @Test
+    public void testRead_SameAsParser() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2 + RECORD_3;
+
+        // Execute
+        ColumnarFile columnarFile = givenColumnarFile("\"etag\"", fileContents);
+
+        // Verify
+        List<DetailedLineItem> expected = parse(fileContents);
+        List<DetailedLineItem> actual = columnarFile.stream().collect(Collectors.toList());
+        assertEquals("\"etag\"", columnarFile.getETag());
+        assertEquals(expected.size(), columnarFile.size());
+        assertEquals(expected.size(), actual.size());
+        for(int i = 0; i < expected.size(); ++i) {
+            assertSameRecord(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void testRead_Columns() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2 + RECORD_3;
+
+        // Execute
+        ColumnarFile columnarFile = givenColumnarFile("etag", fileContents);
+
+        // Verify
+        StringColumn linkedAccounts = columnarFile.getStringColumn(DetailedLineItemColumn.LINKED_ACCOUNT_ID);
+        assertEquals("333333333333", linkedAccounts.get(1));
+        assertEquals(linkedAccounts.getCode(0), linkedAccounts.getCode(2));
+        assertEquals("222222222222", columnarFile.getDictionary().get(linkedAccounts.getCode(0)));
+
+        LongColumn costs = columnarFile.getLongColumn(DetailedLineItemColumn.COST);
+        assertEquals(51003540L, costs.get(0));
+        assertEquals(-120L, costs.get(1));
+        assertEquals("0.05100354", costs.getText(0));
+
+        StringColumn recordIds = columnarFile.getStringColumn(DetailedLineItemColumn.RECORD_ID);
+        assertEquals("3", recordIds.get(2));
+        assertEquals(StringDictionary.NOT_ENCODED, recordIds.getCode(2));
+
+        LongColumn rates = columnarFile.getLongColumn(DetailedLineItemColumn.RATE);
+        assertEquals(FixedPoint.NO_VALUE, rates.get(1));
+        assertEquals("", rates.getText(1));
+        assertEquals("0.00000000286", rates.getText(2));
+
+        StringColumn foo = columnarFile.getTagColumn("user:foo");
+        assertEquals("bar", foo.get(0));
+        assertEquals("", foo.get(1));
+        assertEquals(StringDictionary.NOT_ENCODED, foo.getCode(1));
+        assertNull(columnarFile.getTagColumn("user:missing"));
+    }
+
+    @Test
+    public void testStream_Filter() throws IOException {
+        // Setup
+        final ColumnarFileWriter writer = new ColumnarFileWriter(1);
+        parse(HEADER + RECORD_1 + RECORD_2 + RECORD_3).forEach(writer::add);
+        final ColumnarFile columnarFile = ColumnarFile.read(ByteBuffer.wrap(write(writer, "etag")),
+                new StringDictionary());
+        final RecordFilter lastDay = RecordFilter.between(DetailedLineItemColumn.USAGE_START_DATE,
+                DetailedLineItem.DATE_TIME_FORMATTER.parseDateTime("2015-12-31 00:00:00"),
+                DetailedLineItem.DATE_TIME_FORMATTER.parseDateTime("2016-01-01 00:00:00"));
+
+        // Execute
+        final List<DetailedLineItem> records = columnarFile.stream(lastDay).collect(Collectors.toList());
+
+        // Verify
+        assertEquals(1, records.size());
+        assertEquals("3", records.get(0).getRecordId());
+
+        final List<ColumnarBlock> blocks = columnarFile.getBlocks();
+        assertEquals(3, blocks.size());
+        assertEquals(2, blocks.get(2).getFirstRow());
+        assertEquals(3, blocks.get(2).getEndRow());
+        assertEquals(Arrays.asList(false, false, true), mightMatch(blocks, lastDay));
+        assertEquals(Arrays.asList(false, true, false), mightMatch(blocks,
+                RecordFilter.equalTo(DetailedLineItemColumn.LINKED_ACCOUNT_ID, "333333333333")));
+        assertEquals(Arrays.asList(true, false, true), mightMatch(blocks,
+                RecordFilter.equalTo(DetailedLineItemColumn.RESOURCE_ID, "Resource ID")));
+        assertEquals(Arrays.asList(false, true, false), mightMatch(blocks,
+                RecordFilter.between(DetailedLineItemColumn.COST, new BigDecimal("-1"), BigDecimal.ZERO)));
+        assertEquals(0, columnarFile.stream(RecordFilter.equalTo(DetailedLineItemColumn.RESOURCE_ID, "missing"))
+                .count());
+    }
+
+    @Test
+    public void testRead_TrailingZeros() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1.replace("\"0.05100354\"", "\"0.01300000\"");
+
+        // Execute
+        ColumnarFile columnarFile = givenColumnarFile("etag", fileContents);
+
+        // Verify
+        DetailedLineItem actual = columnarFile.get(0);
+        assertEquals("0.01300000", actual.get(DetailedLineItemColumn.COST));
+        assertEquals("0.01300000", columnarFile.getLongColumn(DetailedLineItemColumn.COST).getText(0));
+        assertNull(columnarFile.getLongColumn(DetailedLineItemColumn.COST).getOriginalText(0));
+        assertEquals("0.0500000000", actual.get(DetailedLineItemColumn.RATE));
+        assertEquals(13000000L, actual.getCostFixedPoint());
+        assertEquals(parse(fileContents).get(0).getFingerprint(), actual.getFingerprint());
+    }
+
+    @Test
+    public void testRead_PlainStrings() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2 + RECORD_3.replace("\"bar\",\"\"\n", "\"other\",\"\"\n");
+        ColumnarFileWriter writer = new ColumnarFileWriter(ColumnarFileWriter.DEFAULT_BLOCK_SIZE, 1);
+        parse(fileContents).forEach(writer::add);
+
+        // Execute
+        ColumnarFile columnarFile = ColumnarFile.read(ByteBuffer.wrap(write(writer, "etag")), new StringDictionary());
+
+        // Verify
+        List<DetailedLineItem> expected = parse(fileContents);
+        for(int i = 0; i < expected.size(); ++i) {
+            assertSameRecord(expected.get(i), columnarFile.get(i));
+        }
+        StringColumn recordIds = columnarFile.getStringColumn(DetailedLineItemColumn.RECORD_ID);
+        assertEquals("12345678901234567890123456", recordIds.get(0));
+        assertEquals(StringDictionary.NOT_ENCODED, recordIds.getCode(0));
+        StringColumn resourceIds = columnarFile.getStringColumn(DetailedLineItemColumn.RESOURCE_ID);
+        assertEquals("", resourceIds.get(1));
+        assertEquals("Resource ID", resourceIds.get(2));
+        assertEquals(StringDictionary.NOT_ENCODED, resourceIds.getCode(2));
+        StringColumn foo = columnarFile.getTagColumn("user:foo");
+        assertEquals("", foo.get(1));
+        assertEquals("other", foo.get(2));
+        assertEquals(StringDictionary.NOT_ENCODED, foo.getCode(2));
+        assertEquals("111111111111", columnarFile.get(2).getPayerAccountId());
+        assertEquals(columnarFile.getDictionary().getCode("111111111111"),
+                columnarFile.get(2).getDictionaryCode(DetailedLineItemColumn.PAYER_ACCOUNT_ID));
+    }
+
+    @Test
+    public void testRead_SharedDictionary() throws IOException {
+        // Setup
+        StringDictionary dictionary = new StringDictionary();
+        ByteBuffer buffer = givenColumnarBuffer("etag", HEADER + RECORD_1);
+
+        // Execute
+        ColumnarFile columnarFile = ColumnarFile.read(buffer, dictionary);
+
+        // Verify
+        DetailedLineItem record = columnarFile.get(0);
+        assertSame(dictionary, record.getDictionary());
+        assertEquals(dictionary.getCode("Product Name Here"),
+                record.getDictionaryCode(DetailedLineItemColumn.PRODUCT_NAME));
+        assertEquals(dictionary.getCode("bar"), record.getTagDictionaryCode("user:foo"));
+    }
+
+    @Test
+    public void testRead_NoRecords() throws IOException {
+        // Execute
+        ColumnarFile columnarFile = ColumnarFile.read(
+                ByteBuffer.wrap(write(new ColumnarFileWriter(), null)), new StringDictionary());
+
+        // Verify
+        assertEquals(0, columnarFile.size());
+        assertEquals("", columnarFile.getETag());
+        assertEquals(0, columnarFile.getTagHeader().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_NotAColumnarFile() throws IOException {
+        // Execute
+        ColumnarFile.read(ByteBuffer.wrap(HEADER.getBytes("UTF-8")), new StringDictionary());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAdd_DifferentTags() throws IOException {
+        // Setup
+        ColumnarFileWriter writer = new ColumnarFileWriter();
+        parse(HEADER + RECORD_1).forEach(writer::add);
+        List<DetailedLineItem> otherRecords = new DetailedLineItemParser()
+                .parse(new StringReader(HEADER.replace("user:baz", "user:other") + RECORD_1))
+                .collect(Collectors.toList());
+
+        // Execute
+        writer.add(otherRecords.get(0));
+    }
+
+    private static List<Boolean> mightMatch(List<ColumnarBlock> blocks, RecordFilter filter) {
+        return blocks.stream().map(filter::mightMatch).collect(Collectors.toList());
+    }
+
+    static void assertSameRecord(DetailedLineItem expected, DetailedLineItem actual) {
+        for(DetailedLineItemColumn column : DetailedLineItemColumn.values()) {
+            assertEquals(expected.get(column), actual.get(column));
+        }
+        assertEquals(expected.getFingerprint(), actual.getFingerprint());
+        assertEquals(expected.getUsageStartDate(), actual.getUsageStartDate());
+        assertEquals(expected.getUsageEndMillis(), actual.getUsageEndMillis());
+        assertEquals(expected.getUsageStartHourOfMonth(), actual.getUsageStartHourOfMonth());
+        assertEquals(expected.hasUsageQuantity(), actual.hasUsageQuantity());
+        assertEquals(expected.getUsageQuantity(), actual.getUsageQuantity());
+        assertEquals(expected.hasRate(), actual.hasRate());
+        assertEquals(expected.getRate(), actual.getRate());
+        assertEquals(expected.getRateFixedPoint(), actual.getRateFixedPoint());
+        assertEquals(expected.hasCost(), actual.hasCost());
+        assertEquals(expected.getCost(), actual.getCost());
+        assertEquals(expected.getCostFixedPoint(), actual.getCostFixedPoint());
+        assertEquals(expected.getTags(), actual.getTags());
+        assertFalse(actual.getTags().isEmpty());
+        assertTrue(actual.getTagHeader().getNames().equals(expected.getTagHeader().getNames()));
+    }
+
+    static List<DetailedLineItem> parse(String fileContents) throws IOException {
+        try(Stream<DetailedLineItem> stream = new FastDetailedLineItemParser().parse(new StringReader(fileContents))) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
+    private static ColumnarFile givenColumnarFile(String eTag, String fileContents) throws IOException {
+        return ColumnarFile.read(givenColumnarBuffer(eTag, fileContents), new StringDictionary());
+    }
+
+    private static ByteBuffer givenColumnarBuffer(String eTag, String fileContents) throws IOException {
+        final ColumnarFileWriter writer = new ColumnarFileWriter();
+        parse(fileContents).forEach(writer::add);
+        return ByteBuffer.wrap(write(writer, eTag));
+    }
+
+    private static byte[] write(ColumnarFileWriter writer, String eTag) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writer.write(outputStream, eTag);
+        return outputStream.toByteArray();
+    }
+}
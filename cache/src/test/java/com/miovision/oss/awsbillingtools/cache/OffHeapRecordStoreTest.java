@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemParser;
+import com.miovision.oss.awsbillingtools.parser.StringDictionary;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for the OffHeapRecordStore class.
+ */
+public class OffHeapRecordStoreTest {
+    private static final String FILE_CONTENTS = ColumnarFileTest.HEADER + ColumnarFileTest.RECORD_1
+            + ColumnarFileTest.RECORD_2 + ColumnarFileTest.RECORD_3 + ColumnarFileTest.RECORD_1;
+
+    @Test
+    public void testGet_SameAsParser() throws IOException {
+        // Setup
+        final List<DetailedLineItem> expected = ColumnarFileTest.parse(FILE_CONTENTS);
+        final OffHeapRecordStore store = new OffHeapRecordStore();
+
+        // Execute
+        store.addAll(expected.stream());
+
+        // Verify
+        assertEquals(expected.size(), store.size());
+        assertSame(expected.get(0).getDictionary(), store.getDictionary());
+        for(int i = 0; i < expected.size(); ++i) {
+            final DetailedLineItem actual = store.get(i);
+            ColumnarFileTest.assertSameRecord(expected.get(i), actual);
+            assertEquals(expected.get(i).getDictionaryCode(DetailedLineItemColumn.PRODUCT_NAME),
+                    actual.getDictionaryCode(DetailedLineItemColumn.PRODUCT_NAME));
+        }
+    }
+
+    @Test
+    public void testGet_SmallChunks() throws IOException {
+        // Setup
+        final List<DetailedLineItem> expected = new DetailedLineItemParser().parse(new StringReader(FILE_CONTENTS))
+                .collect(Collectors.toList());
+        final OffHeapRecordStore store = new OffHeapRecordStore(null, 256);
+
+        // Execute
+        store.addAll(expected.stream());
+
+        // Verify
+        assertEquals(expected.size(), store.size());
+        assertTrue(store.getOffHeapSize() > 2 * 256);
+        final List<DetailedLineItem> actual = store.stream().collect(Collectors.toList());
+        for(int i = 0; i < expected.size(); ++i) {
+            ColumnarFileTest.assertSameRecord(expected.get(i), actual.get(i));
+            assertEquals(StringDictionary.NOT_ENCODED,
+                    actual.get(i).getDictionaryCode(DetailedLineItemColumn.PRODUCT_NAME));
+        }
+        assertEquals("0.00000000286", actual.get(2).get(DetailedLineItemColumn.RATE));
+    }
+
+    @Test
+    public void testGetTagHeader_Empty() {
+        // Execute
+        final OffHeapRecordStore store = new OffHeapRecordStore();
+
+        // Verify
+        assertEquals(0, store.size());
+        assertEquals(0, store.getTagHeader().size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGet_OutOfRange() throws IOException {
+        // Setup
+        final OffHeapRecordStore store = new OffHeapRecordStore();
+        store.addAll(ColumnarFileTest.parse(FILE_CONTENTS).stream());
+
+        // Execute
+        store.get(store.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAdd_DifferentTags() throws IOException {
+        // Setup
+        final OffHeapRecordStore store = new OffHeapRecordStore();
+        store.addAll(ColumnarFileTest.parse(FILE_CONTENTS).stream());
+
+        // Execute
+        store.addAll(ColumnarFileTest.parse(
+                ColumnarFileTest.HEADER.replace("user:baz", "user:other") + ColumnarFileTest.RECORD_1).stream());
+    }
+}
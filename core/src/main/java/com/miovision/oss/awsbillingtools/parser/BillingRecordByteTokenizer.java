@@ -0,0 +1,378 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A variant of BillingRecordTokenizer that reads UTF-8 encoded bytes directly.
+ *
+ * <p>The delimiters, quotes and line endings of the format are all ASCII and can never occur inside a multi-byte UTF-8
+ * sequence, so fields are found by scanning bytes. Runs of ASCII bytes are widened straight into the record; only the
+ * fields that actually contain high bytes go through the UTF-8 decoder. Malformed sequences are replaced with U+FFFD.
+ * Input can come from an InputStream or a ByteBuffer; heap buffers are scanned in place without being copied.
+ */
+final class BillingRecordByteTokenizer implements RecordTokenizer {
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MINIMUM_BUFFER_SIZE = 4;
+    private static final int END_OF_FILE = -1;
+    private static final int END_OF_LINE = '\n';
+    private static final byte DELIMITER = ',';
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final char REPLACEMENT = (char) 0xFFFD;
+
+    private final InputStream inputStream;
+    private final ByteBuffer source;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private long recordNumber;
+
+    BillingRecordByteTokenizer(InputStream inputStream) {
+        this(inputStream, DEFAULT_BUFFER_SIZE);
+    }
+
+    BillingRecordByteTokenizer(InputStream inputStream, int bufferSize) {
+        this.inputStream = inputStream;
+        this.source = null;
+        this.buffer = new byte[Math.max(bufferSize, MINIMUM_BUFFER_SIZE)];
+    }
+
+    BillingRecordByteTokenizer(ByteBuffer source) {
+        this(source, DEFAULT_BUFFER_SIZE);
+    }
+
+    BillingRecordByteTokenizer(ByteBuffer source, int bufferSize) {
+        this.inputStream = null;
+        if(source.hasArray()) {
+            // Scan the backing array in place; there is nothing left to read once it is consumed.
+            this.source = null;
+            this.buffer = source.array();
+            this.position = source.arrayOffset() + source.position();
+            this.limit = source.arrayOffset() + source.limit();
+            source.position(source.limit());
+        }
+        else {
+            this.source = source;
+            this.buffer = new byte[Math.max(bufferSize, MINIMUM_BUFFER_SIZE)];
+        }
+    }
+
+    @Override
+    public boolean next(TokenizedRecord record, RowMatcher matcher) throws IOException {
+        while(true) {
+            record.clear();
+            if(!ensureAvailable()) {
+                return false;
+            }
+
+            ++recordNumber;
+            if(readRecord(record, matcher) && (matcher == null || matcher.matchesMissingFields(record))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(inputStream != null) {
+            inputStream.close();
+        }
+    }
+
+    private boolean readRecord(TokenizedRecord record, RowMatcher matcher) throws IOException {
+        boolean accepted = true;
+        while(true) {
+            final boolean keep = accepted && record.isProjected(record.size());
+            final int terminator;
+            if(buffer[position] == QUOTE) {
+                ++position;
+                terminator = readQuotedField(record, keep);
+            }
+            else {
+                terminator = readSimpleField(record, keep);
+            }
+            accepted = record.endField(matcher, accepted);
+
+            if(terminator != DELIMITER) {
+                return accepted;
+            }
+            if(!ensureAvailable()) {
+                // A trailing delimiter at the end of the input is followed by one last empty field.
+                return record.endField(matcher, accepted);
+            }
+        }
+    }
+
+    private int readSimpleField(TokenizedRecord record, boolean keep) throws IOException {
+        while(true) {
+            final int start = position;
+            while(position < limit) {
+                final byte b = buffer[position];
+                if(b == DELIMITER || b == LF || b == CR) {
+                    if(keep) {
+                        append(record, start, position);
+                    }
+                    return consumeTerminator(b);
+                }
+                ++position;
+            }
+
+            if(!appendAndRefill(record, start, keep)) {
+                return END_OF_FILE;
+            }
+        }
+    }
+
+    private int readQuotedField(TokenizedRecord record, boolean keep) throws IOException {
+        while(true) {
+            final int start = position;
+            while(position < limit && buffer[position] != QUOTE) {
+                ++position;
+            }
+
+            if(position == limit) {
+                if(!appendAndRefill(record, start, keep)) {
+                    throw new IOException(String.format(
+                            "(record %d) EOF reached before encapsulated token finished", recordNumber));
+                }
+                continue;
+            }
+            if(keep) {
+                append(record, start, position);
+            }
+
+            // Skip the quote and check whether it is the first half of an escaped quote.
+            ++position;
+            if(ensureAvailable() && buffer[position] == QUOTE) {
+                if(keep) {
+                    record.append('"');
+                }
+                ++position;
+            }
+            else {
+                return readAfterQuotedField();
+            }
+        }
+    }
+
+    private int readAfterQuotedField() throws IOException {
+        while(ensureAvailable()) {
+            final byte b = buffer[position];
+            if(b == DELIMITER || b == LF || b == CR) {
+                return consumeTerminator(b);
+            }
+            if(b < 0 || !Character.isWhitespace((char) b)) {
+                throw new IOException(String.format(
+                        "(record %d) invalid char between encapsulated token and delimiter", recordNumber));
+            }
+            ++position;
+        }
+        return END_OF_FILE;
+    }
+
+    private int consumeTerminator(byte b) throws IOException {
+        ++position;
+        if(b == DELIMITER) {
+            return DELIMITER;
+        }
+        if(b == CR && ensureAvailable() && buffer[position] == LF) {
+            ++position;
+        }
+        return END_OF_LINE;
+    }
+
+    /**
+     * Append the bytes from start to the end of the buffer, except for a trailing incomplete UTF-8 sequence, and read
+     * more input.
+     *
+     * @return False if the end of the input has been reached.
+     */
+    private boolean appendAndRefill(TokenizedRecord record, int start, boolean keep) throws IOException {
+        position = incompleteSequenceStart(start, limit);
+        if(keep) {
+            append(record, start, position);
+        }
+        if(refill()) {
+            return true;
+        }
+
+        // Whatever is left is a truncated sequence at the end of the input.
+        if(keep) {
+            append(record, position, limit);
+        }
+        position = limit;
+        return false;
+    }
+
+    private void append(TokenizedRecord record, int start, int end) {
+        int index = start;
+        while(index < end) {
+            final int runStart = index;
+            while(index < end && buffer[index] >= 0) {
+                ++index;
+            }
+            record.appendAscii(buffer, runStart, index - runStart);
+            if(index < end) {
+                index = decodeSequence(record, index, end);
+            }
+        }
+    }
+
+    /**
+     * Decode one multi-byte UTF-8 sequence.
+     *
+     * @return The index following the sequence, or following the malformed prefix that was replaced.
+     */
+    private int decodeSequence(TokenizedRecord record, int index, int end) {
+        final int lead = buffer[index] & 0xFF;
+        final int length = sequenceLength(lead);
+        if(length == 0) {
+            record.append(REPLACEMENT);
+            return index + 1;
+        }
+
+        int codePoint = lead & (0xFF >> (length + 1));
+        for(int i = 1; i < length; ++i) {
+            if(index + i >= end || !isValidContinuation(lead, i, buffer[index + i] & 0xFF)) {
+                record.append(REPLACEMENT);
+                return index + i;
+            }
+            codePoint = (codePoint << 6) | (buffer[index + i] & 0x3F);
+        }
+
+        if(Character.isBmpCodePoint(codePoint)) {
+            record.append((char) codePoint);
+        }
+        else {
+            record.append(Character.highSurrogate(codePoint));
+            record.append(Character.lowSurrogate(codePoint));
+        }
+        return index + length;
+    }
+
+    private static int sequenceLength(int lead) {
+        if(lead >= 0xC2 && lead <= 0xDF) {
+            return 2;
+        }
+        if(lead >= 0xE0 && lead <= 0xEF) {
+            return 3;
+        }
+        if(lead >= 0xF0 && lead <= 0xF4) {
+            return 4;
+        }
+        return 0;
+    }
+
+    /**
+     * Check a continuation byte, rejecting overlong encodings, surrogates and code points above U+10FFFF.
+     */
+    private static boolean isValidContinuation(int lead, int offset, int value) {
+        if(offset == 1) {
+            switch(lead) {
+                case 0xE0:
+                    return value >= 0xA0 && value <= 0xBF;
+                case 0xED:
+                    return value >= 0x80 && value <= 0x9F;
+                case 0xF0:
+                    return value >= 0x90 && value <= 0xBF;
+                case 0xF4:
+                    return value >= 0x80 && value <= 0x8F;
+                default:
+                    break;
+            }
+        }
+        return (value & 0xC0) == 0x80;
+    }
+
+    /**
+     * Find the start of a UTF-8 sequence that is cut off by the end of a range.
+     *
+     * @return The index of the cut off sequence's lead byte, or end if the range ends on a sequence boundary.
+     */
+    private int incompleteSequenceStart(int start, int end) {
+        for(int index = end - 1; index >= start && index >= end - 3; --index) {
+            final int value = buffer[index] & 0xFF;
+            if(value < 0x80) {
+                return end;
+            }
+            if(value >= 0xC0) {
+                return index + sequenceLength(value) > end ? index : end;
+            }
+        }
+        return end;
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        return position < limit || refill();
+    }
+
+    /**
+     * Move any unconsumed bytes to the front of the buffer and read more input after them.
+     *
+     * @return False if no more input could be read.
+     */
+    private boolean refill() throws IOException {
+        if(inputStream == null && source == null) {
+            return false;
+        }
+
+        final int remaining = limit - position;
+        System.arraycopy(buffer, position, buffer, 0, remaining);
+        position = 0;
+        limit = remaining;
+        while(true) {
+            final int read = read(buffer, limit, buffer.length - limit);
+            if(read < 0) {
+                return false;
+            }
+            if(read > 0) {
+                limit += read;
+                return true;
+            }
+        }
+    }
+
+    private int read(byte[] destination, int offset, int length) throws IOException {
+        if(inputStream != null) {
+            return inputStream.read(destination, offset, length);
+        }
+        if(!source.hasRemaining()) {
+            return -1;
+        }
+        final int count = Math.min(length, source.remaining());
+        source.get(destination, offset, count);
+        return count;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A forward-only cursor over the records of a billing record file.
+ *
+ * <p>Unlike the streams returned by BillingRecordParser, a cursor may reuse a single record instance for every row:
+ * the object returned by {@link #get()} is only valid until the next call to {@link #next()}. This keeps steady-state
+ * parsing free of per-row allocations for consumers that aggregate or convert each record immediately.
+ *
+ * @param <T> The record type.
+ */
+public interface BillingRecordCursor<T> extends Closeable {
+    /**
+     * Advance the cursor to the next record.
+     *
+     * @return True if the cursor is positioned on a record, false if there are no more records.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    boolean next() throws IOException;
+
+    /**
+     * Get the record that the cursor is positioned on.
+     *
+     * @return The current record. The instance may be reused by subsequent calls to next().
+     */
+    T get();
+}
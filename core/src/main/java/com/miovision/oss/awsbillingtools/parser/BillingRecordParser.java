@@ -25,7 +25,11 @@
 package com.miovision.oss.awsbillingtools.parser;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.stream.Stream;
 
 /**
@@ -45,6 +49,35 @@ public interface BillingRecordParser<T> {
      */
     Stream<T> parse(Reader reader) throws IOException;
 
+    /**
+     * Parse a UTF-8 encoded billing record file.
+     *
+     * <p>The default implementation decodes the stream with an InputStreamReader. Parsers that can work on bytes
+     * directly override it.
+     *
+     * @param inputStream The input stream to read the file contents from.
+     *
+     * @return A stream of billing records.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    default Stream<T> parse(InputStream inputStream) throws IOException {
+        return parse(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a UTF-8 encoded billing record file held in a buffer.
+     *
+     * @param buffer The buffer whose remaining bytes are the file contents.
+     *
+     * @return A stream of billing records.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    default Stream<T> parse(ByteBuffer buffer) throws IOException {
+        return parse(new ByteBufferInputStream(buffer));
+    }
+
     /**
      * Get the record type class.
      *
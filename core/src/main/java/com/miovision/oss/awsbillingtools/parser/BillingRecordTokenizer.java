@@ -0,0 +1,204 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A purpose-built tokenizer for the comma separated, double quoted dialect used by AWS billing files.
+ *
+ * <p>The tokenizer follows the same rules as commons-csv's {@code CSVFormat.EXCEL}: fields may be quoted or unquoted,
+ * a doubled quote inside a quoted field is a literal quote, quoted fields may span lines, records end at LF, CR or
+ * CRLF and an empty line is a record with a single empty field. Unlike commons-csv it does not allocate anything per
+ * record; field values are copied (unescaped) into a caller supplied {@link TokenizedRecord}. Fields that the record
+ * does not project are scanned but not copied.
+ */
+final class BillingRecordTokenizer implements RecordTokenizer {
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int END_OF_FILE = -1;
+    private static final int END_OF_LINE = '\n';
+    private static final char DELIMITER = ',';
+    private static final char QUOTE = '"';
+    private static final char CR = '\r';
+    private static final char LF = '\n';
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+    private long recordNumber;
+
+    BillingRecordTokenizer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    BillingRecordTokenizer(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+    }
+
+    @Override
+    public boolean next(TokenizedRecord record, RowMatcher matcher) throws IOException {
+        while(true) {
+            record.clear();
+            if(!ensureAvailable()) {
+                return false;
+            }
+
+            ++recordNumber;
+            if(readRecord(record, matcher) && (matcher == null || matcher.matchesMissingFields(record))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean readRecord(TokenizedRecord record, RowMatcher matcher) throws IOException {
+        boolean accepted = true;
+        while(true) {
+            final boolean keep = accepted && record.isProjected(record.size());
+            final int terminator;
+            if(buffer[position] == QUOTE) {
+                ++position;
+                terminator = readQuotedField(record, keep);
+            }
+            else {
+                terminator = readSimpleField(record, keep);
+            }
+            accepted = record.endField(matcher, accepted);
+
+            if(terminator != DELIMITER) {
+                return accepted;
+            }
+            if(!ensureAvailable()) {
+                // A trailing delimiter at the end of the input is followed by one last empty field.
+                return record.endField(matcher, accepted);
+            }
+        }
+    }
+
+    private int readSimpleField(TokenizedRecord record, boolean keep) throws IOException {
+        while(true) {
+            final int start = position;
+            while(position < limit) {
+                final char c = buffer[position];
+                if(c == DELIMITER || c == LF || c == CR) {
+                    if(keep) {
+                        record.append(buffer, start, position - start);
+                    }
+                    return consumeTerminator(c);
+                }
+                ++position;
+            }
+
+            if(keep) {
+                record.append(buffer, start, position - start);
+            }
+            if(!ensureAvailable()) {
+                return END_OF_FILE;
+            }
+        }
+    }
+
+    private int readQuotedField(TokenizedRecord record, boolean keep) throws IOException {
+        while(true) {
+            final int start = position;
+            while(position < limit && buffer[position] != QUOTE) {
+                ++position;
+            }
+            if(keep) {
+                record.append(buffer, start, position - start);
+            }
+
+            if(position == limit) {
+                if(!ensureAvailable()) {
+                    throw new IOException(String.format(
+                            "(record %d) EOF reached before encapsulated token finished", recordNumber));
+                }
+                continue;
+            }
+
+            // Skip the quote and check whether it is the first half of an escaped quote.
+            ++position;
+            if(ensureAvailable() && buffer[position] == QUOTE) {
+                if(keep) {
+                    record.append(QUOTE);
+                }
+                ++position;
+            }
+            else {
+                return readAfterQuotedField();
+            }
+        }
+    }
+
+    private int readAfterQuotedField() throws IOException {
+        while(ensureAvailable()) {
+            final char c = buffer[position];
+            if(c == DELIMITER || c == LF || c == CR) {
+                return consumeTerminator(c);
+            }
+            if(!Character.isWhitespace(c)) {
+                throw new IOException(String.format(
+                        "(record %d) invalid char between encapsulated token and delimiter", recordNumber));
+            }
+            ++position;
+        }
+        return END_OF_FILE;
+    }
+
+    private int consumeTerminator(char c) throws IOException {
+        ++position;
+        if(c == DELIMITER) {
+            return DELIMITER;
+        }
+        if(c == CR && ensureAvailable() && buffer[position] == LF) {
+            ++position;
+        }
+        return END_OF_LINE;
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        while(position >= limit) {
+            final int read = reader.read(buffer, 0, buffer.length);
+            if(read < 0) {
+                return false;
+            }
+            position = 0;
+            limit = read;
+        }
+        return true;
+    }
+}
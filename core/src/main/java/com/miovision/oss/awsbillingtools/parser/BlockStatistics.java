@@ -0,0 +1,63 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+/**
+ * Summary statistics of a block of rows, such as the zone maps and Bloom filters of a cached billing file, that let a
+ * RecordFilter rule out the whole block without reading its rows.
+ *
+ * <p>Statistics only have to be conservative: a block that cannot be ruled out is read and filtered row by row.
+ */
+public interface BlockStatistics {
+    /**
+     * Get the smallest value of a timestamp or decimal column in the block.
+     *
+     * @param column The column.
+     *
+     * @return The smallest epoch milliseconds or FixedPoint value, Long.MAX_VALUE if no row of the block has a value,
+     *         or Long.MIN_VALUE if the column is not tracked.
+     */
+    long getMinimum(DetailedLineItemColumn column);
+
+    /**
+     * Get the largest value of a timestamp or decimal column in the block.
+     *
+     * @param column The column.
+     *
+     * @return The largest epoch milliseconds or FixedPoint value, Long.MIN_VALUE if no row of the block has a value,
+     *         or Long.MAX_VALUE if the column is not tracked.
+     */
+    long getMaximum(DetailedLineItemColumn column);
+
+    /**
+     * Check whether some row of the block may have a value in a column.
+     *
+     * @param column The column.
+     * @param value The value.
+     *
+     * @return False if no row of the block has the value, true if one may have it or the column is not tracked.
+     */
+    boolean mightContain(DetailedLineItemColumn column, String value);
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The subset of the columns of a detailed line-item file that a job needs.
+ *
+ * <p>The tokenizer still has to scan unprojected fields to find the field boundaries, but it does not copy, decode or
+ * dictionary encode them. Accessing an unprojected fixed column of a DetailedLineItem throws an IllegalStateException
+ * and unprojected tags are absent. Projections are immutable.
+ */
+public final class ColumnProjection {
+    private final Set<DetailedLineItemColumn> columns;
+    private final Set<String> tagNames;
+
+    private ColumnProjection(Set<DetailedLineItemColumn> columns, Set<String> tagNames) {
+        this.columns = Collections.unmodifiableSet(columns);
+        this.tagNames = Collections.unmodifiableSet(tagNames);
+    }
+
+    /**
+     * Create a projection of fixed columns and no tags.
+     *
+     * @param columns The fixed columns to keep.
+     *
+     * @return The projection.
+     */
+    public static ColumnProjection of(DetailedLineItemColumn... columns) {
+        final Set<DetailedLineItemColumn> columnSet = EnumSet.noneOf(DetailedLineItemColumn.class);
+        columnSet.addAll(Arrays.asList(columns));
+        return new ColumnProjection(columnSet, Collections.emptySet());
+    }
+
+    /**
+     * Get a projection that also keeps some tags.
+     *
+     * @param tagNames The names of the tags to keep, e.g. {@code user:Environment}.
+     *
+     * @return The new projection.
+     */
+    public ColumnProjection withTags(String... tagNames) {
+        final Set<String> tagNameSet = new HashSet<>(this.tagNames);
+        tagNameSet.addAll(Arrays.asList(tagNames));
+        return new ColumnProjection(EnumSet.copyOf(columns), tagNameSet);
+    }
+
+    public Set<DetailedLineItemColumn> getColumns() {
+        return columns;
+    }
+
+    public Set<String> getTagNames() {
+        return tagNames;
+    }
+
+    public boolean includes(DetailedLineItemColumn column) {
+        return columns.contains(column);
+    }
+
+    /**
+     * Get the projected fields of a file.
+     *
+     * @param tagHeader The file's tags.
+     *
+     * @return A mask with an entry for every field of the file that is true if the field is projected.
+     */
+    boolean[] toFieldMask(TagHeader tagHeader) {
+        final boolean[] mask = new boolean[DetailedLineItemColumn.FIRST_TAG_INDEX + tagHeader.size()];
+        for(DetailedLineItemColumn column : columns) {
+            mask[column.getIndex()] = true;
+        }
+        for(int i = 0; i < tagHeader.size(); ++i) {
+            mask[DetailedLineItemColumn.FIRST_TAG_INDEX + i] = tagNames.contains(tagHeader.getNames().get(i));
+        }
+        return mask;
+    }
+
+    /**
+     * Get the projected tags of a file.
+     *
+     * @param tagHeader The file's tags.
+     *
+     * @return A header that only resolves the projected tags.
+     */
+    TagHeader project(TagHeader tagHeader) {
+        return tagHeader.retain(tagNames);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import org.apache.commons.csv.CSVRecord;
+
+/**
+ * An implementation of RecordFields backed by a commons-csv CSVRecord.
+ */
+class CsvRecordFields implements RecordFields {
+    private final CSVRecord csvRecord;
+
+    CsvRecordFields(CSVRecord csvRecord) {
+        this.csvRecord = csvRecord;
+    }
+
+    @Override
+    public int size() {
+        return csvRecord.size();
+    }
+
+    @Override
+    public String get(int index) {
+        return csvRecord.get(index);
+    }
+
+    @Override
+    public CharSequence getChars(int index) {
+        return csvRecord.get(index);
+    }
+
+    @Override
+    public int getCode(int index) {
+        return StringDictionary.NOT_ENCODED;
+    }
+
+    @Override
+    public StringDictionary getDictionary() {
+        return null;
+    }
+
+    @Override
+    public RecordFields copy() {
+        return this;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+/**
+ * A fast parser for the plain decimal numbers found in billing files, such as {@code 0.05100354} or {@code -12.5}.
+ *
+ * <p>When the digits fit in the 53-bit mantissa of a double and there are at most 22 fraction digits, both the digits
+ * and the power of ten are exact doubles and a single division yields the correctly rounded result. Anything else,
+ * including exponents, falls back to Double.parseDouble so that the result is always identical to it.
+ */
+final class DecimalParser {
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private DecimalParser() {
+
+    }
+
+    /**
+     * Parse a decimal number.
+     *
+     * @param value The text to parse. It must not be empty.
+     *
+     * @return The parsed value.
+     *
+     * @throws NumberFormatException Thrown when the text is not a number.
+     */
+    static double parseDouble(CharSequence value) {
+        final int length = value.length();
+        int index = 0;
+        boolean negative = false;
+        if(length > 0) {
+            final char sign = value.charAt(0);
+            if(sign == '-' || sign == '+') {
+                negative = sign == '-';
+                ++index;
+            }
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for(; index < length; ++index) {
+            final char ch = value.charAt(index);
+            if(ch >= '0' && ch <= '9') {
+                mantissa = mantissa * 10 + (ch - '0');
+                ++digits;
+                if(mantissa >= MAX_EXACT_MANTISSA) {
+                    return Double.parseDouble(value.toString());
+                }
+                if(scale >= 0) {
+                    ++scale;
+                }
+            }
+            else if(ch == '.' && scale < 0) {
+                scale = 0;
+            }
+            else {
+                return Double.parseDouble(value.toString());
+            }
+        }
+
+        if(digits == 0 || scale >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(value.toString());
+        }
+
+        final double result = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        return negative ? -result : result;
+    }
+}
@@ -25,13 +25,9 @@
 package com.miovision.oss.awsbillingtools.parser;
 
 import org.apache.commons.csv.CSVRecord;
-import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.concurrent.ConcurrentException;
-import org.apache.commons.lang3.concurrent.LazyInitializer;
 import org.joda.time.DateTime;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -41,156 +37,414 @@ import java.util.Map;
 public class DetailedLineItem {
     public static final DateTimeFormatter DATE_TIME_FORMATTER =
             DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss").withZoneUTC();
-    private final CSVRecord csvRecord;
-    private final List<String> tags;
-    private transient LazyInitializer<DateTime> usageStartDate;
-    private transient LazyInitializer<DateTime> usageEndDate;
-    private transient Map<String, String> extractedTags;
+    public static final long NO_TIMESTAMP = TimestampDecoder.NO_TIMESTAMP;
+    public static final int NO_HOUR = TimestampDecoder.NO_HOUR;
+    private static final int USAGE_QUANTITY_DECODED = 1;
+    private static final int RATE_DECODED = 2;
+    private static final int COST_DECODED = 4;
+    private static final int FIELD_SEPARATOR = 0x10000;
+    private final RecordFields fields;
+    private final TagHeader tagHeader;
+    private final boolean cursorView;
+    private transient Map<String, String> tags;
+    private transient int decodedValues;
+    private transient double usageQuantity;
+    private transient double rate;
+    private transient double cost;
 
     public DetailedLineItem(CSVRecord csvRecord, List<String> tags) {
-        this.csvRecord = csvRecord;
-        this.tags = tags;
+        this(csvRecord, TagHeader.of(tags));
+    }
+
+    public DetailedLineItem(CSVRecord csvRecord, TagHeader tagHeader) {
+        this(new CsvRecordFields(csvRecord), tagHeader);
+    }
+
+    public DetailedLineItem(RecordFields fields, TagHeader tagHeader) {
+        this(fields, tagHeader, false);
+    }
+
+    private DetailedLineItem(RecordFields fields, TagHeader tagHeader, boolean cursorView) {
+        this.fields = fields;
+        this.tagHeader = tagHeader;
+        this.cursorView = cursorView;
+    }
+
+    /**
+     * Create the record that a cursor re-points at each row. Only such records cache their decoded values, since
+     * they are read by a single thread and reset() is called whenever they move; other records may be shared between
+     * threads and decode on every call.
+     */
+    static DetailedLineItem cursorView(RecordFields fields, TagHeader tagHeader) {
+        return new DetailedLineItem(fields, tagHeader, true);
+    }
+
+    /**
+     * Get the value of a fixed column.
+     *
+     * @param column The column.
+     *
+     * @return The value.
+     */
+    public String get(DetailedLineItemColumn column) {
+        return fields.get(column.getIndex());
     }
 
     public String getInvoiceId() {
-        return csvRecord.get(0);
+        return fields.get(0);
     }
 
     public String getPayerAccountId() {
-        return csvRecord.get(1);
+        return fields.get(1);
     }
 
     public String getLinkedAccountId() {
-        return csvRecord.get(2);
+        return fields.get(2);
     }
 
     public String getRecordType() {
-        return csvRecord.get(3);
+        return fields.get(3);
     }
 
     public String getRecordId() {
-        return csvRecord.get(4);
+        return fields.get(4);
     }
 
     public String getProductName() {
-        return csvRecord.get(5);
+        return fields.get(5);
     }
 
     public String getRateId() {
-        return csvRecord.get(6);
+        return fields.get(6);
     }
 
     public String getSubscriptionId() {
-        return csvRecord.get(7);
+        return fields.get(7);
     }
 
     public String getPricingPlanId() {
-        return csvRecord.get(8);
+        return fields.get(8);
     }
 
     public String getUsageType() {
-        return csvRecord.get(9);
+        return fields.get(9);
     }
 
     public String getOperation() {
-        return csvRecord.get(10);
+        return fields.get(10);
     }
 
     public String getAvailabilityZone() {
-        return csvRecord.get(11);
+        return fields.get(11);
     }
 
     public Boolean isReserveInstance() {
-        return parseYn(csvRecord.get(12));
+        return isReserveInstanceValue();
+    }
+
+    /**
+     * Get whether the line item is for a reserved instance without boxing it.
+     *
+     * @return True if the ReservedInstance column is Y.
+     */
+    public boolean isReserveInstanceValue() {
+        final CharSequence value = fields.getChars(12);
+        return value.length() == 1 && value.charAt(0) == 'Y';
     }
 
     public String getItemDescription() {
-        return csvRecord.get(13);
+        return fields.get(13);
     }
 
     public DateTime getUsageStartDate() {
-        if(usageStartDate == null) {
-            usageStartDate = new DateTimeLazyInitializer(csvRecord, 14);
-        }
+        return TimestampDecoder.toDateTime(fields.getEpochMillis(14));
+    }
 
-        try {
-            return usageStartDate.get();
-        }
-        catch (ConcurrentException e) {
-            throw new RuntimeException(e);
-        }
+    public boolean hasUsageStartDate() {
+        return hasValue(14);
+    }
+
+    /**
+     * Get the usage start date in milliseconds since the epoch without creating a DateTime.
+     *
+     * @return The epoch milliseconds, or NO_TIMESTAMP if the usage start date is missing.
+     */
+    public long getUsageStartMillis() {
+        return fields.getEpochMillis(14);
+    }
+
+    /**
+     * Get the zero based hour of the month of the usage start date, e.g. 0 for midnight on the first.
+     *
+     * @return The hour of the month, or NO_HOUR if the usage start date is missing.
+     */
+    public int getUsageStartHourOfMonth() {
+        return TimestampDecoder.decodeHourOfMonth(fields.getChars(14));
     }
 
     public DateTime getUsageEndDate() {
-        if(usageEndDate == null) {
-            usageEndDate = new DateTimeLazyInitializer(csvRecord, 15);
-        }
+        return TimestampDecoder.toDateTime(fields.getEpochMillis(15));
+    }
+
+    public boolean hasUsageEndDate() {
+        return hasValue(15);
+    }
+
+    /**
+     * Get the usage end date in milliseconds since the epoch without creating a DateTime.
+     *
+     * @return The epoch milliseconds, or NO_TIMESTAMP if the usage end date is missing.
+     */
+    public long getUsageEndMillis() {
+        return fields.getEpochMillis(15);
+    }
+
+    /**
+     * Get the zero based hour of the month of the usage end date, e.g. 0 for midnight on the first.
+     *
+     * @return The hour of the month, or NO_HOUR if the usage end date is missing.
+     */
+    public int getUsageEndHourOfMonth() {
+        return TimestampDecoder.decodeHourOfMonth(fields.getChars(15));
+    }
+
+    public Double getUsageQuantity() {
+        return hasUsageQuantity() ? getUsageQuantityValue() : null;
+    }
+
+    public boolean hasUsageQuantity() {
+        return hasValue(16);
+    }
 
-        try {
-            return usageEndDate.get();
+    /**
+     * Get the usage quantity without boxing it.
+     *
+     * @return The usage quantity, or NaN if the record does not have one (see hasUsageQuantity()).
+     */
+    public double getUsageQuantityValue() {
+        if(!cursorView) {
+            return fields.getDouble(16);
         }
-        catch (ConcurrentException e) {
-            throw new RuntimeException(e);
+        if((decodedValues & USAGE_QUANTITY_DECODED) == 0) {
+            usageQuantity = fields.getDouble(16);
+            decodedValues |= USAGE_QUANTITY_DECODED;
         }
+        return usageQuantity;
     }
 
-    public Double getUsageQuantity() {
-        return parseDouble(csvRecord.get(16));
+    /**
+     * Get the usage quantity as an exact fixed-point number, see FixedPoint.
+     *
+     * @return The usage quantity in billionths, or FixedPoint.NO_VALUE if the record does not have one.
+     */
+    public long getUsageQuantityFixedPoint() {
+        return fields.getFixedPoint(16);
     }
 
     public Double getRate() {
-        return parseDouble(csvRecord.get(17));
+        return hasRate() ? getRateValue() : null;
+    }
+
+    public boolean hasRate() {
+        return hasValue(17);
+    }
+
+    /**
+     * Get the rate without boxing it.
+     *
+     * @return The rate, or NaN if the record does not have one (see hasRate()).
+     */
+    public double getRateValue() {
+        if(!cursorView) {
+            return fields.getDouble(17);
+        }
+        if((decodedValues & RATE_DECODED) == 0) {
+            rate = fields.getDouble(17);
+            decodedValues |= RATE_DECODED;
+        }
+        return rate;
+    }
+
+    /**
+     * Get the rate as an exact fixed-point number, see FixedPoint.
+     *
+     * @return The rate in billionths, or FixedPoint.NO_VALUE if the record does not have one.
+     */
+    public long getRateFixedPoint() {
+        return fields.getFixedPoint(17);
     }
 
     public Double getCost() {
-        return parseDouble(csvRecord.get(18));
+        return hasCost() ? getCostValue() : null;
+    }
+
+    public boolean hasCost() {
+        return hasValue(18);
+    }
+
+    /**
+     * Get the cost without boxing it.
+     *
+     * @return The cost, or NaN if the record does not have one (see hasCost()).
+     */
+    public double getCostValue() {
+        if(!cursorView) {
+            return fields.getDouble(18);
+        }
+        if((decodedValues & COST_DECODED) == 0) {
+            cost = fields.getDouble(18);
+            decodedValues |= COST_DECODED;
+        }
+        return cost;
+    }
+
+    /**
+     * Get the cost as an exact fixed-point number, see FixedPoint.
+     *
+     * @return The cost in billionths, or FixedPoint.NO_VALUE if the record does not have one.
+     */
+    public long getCostFixedPoint() {
+        return fields.getFixedPoint(18);
     }
 
     public String getResourceId() {
-        return csvRecord.get(19);
+        return fields.get(19);
     }
 
     public String getTag(String tagName) {
-        return getTags().get(tagName);
+        final int column = tagHeader.indexOf(tagName);
+        return column < 0 ? null : fields.get(DetailedLineItemColumn.FIRST_TAG_INDEX + column);
+    }
+
+    /**
+     * Get the value of a tag through a handle that was resolved against this record's header.
+     *
+     * @param tagHandle The tag handle.
+     *
+     * @return The tag value, or null if the file does not have the tag.
+     */
+    public String getTag(TagHandle tagHandle) {
+        final int column = tagHandle.resolve(tagHeader);
+        return column < 0 ? null : fields.get(DetailedLineItemColumn.FIRST_TAG_INDEX + column);
     }
 
+    /**
+     * Get the tags of this record.
+     *
+     * @return An unmodifiable view of the tags that is backed by the record. Views of records handed out by a
+     *         BillingRecordCursor change when the cursor advances.
+     */
     public Map<String, String> getTags() {
-        if (extractedTags == null) {
-            extractedTags = extractTags(csvRecord, tags);
+        if (tags == null) {
+            tags = new TagMap(tagHeader, fields);
         }
-        assert extractedTags != null;
-        return extractedTags;
+        return tags;
     }
 
-    private static Map<String, String> extractTags(CSVRecord csvRecord, List<String> tags) {
-        Map<String, String> mappedTags = new HashMap<>();
-        for (int i = 0; i < tags.size(); ++i) {
-            mappedTags.put(tags.get(i), csvRecord.get(20 + i));
-        }
-        return mappedTags;
+    public TagHeader getTagHeader() {
+        return tagHeader;
     }
 
-    private static boolean parseYn(String str) {
-        return "Y".equals(str) ? true : false;
+    /**
+     * Get the dictionary that the encoded fields of this record were interned into.
+     *
+     * @return The dictionary, or null if the record was not dictionary encoded.
+     */
+    public StringDictionary getDictionary() {
+        return fields.getDictionary();
     }
 
-    private static Double parseDouble(String str) {
-        return str == null || "".equals(str) ? null : Double.parseDouble(str);
+    /**
+     * Get the dictionary code of a column.
+     *
+     * @param column The column.
+     *
+     * @return The code, or StringDictionary.NOT_ENCODED if the column was not encoded.
+     */
+    public int getDictionaryCode(DetailedLineItemColumn column) {
+        return fields.getCode(column.getIndex());
     }
 
-    private static class DateTimeLazyInitializer extends LazyInitializer<DateTime> {
-        private final CSVRecord csvRecord;
-        private final int fieldIndex;
+    /**
+     * Get the dictionary code of a tag value.
+     *
+     * @param tagName The tag name.
+     *
+     * @return The code, or StringDictionary.NOT_ENCODED if the tag does not exist or was not encoded.
+     */
+    public int getTagDictionaryCode(String tagName) {
+        return getTagCode(tagHeader.indexOf(tagName));
+    }
+
+    /**
+     * Get the dictionary code of a tag value through a handle that was resolved against this record's header.
+     *
+     * @param tagHandle The tag handle.
+     *
+     * @return The code, or StringDictionary.NOT_ENCODED if the tag does not exist or was not encoded.
+     */
+    public int getTagDictionaryCode(TagHandle tagHandle) {
+        return getTagCode(tagHandle.resolve(tagHeader));
+    }
 
-        private DateTimeLazyInitializer(CSVRecord csvRecord, int fieldIndex) {
-            this.csvRecord = csvRecord;
-            this.fieldIndex = fieldIndex;
+    /**
+     * Get a 64-bit FNV-1a hash of every field, including tags, for detecting records that changed between two versions
+     * of a billing file. Trailing empty fields do not affect the fingerprint.
+     *
+     * @return The fingerprint.
+     */
+    public long getFingerprint() {
+        long hash = Hashing.FNV_OFFSET_BASIS;
+        int pendingSeparators = 0;
+        for(int i = 0; i < fields.size(); ++i) {
+            final CharSequence value = fields.getChars(i);
+            if(value.length() != 0) {
+                for(; pendingSeparators > 0; --pendingSeparators) {
+                    hash = Hashing.fnv1a(hash, FIELD_SEPARATOR);
+                }
+                for(int j = 0; j < value.length(); ++j) {
+                    hash = Hashing.fnv1a(hash, value.charAt(j));
+                }
+            }
+            ++pendingSeparators;
         }
+        return hash;
+    }
 
-        @Override
-        protected DateTime initialize() throws ConcurrentException {
-            String fieldStr = csvRecord.get(fieldIndex);
-            return StringUtils.isEmpty(fieldStr) ? null : DATE_TIME_FORMATTER.parseDateTime(fieldStr);
+    /**
+     * Create a copy of this record that is safe to retain.
+     *
+     * <p>Records handed out by a BillingRecordCursor are views that are re-pointed at the next row whenever the
+     * cursor advances. Callers that need to keep such a record must copy it first.
+     *
+     * @return An independent copy of this record.
+     */
+    public DetailedLineItem copy() {
+        return new DetailedLineItem(fields.copy(), tagHeader);
+    }
+
+    /**
+     * Get the raw characters of a field.
+     */
+    CharSequence getFieldChars(int index) {
+        return index < fields.size() ? fields.getChars(index) : "";
+    }
+
+    /**
+     * Discard the values decoded from the previous row after the underlying fields have been re-pointed.
+     */
+    void reset() {
+        decodedValues = 0;
+    }
+
+    private int getTagCode(int tagIndex) {
+        if(tagIndex < 0 || DetailedLineItemColumn.FIRST_TAG_INDEX + tagIndex >= fields.size()) {
+            return StringDictionary.NOT_ENCODED;
         }
+        return fields.getCode(DetailedLineItemColumn.FIRST_TAG_INDEX + tagIndex);
+    }
+
+    private boolean hasValue(int index) {
+        return !fields.isEmpty(index);
     }
 }
@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+/**
+ * The fixed columns of a detailed line-item file, in file order. Tag columns follow the last fixed column.
+ */
+public enum DetailedLineItemColumn {
+    INVOICE_ID("InvoiceID"),
+    PAYER_ACCOUNT_ID("PayerAccountId"),
+    LINKED_ACCOUNT_ID("LinkedAccountId"),
+    RECORD_TYPE("RecordType"),
+    RECORD_ID("RecordId"),
+    PRODUCT_NAME("ProductName"),
+    RATE_ID("RateId"),
+    SUBSCRIPTION_ID("SubscriptionId"),
+    PRICING_PLAN_ID("PricingPlanId"),
+    USAGE_TYPE("UsageType"),
+    OPERATION("Operation"),
+    AVAILABILITY_ZONE("AvailabilityZone"),
+    RESERVED_INSTANCE("ReservedInstance"),
+    ITEM_DESCRIPTION("ItemDescription"),
+    USAGE_START_DATE("UsageStartDate"),
+    USAGE_END_DATE("UsageEndDate"),
+    USAGE_QUANTITY("UsageQuantity"),
+    RATE("Rate"),
+    COST("Cost"),
+    RESOURCE_ID("ResourceId");
+
+    /**
+     * The index of the first tag column.
+     */
+    public static final int FIRST_TAG_INDEX = 20;
+
+    private final String headerName;
+
+    DetailedLineItemColumn(String headerName) {
+        this.headerName = headerName;
+    }
+
+    public int getIndex() {
+        return ordinal();
+    }
+
+    public String getHeaderName() {
+        return headerName;
+    }
+}
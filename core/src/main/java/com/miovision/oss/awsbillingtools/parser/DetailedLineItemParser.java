@@ -31,7 +31,6 @@ import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.stream.Collectors;
@@ -49,11 +48,11 @@ public class DetailedLineItemParser implements BillingRecordParser<DetailedLineI
         final CSVParser csvParser = CSV_FORMAT.parse(reader);
         try {
             final Iterator<CSVRecord> iterator = csvParser.iterator();
-            final List<String> tags = readTags(iterator);
+            final TagHeader tagHeader = readTags(iterator);
 
             return StreamSupport
                     .stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
-                    .map(csvRecord -> createDetailedLineItem(csvRecord, tags))
+                    .map(csvRecord -> createDetailedLineItem(csvRecord, tagHeader))
                     .onClose(() -> {
                         try {
                             csvParser.close();
@@ -74,17 +73,17 @@ public class DetailedLineItemParser implements BillingRecordParser<DetailedLineI
         return DetailedLineItem.class;
     }
 
-    private static List<String> readTags(Iterator<CSVRecord> iterator) {
-        return iterator.hasNext() ?
+    private static TagHeader readTags(Iterator<CSVRecord> iterator) {
+        return TagHeader.of(iterator.hasNext() ?
                 StreamSupport
                         .stream(iterator.next().spliterator(), false)
                         .skip(20)
                         .collect(Collectors.toList()) :
-                new ArrayList<>(0);
+                new ArrayList<>(0));
     }
 
-    private static DetailedLineItem createDetailedLineItem(CSVRecord csvRecord, List<String> tags) {
-        return new DetailedLineItem(csvRecord, tags);
+    private static DetailedLineItem createDetailedLineItem(CSVRecord csvRecord, TagHeader tagHeader) {
+        return new DetailedLineItem(csvRecord, tagHeader);
     }
 
 }
@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Encodes the low-cardinality columns of tokenized detailed line items into a StringDictionary.
+ */
+class DictionaryEncoder {
+    private final boolean[] encodedColumns = new boolean[DetailedLineItemColumn.FIRST_TAG_INDEX];
+    private final boolean encodeTags;
+    private final Supplier<StringDictionary> dictionarySupplier;
+
+    DictionaryEncoder(
+            Set<DetailedLineItemColumn> columns,
+            boolean encodeTags,
+            Supplier<StringDictionary> dictionarySupplier) {
+        for(DetailedLineItemColumn column : columns) {
+            encodedColumns[column.getIndex()] = true;
+        }
+        this.encodeTags = encodeTags;
+        this.dictionarySupplier = dictionarySupplier;
+    }
+
+    /**
+     * Get the dictionary to use for a new file.
+     *
+     * @return A new dictionary, or a shared one if the encoder was configured with one.
+     */
+    StringDictionary createDictionary() {
+        return dictionarySupplier.get();
+    }
+
+    void encode(TokenizedRecord record, StringDictionary dictionary) {
+        record.beginEncoding(dictionary);
+        final int size = record.size();
+        final int fixedColumns = Math.min(size, DetailedLineItemColumn.FIRST_TAG_INDEX);
+        for(int i = 0; i < fixedColumns; ++i) {
+            if(encodedColumns[i] && record.isProjected(i)) {
+                encodeField(record, dictionary, i);
+            }
+        }
+        if(encodeTags) {
+            for(int i = fixedColumns; i < size; ++i) {
+                if(record.isProjected(i)) {
+                    encodeField(record, dictionary, i);
+                }
+            }
+        }
+    }
+
+    private static void encodeField(TokenizedRecord record, StringDictionary dictionary, int index) {
+        final int start = record.start(index);
+        record.setCode(index, dictionary.intern(record.chars(), start, record.end(index) - start));
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A class that parses detailed line-item content using a hand-written tokenizer instead of commons-csv.
+ *
+ * <p>This parser produces the same records as DetailedLineItemParser but only keeps one compact character buffer per
+ * record and materializes field values as strings when they are accessed. For allocation-free parsing use
+ * {@link #cursor(Reader)} or {@link #forEachRow(Reader, Consumer)}, which re-point a single record at every row. The
+ * InputStream and ByteBuffer variants tokenize UTF-8 bytes directly and only decode the fields that are not ASCII.
+ *
+ * <p>Parsers are immutable; the {@code with...} methods return a differently configured copy.
+ */
+public class FastDetailedLineItemParser implements BillingRecordParser<DetailedLineItem> {
+    /**
+     * The low-cardinality columns that are dictionary encoded by withDictionaryEncoding().
+     *
+     * <p>Free-form columns such as ItemDescription and tag values can have enough distinct values to fill a bounded
+     * shared dictionary, so they are only encoded when requested explicitly.
+     */
+    public static final Set<DetailedLineItemColumn> DEFAULT_DICTIONARY_COLUMNS = Collections.unmodifiableSet(EnumSet.of(
+            DetailedLineItemColumn.PAYER_ACCOUNT_ID,
+            DetailedLineItemColumn.LINKED_ACCOUNT_ID,
+            DetailedLineItemColumn.PRODUCT_NAME,
+            DetailedLineItemColumn.RATE_ID,
+            DetailedLineItemColumn.USAGE_TYPE,
+            DetailedLineItemColumn.OPERATION,
+            DetailedLineItemColumn.AVAILABILITY_ZONE));
+
+    private final DictionaryEncoder dictionaryEncoder;
+    private final ColumnProjection projection;
+    private final RecordFilter filter;
+
+    public FastDetailedLineItemParser() {
+        this(null, null, null);
+    }
+
+    private FastDetailedLineItemParser(
+            DictionaryEncoder dictionaryEncoder,
+            ColumnProjection projection,
+            RecordFilter filter) {
+        this.dictionaryEncoder = dictionaryEncoder;
+        this.projection = projection;
+        this.filter = filter;
+    }
+
+    /**
+     * Get a parser that dictionary encodes the default columns with a new dictionary per file.
+     *
+     * @return The configured parser.
+     */
+    public FastDetailedLineItemParser withDictionaryEncoding() {
+        return withDictionaryEncoding(DEFAULT_DICTIONARY_COLUMNS, false, StringDictionary::new);
+    }
+
+    /**
+     * Get a parser that dictionary encodes the default columns with a shared dictionary.
+     *
+     * @param dictionary The dictionary to share between all of the files parsed by the returned parser.
+     *
+     * @return The configured parser.
+     */
+    public FastDetailedLineItemParser withDictionaryEncoding(StringDictionary dictionary) {
+        return withDictionaryEncoding(DEFAULT_DICTIONARY_COLUMNS, false, () -> dictionary);
+    }
+
+    /**
+     * Get a parser that dictionary encodes the given columns.
+     *
+     * <p>Encoded values are returned as canonical string instances and their codes are available from
+     * DetailedLineItem.getDictionaryCode(). Records copied out of the parser do not retain the characters of encoded
+     * fields.
+     *
+     * @param columns The fixed columns to encode.
+     * @param encodeTags True if tag values should be encoded too.
+     * @param dictionarySupplier Supplies the dictionary for each parsed file. Return a new dictionary for per-file
+     *                           encoding or the same dictionary to share codes between files.
+     *
+     * @return The configured parser.
+     */
+    public FastDetailedLineItemParser withDictionaryEncoding(
+            Set<DetailedLineItemColumn> columns,
+            boolean encodeTags,
+            Supplier<StringDictionary> dictionarySupplier) {
+        return new FastDetailedLineItemParser(
+                new DictionaryEncoder(columns, encodeTags, dictionarySupplier), projection, filter);
+    }
+
+    /**
+     * Get a parser that only keeps some of the columns.
+     *
+     * <p>Unprojected fields are skipped by the tokenizer without being copied. Reading an unprojected fixed column from
+     * a parsed record throws an IllegalStateException and unprojected tags are absent.
+     *
+     * @param projection The columns to keep, or null to keep every column.
+     *
+     * @return The configured parser.
+     */
+    public FastDetailedLineItemParser withProjection(ColumnProjection projection) {
+        return new FastDetailedLineItemParser(dictionaryEncoder, projection, filter);
+    }
+
+    /**
+     * Get a parser that skips the rows that are rejected by a filter.
+     *
+     * <p>The filter is evaluated against the raw characters of each field during tokenization, so rejected rows are
+     * never turned into records. The columns that the filter uses are tokenized even if they are not projected. Calling
+     * this method on a parser that already has a filter combines both filters.
+     *
+     * @param filter The filter.
+     *
+     * @return The configured parser.
+     */
+    public FastDetailedLineItemParser withFilter(RecordFilter filter) {
+        return new FastDetailedLineItemParser(
+                dictionaryEncoder, projection, this.filter == null ? filter : this.filter.and(filter));
+    }
+
+    @Override
+    public Stream<DetailedLineItem> parse(Reader reader) throws IOException {
+        return stream(cursor(reader));
+    }
+
+    /**
+     * Parse UTF-8 encoded billing record content without decoding it into characters first.
+     *
+     * @param inputStream The input stream to read the file contents from.
+     *
+     * @return A stream of billing records.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    @Override
+    public Stream<DetailedLineItem> parse(InputStream inputStream) throws IOException {
+        return stream(cursor(inputStream));
+    }
+
+    /**
+     * Parse UTF-8 encoded billing record content from a buffer. Heap buffers are scanned in place.
+     *
+     * @param buffer The buffer whose remaining bytes are the file contents.
+     *
+     * @return A stream of billing records.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    @Override
+    public Stream<DetailedLineItem> parse(ByteBuffer buffer) throws IOException {
+        return stream(cursor(buffer));
+    }
+
+    /**
+     * Parse a local, uncompressed billing record file by memory-mapping it.
+     *
+     * <p>Use ParallelDetailedLineItemParser to parse a single large file with several threads.
+     *
+     * @param file The file.
+     *
+     * @return A stream of billing records.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    public Stream<DetailedLineItem> parse(Path file) throws IOException {
+        return stream(cursor(file));
+    }
+
+    /**
+     * Open a cursor over a billing record file.
+     *
+     * @param reader The reader to use to read the file contents. The cursor takes ownership of the reader.
+     *
+     * @return A cursor whose current record is re-pointed at each row. Use DetailedLineItem.copy() to retain a record.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    public BillingRecordCursor<DetailedLineItem> cursor(Reader reader) throws IOException {
+        return cursor(new BillingRecordTokenizer(reader));
+    }
+
+    /**
+     * Open a cursor over a UTF-8 encoded billing record file.
+     *
+     * @param inputStream The input stream to read the file contents from. The cursor takes ownership of the stream.
+     *
+     * @return A cursor whose current record is re-pointed at each row. Use DetailedLineItem.copy() to retain a record.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    public BillingRecordCursor<DetailedLineItem> cursor(InputStream inputStream) throws IOException {
+        return cursor(new BillingRecordByteTokenizer(inputStream));
+    }
+
+    /**
+     * Open a cursor over a UTF-8 encoded billing record file held in a buffer.
+     *
+     * @param buffer The buffer whose remaining bytes are the file contents.
+     *
+     * @return A cursor whose current record is re-pointed at each row. Use DetailedLineItem.copy() to retain a record.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    public BillingRecordCursor<DetailedLineItem> cursor(ByteBuffer buffer) throws IOException {
+        return cursor(new BillingRecordByteTokenizer(buffer));
+    }
+
+    /**
+     * Open a cursor over a local, uncompressed billing record file by memory-mapping it.
+     *
+     * @param file The file.
+     *
+     * @return A cursor whose current record is re-pointed at each row. Use DetailedLineItem.copy() to retain a record.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    public BillingRecordCursor<DetailedLineItem> cursor(Path file) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return cursor(new BillingRecordByteTokenizer(new MappedFileInputStream(channel, 0, channel.size(), true)));
+        }
+        catch(Exception e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private BillingRecordCursor<DetailedLineItem> cursor(RecordTokenizer tokenizer) throws IOException {
+        try {
+            return createCursor(tokenizer, readTags(tokenizer), createDictionary());
+        }
+        catch(Exception e) {
+            tokenizer.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Invoke an action for every record of a billing record file.
+     *
+     * @param reader The reader to use to read the file contents. The reader is closed when this method returns.
+     * @param action The action to invoke. The record passed to the action is only valid for the duration of the call.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    public void forEachRow(Reader reader, Consumer<? super DetailedLineItem> action) throws IOException {
+        forEachRow(cursor(reader), action);
+    }
+
+    /**
+     * Invoke an action for every record of a UTF-8 encoded billing record file.
+     *
+     * @param inputStream The input stream to read the file contents from. The stream is closed when this method
+     *                    returns.
+     * @param action The action to invoke. The record passed to the action is only valid for the duration of the call.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    public void forEachRow(InputStream inputStream, Consumer<? super DetailedLineItem> action) throws IOException {
+        forEachRow(cursor(inputStream), action);
+    }
+
+    /**
+     * Invoke an action for every record of a local, uncompressed billing record file by memory-mapping it.
+     *
+     * @param file The file.
+     * @param action The action to invoke. The record passed to the action is only valid for the duration of the call.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    public void forEachRow(Path file, Consumer<? super DetailedLineItem> action) throws IOException {
+        forEachRow(cursor(file), action);
+    }
+
+    private static void forEachRow(
+            BillingRecordCursor<DetailedLineItem> cursor,
+            Consumer<? super DetailedLineItem> action) throws IOException {
+        try(BillingRecordCursor<DetailedLineItem> closeableCursor = cursor) {
+            while(closeableCursor.next()) {
+                action.accept(closeableCursor.get());
+            }
+        }
+    }
+
+    @Override
+    public Class<DetailedLineItem> getRecordTypeClass() {
+        return DetailedLineItem.class;
+    }
+
+    private static Stream<DetailedLineItem> stream(BillingRecordCursor<DetailedLineItem> cursor) {
+        return StreamSupport
+                .stream(new DetailedLineItemSpliterator(cursor), false)
+                .onClose(() -> {
+                    try {
+                        cursor.close();
+                    }
+                    catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
+    /**
+     * Create the dictionary for a new file.
+     *
+     * @return The dictionary, or null if this parser does not dictionary encode.
+     */
+    StringDictionary createDictionary() {
+        return dictionaryEncoder == null ? null : dictionaryEncoder.createDictionary();
+    }
+
+    /**
+     * Create a cursor over the records of a tokenizer that is positioned after the header.
+     */
+    BillingRecordCursor<DetailedLineItem> createCursor(
+            RecordTokenizer tokenizer,
+            TagHeader tagHeader,
+            StringDictionary dictionary) {
+        final RowMatcher matcher = filter == null ? null : filter.toRowMatcher();
+        final boolean[] fieldMask = projection == null ? null : projection.toFieldMask(tagHeader);
+        if(fieldMask != null && matcher != null) {
+            for(int i = 0; i < fieldMask.length; ++i) {
+                fieldMask[i] |= matcher.isFiltered(i);
+            }
+        }
+
+        final TagHeader projectedTagHeader = projection == null ? tagHeader : projection.project(tagHeader);
+        return new DetailedLineItemCursor(
+                tokenizer, matcher, new TokenizedRecord(fieldMask), projectedTagHeader, dictionaryEncoder, dictionary);
+    }
+
+    static TagHeader readTags(TokenizedRecord header) {
+        final int firstTagIndex = DetailedLineItemColumn.FIRST_TAG_INDEX;
+        final List<String> tags = new ArrayList<>(Math.max(0, header.size() - firstTagIndex));
+        for(int i = firstTagIndex; i < header.size(); ++i) {
+            tags.add(header.get(i));
+        }
+        return TagHeader.of(tags);
+    }
+
+    private static TagHeader readTags(RecordTokenizer tokenizer) throws IOException {
+        final TokenizedRecord header = new TokenizedRecord();
+        return tokenizer.next(header) ? readTags(header) : TagHeader.of(Collections.emptyList());
+    }
+
+    private static class DetailedLineItemCursor implements BillingRecordCursor<DetailedLineItem> {
+        private final RecordTokenizer tokenizer;
+        private final RowMatcher matcher;
+        private final DictionaryEncoder dictionaryEncoder;
+        private final StringDictionary dictionary;
+        private final TokenizedRecord record;
+        private final DetailedLineItem detailedLineItem;
+
+        DetailedLineItemCursor(
+                RecordTokenizer tokenizer,
+                RowMatcher matcher,
+                TokenizedRecord record,
+                TagHeader tagHeader,
+                DictionaryEncoder dictionaryEncoder,
+                StringDictionary dictionary) {
+            this.tokenizer = tokenizer;
+            this.matcher = matcher;
+            this.record = record;
+            this.dictionaryEncoder = dictionaryEncoder;
+            this.dictionary = dictionary;
+            this.detailedLineItem = DetailedLineItem.cursorView(record, tagHeader);
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            detailedLineItem.reset();
+            if(!tokenizer.next(record, matcher)) {
+                return false;
+            }
+            if(dictionaryEncoder != null) {
+                dictionaryEncoder.encode(record, dictionary);
+            }
+            return true;
+        }
+
+        @Override
+        public DetailedLineItem get() {
+            return detailedLineItem;
+        }
+
+        @Override
+        public void close() throws IOException {
+            tokenizer.close();
+        }
+    }
+
+    private static class DetailedLineItemSpliterator implements Spliterator<DetailedLineItem> {
+        private final BillingRecordCursor<DetailedLineItem> cursor;
+
+        DetailedLineItemSpliterator(BillingRecordCursor<DetailedLineItem> cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super DetailedLineItem> action) {
+            try {
+                if(!cursor.next()) {
+                    return false;
+                }
+            }
+            catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            action.accept(cursor.get().copy());
+            return true;
+        }
+
+        @Override
+        public Spliterator<DetailedLineItem> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+}
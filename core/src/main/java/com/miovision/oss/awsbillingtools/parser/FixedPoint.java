@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Exact fixed-point arithmetic for billing amounts, stored as longs counting billionths (e.g. nano-dollars).
+ *
+ * <p>Costs in billing files have at most eight fraction digits, so they and their sums are represented exactly, unlike
+ * doubles whose rounding errors add up to visible cents over millions of rows. A long holds amounts up to about
+ * 9.2 billion. Values with more than nine fraction digits, such as some rates, are rounded half-even.
+ */
+public final class FixedPoint {
+    /**
+     * The number of fraction digits.
+     */
+    public static final int SCALE = 9;
+
+    /**
+     * The fixed-point representation of 1.
+     */
+    public static final long ONE = 1000000000L;
+
+    /**
+     * Returned in place of a fixed-point value by accessors of missing values.
+     */
+    public static final long NO_VALUE = Long.MIN_VALUE;
+
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+    private static final double MAX_FIXED_POINT = 0x1p63;
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L
+    };
+
+    private FixedPoint() {
+
+    }
+
+    /**
+     * Parse a decimal number.
+     *
+     * @param value The text to parse, e.g. {@code 0.05100354}. It must not be empty.
+     *
+     * @return The fixed-point value.
+     *
+     * @throws NumberFormatException Thrown when the text is not a number.
+     * @throws ArithmeticException Thrown when the value does not fit in a fixed-point long.
+     */
+    public static long parse(CharSequence value) {
+        final int length = value.length();
+        int index = 0;
+        boolean negative = false;
+        if(length > 0) {
+            final char sign = value.charAt(0);
+            if(sign == '-' || sign == '+') {
+                negative = sign == '-';
+                ++index;
+            }
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        int roundingDigit = -1;
+        boolean sticky = false;
+        for(; index < length; ++index) {
+            final char ch = value.charAt(index);
+            if(ch >= '0' && ch <= '9') {
+                ++digits;
+                if(scale < SCALE) {
+                    mantissa = Math.addExact(Math.multiplyExact(mantissa, 10L), ch - '0');
+                    if(scale >= 0) {
+                        ++scale;
+                    }
+                }
+                else if(roundingDigit < 0) {
+                    roundingDigit = ch - '0';
+                }
+                else {
+                    sticky |= ch != '0';
+                }
+            }
+            else if(ch == '.' && scale < 0) {
+                scale = 0;
+            }
+            else {
+                return parseBigDecimal(value);
+            }
+        }
+
+        if(digits == 0) {
+            throw new NumberFormatException("Not a number: " + value);
+        }
+
+        long result = Math.multiplyExact(mantissa, POWERS_OF_TEN[SCALE - Math.max(scale, 0)]);
+        if(roundingDigit > 5 || roundingDigit == 5 && (sticky || (result & 1) != 0)) {
+            result = Math.addExact(result, 1L);
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Add two fixed-point values.
+     *
+     * @throws ArithmeticException Thrown when the sum overflows.
+     */
+    public static long add(long augend, long addend) {
+        return Math.addExact(augend, addend);
+    }
+
+    /**
+     * Convert a fixed-point value to the nearest double.
+     */
+    public static double toDouble(long value) {
+        if(Math.abs(value) < MAX_EXACT_DOUBLE) {
+            // Both operands are exact doubles, so the division is correctly rounded.
+            return value / (double) ONE;
+        }
+        return toBigDecimal(value).doubleValue();
+    }
+
+    /**
+     * Convert a double to the nearest fixed-point value.
+     *
+     * @throws ArithmeticException Thrown when the value is not finite or does not fit in a fixed-point long.
+     */
+    public static long fromDouble(double value) {
+        final double scaled = Math.rint(value * ONE);
+        if(!(Math.abs(scaled) < MAX_FIXED_POINT)) {
+            throw new ArithmeticException("Overflow: " + value);
+        }
+        return (long) scaled;
+    }
+
+    public static BigDecimal toBigDecimal(long value) {
+        return BigDecimal.valueOf(value, SCALE);
+    }
+
+    /**
+     * Format a fixed-point value without trailing zeros, e.g. {@code 0.051}.
+     */
+    public static String toString(long value) {
+        return toBigDecimal(value).stripTrailingZeros().toPlainString();
+    }
+
+    private static long parseBigDecimal(CharSequence value) {
+        final long result = new BigDecimal(value.toString())
+                .setScale(SCALE, RoundingMode.HALF_EVEN)
+                .unscaledValue()
+                .longValueExact();
+        if(result == NO_VALUE) {
+            throw new ArithmeticException("Overflow: " + value);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An input stream over a byte range of a file that is memory-mapped instead of read.
+ *
+ * <p>The range is mapped in windows of at most MAXIMUM_WINDOW_SIZE bytes as it is consumed, so ranges larger than 2GB
+ * are supported and repeated runs over the same file are served straight from the OS page cache. Any number of these
+ * streams may map different ranges of a single channel from different threads.
+ */
+class MappedFileInputStream extends InputStream {
+    static final long MAXIMUM_WINDOW_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long end;
+    private final boolean ownsChannel;
+    private final long windowSize;
+    private long windowEnd;
+    private MappedByteBuffer window;
+
+    /**
+     * Create a stream.
+     *
+     * @param channel The channel of the file.
+     * @param start The offset of the first byte of the range.
+     * @param end The offset following the last byte of the range.
+     * @param ownsChannel True if closing the stream should close the channel.
+     */
+    MappedFileInputStream(FileChannel channel, long start, long end, boolean ownsChannel) {
+        this(channel, start, end, ownsChannel, MAXIMUM_WINDOW_SIZE);
+    }
+
+    MappedFileInputStream(FileChannel channel, long start, long end, boolean ownsChannel, long windowSize) {
+        this.channel = channel;
+        this.end = end;
+        this.ownsChannel = ownsChannel;
+        this.windowSize = windowSize;
+        this.windowEnd = start;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return nextWindow() ? window.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if(length == 0) {
+            return 0;
+        }
+        if(!nextWindow()) {
+            return -1;
+        }
+
+        final int count = Math.min(length, window.remaining());
+        window.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        final long remaining = end - windowEnd + (window == null ? 0 : window.remaining());
+        return (int) Math.min(Integer.MAX_VALUE, remaining);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        if(ownsChannel) {
+            channel.close();
+        }
+    }
+
+    private boolean nextWindow() throws IOException {
+        if(window != null && window.hasRemaining()) {
+            return true;
+        }
+        if(windowEnd >= end) {
+            return false;
+        }
+
+        final long windowStart = windowEnd;
+        windowEnd = Math.min(end, windowStart + windowSize);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+        return true;
+    }
+}
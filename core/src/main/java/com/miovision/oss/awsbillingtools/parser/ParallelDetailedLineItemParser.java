@@ -0,0 +1,232 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A class that parses a single uncompressed detailed line-item file in parallel.
+ *
+ * <p>The file is split into byte ranges at safe record boundaries and each worker memory-maps its own range and
+ * parses it independently with the same tokenizer as FastDetailedLineItemParser. The returned stream is parallel and
+ * its spliterator splits on demand, so the chunks are parsed by the fork/join pool that runs the stream's terminal
+ * operation (the common pool unless the terminal operation is invoked from within another ForkJoinPool). Zipped
+ * billing files must be inflated to a local file first.
+ */
+public class ParallelDetailedLineItemParser {
+    public static final long DEFAULT_MINIMUM_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final FastDetailedLineItemParser parser;
+    private final long minimumChunkSize;
+
+    public ParallelDetailedLineItemParser() {
+        this(DEFAULT_MINIMUM_CHUNK_SIZE);
+    }
+
+    public ParallelDetailedLineItemParser(long minimumChunkSize) {
+        this(new FastDetailedLineItemParser(), minimumChunkSize);
+    }
+
+    /**
+     * Create a parallel parser.
+     *
+     * @param parser The parser whose configuration (such as dictionary encoding) is applied to every chunk. All of the
+     *               chunks of a file share one dictionary.
+     * @param minimumChunkSize The size in bytes below which a chunk is not split any further.
+     */
+    public ParallelDetailedLineItemParser(FastDetailedLineItemParser parser, long minimumChunkSize) {
+        this.parser = parser;
+        this.minimumChunkSize = minimumChunkSize;
+    }
+
+    public long getMinimumChunkSize() {
+        return minimumChunkSize;
+    }
+
+    /**
+     * Parse a billing record file in parallel, preserving the order of the records.
+     *
+     * @param file The uncompressed billing record file.
+     *
+     * @return A parallel stream of billing records.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    public Stream<DetailedLineItem> parse(Path file) throws IOException {
+        return parse(file, true);
+    }
+
+    /**
+     * Parse a billing record file in parallel.
+     *
+     * @param file The uncompressed billing record file.
+     * @param ordered True if the stream should report the records in file order. Aggregations that do not care about
+     *                order should pass false so that the stream can skip the work of reassembling the chunks in order.
+     *
+     * @return A parallel stream of billing records.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    public Stream<DetailedLineItem> parse(Path file, boolean ordered) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final long size = channel.size();
+            final RecordBoundaryFinder boundaryFinder = new RecordBoundaryFinder(channel, size);
+            final long headerEnd = boundaryFinder.findRecordEnd(0);
+            final TokenizedRecord header = readHeader(channel, Math.max(headerEnd, 0));
+            final TagHeader tagHeader = FastDetailedLineItemParser.readTags(header);
+            final ChunkContext context = new ChunkContext(
+                    channel, boundaryFinder, header.size(), tagHeader, parser.createDictionary(), ordered);
+
+            return StreamSupport
+                    .stream(new ChunkSpliterator(context, headerEnd < 0 ? size : headerEnd, size), true)
+                    .onClose(() -> {
+                        try {
+                            channel.close();
+                        }
+                        catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    });
+        }
+        catch(Exception e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static TokenizedRecord readHeader(FileChannel channel, long headerEnd) throws IOException {
+        final TokenizedRecord header = new TokenizedRecord();
+        final RecordTokenizer tokenizer = createTokenizer(channel, 0, headerEnd);
+        tokenizer.next(header);
+        return header;
+    }
+
+    private static RecordTokenizer createTokenizer(FileChannel channel, long start, long end) {
+        return new BillingRecordByteTokenizer(new MappedFileInputStream(channel, start, end, false));
+    }
+
+    /**
+     * The state shared by all of the chunks of a file.
+     */
+    private static class ChunkContext {
+        private final FileChannel channel;
+        private final RecordBoundaryFinder boundaryFinder;
+        private final int fieldCount;
+        private final TagHeader tagHeader;
+        private final StringDictionary dictionary;
+        private final boolean ordered;
+
+        ChunkContext(
+                FileChannel channel,
+                RecordBoundaryFinder boundaryFinder,
+                int fieldCount,
+                TagHeader tagHeader,
+                StringDictionary dictionary,
+                boolean ordered) {
+            this.channel = channel;
+            this.boundaryFinder = boundaryFinder;
+            this.fieldCount = fieldCount;
+            this.tagHeader = tagHeader;
+            this.dictionary = dictionary;
+            this.ordered = ordered;
+        }
+    }
+
+    private class ChunkSpliterator implements Spliterator<DetailedLineItem> {
+        private final ChunkContext context;
+        private final long end;
+        private long start;
+        private BillingRecordCursor<DetailedLineItem> cursor;
+
+        ChunkSpliterator(ChunkContext context, long start, long end) {
+            this.context = context;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super DetailedLineItem> action) {
+            try {
+                if(cursor == null) {
+                    cursor = parser.createCursor(
+                            createTokenizer(context.channel, start, end), context.tagHeader, context.dictionary);
+                }
+                if(!cursor.next()) {
+                    return false;
+                }
+            }
+            catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            action.accept(cursor.get().copy());
+            return true;
+        }
+
+        @Override
+        public Spliterator<DetailedLineItem> trySplit() {
+            if(cursor != null || end - start < 2 * minimumChunkSize) {
+                return null;
+            }
+
+            final long boundary;
+            try {
+                boundary = context.boundaryFinder.findRecordStart(
+                        start + (end - start) / 2, end, context.fieldCount);
+            }
+            catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            if(boundary < 0) {
+                return null;
+            }
+
+            final ChunkSpliterator prefix = new ChunkSpliterator(context, start, boundary);
+            start = boundary;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            // The number of remaining bytes is proportional to the number of remaining records, which is all that
+            // the stream framework needs to balance the splits.
+            return end - start;
+        }
+
+        @Override
+        public int characteristics() {
+            return context.ordered ? ORDERED | NONNULL : NONNULL;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Finds record boundaries in a billing file so that it can be split into independently parseable byte ranges.
+ *
+ * <p>A line break is only a safe place to split if it is not inside a quoted field. Since that cannot be decided by
+ * looking backwards from an arbitrary position, a candidate boundary is accepted only when the records that follow it
+ * tokenize cleanly and have exactly as many fields as the header.
+ */
+class RecordBoundaryFinder {
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int RECORDS_TO_VALIDATE = 2;
+    private static final int END_OF_INPUT = -1;
+    private static final int MALFORMED = -2;
+
+    private final FileChannel channel;
+    private final long size;
+
+    RecordBoundaryFinder(FileChannel channel, long size) {
+        this.channel = channel;
+        this.size = size;
+    }
+
+    /**
+     * Find the end of the record that starts at a known record boundary.
+     *
+     * @param start The position of the first byte of the record.
+     *
+     * @return The position just past the record terminator, or -1 if there is no record at the position.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    long findRecordEnd(long start) throws IOException {
+        final ByteScanner scanner = new ByteScanner(start);
+        return skipRecord(scanner) < 0 ? -1 : scanner.position();
+    }
+
+    /**
+     * Find the first safe record boundary in a range of the file.
+     *
+     * @param from The position to start searching from.
+     * @param to The position (exclusive) at which to stop searching.
+     * @param fieldCount The number of fields in every record of the file.
+     *
+     * @return The position of the first byte of a record, or -1 if no safe boundary was found.
+     *
+     * @throws IOException Thrown when an I/O exception occurs.
+     */
+    long findRecordStart(long from, long to, int fieldCount) throws IOException {
+        final ByteScanner scanner = new ByteScanner(from);
+        while(true) {
+            int ch = scanner.read();
+            while(ch != '\n' && ch != END_OF_INPUT) {
+                ch = scanner.read();
+            }
+
+            final long candidate = scanner.position();
+            if(ch == END_OF_INPUT || candidate >= to) {
+                return -1;
+            }
+            if(isRecordStart(candidate, fieldCount)) {
+                return candidate;
+            }
+        }
+    }
+
+    private boolean isRecordStart(long candidate, int fieldCount) throws IOException {
+        final ByteScanner scanner = new ByteScanner(candidate);
+        for(int i = 0; i < RECORDS_TO_VALIDATE; ++i) {
+            final int fields = skipRecord(scanner);
+            if(fields == END_OF_INPUT) {
+                return i > 0;
+            }
+            if(fields != fieldCount) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Skip over one record using the same rules as BillingRecordTokenizer.
+     *
+     * @return The number of fields in the record, END_OF_INPUT if there is no record, or MALFORMED.
+     */
+    private static int skipRecord(ByteScanner scanner) throws IOException {
+        int ch = scanner.read();
+        if(ch == END_OF_INPUT) {
+            return END_OF_INPUT;
+        }
+
+        int fields = 0;
+        while(true) {
+            ++fields;
+            if(ch == '"') {
+                while(true) {
+                    ch = scanner.read();
+                    if(ch == END_OF_INPUT) {
+                        return MALFORMED;
+                    }
+                    if(ch == '"') {
+                        ch = scanner.read();
+                        if(ch != '"') {
+                            break;
+                        }
+                    }
+                }
+                while(ch != ',' && ch != '\n' && ch != '\r' && ch != END_OF_INPUT) {
+                    if(!Character.isWhitespace(ch)) {
+                        return MALFORMED;
+                    }
+                    ch = scanner.read();
+                }
+            }
+            else {
+                while(ch != ',' && ch != '\n' && ch != '\r' && ch != END_OF_INPUT) {
+                    ch = scanner.read();
+                }
+            }
+
+            if(ch == ',') {
+                ch = scanner.read();
+                continue;
+            }
+            if(ch == '\r' && scanner.peek() == '\n') {
+                scanner.read();
+            }
+            return fields;
+        }
+    }
+
+    /**
+     * A small buffered, forward-only byte reader over the channel.
+     */
+    private class ByteScanner {
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long bufferStart;
+
+        ByteScanner(long start) {
+            this.bufferStart = start;
+            buffer.limit(0);
+        }
+
+        int read() throws IOException {
+            if(!buffer.hasRemaining() && !fill()) {
+                return END_OF_INPUT;
+            }
+            return buffer.get() & 0xff;
+        }
+
+        int peek() throws IOException {
+            if(!buffer.hasRemaining() && !fill()) {
+                return END_OF_INPUT;
+            }
+            return buffer.get(buffer.position()) & 0xff;
+        }
+
+        long position() {
+            return bufferStart + buffer.position();
+        }
+
+        private boolean fill() throws IOException {
+            bufferStart += buffer.limit();
+            buffer.clear();
+            if(bufferStart >= size) {
+                buffer.limit(0);
+                return false;
+            }
+
+            buffer.limit((int) Math.min(BUFFER_SIZE, size - bufferStart));
+            while(buffer.hasRemaining()) {
+                if(channel.read(buffer, bufferStart + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer.hasRemaining();
+        }
+    }
+}
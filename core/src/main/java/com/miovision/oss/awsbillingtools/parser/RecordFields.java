@@ -0,0 +1,130 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+/**
+ * The raw, positional field values of a single billing record.
+ *
+ * <p>Implementations other than the parsers' own, such as columnar caches, can back a DetailedLineItem by implementing
+ * this interface. The typed accessors decode the field characters by default; sources that already hold decoded
+ * values override them so that no text is produced.
+ */
+public interface RecordFields {
+    /**
+     * Get the number of fields in the record.
+     *
+     * @return The number of fields.
+     */
+    int size();
+
+    /**
+     * Get the value of a field.
+     *
+     * @param index The zero-based field index.
+     *
+     * @return The field value.
+     */
+    String get(int index);
+
+    /**
+     * Get the characters of a field without necessarily creating a string.
+     *
+     * @param index The zero-based field index.
+     *
+     * @return The field characters. For fields that a cursor re-points at each row, the sequence is only valid until
+     *         the next call to getChars or until the next row; the fields returned by copy() return sequences that stay
+     *         valid and can be read from any number of threads.
+     */
+    CharSequence getChars(int index);
+
+    /**
+     * Get the dictionary code of a field.
+     *
+     * @param index The zero-based field index.
+     *
+     * @return The code of the field value in getDictionary(), or StringDictionary.NOT_ENCODED.
+     */
+    int getCode(int index);
+
+    /**
+     * Get the dictionary that encodes some of the fields.
+     *
+     * @return The dictionary, or null if no fields are dictionary encoded.
+     */
+    StringDictionary getDictionary();
+
+    /**
+     * Check whether a field is empty.
+     *
+     * @param index The zero-based field index.
+     *
+     * @return True if the field has no characters.
+     */
+    default boolean isEmpty(int index) {
+        return getChars(index).length() == 0;
+    }
+
+    /**
+     * Get the value of a timestamp field.
+     *
+     * @param index The zero-based field index.
+     *
+     * @return The epoch milliseconds, or DetailedLineItem.NO_TIMESTAMP if the field is empty.
+     */
+    default long getEpochMillis(int index) {
+        return TimestampDecoder.decodeEpochMillis(getChars(index));
+    }
+
+    /**
+     * Get the value of a decimal field.
+     *
+     * @param index The zero-based field index.
+     *
+     * @return The value, or NaN if the field is empty.
+     */
+    default double getDouble(int index) {
+        final CharSequence value = getChars(index);
+        return value.length() == 0 ? Double.NaN : DecimalParser.parseDouble(value);
+    }
+
+    /**
+     * Get the value of a decimal field as an exact fixed-point number.
+     *
+     * @param index The zero-based field index.
+     *
+     * @return The value, or FixedPoint.NO_VALUE if the field is empty.
+     */
+    default long getFixedPoint(int index) {
+        final CharSequence value = getChars(index);
+        return value.length() == 0 ? FixedPoint.NO_VALUE : FixedPoint.parse(value);
+    }
+
+    /**
+     * Get a copy of the fields that does not share any mutable state with this instance.
+     *
+     * @return The copy, which may be this instance if it is immutable.
+     */
+    RecordFields copy();
+}
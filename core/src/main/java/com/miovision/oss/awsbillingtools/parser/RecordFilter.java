@@ -0,0 +1,331 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import org.joda.time.DateTime;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * A declarative row filter on the fixed columns of detailed line items.
+ *
+ * <p>When a filter is given to FastDetailedLineItemParser.withFilter() it is evaluated against the raw characters of
+ * each field as soon as the field has been tokenized. A rejected row is skipped without creating a record, decoding a
+ * value or copying its remaining fields. Filters are immutable and can be combined with and().
+ */
+public final class RecordFilter {
+    private static final List<String> TOTAL_RECORD_TYPES =
+            Arrays.asList("Rounding", "InvoiceTotal", "AccountTotal", "StatementTotal");
+
+    private final List<Condition> conditions;
+
+    private RecordFilter(List<Condition> conditions) {
+        this.conditions = Collections.unmodifiableList(conditions);
+    }
+
+    /**
+     * Accept rows whose column equals a value.
+     *
+     * @param column The column.
+     * @param value The value.
+     *
+     * @return The filter.
+     */
+    public static RecordFilter equalTo(DetailedLineItemColumn column, String value) {
+        return in(column, Collections.singleton(value));
+    }
+
+    /**
+     * Accept rows whose column equals one of a set of values.
+     *
+     * @param column The column.
+     * @param values The values.
+     *
+     * @return The filter.
+     */
+    public static RecordFilter in(DetailedLineItemColumn column, Collection<String> values) {
+        return new RecordFilter(Collections.singletonList(new ValueSetCondition(column, values, false)));
+    }
+
+    /**
+     * Accept rows whose column does not equal any of a set of values.
+     *
+     * @param column The column.
+     * @param values The values.
+     *
+     * @return The filter.
+     */
+    public static RecordFilter notIn(DetailedLineItemColumn column, Collection<String> values) {
+        return new RecordFilter(Collections.singletonList(new ValueSetCondition(column, values, true)));
+    }
+
+    /**
+     * Accept rows whose timestamp column lies in a range. Rows without a timestamp are rejected.
+     *
+     * @param column The timestamp column, i.e. USAGE_START_DATE or USAGE_END_DATE.
+     * @param fromInclusive The start of the range.
+     * @param toExclusive The end of the range.
+     *
+     * @return The filter.
+     */
+    public static RecordFilter between(DetailedLineItemColumn column, DateTime fromInclusive, DateTime toExclusive) {
+        return new RecordFilter(Collections.singletonList(
+                new TimeRangeCondition(column, fromInclusive.getMillis(), toExclusive.getMillis())));
+    }
+
+    /**
+     * Accept rows whose decimal column lies in a range. Rows without a value are rejected.
+     *
+     * @param column The decimal column, i.e. USAGE_QUANTITY, RATE or COST.
+     * @param fromInclusive The start of the range.
+     * @param toExclusive The end of the range.
+     *
+     * @return The filter.
+     */
+    public static RecordFilter between(
+            DetailedLineItemColumn column, BigDecimal fromInclusive, BigDecimal toExclusive) {
+        return new RecordFilter(Collections.singletonList(new DecimalRangeCondition(column,
+                FixedPoint.parse(fromInclusive.toPlainString()), FixedPoint.parse(toExclusive.toPlainString()))));
+    }
+
+    /**
+     * Reject the Rounding, InvoiceTotal, AccountTotal and StatementTotal rows.
+     *
+     * @return The filter.
+     */
+    public static RecordFilter excludingTotals() {
+        return notIn(DetailedLineItemColumn.RECORD_TYPE, TOTAL_RECORD_TYPES);
+    }
+
+    /**
+     * Get a filter that accepts rows that are accepted by this filter and another filter.
+     *
+     * @param other The other filter.
+     *
+     * @return The combined filter.
+     */
+    public RecordFilter and(RecordFilter other) {
+        final List<Condition> combined = new ArrayList<>(conditions);
+        combined.addAll(other.conditions);
+        return new RecordFilter(combined);
+    }
+
+    /**
+     * Check whether an already parsed record is accepted by this filter.
+     *
+     * @param record The record.
+     *
+     * @return True if the record is accepted.
+     */
+    public boolean test(DetailedLineItem record) {
+        for(Condition condition : conditions) {
+            if(!condition.matches(record.getFieldChars(condition.fieldIndex))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether some row of a block may be accepted by this filter, so that blocks that cannot match are skipped.
+     *
+     * @param block The statistics of the block.
+     *
+     * @return False if no row of the block is accepted.
+     */
+    public boolean mightMatch(BlockStatistics block) {
+        for(Condition condition : conditions) {
+            if(!condition.mightMatch(block)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compile this filter into a matcher for a single tokenizer.
+     */
+    RowMatcher toRowMatcher() {
+        return new RowMatcher(conditions);
+    }
+
+    /**
+     * A condition on the value of a single field.
+     */
+    abstract static class Condition {
+        private final int fieldIndex;
+
+        Condition(DetailedLineItemColumn column) {
+            this.fieldIndex = column.getIndex();
+        }
+
+        int getFieldIndex() {
+            return fieldIndex;
+        }
+
+        DetailedLineItemColumn getColumn() {
+            return DetailedLineItemColumn.values()[fieldIndex];
+        }
+
+        abstract boolean matches(CharSequence value);
+
+        boolean mightMatch(BlockStatistics block) {
+            return true;
+        }
+
+        /**
+         * Check whether a block has a value in a range, given the block's statistics for the column.
+         */
+        boolean overlaps(BlockStatistics block, long fromInclusive, long toExclusive) {
+            final DetailedLineItemColumn column = getColumn();
+            return block.getMinimum(column) < toExclusive && block.getMaximum(column) >= fromInclusive;
+        }
+    }
+
+    /**
+     * A condition on a set of values, which are held in an immutable open-addressed table keyed by String.hashCode()
+     * so that every parser thread can look up the raw field characters without locking or allocating.
+     */
+    private static final class ValueSetCondition extends Condition {
+        private final String[] values;
+        private final String[] table;
+        private final boolean negate;
+
+        ValueSetCondition(DetailedLineItemColumn column, Collection<String> values, boolean negate) {
+            super(column);
+            this.values = new LinkedHashSet<>(values).toArray(new String[0]);
+            this.table = new String[Integer.highestOneBit(Math.max(1, this.values.length) * 2 - 1) * 2];
+            for(String value : this.values) {
+                int slot = hash(value) & (table.length - 1);
+                while(table[slot] != null) {
+                    slot = (slot + 1) & (table.length - 1);
+                }
+                table[slot] = value;
+            }
+            this.negate = negate;
+        }
+
+        @Override
+        boolean matches(CharSequence value) {
+            return contains(value) != negate;
+        }
+
+        @Override
+        boolean mightMatch(BlockStatistics block) {
+            if(negate) {
+                return true;
+            }
+            for(String value : values) {
+                if(block.mightContain(getColumn(), value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean contains(CharSequence value) {
+            final int mask = table.length - 1;
+            for(int slot = hash(value) & mask; table[slot] != null; slot = (slot + 1) & mask) {
+                if(table[slot].contentEquals(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Hash the characters of a value like String.hashCode(), spreading the high bits into the table index.
+         */
+        private static int hash(CharSequence value) {
+            int hash = 0;
+            if(value instanceof String) {
+                hash = value.hashCode();
+            }
+            else {
+                for(int i = 0; i < value.length(); ++i) {
+                    hash = 31 * hash + value.charAt(i);
+                }
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    private static final class TimeRangeCondition extends Condition {
+        private final long fromInclusive;
+        private final long toExclusive;
+
+        TimeRangeCondition(DetailedLineItemColumn column, long fromInclusive, long toExclusive) {
+            super(column);
+            this.fromInclusive = fromInclusive;
+            this.toExclusive = toExclusive;
+        }
+
+        @Override
+        boolean matches(CharSequence value) {
+            final long millis = TimestampDecoder.decodeEpochMillis(value);
+            return millis != TimestampDecoder.NO_TIMESTAMP && millis >= fromInclusive && millis < toExclusive;
+        }
+
+        @Override
+        boolean mightMatch(BlockStatistics block) {
+            return overlaps(block, fromInclusive, toExclusive);
+        }
+    }
+
+    private static final class DecimalRangeCondition extends Condition {
+        private final long fromInclusive;
+        private final long toExclusive;
+
+        DecimalRangeCondition(DetailedLineItemColumn column, long fromInclusive, long toExclusive) {
+            super(column);
+            this.fromInclusive = fromInclusive;
+            this.toExclusive = toExclusive;
+        }
+
+        @Override
+        boolean matches(CharSequence value) {
+            if(value.length() == 0) {
+                return false;
+            }
+            try {
+                final long fixedPoint = FixedPoint.parse(value);
+                return fixedPoint >= fromInclusive && fixedPoint < toExclusive;
+            }
+            catch(NumberFormatException | ArithmeticException e) {
+                return false;
+            }
+        }
+
+        @Override
+        boolean mightMatch(BlockStatistics block) {
+            return overlaps(block, fromInclusive, toExclusive);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.io.IOException;
+
+/**
+ * Splits billing record content into TokenizedRecords.
+ */
+interface RecordTokenizer {
+    /**
+     * Read the next record.
+     *
+     * @param record The record to populate. Any previous contents are discarded.
+     *
+     * @return True if a record was read, false if the end of the input has been reached.
+     *
+     * @throws IOException Thrown when an I/O exception occurs or the input is malformed.
+     */
+    default boolean next(TokenizedRecord record) throws IOException {
+        return next(record, null);
+    }
+
+    /**
+     * Read the next record that is accepted by a matcher.
+     *
+     * <p>Each field is checked as soon as it has been tokenized. Once a record is rejected the rest of it is scanned
+     * without being copied and the tokenizer moves on to the next record.
+     *
+     * @param record The record to populate. Any previous contents are discarded.
+     * @param matcher The matcher, or null to accept every record.
+     *
+     * @return True if a record was read, false if the end of the input has been reached.
+     *
+     * @throws IOException Thrown when an I/O exception occurs or the input is malformed.
+     */
+    boolean next(TokenizedRecord record, RowMatcher matcher) throws IOException;
+
+    long getRecordNumber();
+
+    void close() throws IOException;
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.util.List;
+
+/**
+ * Evaluates the conditions of a RecordFilter against the fields of a TokenizedRecord while it is being tokenized.
+ *
+ * <p>A matcher owns a reusable view over the record's characters, so it must only be used by a single tokenizer.
+ */
+final class RowMatcher {
+    private final RecordFilter.Condition[][] conditionsByField;
+    private final CharArraySequence view = new CharArraySequence();
+
+    RowMatcher(List<RecordFilter.Condition> conditions) {
+        int fieldCount = 0;
+        for(RecordFilter.Condition condition : conditions) {
+            fieldCount = Math.max(fieldCount, condition.getFieldIndex() + 1);
+        }
+
+        conditionsByField = new RecordFilter.Condition[fieldCount][];
+        for(RecordFilter.Condition condition : conditions) {
+            final int index = condition.getFieldIndex();
+            final RecordFilter.Condition[] existing = conditionsByField[index];
+            final int count = existing == null ? 0 : existing.length;
+            final RecordFilter.Condition[] grown = new RecordFilter.Condition[count + 1];
+            if(existing != null) {
+                System.arraycopy(existing, 0, grown, 0, count);
+            }
+            grown[count] = condition;
+            conditionsByField[index] = grown;
+        }
+    }
+
+    /**
+     * Check whether the filter needs the characters of a field.
+     *
+     * @param index The zero-based field index.
+     *
+     * @return True if there is a condition on the field.
+     */
+    boolean isFiltered(int index) {
+        return index < conditionsByField.length && conditionsByField[index] != null;
+    }
+
+    /**
+     * Check the conditions on a field that has just been tokenized.
+     *
+     * @param record The record being tokenized.
+     * @param index The zero-based index of the field.
+     *
+     * @return False if the record is rejected.
+     */
+    boolean matchesField(TokenizedRecord record, int index) {
+        if(!isFiltered(index)) {
+            return true;
+        }
+
+        final int start = record.start(index);
+        view.reset(record.chars(), start, record.end(index) - start);
+        return matchesAll(conditionsByField[index], view);
+    }
+
+    /**
+     * Check the conditions on the fields that a short record does not have, which are treated as empty.
+     *
+     * @param record The tokenized record.
+     *
+     * @return False if the record is rejected.
+     */
+    boolean matchesMissingFields(TokenizedRecord record) {
+        for(int i = record.size(); i < conditionsByField.length; ++i) {
+            if(conditionsByField[i] != null && !matchesAll(conditionsByField[i], "")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesAll(RecordFilter.Condition[] conditions, CharSequence value) {
+        for(RecordFilter.Condition condition : conditions) {
+            if(!condition.matches(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded dictionary that maps repeated column values to canonical string instances and dense integer codes.
+ *
+ * <p>Codes are assigned in insertion order starting at zero, so they can be used directly as array indexes by
+ * group-by style aggregations. Once the dictionary holds its maximum number of entries new values are no longer
+ * encoded and callers fall back to plain strings. A dictionary is safe to share between threads (and files); lookups
+ * are spread over several independently locked stripes so that parallel parsers rarely contend.
+ */
+public class StringDictionary {
+    public static final int NOT_ENCODED = -1;
+    public static final int DEFAULT_MAXIMUM_SIZE = 1 << 20;
+    private static final int STRIPE_BITS = 4;
+    private static final int STRIPE_COUNT = 1 << STRIPE_BITS;
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final int maximumSize;
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+    private final AtomicInteger size = new AtomicInteger();
+    private final Object pagesLock = new Object();
+    private volatile String[][] pages = new String[1][];
+
+    public StringDictionary() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public StringDictionary(int maximumSize) {
+        this.maximumSize = maximumSize;
+        for(int i = 0; i < STRIPE_COUNT; ++i) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public int size() {
+        return Math.min(size.get(), maximumSize);
+    }
+
+    /**
+     * Get the value for a code.
+     *
+     * @param code A code previously returned by this dictionary.
+     *
+     * @return The canonical value.
+     */
+    public String get(int code) {
+        return pages[code >>> PAGE_BITS][code & PAGE_MASK];
+    }
+
+    /**
+     * Look up the code of a value without adding it.
+     *
+     * @param value The value.
+     *
+     * @return The code, or NOT_ENCODED if the value is not in the dictionary.
+     */
+    public int getCode(CharSequence value) {
+        final int hash = hash(value);
+        final Stripe stripe = stripeFor(hash);
+        synchronized(stripe) {
+            return stripe.find(hash, value);
+        }
+    }
+
+    /**
+     * Get the code of a value, adding the value if it is not already in the dictionary.
+     *
+     * @param value The value.
+     *
+     * @return The code, or NOT_ENCODED if the value is new and the dictionary is full.
+     */
+    public int intern(CharSequence value) {
+        final int hash = hash(value);
+        final Stripe stripe = stripeFor(hash);
+        synchronized(stripe) {
+            final int code = stripe.find(hash, value);
+            return code != NOT_ENCODED ? code : add(stripe, hash, value.toString());
+        }
+    }
+
+    /**
+     * Get the code of a range of characters, adding it if it is not already in the dictionary.
+     *
+     * <p>No string is created unless the value is new.
+     */
+    int intern(char[] chars, int offset, int length) {
+        final int hash = hash(chars, offset, length);
+        final Stripe stripe = stripeFor(hash);
+        synchronized(stripe) {
+            final int code = stripe.find(hash, chars, offset, length);
+            return code != NOT_ENCODED ? code : add(stripe, hash, new String(chars, offset, length));
+        }
+    }
+
+    private int add(Stripe stripe, int hash, String value) {
+        int code;
+        do {
+            code = size.get();
+            if(code >= maximumSize) {
+                return NOT_ENCODED;
+            }
+        }
+        while(!size.compareAndSet(code, code + 1));
+
+        ensurePage(code >>> PAGE_BITS)[code & PAGE_MASK] = value;
+        stripe.insert(hash, code);
+        return code;
+    }
+
+    private String[] ensurePage(int pageIndex) {
+        String[][] currentPages = pages;
+        if(pageIndex < currentPages.length && currentPages[pageIndex] != null) {
+            return currentPages[pageIndex];
+        }
+
+        synchronized(pagesLock) {
+            currentPages = pages;
+            if(pageIndex >= currentPages.length) {
+                final String[][] grownPages = new String[Math.max(pageIndex + 1, currentPages.length * 2)][];
+                System.arraycopy(currentPages, 0, grownPages, 0, currentPages.length);
+                currentPages = grownPages;
+            }
+            if(currentPages[pageIndex] == null) {
+                currentPages[pageIndex] = new String[PAGE_SIZE];
+            }
+            pages = currentPages;
+            return currentPages[pageIndex];
+        }
+    }
+
+    private Stripe stripeFor(int hash) {
+        return stripes[hash >>> (Integer.SIZE - STRIPE_BITS)];
+    }
+
+    private static int hash(CharSequence value) {
+        if(value instanceof String) {
+            // Strings cache their hash code, which is computed exactly like the loop below.
+            return spread(value.hashCode());
+        }
+
+        int hash = 0;
+        for(int i = 0; i < value.length(); ++i) {
+            hash = 31 * hash + value.charAt(i);
+        }
+        return spread(hash);
+    }
+
+    private static int hash(char[] chars, int offset, int length) {
+        int hash = 0;
+        for(int i = offset; i < offset + length; ++i) {
+            hash = 31 * hash + chars[i];
+        }
+        return spread(hash);
+    }
+
+    private static int spread(int hash) {
+        final int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    private static int[] newCodes(int capacity) {
+        final int[] codes = new int[capacity];
+        Arrays.fill(codes, NOT_ENCODED);
+        return codes;
+    }
+
+    private static boolean contentEquals(String value, CharSequence other) {
+        return value.contentEquals(other);
+    }
+
+    private static boolean contentEquals(String value, char[] chars, int offset, int length) {
+        if(value.length() != length) {
+            return false;
+        }
+        for(int i = 0; i < length; ++i) {
+            if(value.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An open addressing hash table from values to codes. All access is guarded by the stripe's monitor.
+     */
+    private class Stripe {
+        private static final int INITIAL_CAPACITY = 64;
+        private int[] hashes = new int[INITIAL_CAPACITY];
+        private int[] codes = newCodes(INITIAL_CAPACITY);
+        private int count;
+
+        int find(int hash, CharSequence value) {
+            final int mask = codes.length - 1;
+            for(int slot = hash & mask; codes[slot] != NOT_ENCODED; slot = (slot + 1) & mask) {
+                if(hashes[slot] == hash && contentEquals(get(codes[slot]), value)) {
+                    return codes[slot];
+                }
+            }
+            return NOT_ENCODED;
+        }
+
+        int find(int hash, char[] chars, int offset, int length) {
+            final int mask = codes.length - 1;
+            for(int slot = hash & mask; codes[slot] != NOT_ENCODED; slot = (slot + 1) & mask) {
+                if(hashes[slot] == hash && contentEquals(get(codes[slot]), chars, offset, length)) {
+                    return codes[slot];
+                }
+            }
+            return NOT_ENCODED;
+        }
+
+        void insert(int hash, int code) {
+            if(2 * (count + 1) > codes.length) {
+                rehash(codes.length * 2);
+            }
+            put(hash, code);
+            ++count;
+        }
+
+        private void put(int hash, int code) {
+            final int mask = codes.length - 1;
+            int slot = hash & mask;
+            while(codes[slot] != NOT_ENCODED) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            codes[slot] = code;
+        }
+
+        private void rehash(int capacity) {
+            final int[] oldHashes = hashes;
+            final int[] oldCodes = codes;
+            hashes = new int[capacity];
+            codes = newCodes(capacity);
+            for(int i = 0; i < oldCodes.length; ++i) {
+                if(oldCodes[i] != NOT_ENCODED) {
+                    put(oldHashes[i], oldCodes[i]);
+                }
+            }
+        }
+    }
+}
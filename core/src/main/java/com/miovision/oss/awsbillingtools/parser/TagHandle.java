@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+/**
+ * A pre-resolved reference to a user tag.
+ *
+ * <p>A handle remembers the column of its tag in the last TagHeader it was used with, so that
+ * DetailedLineItem.getTag(TagHandle) is an array index for every row of a file instead of a hash lookup. Handles are
+ * immutable from the caller's point of view and safe to share between threads and files.
+ */
+public final class TagHandle {
+    private final String name;
+    private volatile Resolution resolution;
+
+    private TagHandle(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Create a handle.
+     *
+     * @param name The tag name, e.g. {@code user:Environment}.
+     *
+     * @return The handle.
+     */
+    public static TagHandle of(String name) {
+        return new TagHandle(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the tag column of this handle's tag in a header.
+     *
+     * @param header The header.
+     *
+     * @return The zero based tag column, or -1 if the header does not contain the tag.
+     */
+    int resolve(TagHeader header) {
+        final Resolution current = resolution;
+        if(current != null && current.header == header) {
+            return current.column;
+        }
+
+        final int column = header.indexOf(name);
+        resolution = new Resolution(header, column);
+        return column;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static final class Resolution {
+        private final TagHeader header;
+        private final int column;
+
+        private Resolution(TagHeader header, int column) {
+            this.header = header;
+            this.column = column;
+        }
+    }
+}
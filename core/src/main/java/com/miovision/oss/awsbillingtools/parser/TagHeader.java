@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The user tag columns of a detailed line item file, resolved once per file.
+ *
+ * <p>Records share their file's header, so looking a tag up by name is a single hash lookup into this header followed
+ * by an array index into the record's fields rather than a map built per row. When a tag name appears in more than one
+ * column the last column wins.
+ */
+public final class TagHeader {
+    private static final TagHeader EMPTY = new TagHeader(Collections.emptyList());
+
+    private final List<String> names;
+    private final Map<String, Integer> columnsByName;
+    private final int[] distinctColumns;
+
+    private TagHeader(List<String> names) {
+        this(names, null);
+    }
+
+    private TagHeader(List<String> names, Set<String> retainedNames) {
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        this.columnsByName = new HashMap<>();
+        for(int i = 0; i < names.size(); ++i) {
+            if(retainedNames == null || retainedNames.contains(names.get(i))) {
+                columnsByName.put(names.get(i), i);
+            }
+        }
+
+        this.distinctColumns = new int[columnsByName.size()];
+        int count = 0;
+        for(int i = 0; i < names.size(); ++i) {
+            final Integer column = columnsByName.get(names.get(i));
+            if(column != null && column == i) {
+                distinctColumns[count++] = i;
+            }
+        }
+    }
+
+    /**
+     * Create a header.
+     *
+     * @param names The tag names in column order.
+     *
+     * @return The header.
+     */
+    public static TagHeader of(List<String> names) {
+        return names.isEmpty() ? EMPTY : new TagHeader(names);
+    }
+
+    /**
+     * Get the tag names in column order.
+     *
+     * @return An unmodifiable list of the tag names.
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Get the number of tag columns.
+     *
+     * @return The number of tag columns.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Get the tag column of a tag name.
+     *
+     * @param name The tag name.
+     *
+     * @return The zero based tag column, or -1 if there is no such tag.
+     */
+    public int indexOf(Object name) {
+        final Integer column = columnsByName.get(name);
+        return column == null ? -1 : column;
+    }
+
+    /**
+     * Get a header with the same columns that only resolves some of the tag names.
+     */
+    TagHeader retain(Set<String> retainedNames) {
+        return new TagHeader(names, retainedNames);
+    }
+
+    /**
+     * Get the number of distinct tag names.
+     */
+    int distinctSize() {
+        return distinctColumns.length;
+    }
+
+    /**
+     * Get the tag column of the i-th distinct tag name.
+     */
+    int distinctColumn(int index) {
+        return distinctColumns[index];
+    }
+}
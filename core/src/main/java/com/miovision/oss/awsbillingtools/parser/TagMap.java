@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * An unmodifiable map view of the user tags of a record, backed by the file's TagHeader and the record's fields.
+ */
+final class TagMap extends AbstractMap<String, String> {
+    private final TagHeader header;
+    private final RecordFields fields;
+    private Set<Entry<String, String>> entrySet;
+
+    TagMap(TagHeader header, RecordFields fields) {
+        this.header = header;
+        this.fields = fields;
+    }
+
+    @Override
+    public int size() {
+        return header.distinctSize();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return header.indexOf(key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        final int column = header.indexOf(key);
+        return column < 0 ? null : fields.get(DetailedLineItemColumn.FIRST_TAG_INDEX + column);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        for(int i = 0; i < header.distinctSize(); ++i) {
+            final int column = header.distinctColumn(i);
+            action.accept(header.getNames().get(column), fields.get(DetailedLineItemColumn.FIRST_TAG_INDEX + column));
+        }
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        if(entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, String>> {
+        @Override
+        public int size() {
+            return header.distinctSize();
+        }
+
+        @Override
+        public Iterator<Entry<String, String>> iterator() {
+            return new Iterator<Entry<String, String>>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < header.distinctSize();
+                }
+
+                @Override
+                public Entry<String, String> next() {
+                    if(!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    final int column = header.distinctColumn(index++);
+                    return new SimpleImmutableEntry<>(
+                            header.getNames().get(column),
+                            fields.get(DetailedLineItemColumn.FIRST_TAG_INDEX + column));
+                }
+            };
+        }
+    }
+}
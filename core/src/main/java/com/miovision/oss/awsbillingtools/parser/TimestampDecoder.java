@@ -0,0 +1,196 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ * A fast decoder for the fixed {@code yyyy-MM-dd HH:mm:ss} UTC timestamps found in billing files.
+ *
+ * <p>Timestamps in the canonical format are decoded straight from the characters. The start of each hour is kept in a
+ * small direct-mapped cache because most rows in a file fall into a handful of hours; cache entries are immutable, so
+ * the cache is shared by all threads without locking. Anything that is not in the canonical format is handed to
+ * DetailedLineItem.DATE_TIME_FORMATTER so that the results and errors are always identical to it.
+ */
+final class TimestampDecoder {
+    static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    static final int NO_HOUR = -1;
+    private static final int TIMESTAMP_LENGTH = 19;
+    private static final int[] DIGIT_POSITIONS = {0, 1, 2, 3, 5, 6, 8, 9, 11, 12, 14, 15, 17, 18};
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+    private static final int CACHE_SIZE = 64;
+    private static final HourEntry[] HOUR_CACHE = new HourEntry[CACHE_SIZE];
+
+    private TimestampDecoder() {
+
+    }
+
+    /**
+     * Decode a timestamp into milliseconds since the epoch.
+     *
+     * @param value The text to decode.
+     *
+     * @return The epoch milliseconds, or NO_TIMESTAMP if the text is empty.
+     *
+     * @throws IllegalArgumentException Thrown when the text is not a valid timestamp.
+     */
+    static long decodeEpochMillis(CharSequence value) {
+        if(value.length() == 0) {
+            return NO_TIMESTAMP;
+        }
+        if(!isCanonical(value)) {
+            return DetailedLineItem.DATE_TIME_FORMATTER.parseMillis(value.toString());
+        }
+
+        final long hourMillis = decodeHourMillis(value);
+        final int minute = digits(value, 14);
+        final int second = digits(value, 17);
+        if(hourMillis == NO_TIMESTAMP || minute > 59 || second > 59) {
+            return DetailedLineItem.DATE_TIME_FORMATTER.parseMillis(value.toString());
+        }
+        return hourMillis + minute * MILLIS_PER_MINUTE + second * MILLIS_PER_SECOND;
+    }
+
+    /**
+     * Decode the zero based hour of the month of a timestamp, e.g. 0 for midnight on the first.
+     *
+     * @param value The text to decode.
+     *
+     * @return The hour of the month, or NO_HOUR if the text is empty.
+     *
+     * @throws IllegalArgumentException Thrown when the text is not a valid timestamp.
+     */
+    static int decodeHourOfMonth(CharSequence value) {
+        if(value.length() == 0) {
+            return NO_HOUR;
+        }
+        if(!isCanonical(value)) {
+            final DateTime dateTime = DetailedLineItem.DATE_TIME_FORMATTER.parseDateTime(value.toString());
+            return (dateTime.getDayOfMonth() - 1) * 24 + dateTime.getHourOfDay();
+        }
+
+        // Validates the timestamp.
+        decodeEpochMillis(value);
+        return (digits(value, 8) - 1) * 24 + digits(value, 11);
+    }
+
+    /**
+     * Decode a timestamp into a UTC DateTime.
+     *
+     * @param value The text to decode.
+     *
+     * @return The date and time, or null if the text is empty.
+     *
+     * @throws IllegalArgumentException Thrown when the text is not a valid timestamp.
+     */
+    static DateTime decodeDateTime(CharSequence value) {
+        return toDateTime(decodeEpochMillis(value));
+    }
+
+    /**
+     * Convert epoch milliseconds into a UTC DateTime.
+     *
+     * @param epochMillis The epoch milliseconds, or NO_TIMESTAMP.
+     *
+     * @return The date and time, or null for NO_TIMESTAMP.
+     */
+    static DateTime toDateTime(long epochMillis) {
+        return epochMillis == NO_TIMESTAMP ? null : new DateTime(epochMillis, DateTimeZone.UTC);
+    }
+
+    private static long decodeHourMillis(CharSequence value) {
+        final int year = digits(value, 0) * 100 + digits(value, 2);
+        final int month = digits(value, 5);
+        final int day = digits(value, 8);
+        final int hour = digits(value, 11);
+        final long key = ((year * 100L + month) * 100 + day) * 100 + hour;
+
+        final int slot = (int) (key ^ (key >>> 7)) & (CACHE_SIZE - 1);
+        final HourEntry cached = HOUR_CACHE[slot];
+        if(cached != null && cached.key == key) {
+            return cached.epochMillis;
+        }
+
+        if(month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || hour > 23) {
+            return NO_TIMESTAMP;
+        }
+        final long epochMillis = daysFromCivil(year, month, day) * MILLIS_PER_DAY + hour * MILLIS_PER_HOUR;
+        HOUR_CACHE[slot] = new HourEntry(key, epochMillis);
+        return epochMillis;
+    }
+
+    private static boolean isCanonical(CharSequence value) {
+        if(value.length() != TIMESTAMP_LENGTH
+                || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != ' '
+                || value.charAt(13) != ':' || value.charAt(16) != ':') {
+            return false;
+        }
+        for(int position : DIGIT_POSITIONS) {
+            final char ch = value.charAt(position);
+            if(ch < '0' || ch > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(CharSequence value, int index) {
+        return (value.charAt(index) - '0') * 10 + (value.charAt(index + 1) - '0');
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if(month == 2) {
+            final boolean leapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leapYear ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * Get the number of days between 1970-01-01 and a date in the proleptic Gregorian calendar.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        final int adjustedYear = month <= 2 ? year - 1 : year;
+        final int era = (adjustedYear >= 0 ? adjustedYear : adjustedYear - 399) / 400;
+        final int yearOfEra = adjustedYear - era * 400;
+        final int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    private static final class HourEntry {
+        private final long key;
+        private final long epochMillis;
+
+        private HourEntry(long key, long epochMillis) {
+            this.key = key;
+            this.epochMillis = epochMillis;
+        }
+    }
+}
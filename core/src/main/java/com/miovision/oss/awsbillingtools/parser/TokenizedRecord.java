@@ -0,0 +1,273 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import java.util.Arrays;
+
+/**
+ * A billing record whose unescaped field values are stored back to back in a single character buffer.
+ *
+ * <p>Field values are only turned into strings when they are accessed. The tokenizer reuses a single instance for
+ * every row it reads; call {@link #copy()} to obtain an instance that is safe to retain. Fields that have been
+ * dictionary encoded resolve to the dictionary's canonical strings and their characters are dropped by copy().
+ * The tokenizer's own record re-points a single view in getChars(), so decoding typed values does not allocate;
+ * copies return a new view per call, so a retained record can be read from any number of threads.
+ */
+final class TokenizedRecord implements RecordFields {
+    private static final int DEFAULT_CHAR_CAPACITY = 1024;
+    private static final int DEFAULT_FIELD_CAPACITY = 32;
+
+    private char[] chars;
+    private int length;
+    private int[] ends;
+    private int size;
+    private int[] codes;
+    private StringDictionary dictionary;
+    private boolean[] projection;
+    private final CharArraySequence view;
+
+    TokenizedRecord() {
+        this(null);
+    }
+
+    /**
+     * Create a record that only keeps some fields.
+     *
+     * @param projection A mask of the fields to keep, or null to keep every field. Fields past the end of the mask are
+     *                   not kept.
+     */
+    TokenizedRecord(boolean[] projection) {
+        this(new char[DEFAULT_CHAR_CAPACITY], 0, new int[DEFAULT_FIELD_CAPACITY], 0, null, null, projection,
+                new CharArraySequence());
+    }
+
+    private TokenizedRecord(
+            char[] chars,
+            int length,
+            int[] ends,
+            int size,
+            int[] codes,
+            StringDictionary dictionary,
+            boolean[] projection,
+            CharArraySequence view) {
+        this.chars = chars;
+        this.length = length;
+        this.ends = ends;
+        this.size = size;
+        this.codes = codes;
+        this.dictionary = dictionary;
+        this.projection = projection;
+        this.view = view;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int index) {
+        checkIndex(index);
+        if(isEncoded(index)) {
+            return dictionary.get(codes[index]);
+        }
+        final int start = start(index);
+        return new String(chars, start, ends[index] - start);
+    }
+
+    @Override
+    public CharSequence getChars(int index) {
+        checkIndex(index);
+        if(isEncoded(index)) {
+            return dictionary.get(codes[index]);
+        }
+        final int start = start(index);
+        final CharArraySequence sequence = view == null ? new CharArraySequence() : view;
+        return sequence.reset(chars, start, ends[index] - start);
+    }
+
+    @Override
+    public boolean isEmpty(int index) {
+        checkIndex(index);
+        if(isEncoded(index)) {
+            return dictionary.get(codes[index]).isEmpty();
+        }
+        return ends[index] == start(index);
+    }
+
+    @Override
+    public int getCode(int index) {
+        checkIndex(index);
+        return codes == null ? StringDictionary.NOT_ENCODED : codes[index];
+    }
+
+    @Override
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Create a compact copy of this record that does not share any state with it.
+     *
+     * @return The copy.
+     */
+    @Override
+    public TokenizedRecord copy() {
+        if(codes == null) {
+            return new TokenizedRecord(Arrays.copyOf(chars, length), length, Arrays.copyOf(ends, size), size,
+                    null, null, projection, null);
+        }
+
+        // Encoded values live in the dictionary, so only the characters of the other fields need to be kept.
+        final int[] copiedEnds = new int[size];
+        int copiedLength = 0;
+        for(int i = 0; i < size; ++i) {
+            if(!isEncoded(i)) {
+                copiedLength += ends[i] - start(i);
+            }
+            copiedEnds[i] = copiedLength;
+        }
+
+        final char[] copiedChars = new char[copiedLength];
+        for(int i = 0; i < size; ++i) {
+            if(!isEncoded(i)) {
+                final int start = start(i);
+                final int fieldLength = ends[i] - start;
+                System.arraycopy(chars, start, copiedChars, copiedEnds[i] - fieldLength, fieldLength);
+            }
+        }
+
+        return new TokenizedRecord(copiedChars, copiedLength, copiedEnds, size, Arrays.copyOf(codes, size),
+                dictionary, projection, null);
+    }
+
+    void clear() {
+        length = 0;
+        size = 0;
+    }
+
+    /**
+     * Prepare the record for dictionary encoding: every field starts out as not encoded.
+     *
+     * @param dictionary The dictionary that the codes refer to.
+     */
+    void beginEncoding(StringDictionary dictionary) {
+        if(codes == null || codes.length < size) {
+            codes = new int[Math.max(size, ends.length)];
+        }
+        Arrays.fill(codes, 0, size, StringDictionary.NOT_ENCODED);
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Check whether a field is kept by the record's projection.
+     *
+     * @param index The zero-based field index.
+     *
+     * @return True if the field's characters are kept.
+     */
+    boolean isProjected(int index) {
+        return projection == null || (index < projection.length && projection[index]);
+    }
+
+    void setCode(int index, int code) {
+        codes[index] = code;
+    }
+
+    void append(char c) {
+        ensureCharCapacity(1);
+        chars[length++] = c;
+    }
+
+    void append(char[] source, int offset, int count) {
+        ensureCharCapacity(count);
+        System.arraycopy(source, offset, chars, length, count);
+        length += count;
+    }
+
+    /**
+     * Append ASCII bytes, widening each byte to a char.
+     */
+    void appendAscii(byte[] source, int offset, int count) {
+        ensureCharCapacity(count);
+        for(int i = 0; i < count; ++i) {
+            chars[length + i] = (char) source[offset + i];
+        }
+        length += count;
+    }
+
+    void endField() {
+        if(size == ends.length) {
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        ends[size++] = length;
+    }
+
+    /**
+     * End the current field and check it against a matcher.
+     *
+     * @param matcher The matcher, or null to accept every field.
+     * @param accepted False if an earlier field of the record has already been rejected.
+     *
+     * @return True if the record is still accepted.
+     */
+    boolean endField(RowMatcher matcher, boolean accepted) {
+        endField();
+        return accepted && (matcher == null || matcher.matchesField(this, size - 1));
+    }
+
+    int start(int index) {
+        return index == 0 ? 0 : ends[index - 1];
+    }
+
+    int end(int index) {
+        return ends[index];
+    }
+
+    char[] chars() {
+        return chars;
+    }
+
+    private boolean isEncoded(int index) {
+        return codes != null && codes[index] != StringDictionary.NOT_ENCODED;
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        if(!isProjected(index)) {
+            throw new IllegalStateException(index < DetailedLineItemColumn.FIRST_TAG_INDEX
+                    ? "Column " + DetailedLineItemColumn.values()[index].getHeaderName() + " is not projected"
+                    : "Field " + index + " is not projected");
+        }
+    }
+
+    private void ensureCharCapacity(int count) {
+        if(length + count > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + count));
+        }
+    }
+}
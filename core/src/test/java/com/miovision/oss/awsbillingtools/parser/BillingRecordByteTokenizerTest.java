@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for the BillingRecordByteTokenizer class.
+ */
+public class BillingRecordByteTokenizerTest {
+    @Test
+    public void testNext_NoContent() throws IOException {
+        // Setup
+        BillingRecordByteTokenizer tokenizer = new BillingRecordByteTokenizer(new ByteArrayInputStream(new byte[0]));
+
+        // Execute
+        boolean result = tokenizer.next(new TokenizedRecord());
+
+        // Verify
+        assertFalse(result);
+    }
+
+    @Test
+    public void testNext_AsciiFields() throws IOException {
+        assertTokenizedLikeCommonsCsv("\"a\",\"b\",c\r\n\"say \"\"hello\"\"\",,\"multi\nline\"\n\n\"d\"  ,");
+    }
+
+    @Test
+    public void testNext_MultiByteFields() throws IOException {
+        assertTokenizedLikeCommonsCsv("\"café\",\"€5\",東京\n\"😀\",\"x😀y\"\n");
+    }
+
+    @Test
+    public void testNext_MalformedBytes() throws IOException {
+        assertTokenizedLikeCommonsCsv(new byte[] {
+            'a', (byte) 0xC3, ',', (byte) 0xE2, (byte) 0x82, '\n',
+            (byte) 0xFF, 'b', ',', (byte) 0xE2, 'c', ',', (byte) 0xC0, (byte) 0xAF, '\n',
+            (byte) 0xF0, (byte) 0x9F, (byte) 0x98
+        });
+    }
+
+    @Test(expected = IOException.class)
+    public void testNext_UnterminatedQuotedField() throws IOException {
+        // Setup
+        BillingRecordByteTokenizer tokenizer = givenTokenizer("\"a\",\"b".getBytes(StandardCharsets.UTF_8));
+
+        // Execute
+        tokenizer.next(new TokenizedRecord());
+    }
+
+    @Test(expected = IOException.class)
+    public void testNext_InvalidCharAfterQuotedField() throws IOException {
+        // Setup
+        BillingRecordByteTokenizer tokenizer = givenTokenizer("\"a\"é,\"c\"\n".getBytes(StandardCharsets.UTF_8));
+
+        // Execute
+        tokenizer.next(new TokenizedRecord());
+    }
+
+    @Test
+    public void testNext_ByteBuffers() throws IOException {
+        // Setup
+        byte[] content = "\"a\",\"€\"\n\"b\",\"c\"\n".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(content.length + 2);
+        directBuffer.put((byte) 'x').put(content).flip().position(1);
+        ByteBuffer heapBuffer = ByteBuffer.wrap(content);
+
+        // Execute
+        List<List<String>> direct = tokenize(new BillingRecordByteTokenizer(directBuffer, 5));
+        List<List<String>> heap = tokenize(new BillingRecordByteTokenizer(heapBuffer));
+
+        // Verify
+        List<List<String>> expected = tokenize(givenTokenizer(content));
+        assertEquals(expected, direct);
+        assertEquals(expected, heap);
+        assertEquals(0, heapBuffer.remaining());
+    }
+
+    private static BillingRecordByteTokenizer givenTokenizer(byte[] content) {
+        return new BillingRecordByteTokenizer(new ByteArrayInputStream(content));
+    }
+
+    private static void assertTokenizedLikeCommonsCsv(String content) throws IOException {
+        assertTokenizedLikeCommonsCsv(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertTokenizedLikeCommonsCsv(byte[] content) throws IOException {
+        final List<CSVRecord> expected = CSVFormat.EXCEL
+                .parse(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8))
+                .getRecords();
+
+        // Tiny buffers force every token and multi-byte sequence to straddle a buffer refill at some point.
+        for(int bufferSize : new int[] {1, 4, 5, 6, 7, BillingRecordByteTokenizer.DEFAULT_BUFFER_SIZE}) {
+            final List<List<String>> actual =
+                    tokenize(new BillingRecordByteTokenizer(new ByteArrayInputStream(content), bufferSize));
+            assertEquals("Record count with buffer size " + bufferSize, expected.size(), actual.size());
+            for(int i = 0; i < expected.size(); ++i) {
+                final List<String> expectedValues = new ArrayList<>();
+                expected.get(i).forEach(expectedValues::add);
+                assertEquals("Record " + i + " with buffer size " + bufferSize, expectedValues, actual.get(i));
+            }
+        }
+    }
+
+    private static List<List<String>> tokenize(BillingRecordByteTokenizer tokenizer) throws IOException {
+        final TokenizedRecord record = new TokenizedRecord();
+        final List<List<String>> records = new ArrayList<>();
+        while(tokenizer.next(record)) {
+            final List<String> values = new ArrayList<>();
+            for(int i = 0; i < record.size(); ++i) {
+                values.add(record.get(i));
+            }
+            records.add(values);
+        }
+        return records;
+    }
+}
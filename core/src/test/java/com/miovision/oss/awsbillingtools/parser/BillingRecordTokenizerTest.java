@@ -0,0 +1,198 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for the BillingRecordTokenizer class.
+ */
+public class BillingRecordTokenizerTest {
+    @Test
+    public void testNext_NoContent() throws IOException {
+        // Setup
+        BillingRecordTokenizer tokenizer = new BillingRecordTokenizer(new StringReader(""));
+
+        // Execute
+        boolean result = tokenizer.next(new TokenizedRecord());
+
+        // Verify
+        assertFalse(result);
+    }
+
+    @Test
+    public void testNext_QuotedFields() throws IOException {
+        assertTokenizedLikeCommonsCsv("\"a\",\"b\",\"c\"\n\"d\",\"e\",\"f\"\n");
+    }
+
+    @Test
+    public void testNext_UnquotedFields() throws IOException {
+        assertTokenizedLikeCommonsCsv("a,b,c\nd,e,f");
+    }
+
+    @Test
+    public void testNext_EscapedQuotes() throws IOException {
+        assertTokenizedLikeCommonsCsv("\"say \"\"hello\"\"\",\"\"\"\",\"\"\n");
+    }
+
+    @Test
+    public void testNext_EmbeddedLineBreaks() throws IOException {
+        assertTokenizedLikeCommonsCsv("\"multi\nline\",\"crlf\r\ninside\"\n\"next\",\"row\"\n");
+    }
+
+    @Test
+    public void testNext_LineEndings() throws IOException {
+        assertTokenizedLikeCommonsCsv("\"a\",\"b\"\r\n\"c\",\"d\"\r\"e\",\"f\"\n\"g\",\"h\"");
+    }
+
+    @Test
+    public void testNext_EmptyFieldsAndLines() throws IOException {
+        assertTokenizedLikeCommonsCsv("\"a\",,\"c\",\n\n,\n\"d\",");
+    }
+
+    @Test
+    public void testNext_WhitespaceAfterQuotedField() throws IOException {
+        assertTokenizedLikeCommonsCsv("\"a\"  ,\"b\"\t\n");
+    }
+
+    @Test
+    public void testNext_QuotesInsideUnquotedField() throws IOException {
+        assertTokenizedLikeCommonsCsv("a\"b,\"c\"\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void testNext_UnterminatedQuotedField() throws IOException {
+        // Setup
+        BillingRecordTokenizer tokenizer = new BillingRecordTokenizer(new StringReader("\"a\",\"b"));
+
+        // Execute
+        tokenizer.next(new TokenizedRecord());
+    }
+
+    @Test(expected = IOException.class)
+    public void testNext_InvalidCharAfterQuotedField() throws IOException {
+        // Setup
+        BillingRecordTokenizer tokenizer = new BillingRecordTokenizer(new StringReader("\"a\"b,\"c\"\n"));
+
+        // Execute
+        tokenizer.next(new TokenizedRecord());
+    }
+
+    @Test
+    public void testCopy_IsIndependentOfReusedRecord() throws IOException {
+        // Setup
+        BillingRecordTokenizer tokenizer = new BillingRecordTokenizer(new StringReader("\"a\",\"b\"\n\"c\",\"d\"\n"));
+        TokenizedRecord record = new TokenizedRecord();
+        tokenizer.next(record);
+
+        // Execute
+        TokenizedRecord copy = record.copy();
+        tokenizer.next(record);
+
+        // Verify
+        assertEquals("a", copy.get(0));
+        assertEquals("b", copy.get(1));
+        assertEquals("c", record.get(0));
+    }
+
+    @Test
+    public void testGetChars_ReusesView() throws IOException {
+        // Setup
+        BillingRecordTokenizer tokenizer = new BillingRecordTokenizer(new StringReader("\"0.05\",\"\",\"12.5\"\n"));
+        TokenizedRecord record = new TokenizedRecord();
+        tokenizer.next(record);
+
+        // Execute
+        CharSequence first = record.getChars(0);
+        CharSequence third = record.getChars(2);
+
+        // Verify
+        assertSame(first, third);
+        assertEquals("12.5", third.toString());
+        assertEquals(0.05, record.getDouble(0), 0.0);
+        assertTrue(record.isEmpty(1));
+        assertFalse(record.isEmpty(2));
+        assertEquals("12.5", record.copy().getChars(2).toString());
+    }
+
+    @Test
+    public void testGetChars_CopyDoesNotShareView() throws IOException {
+        // Setup
+        BillingRecordTokenizer tokenizer = new BillingRecordTokenizer(new StringReader("\"0.05\",\"\",\"12.5\"\n"));
+        TokenizedRecord record = new TokenizedRecord();
+        tokenizer.next(record);
+        TokenizedRecord copy = record.copy();
+
+        // Execute
+        CharSequence first = copy.getChars(0);
+        CharSequence third = copy.getChars(2);
+
+        // Verify
+        assertNotSame(first, third);
+        assertEquals("0.05", first.toString());
+        assertEquals("12.5", third.toString());
+    }
+
+    private static void assertTokenizedLikeCommonsCsv(String content) throws IOException {
+        final List<CSVRecord> expected = CSVFormat.EXCEL.parse(new StringReader(content)).getRecords();
+
+        // Tiny buffers force every token to straddle a buffer refill at some point.
+        for(int bufferSize : new int[] {1, 2, 3, 7, BillingRecordTokenizer.DEFAULT_BUFFER_SIZE}) {
+            final List<List<String>> actual = tokenize(content, bufferSize);
+            assertEquals("Record count with buffer size " + bufferSize, expected.size(), actual.size());
+            for(int i = 0; i < expected.size(); ++i) {
+                final List<String> expectedValues = new ArrayList<>();
+                expected.get(i).forEach(expectedValues::add);
+                assertEquals("Record " + i + " with buffer size " + bufferSize, expectedValues, actual.get(i));
+            }
+        }
+    }
+
+    private static List<List<String>> tokenize(String content, int bufferSize) throws IOException {
+        final BillingRecordTokenizer tokenizer = new BillingRecordTokenizer(new StringReader(content), bufferSize);
+        final TokenizedRecord record = new TokenizedRecord();
+        final List<List<String>> records = new ArrayList<>();
+        while(tokenizer.next(record)) {
+            final List<String> values = new ArrayList<>();
+            for(int i = 0; i < record.size(); ++i) {
+                values.add(record.get(i));
+            }
+            records.add(values);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import java.util.Random;
+
+/**
+ * Unit tests for the DecimalParser class.
+ */
+public class DecimalParserTest {
+    @Test
+    public void testParseDouble_BillingValues() {
+        assertParsedLikeDouble("1.02007083");
+        assertParsedLikeDouble("0.0500000000");
+        assertParsedLikeDouble("0.05100354");
+        assertParsedLikeDouble("-0.00000012");
+        assertParsedLikeDouble("12");
+        assertParsedLikeDouble("0");
+        assertParsedLikeDouble("-0.0");
+        assertParsedLikeDouble("+3.5");
+        assertParsedLikeDouble(".5");
+        assertParsedLikeDouble("5.");
+    }
+
+    @Test
+    public void testParseDouble_FallbackValues() {
+        assertParsedLikeDouble("1e5");
+        assertParsedLikeDouble("1.5E-3");
+        assertParsedLikeDouble("123456789012345678901234567890");
+        assertParsedLikeDouble("0.00000000000000000000000001");
+        assertParsedLikeDouble(" 1.5 ");
+        assertParsedLikeDouble("NaN");
+    }
+
+    @Test
+    public void testParseDouble_RandomValues() {
+        final Random random = new Random(42);
+        for(int i = 0; i < 100000; ++i) {
+            final long integerPart = random.nextInt(1000000);
+            final int scale = random.nextInt(11);
+            final long fraction = scale == 0 ? 0 : (long) (random.nextDouble() * Math.pow(10, scale));
+            final String value = scale == 0 ?
+                    Long.toString(integerPart) :
+                    String.format("%d.%0" + scale + "d", integerPart, fraction);
+            assertParsedLikeDouble(random.nextBoolean() ? value : "-" + value);
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseDouble_NotANumber() {
+        DecimalParser.parseDouble("1.2.3");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseDouble_OnlyDecimalPoint() {
+        DecimalParser.parseDouble(".");
+    }
+
+    private static void assertParsedLikeDouble(String value) {
+        assertEquals(
+                value,
+                Double.doubleToLongBits(Double.parseDouble(value)),
+                Double.doubleToLongBits(DecimalParser.parseDouble(value)));
+    }
+}
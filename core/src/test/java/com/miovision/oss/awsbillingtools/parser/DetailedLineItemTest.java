@@ -26,6 +26,7 @@ package com.miovision.oss.awsbillingtools.parser;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -38,6 +39,7 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -48,6 +50,7 @@ public class DetailedLineItemTest {
     //CHECKSTYLE.OFF: LineLength
     private static final String TEST_RECORD_WITHOUT_TAGS = "\"12345678\",\"111111111111\",\"222222222222\",\"LineItem\",\"12345678901234567890123456\",\"Product Name Here\",\"9191919\",\"723456723\",\"515253\",\"Usage Type Here\",\"Hourly\",\"us-east-1\",\"N\",\"$0.05 per hour for a thing\",\"2015-12-01 00:00:00\",\"2015-12-01 01:00:00\",\"1.02007083\",\"0.0500000000\",\"0.05100354\",\"Resource ID\",\n";
     private static final String TEST_RECORD_WITH_TAGS = "\"12345678\",\"111111111111\",\"222222222222\",\"LineItem\",\"12345678901234567890123456\",\"Product Name Here\",\"9191919\",\"723456723\",\"515253\",\"Usage Type Here\",\"Hourly\",\"us-east-1\",\"Y\",\"$0.05 per hour for a thing\",\"2015-12-01 00:00:00\",\"2015-12-01 01:00:00\",\"1.02007083\",\"0.0500000000\",\"0.05100354\",\"Resource ID\",\"bar\"\n";
+    private static final String TEST_RECORD_WITHOUT_VALUES = "\"12345678\",\"111111111111\",\"222222222222\",\"Rounding\",\"\",\"\",\"\",\"\",\"\",\"\",\"\",\"\",\"\",\"Rounding\",\"\",\"\",\"\",\"\",\"\",\"\",\n";
     //CHECKSTYLE.OFF: LineLength
 
     @Test
@@ -218,6 +221,40 @@ public class DetailedLineItemTest {
         assertTrue(reserveInstance);
     }
 
+    @Test
+    public void testIsReserveInstanceValue() throws Exception {
+        // Execute
+        boolean withTags = givenDetailedLineItemWithTags().isReserveInstanceValue();
+        boolean withoutTags = givenDetailedLineItemWithoutTags().isReserveInstanceValue();
+
+        // Verify
+        assertTrue(withTags);
+        assertFalse(withoutTags);
+    }
+
+    @Test
+    public void testGetCostValue_OnlyCursorViewsCache() throws Exception {
+        // Setup
+        BillingRecordTokenizer tokenizer = new BillingRecordTokenizer(new StringReader(
+                TEST_RECORD_WITHOUT_TAGS + TEST_RECORD_WITHOUT_TAGS.replace("\"0.05100354\"", "\"2.5\"")));
+        TokenizedRecord record = new TokenizedRecord();
+        tokenizer.next(record);
+        DetailedLineItem detailedLineItem = new DetailedLineItem(record, TagHeader.of(new ArrayList<>()));
+        DetailedLineItem cursorView = DetailedLineItem.cursorView(record, TagHeader.of(new ArrayList<>()));
+        double firstCost = detailedLineItem.getCostValue();
+        cursorView.getCostValue();
+
+        // Execute
+        tokenizer.next(record);
+
+        // Verify
+        assertEquals(0.05100354, firstCost, 0.0);
+        assertEquals(2.5, detailedLineItem.getCostValue(), 0.0);
+        assertEquals(0.05100354, cursorView.getCostValue(), 0.0);
+        cursorView.reset();
+        assertEquals(2.5, cursorView.getCostValue(), 0.0);
+    }
+
     @Test
     public void testGetItemDescription() throws Exception {
         // Setup
@@ -254,6 +291,50 @@ public class DetailedLineItemTest {
         assertEquals(DetailedLineItem.DATE_TIME_FORMATTER.parseDateTime("2015-12-01 01:00:00"), usageEndDate);
     }
 
+    @Test
+    public void testGetUsageStartMillis() throws Exception {
+        // Setup
+        DetailedLineItem detailedLineItem = givenDetailedLineItemWithoutTags();
+
+        // Execute
+        long usageStartMillis = detailedLineItem.getUsageStartMillis();
+
+        // Verify
+        assertTrue(detailedLineItem.hasUsageStartDate());
+        assertEquals(DetailedLineItem.DATE_TIME_FORMATTER.parseMillis("2015-12-01 00:00:00"), usageStartMillis);
+    }
+
+    @Test
+    public void testGetUsageEndHourOfMonth() throws Exception {
+        // Setup
+        DetailedLineItem detailedLineItem = givenDetailedLineItemWithoutTags();
+
+        // Execute
+        int usageEndHourOfMonth = detailedLineItem.getUsageEndHourOfMonth();
+
+        // Verify
+        assertEquals(1, usageEndHourOfMonth);
+        assertEquals(0, detailedLineItem.getUsageStartHourOfMonth());
+    }
+
+    @Test
+    public void testGetUsageDates_Missing() throws Exception {
+        // Setup
+        DetailedLineItem detailedLineItem = givenDetailedLineItem(TEST_RECORD_WITHOUT_VALUES);
+
+        // Execute
+        DateTime usageStartDate = detailedLineItem.getUsageStartDate();
+
+        // Verify
+        assertNull(usageStartDate);
+        assertNull(detailedLineItem.getUsageEndDate());
+        assertFalse(detailedLineItem.hasUsageStartDate());
+        assertFalse(detailedLineItem.hasUsageEndDate());
+        assertEquals(DetailedLineItem.NO_TIMESTAMP, detailedLineItem.getUsageStartMillis());
+        assertEquals(DetailedLineItem.NO_TIMESTAMP, detailedLineItem.getUsageEndMillis());
+        assertEquals(DetailedLineItem.NO_HOUR, detailedLineItem.getUsageStartHourOfMonth());
+    }
+
     @Test
     public void testGetUsageQuantity() throws Exception {
         // Setup
@@ -290,6 +371,91 @@ public class DetailedLineItemTest {
         assertEquals(0.051, cost, 0.001);
     }
 
+    @Test
+    public void testGetUsageQuantityValue() throws Exception {
+        // Setup
+        DetailedLineItem detailedLineItem = givenDetailedLineItemWithoutTags();
+
+        // Execute
+        double usageQuantity = detailedLineItem.getUsageQuantityValue();
+
+        // Verify
+        assertTrue(detailedLineItem.hasUsageQuantity());
+        assertEquals(1.02007083, usageQuantity, 0.0);
+    }
+
+    @Test
+    public void testGetRateValue() throws Exception {
+        // Setup
+        DetailedLineItem detailedLineItem = givenDetailedLineItemWithoutTags();
+
+        // Execute
+        double rate = detailedLineItem.getRateValue();
+
+        // Verify
+        assertTrue(detailedLineItem.hasRate());
+        assertEquals(0.05, rate, 0.0);
+    }
+
+    @Test
+    public void testGetCostValue() throws Exception {
+        // Setup
+        DetailedLineItem detailedLineItem = givenDetailedLineItemWithoutTags();
+
+        // Execute
+        double cost = detailedLineItem.getCostValue();
+
+        // Verify
+        assertTrue(detailedLineItem.hasCost());
+        assertEquals(0.05100354, cost, 0.0);
+    }
+
+    @Test
+    public void testGetValues_Missing() throws Exception {
+        // Setup
+        DetailedLineItem detailedLineItem = givenDetailedLineItem(TEST_RECORD_WITHOUT_VALUES);
+
+        // Execute & Verify
+        assertFalse(detailedLineItem.hasUsageQuantity());
+        assertFalse(detailedLineItem.hasRate());
+        assertFalse(detailedLineItem.hasCost());
+        assertTrue(Double.isNaN(detailedLineItem.getUsageQuantityValue()));
+        assertTrue(Double.isNaN(detailedLineItem.getRateValue()));
+        assertTrue(Double.isNaN(detailedLineItem.getCostValue()));
+        assertNull(detailedLineItem.getUsageQuantity());
+        assertNull(detailedLineItem.getRate());
+        assertNull(detailedLineItem.getCost());
+        assertEquals(FixedPoint.NO_VALUE, detailedLineItem.getUsageQuantityFixedPoint());
+        assertEquals(FixedPoint.NO_VALUE, detailedLineItem.getRateFixedPoint());
+        assertEquals(FixedPoint.NO_VALUE, detailedLineItem.getCostFixedPoint());
+    }
+
+    @Test
+    public void testGetFixedPointValues() throws Exception {
+        // Setup
+        DetailedLineItem detailedLineItem = givenDetailedLineItemWithoutTags();
+
+        // Execute & Verify
+        assertEquals(1020070830L, detailedLineItem.getUsageQuantityFixedPoint());
+        assertEquals(50000000L, detailedLineItem.getRateFixedPoint());
+        assertEquals(51003540L, detailedLineItem.getCostFixedPoint());
+    }
+
+    @Test
+    public void testGetFingerprint() throws Exception {
+        // Setup
+        DetailedLineItem detailedLineItem = givenDetailedLineItemWithoutTags();
+        DetailedLineItem sameDetailedLineItem = givenDetailedLineItemWithoutTags();
+        DetailedLineItem otherDetailedLineItem = givenDetailedLineItem(TEST_RECORD_WITHOUT_VALUES);
+
+        // Execute
+        long fingerprint = detailedLineItem.getFingerprint();
+
+        // Verify
+        assertEquals(sameDetailedLineItem.getFingerprint(), fingerprint);
+        assertNotEquals(otherDetailedLineItem.getFingerprint(), fingerprint);
+    }
+
     @Test
     public void testGetResourceId() throws Exception {
         // Setup
@@ -351,6 +517,51 @@ public class DetailedLineItemTest {
         assertEquals("bar", tags.get("foo"));
     }
 
+    @Test
+    public void testGetTag_Missing() throws Exception {
+        // Setup
+        DetailedLineItem detailedLineItem = givenDetailedLineItemWithTags();
+
+        // Exercise
+        String value = detailedLineItem.getTag("missing");
+
+        // Verify
+        assertNull(value);
+        assertFalse(detailedLineItem.getTags().containsKey("missing"));
+    }
+
+    @Test
+    public void testGetTag_Handle() throws Exception {
+        // Setup
+        DetailedLineItem detailedLineItem = givenDetailedLineItemWithTags();
+        TagHandle fooHandle = TagHandle.of("foo");
+        TagHandle missingHandle = TagHandle.of("missing");
+
+        // Exercise
+        String value = detailedLineItem.getTag(fooHandle);
+
+        // Verify
+        assertEquals("bar", value);
+        assertEquals("bar", detailedLineItem.getTag(fooHandle));
+        assertNull(detailedLineItem.getTag(missingHandle));
+        assertEquals("", givenDetailedLineItemWithTags(Arrays.asList("baz", "foo"), ",\"\"\n").getTag(fooHandle));
+    }
+
+    @Test
+    public void testGetTags_DuplicateTagNames() throws Exception {
+        // Setup
+        DetailedLineItem detailedLineItem = givenDetailedLineItemWithTags(Arrays.asList("foo", "foo"), ",\"qux\"\n");
+
+        // Exercise
+        Map<String, String> tags = detailedLineItem.getTags();
+
+        // Verify
+        Map<String, String> expected = new HashMap<>();
+        expected.put("foo", "qux");
+        assertEquals(expected, tags);
+        assertEquals("qux", detailedLineItem.getTag("foo"));
+    }
+
     private DetailedLineItem givenDetailedLineItemWithTags() {
         try {
             CSVParser csvParser = CSVFormat.EXCEL.parse(new StringReader(TEST_RECORD_WITH_TAGS));
@@ -362,6 +573,18 @@ public class DetailedLineItemTest {
         }
     }
 
+    private DetailedLineItem givenDetailedLineItemWithTags(List<String> tags, String extraFields) {
+        try {
+            String record = TEST_RECORD_WITH_TAGS.substring(0, TEST_RECORD_WITH_TAGS.length() - 1) + extraFields;
+            CSVParser csvParser = CSVFormat.EXCEL.parse(new StringReader(record));
+            CSVRecord csvRecord = csvParser.getRecords().get(0);
+            return givenDetailedLineItem(csvRecord, tags);
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private DetailedLineItem givenDetailedLineItemWithoutTags() {
         try {
             CSVParser csvParser = CSVFormat.EXCEL.parse(new StringReader(TEST_RECORD_WITHOUT_TAGS));
@@ -373,6 +596,17 @@ public class DetailedLineItemTest {
         }
     }
 
+    private DetailedLineItem givenDetailedLineItem(String record) {
+        try {
+            CSVParser csvParser = CSVFormat.EXCEL.parse(new StringReader(record));
+            CSVRecord csvRecord = csvParser.getRecords().get(0);
+            return givenDetailedLineItem(csvRecord, new ArrayList<>(0));
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private DetailedLineItem givenDetailedLineItem(CSVRecord csvRecord, List<String> tags) {
         return new DetailedLineItem(csvRecord, tags);
     }
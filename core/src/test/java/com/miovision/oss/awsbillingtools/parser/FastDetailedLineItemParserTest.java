@@ -0,0 +1,439 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the FastDetailedLineItemParser class.
+ */
+public class FastDetailedLineItemParserTest {
+    // CHECKSTYLE.OFF: LineLengthCheck
+    private static final String HEADER = "\"InvoiceID\",\"PayerAccountId\",\"LinkedAccountId\",\"RecordType\",\"RecordId\",\"ProductName\",\"RateId\",\"SubscriptionId\",\"PricingPlanId\",\"UsageType\",\"Operation\",\"AvailabilityZone\",\"ReservedInstance\",\"ItemDescription\",\"UsageStartDate\",\"UsageEndDate\",\"UsageQuantity\",\"Rate\",\"Cost\",\"ResourceId\",\"user:foo\",\"user:baz\"\n";
+    private static final String RECORD_1 = "\"12345678\",\"111111111111\",\"222222222222\",\"LineItem\",\"12345678901234567890123456\",\"Product Name Here\",\"9191919\",\"723456723\",\"515253\",\"Usage Type Here\",\"Hourly\",\"us-east-1\",\"Y\",\"$0.05 per hour for a thing\",\"2015-12-01 00:00:00\",\"2015-12-01 01:00:00\",\"1.02007083\",\"0.0500000000\",\"0.05100354\",\"Resource ID\",\"bar\",\"\"\n";
+    private static final String RECORD_2 = "\"12345678\",\"111111111111\",\"333333333333\",\"Rounding\",\"\",\"\",\"\",\"\",\"\",\"\",\"\",\"\",\"N\",\"Rounding of \"\"cents\"\"\",\"\",\"\",\"\",\"\",\"-0.00000012\",\"\",\"\",\"qux\"\r\n";
+    // CHECKSTYLE.ON: LineLengthCheck
+    private FastDetailedLineItemParser parser;
+
+    @Before
+    public void setUp() throws Exception {
+        parser = new FastDetailedLineItemParser();
+    }
+
+    @Test
+    public void testGetRecordTypeClass() {
+        // Execute
+        Class<DetailedLineItem> recordTypeClass = parser.getRecordTypeClass();
+
+        // Verify
+        assertEquals(DetailedLineItem.class, recordTypeClass);
+    }
+
+    @Test
+    public void testParse_NoContent() throws IOException {
+        // Execute
+        try(Stream<DetailedLineItem> stream = parser.parse(new StringReader(""))) {
+            // Verify
+            assertEquals(0, stream.collect(Collectors.toList()).size());
+        }
+    }
+
+    @Test
+    public void testParse_ZeroRecords() throws IOException {
+        // Execute
+        try(Stream<DetailedLineItem> stream = parser.parse(new StringReader(HEADER))) {
+            // Verify
+            assertEquals(0, stream.collect(Collectors.toList()).size());
+        }
+    }
+
+    @Test
+    public void testParse_OneRecord() throws IOException {
+        // Execute
+        try(Stream<DetailedLineItem> stream = parser.parse(new StringReader(HEADER + RECORD_1))) {
+            // Verify
+            List<DetailedLineItem> records = stream.collect(Collectors.toList());
+            assertEquals(1, records.size());
+            assertEquals("12345678", records.get(0).getInvoiceId());
+            assertEquals("bar", records.get(0).getTag("user:foo"));
+        }
+    }
+
+    @Test
+    public void testParse_SameAsDetailedLineItemParser() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2 + RECORD_1;
+
+        // Execute
+        List<DetailedLineItem> expected;
+        try(Stream<DetailedLineItem> stream = new DetailedLineItemParser().parse(new StringReader(fileContents))) {
+            expected = stream.collect(Collectors.toList());
+        }
+        List<DetailedLineItem> actual;
+        try(Stream<DetailedLineItem> stream = parser.parse(new StringReader(fileContents))) {
+            actual = stream.collect(Collectors.toList());
+        }
+
+        // Verify
+        assertEquals(expected.size(), actual.size());
+        for(int i = 0; i < expected.size(); ++i) {
+            assertSameRecord(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void testCursor_ReusesRecord() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2;
+
+        // Execute
+        try(BillingRecordCursor<DetailedLineItem> cursor = parser.cursor(new StringReader(fileContents))) {
+            assertTrue(cursor.next());
+            DetailedLineItem first = cursor.get();
+            final DetailedLineItem retained = first.copy();
+            assertEquals("LineItem", first.getRecordType());
+            assertEquals("bar", first.getTag("user:foo"));
+
+            assertTrue(cursor.next());
+            DetailedLineItem second = cursor.get();
+
+            // Verify
+            assertSame(first, second);
+            assertEquals("Rounding", second.getRecordType());
+            assertEquals("", second.getTag("user:foo"));
+            assertEquals("LineItem", retained.getRecordType());
+            assertEquals("bar", retained.getTag("user:foo"));
+            assertFalse(cursor.next());
+        }
+    }
+
+    @Test
+    public void testForEachRow() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2 + RECORD_1;
+        List<String> recordTypes = new ArrayList<>();
+
+        // Execute
+        parser.forEachRow(new StringReader(fileContents), record -> recordTypes.add(record.getRecordType()));
+
+        // Verify
+        assertEquals(Arrays.asList("LineItem", "Rounding", "LineItem"), recordTypes);
+    }
+
+    @Test
+    public void testParse_DictionaryEncoding_SameAsDetailedLineItemParser() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2 + RECORD_1;
+
+        // Execute
+        List<DetailedLineItem> expected;
+        try(Stream<DetailedLineItem> stream = new DetailedLineItemParser().parse(new StringReader(fileContents))) {
+            expected = stream.collect(Collectors.toList());
+        }
+        List<DetailedLineItem> actual;
+        try(Stream<DetailedLineItem> stream =
+                    parser.withDictionaryEncoding().parse(new StringReader(fileContents))) {
+            actual = stream.collect(Collectors.toList());
+        }
+
+        // Verify
+        assertEquals(expected.size(), actual.size());
+        for(int i = 0; i < expected.size(); ++i) {
+            assertSameRecord(expected.get(i), actual.get(i));
+        }
+        assertSame(actual.get(0).getProductName(), actual.get(2).getProductName());
+    }
+
+    @Test
+    public void testCursor_DictionaryEncoding_DefaultColumns() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1;
+
+        // Execute
+        try(BillingRecordCursor<DetailedLineItem> cursor =
+                    parser.withDictionaryEncoding().cursor(new StringReader(fileContents))) {
+            assertTrue(cursor.next());
+            DetailedLineItem record = cursor.get();
+
+            // Verify
+            assertNotEquals(StringDictionary.NOT_ENCODED, record.getDictionaryCode(DetailedLineItemColumn.USAGE_TYPE));
+            assertEquals(StringDictionary.NOT_ENCODED,
+                    record.getDictionaryCode(DetailedLineItemColumn.ITEM_DESCRIPTION));
+            assertEquals(StringDictionary.NOT_ENCODED, record.getDictionaryCode(DetailedLineItemColumn.INVOICE_ID));
+            assertEquals(StringDictionary.NOT_ENCODED, record.getTagDictionaryCode("user:foo"));
+        }
+    }
+
+    @Test
+    public void testCursor_DictionaryEncoding_Codes() throws IOException {
+        // Setup
+        StringDictionary dictionary = new StringDictionary();
+        String fileContents = HEADER + RECORD_1 + RECORD_2;
+
+        // Execute
+        try(BillingRecordCursor<DetailedLineItem> cursor =
+                    parser.withDictionaryEncoding(FastDetailedLineItemParser.DEFAULT_DICTIONARY_COLUMNS, true,
+                            () -> dictionary).cursor(new StringReader(fileContents))) {
+            assertTrue(cursor.next());
+            DetailedLineItem record = cursor.get();
+
+            // Verify
+            assertSame(dictionary, record.getDictionary());
+            int code = record.getDictionaryCode(DetailedLineItemColumn.PAYER_ACCOUNT_ID);
+            assertEquals("111111111111", dictionary.get(code));
+            assertEquals("111111111111", record.get(DetailedLineItemColumn.PAYER_ACCOUNT_ID));
+            assertEquals(dictionary.getCode("bar"), record.getTagDictionaryCode("user:foo"));
+            assertEquals(dictionary.getCode("bar"), record.getTagDictionaryCode(TagHandle.of("user:foo")));
+            assertEquals(StringDictionary.NOT_ENCODED, record.getTagDictionaryCode("user:missing"));
+            assertEquals(StringDictionary.NOT_ENCODED, record.getDictionaryCode(DetailedLineItemColumn.RECORD_ID));
+
+            assertTrue(cursor.next());
+            assertEquals(code, cursor.get().getDictionaryCode(DetailedLineItemColumn.PAYER_ACCOUNT_ID));
+        }
+    }
+
+    @Test
+    public void testCursor_DictionaryEncoding_Full() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2;
+        FastDetailedLineItemParser encodingParser = parser.withDictionaryEncoding(new StringDictionary(0));
+
+        // Execute
+        try(BillingRecordCursor<DetailedLineItem> cursor = encodingParser.cursor(new StringReader(fileContents))) {
+            assertTrue(cursor.next());
+            DetailedLineItem record = cursor.get();
+
+            // Verify
+            assertEquals("111111111111", record.getPayerAccountId());
+            assertEquals(StringDictionary.NOT_ENCODED,
+                    record.getDictionaryCode(DetailedLineItemColumn.PAYER_ACCOUNT_ID));
+        }
+    }
+
+    @Test
+    public void testParse_Projection() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2;
+        ColumnProjection projection = ColumnProjection
+                .of(DetailedLineItemColumn.RECORD_TYPE, DetailedLineItemColumn.ITEM_DESCRIPTION)
+                .withTags("user:baz");
+
+        // Execute
+        List<DetailedLineItem> records;
+        try(Stream<DetailedLineItem> stream = parser.withProjection(projection).parse(new StringReader(fileContents))) {
+            records = stream.collect(Collectors.toList());
+        }
+
+        // Verify
+        assertEquals(2, records.size());
+        assertEquals("LineItem", records.get(0).getRecordType());
+        assertEquals("Rounding of \"cents\"", records.get(1).getItemDescription());
+        assertEquals("qux", records.get(1).getTag("user:baz"));
+        assertNull(records.get(1).getTag("user:foo"));
+        assertEquals(1, records.get(1).getTags().size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testParse_Projection_UnprojectedColumn() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1;
+        ColumnProjection projection = ColumnProjection.of(DetailedLineItemColumn.RECORD_TYPE);
+
+        // Execute
+        try(BillingRecordCursor<DetailedLineItem> cursor =
+                    parser.withProjection(projection).cursor(new StringReader(fileContents))) {
+            assertTrue(cursor.next());
+            cursor.get().getCost();
+        }
+    }
+
+    @Test
+    public void testParse_Projection_WithDictionaryEncoding() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2;
+        StringDictionary dictionary = new StringDictionary();
+        FastDetailedLineItemParser projectingParser = parser
+                .withProjection(ColumnProjection.of(DetailedLineItemColumn.LINKED_ACCOUNT_ID))
+                .withDictionaryEncoding(dictionary);
+
+        // Execute
+        List<String> linkedAccountIds = new ArrayList<>();
+        projectingParser.forEachRow(
+                new StringReader(fileContents), record -> linkedAccountIds.add(record.getLinkedAccountId()));
+
+        // Verify
+        assertEquals(Arrays.asList("222222222222", "333333333333"), linkedAccountIds);
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    public void testParse_Filter() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2 + RECORD_1;
+        RecordFilter filter = RecordFilter.excludingTotals()
+                .and(RecordFilter.in(DetailedLineItemColumn.LINKED_ACCOUNT_ID, Arrays.asList("222222222222", "x")));
+
+        // Execute
+        List<DetailedLineItem> records;
+        try(Stream<DetailedLineItem> stream = parser.withFilter(filter).parse(new StringReader(fileContents))) {
+            records = stream.collect(Collectors.toList());
+        }
+
+        // Verify
+        assertEquals(2, records.size());
+        assertEquals("LineItem", records.get(0).getRecordType());
+        assertEquals("LineItem", records.get(1).getRecordType());
+    }
+
+    @Test
+    public void testParse_Filter_RejectsEverything() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2;
+        RecordFilter filter = RecordFilter.equalTo(DetailedLineItemColumn.RECORD_TYPE, "AccountTotal");
+
+        // Execute
+        try(BillingRecordCursor<DetailedLineItem> cursor =
+                    parser.withFilter(filter).cursor(new StringReader(fileContents))) {
+            // Verify
+            assertFalse(cursor.next());
+        }
+    }
+
+    @Test
+    public void testParse_Filter_WithProjection() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2 + RECORD_1;
+        FastDetailedLineItemParser filteringParser = parser
+                .withProjection(ColumnProjection.of(DetailedLineItemColumn.COST))
+                .withFilter(RecordFilter.equalTo(DetailedLineItemColumn.RECORD_TYPE, "Rounding"));
+        List<Double> costs = new ArrayList<>();
+
+        // Execute
+        filteringParser.forEachRow(new StringReader(fileContents), record -> costs.add(record.getCost()));
+
+        // Verify
+        assertEquals(Arrays.asList(-0.00000012), costs);
+    }
+
+    @Test
+    public void testParse_Filter_SameAsStreamFilter() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2 + RECORD_1 + RECORD_2;
+        RecordFilter filter = RecordFilter.between(
+                DetailedLineItemColumn.USAGE_START_DATE,
+                DetailedLineItem.DATE_TIME_FORMATTER.parseDateTime("2015-12-01 00:00:00"),
+                DetailedLineItem.DATE_TIME_FORMATTER.parseDateTime("2015-12-02 00:00:00"));
+
+        // Execute
+        List<DetailedLineItem> expected;
+        try(Stream<DetailedLineItem> stream = parser.parse(new StringReader(fileContents))) {
+            expected = stream.filter(filter::test).collect(Collectors.toList());
+        }
+        List<DetailedLineItem> actual;
+        try(Stream<DetailedLineItem> stream = parser.withFilter(filter).parse(new StringReader(fileContents))) {
+            actual = stream.collect(Collectors.toList());
+        }
+
+        // Verify
+        assertEquals(2, expected.size());
+        assertEquals(expected.size(), actual.size());
+        for(int i = 0; i < expected.size(); ++i) {
+            assertSameRecord(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void testParse_InputStream_SameAsReader() throws IOException {
+        // Setup
+        String fileContents = HEADER + RECORD_1 + RECORD_2.replace("cents", "cents €") + RECORD_1;
+        byte[] bytes = fileContents.getBytes(StandardCharsets.UTF_8);
+
+        // Execute
+        List<DetailedLineItem> expected;
+        try(Stream<DetailedLineItem> stream = parser.parse(new StringReader(fileContents))) {
+            expected = stream.collect(Collectors.toList());
+        }
+        List<DetailedLineItem> fromInputStream;
+        try(Stream<DetailedLineItem> stream = parser.parse(new ByteArrayInputStream(bytes))) {
+            fromInputStream = stream.collect(Collectors.toList());
+        }
+        List<DetailedLineItem> fromByteBuffer;
+        try(Stream<DetailedLineItem> stream = parser.parse(ByteBuffer.wrap(bytes))) {
+            fromByteBuffer = stream.collect(Collectors.toList());
+        }
+
+        // Verify
+        assertEquals(3, expected.size());
+        assertEquals(expected.size(), fromInputStream.size());
+        assertEquals(expected.size(), fromByteBuffer.size());
+        for(int i = 0; i < expected.size(); ++i) {
+            assertSameRecord(expected.get(i), fromInputStream.get(i));
+            assertSameRecord(expected.get(i), fromByteBuffer.get(i));
+        }
+    }
+
+    static void assertSameRecord(DetailedLineItem expected, DetailedLineItem actual) {
+        assertEquals(expected.getFingerprint(), actual.getFingerprint());
+        assertEquals(expected.getInvoiceId(), actual.getInvoiceId());
+        assertEquals(expected.getPayerAccountId(), actual.getPayerAccountId());
+        assertEquals(expected.getLinkedAccountId(), actual.getLinkedAccountId());
+        assertEquals(expected.getRecordType(), actual.getRecordType());
+        assertEquals(expected.getRecordId(), actual.getRecordId());
+        assertEquals(expected.getProductName(), actual.getProductName());
+        assertEquals(expected.getRateId(), actual.getRateId());
+        assertEquals(expected.getSubscriptionId(), actual.getSubscriptionId());
+        assertEquals(expected.getPricingPlanId(), actual.getPricingPlanId());
+        assertEquals(expected.getUsageType(), actual.getUsageType());
+        assertEquals(expected.getOperation(), actual.getOperation());
+        assertEquals(expected.getAvailabilityZone(), actual.getAvailabilityZone());
+        assertEquals(expected.isReserveInstance(), actual.isReserveInstance());
+        assertEquals(expected.getItemDescription(), actual.getItemDescription());
+        assertEquals(expected.getUsageStartDate(), actual.getUsageStartDate());
+        assertEquals(expected.getUsageEndDate(), actual.getUsageEndDate());
+        assertEquals(expected.getUsageQuantity(), actual.getUsageQuantity());
+        assertEquals(expected.getRate(), actual.getRate());
+        assertEquals(expected.getCost(), actual.getCost());
+        assertEquals(expected.getResourceId(), actual.getResourceId());
+        assertEquals(expected.getTags(), actual.getTags());
+    }
+}
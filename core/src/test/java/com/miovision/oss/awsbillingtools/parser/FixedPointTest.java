@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import java.math.BigDecimal;
+
+/**
+ * Unit tests for the FixedPoint class.
+ */
+public class FixedPointTest {
+    @Test
+    public void testParse() {
+        // Execute & Verify
+        assertEquals(51003540L, FixedPoint.parse("0.05100354"));
+        assertEquals(-120L, FixedPoint.parse("-0.00000012"));
+        assertEquals(12500000000L, FixedPoint.parse("12.5"));
+        assertEquals(42 * FixedPoint.ONE, FixedPoint.parse("+42"));
+        assertEquals(500000000L, FixedPoint.parse(".5"));
+        assertEquals(3 * FixedPoint.ONE, FixedPoint.parse("3."));
+    }
+
+    @Test
+    public void testParse_RoundsHalfEven() {
+        // Execute & Verify
+        assertEquals(1L, FixedPoint.parse("0.0000000014"));
+        assertEquals(2L, FixedPoint.parse("0.0000000015"));
+        assertEquals(2L, FixedPoint.parse("0.0000000025"));
+        assertEquals(3L, FixedPoint.parse("0.00000000250001"));
+        assertEquals(-2L, FixedPoint.parse("-0.0000000025"));
+    }
+
+    @Test
+    public void testParse_Exponent() {
+        // Execute & Verify
+        assertEquals(15000L, FixedPoint.parse("1.5E-5"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParse_Empty() {
+        // Execute
+        FixedPoint.parse("-");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParse_NotANumber() {
+        // Execute
+        FixedPoint.parse("1.2.3");
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testParse_Overflow() {
+        // Execute
+        FixedPoint.parse("10000000000");
+    }
+
+    @Test
+    public void testAdd_IsExact() {
+        // Setup
+        long sum = 0;
+
+        // Execute
+        for(int i = 0; i < 10; ++i) {
+            sum = FixedPoint.add(sum, FixedPoint.parse("0.1"));
+        }
+
+        // Verify
+        assertEquals(FixedPoint.ONE, sum);
+        assertEquals(1.0, FixedPoint.toDouble(sum), 0.0);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testAdd_Overflow() {
+        // Execute
+        FixedPoint.add(Long.MAX_VALUE, 1L);
+    }
+
+    @Test
+    public void testConversions() {
+        // Setup
+        long value = FixedPoint.parse("0.05100354");
+
+        // Execute & Verify
+        assertEquals(0.05100354, FixedPoint.toDouble(value), 0.0);
+        assertEquals(value, FixedPoint.fromDouble(0.05100354));
+        assertEquals(new BigDecimal("0.051003540"), FixedPoint.toBigDecimal(value));
+        assertEquals("0.05100354", FixedPoint.toString(value));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testFromDouble_Overflow() {
+        // Execute
+        FixedPoint.fromDouble(1.2e10);
+    }
+}
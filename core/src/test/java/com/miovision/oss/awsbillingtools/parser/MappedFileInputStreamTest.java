@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Unit tests for the MappedFileInputStream class.
+ */
+public class MappedFileInputStreamTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRead_RangeSpanningWindows() throws IOException {
+        // Setup
+        Path file = givenFile("0123456789abcdefghijklmnopqrstuvwxyz");
+
+        // Execute
+        byte[] bytes;
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            InputStream inputStream = new MappedFileInputStream(channel, 3, 30, false, 7)) {
+            bytes = readFully(inputStream);
+        }
+
+        // Verify
+        assertArrayEquals("3456789abcdefghijklmnopqrst".getBytes(StandardCharsets.UTF_8), bytes);
+    }
+
+    @Test
+    public void testRead_SingleBytes() throws IOException {
+        // Setup
+        Path file = givenFile("abc");
+
+        // Execute
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            InputStream inputStream = new MappedFileInputStream(channel, 1, 3, false, 1)) {
+            // Verify
+            assertEquals(2, inputStream.available());
+            assertEquals('b', inputStream.read());
+            assertEquals('c', inputStream.read());
+            assertEquals(-1, inputStream.read());
+        }
+    }
+
+    @Test
+    public void testClose_OwnsChannel() throws IOException {
+        // Setup
+        Path file = givenFile("abc");
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        FileChannel sharedChannel = FileChannel.open(file, StandardOpenOption.READ);
+
+        // Execute
+        new MappedFileInputStream(channel, 0, 3, true).close();
+        new MappedFileInputStream(sharedChannel, 0, 3, false).close();
+
+        // Verify
+        assertFalse(channel.isOpen());
+        assertTrue(sharedChannel.isOpen());
+        sharedChannel.close();
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[5];
+        int read;
+        while((read = inputStream.read(buffer, 0, buffer.length)) >= 0) {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private Path givenFile(String fileContents) throws IOException {
+        final Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, fileContents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the ParallelDetailedLineItemParser class.
+ */
+public class ParallelDetailedLineItemParserTest {
+    // CHECKSTYLE.OFF: LineLengthCheck
+    private static final String HEADER = "\"InvoiceID\",\"PayerAccountId\",\"LinkedAccountId\",\"RecordType\",\"RecordId\",\"ProductName\",\"RateId\",\"SubscriptionId\",\"PricingPlanId\",\"UsageType\",\"Operation\",\"AvailabilityZone\",\"ReservedInstance\",\"ItemDescription\",\"UsageStartDate\",\"UsageEndDate\",\"UsageQuantity\",\"Rate\",\"Cost\",\"ResourceId\",\"user:foo\"\n";
+    private static final String RECORD_FORMAT = "\"12345678\",\"111111111111\",\"222222222222\",\"LineItem\",\"%d\",\"Product Name Here\",\"9191919\",\"723456723\",\"515253\",\"Usage Type Here\",\"Hourly\",\"us-east-1\",\"Y\",\"%s\",\"2015-12-01 00:00:00\",\"2015-12-01 01:00:00\",\"1.02007083\",\"0.0500000000\",\"0.05100354\",\"Resource ID\",\"bar\"\n";
+    // CHECKSTYLE.ON: LineLengthCheck
+    private static final int RECORD_COUNT = 2000;
+    private static final long SMALL_CHUNK_SIZE = 512;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ParallelDetailedLineItemParser parser;
+
+    @Before
+    public void setUp() throws Exception {
+        parser = new ParallelDetailedLineItemParser(SMALL_CHUNK_SIZE);
+    }
+
+    @Test
+    public void testParse_NoContent() throws IOException {
+        // Setup
+        Path file = givenFile("");
+
+        // Execute
+        try(Stream<DetailedLineItem> stream = parser.parse(file)) {
+            // Verify
+            assertEquals(0, stream.count());
+        }
+    }
+
+    @Test
+    public void testParse_ZeroRecords() throws IOException {
+        // Setup
+        Path file = givenFile(HEADER);
+
+        // Execute
+        try(Stream<DetailedLineItem> stream = parser.parse(file)) {
+            // Verify
+            assertEquals(0, stream.count());
+        }
+    }
+
+    @Test
+    public void testParse_Ordered() throws IOException {
+        // Setup
+        String fileContents = givenManyRecords();
+        Path file = givenFile(fileContents);
+
+        // Execute
+        List<DetailedLineItem> actual;
+        try(Stream<DetailedLineItem> stream = parser.parse(file, true)) {
+            actual = stream.collect(Collectors.toList());
+        }
+
+        // Verify
+        List<DetailedLineItem> expected = parseSequentially(fileContents);
+        assertEquals(expected.size(), actual.size());
+        for(int i = 0; i < expected.size(); ++i) {
+            FastDetailedLineItemParserTest.assertSameRecord(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void testParse_DictionaryEncoding_SharedAcrossChunks() throws IOException {
+        // Setup
+        String fileContents = givenManyRecords();
+        Path file = givenFile(fileContents);
+        ParallelDetailedLineItemParser encodingParser =
+                new ParallelDetailedLineItemParser(new FastDetailedLineItemParser().withDictionaryEncoding(), 512);
+
+        // Execute
+        List<DetailedLineItem> actual;
+        try(Stream<DetailedLineItem> stream = encodingParser.parse(file, true)) {
+            actual = stream.collect(Collectors.toList());
+        }
+
+        // Verify
+        List<DetailedLineItem> expected = parseSequentially(fileContents);
+        assertEquals(expected.size(), actual.size());
+        for(int i = 0; i < expected.size(); ++i) {
+            FastDetailedLineItemParserTest.assertSameRecord(expected.get(i), actual.get(i));
+            assertSame(actual.get(0).getDictionary(), actual.get(i).getDictionary());
+        }
+    }
+
+    @Test
+    public void testParse_Unordered() throws IOException {
+        // Setup
+        String fileContents = givenManyRecords();
+        Path file = givenFile(fileContents);
+
+        // Execute
+        List<DetailedLineItem> actual;
+        try(Stream<DetailedLineItem> stream = parser.parse(file, false)) {
+            actual = stream
+                    .collect(Collectors.toList())
+                    .stream()
+                    .sorted(Comparator.comparing(record -> Integer.parseInt(record.getRecordId())))
+                    .collect(Collectors.toList());
+        }
+
+        // Verify
+        List<DetailedLineItem> expected = parseSequentially(fileContents);
+        assertEquals(expected.size(), actual.size());
+        for(int i = 0; i < expected.size(); ++i) {
+            FastDetailedLineItemParserTest.assertSameRecord(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void testParse_SpliteratorSplits() throws IOException {
+        // Setup
+        Path file = givenFile(givenManyRecords());
+
+        // Execute
+        try(Stream<DetailedLineItem> stream = parser.parse(file)) {
+            Spliterator<DetailedLineItem> spliterator = stream.spliterator();
+            Spliterator<DetailedLineItem> prefix = spliterator.trySplit();
+
+            // Verify
+            assertNotNull(prefix);
+            assertEquals(RECORD_COUNT, countRemaining(prefix) + countRemaining(spliterator));
+        }
+    }
+
+    @Test
+    public void testParse_SameAsMappedSequentialParse() throws IOException {
+        // Setup
+        String fileContents = givenManyRecords();
+        Path file = givenFile(fileContents);
+
+        // Execute
+        List<DetailedLineItem> actual;
+        try(Stream<DetailedLineItem> stream = parser.parse(file, true)) {
+            actual = stream.collect(Collectors.toList());
+        }
+        List<DetailedLineItem> expected;
+        try(Stream<DetailedLineItem> stream = new FastDetailedLineItemParser().parse(file)) {
+            expected = stream.collect(Collectors.toList());
+        }
+
+        // Verify
+        assertEquals(RECORD_COUNT, expected.size());
+        assertEquals(expected.size(), actual.size());
+        for(int i = 0; i < expected.size(); ++i) {
+            FastDetailedLineItemParserTest.assertSameRecord(expected.get(i), actual.get(i));
+        }
+    }
+
+    private static long countRemaining(Spliterator<DetailedLineItem> spliterator) {
+        final long[] count = new long[1];
+        spliterator.forEachRemaining(record -> ++count[0]);
+        return count[0];
+    }
+
+    private static String givenManyRecords() {
+        final StringBuilder builder = new StringBuilder(HEADER);
+        for(int i = 0; i < RECORD_COUNT; ++i) {
+            // Some descriptions contain line breaks and escaped quotes so that naive splitting on line breaks fails.
+            final String description = i % 7 == 0 ? "multi\n\"\"line\"\"\n\"\"\n" : "$0.05 per hour for a thing";
+            builder.append(String.format(RECORD_FORMAT, i, description));
+        }
+        return builder.toString();
+    }
+
+    private static List<DetailedLineItem> parseSequentially(String fileContents) throws IOException {
+        try(Stream<DetailedLineItem> stream = new FastDetailedLineItemParser().parse(new StringReader(fileContents))) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
+    private Path givenFile(String fileContents) throws IOException {
+        final Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, fileContents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
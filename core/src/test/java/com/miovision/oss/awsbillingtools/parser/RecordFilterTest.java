@@ -0,0 +1,208 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for the RecordFilter class.
+ */
+public class RecordFilterTest {
+    //CHECKSTYLE.OFF: LineLength
+    private static final String LINE_ITEM = "\"12345678\",\"111111111111\",\"222222222222\",\"LineItem\",\"12345678901234567890123456\",\"Product Name Here\",\"9191919\",\"723456723\",\"515253\",\"Usage Type Here\",\"Hourly\",\"us-east-1\",\"N\",\"$0.05 per hour for a thing\",\"2015-12-01 00:00:00\",\"2015-12-01 01:00:00\",\"1.02007083\",\"0.0500000000\",\"0.05100354\",\"Resource ID\"\n";
+    private static final String INVOICE_TOTAL = "\"12345678\",\"111111111111\",\"\",\"InvoiceTotal\",\"\",\"\",\"\",\"\",\"\",\"\",\"\",\"\",\"\",\"Total amount for invoice\",\"\",\"\",\"\",\"\",\"12.50\",\"\"\n";
+    //CHECKSTYLE.ON: LineLength
+
+    @Test
+    public void testEqualTo() throws Exception {
+        // Setup
+        DetailedLineItem record = givenDetailedLineItem(LINE_ITEM);
+
+        // Execute
+        boolean accepted = RecordFilter.equalTo(DetailedLineItemColumn.RECORD_TYPE, "LineItem").test(record);
+
+        // Verify
+        assertTrue(accepted);
+        assertFalse(RecordFilter.equalTo(DetailedLineItemColumn.RECORD_TYPE, "Line").test(record));
+    }
+
+    @Test
+    public void testIn() throws Exception {
+        // Setup
+        DetailedLineItem record = givenDetailedLineItem(LINE_ITEM);
+
+        // Execute
+        boolean accepted = RecordFilter
+                .in(DetailedLineItemColumn.LINKED_ACCOUNT_ID, Arrays.asList("333333333333", "222222222222"))
+                .test(record);
+
+        // Verify
+        assertTrue(accepted);
+        assertFalse(RecordFilter.in(DetailedLineItemColumn.LINKED_ACCOUNT_ID, Collections.emptySet()).test(record));
+    }
+
+    @Test
+    public void testIn_ManyValues() throws Exception {
+        // Setup
+        List<String> values = new ArrayList<>();
+        for(int i = 0; i < 1000; ++i) {
+            values.add("Type" + i);
+        }
+        values.add("LineItem");
+        RecordFilter filter = RecordFilter.in(DetailedLineItemColumn.RECORD_TYPE, values);
+
+        // Execute
+        boolean accepted = filter.test(givenDetailedLineItem(LINE_ITEM));
+
+        // Verify
+        assertTrue(accepted);
+        assertFalse(filter.test(givenDetailedLineItem(INVOICE_TOTAL)));
+        assertFalse(RecordFilter.notIn(DetailedLineItemColumn.RECORD_TYPE, values)
+                .test(givenDetailedLineItem(LINE_ITEM)));
+        assertFalse(RecordFilter.in(DetailedLineItemColumn.RECORD_TYPE, Collections.emptyList())
+                .test(givenDetailedLineItem(LINE_ITEM)));
+    }
+
+    @Test
+    public void testExcludingTotals() throws Exception {
+        // Setup
+        DetailedLineItem lineItem = givenDetailedLineItem(LINE_ITEM);
+        DetailedLineItem invoiceTotal = givenDetailedLineItem(INVOICE_TOTAL);
+
+        // Execute
+        RecordFilter filter = RecordFilter.excludingTotals();
+
+        // Verify
+        assertTrue(filter.test(lineItem));
+        assertFalse(filter.test(invoiceTotal));
+    }
+
+    @Test
+    public void testBetween() throws Exception {
+        // Setup
+        DetailedLineItem lineItem = givenDetailedLineItem(LINE_ITEM);
+        DetailedLineItem invoiceTotal = givenDetailedLineItem(INVOICE_TOTAL);
+
+        // Execute
+        RecordFilter filter = RecordFilter.between(
+                DetailedLineItemColumn.USAGE_END_DATE,
+                DetailedLineItem.DATE_TIME_FORMATTER.parseDateTime("2015-12-01 00:00:00"),
+                DetailedLineItem.DATE_TIME_FORMATTER.parseDateTime("2015-12-01 01:00:00"));
+
+        // Verify
+        assertFalse(filter.test(lineItem));
+        assertFalse(filter.test(invoiceTotal));
+        assertTrue(RecordFilter.between(
+                DetailedLineItemColumn.USAGE_END_DATE,
+                DetailedLineItem.DATE_TIME_FORMATTER.parseDateTime("2015-12-01 01:00:00"),
+                DetailedLineItem.DATE_TIME_FORMATTER.parseDateTime("2015-12-01 01:00:01")).test(lineItem));
+    }
+
+    @Test
+    public void testBetween_Decimal() throws Exception {
+        // Setup
+        DetailedLineItem lineItem = givenDetailedLineItem(LINE_ITEM);
+        DetailedLineItem invoiceTotal = givenDetailedLineItem(INVOICE_TOTAL);
+
+        // Execute
+        RecordFilter filter = RecordFilter.between(
+                DetailedLineItemColumn.COST, new BigDecimal("0.05"), new BigDecimal("0.06"));
+
+        // Verify
+        assertTrue(filter.test(lineItem));
+        assertFalse(filter.test(invoiceTotal));
+        assertFalse(RecordFilter.between(
+                DetailedLineItemColumn.RATE, new BigDecimal("0"), new BigDecimal("0.05")).test(lineItem));
+    }
+
+    @Test
+    public void testMightMatch() throws Exception {
+        // Setup
+        BlockStatistics block = new BlockStatistics() {
+            @Override
+            public long getMinimum(DetailedLineItemColumn column) {
+                return column == DetailedLineItemColumn.COST ? FixedPoint.ONE : Long.MIN_VALUE;
+            }
+
+            @Override
+            public long getMaximum(DetailedLineItemColumn column) {
+                return column == DetailedLineItemColumn.COST ? 2 * FixedPoint.ONE : Long.MAX_VALUE;
+            }
+
+            @Override
+            public boolean mightContain(DetailedLineItemColumn column, String value) {
+                return column != DetailedLineItemColumn.RESOURCE_ID || value.equals("i-1");
+            }
+        };
+
+        // Execute
+        boolean mightMatch = RecordFilter.in(DetailedLineItemColumn.RESOURCE_ID, Arrays.asList("i-0", "i-1"))
+                .and(RecordFilter.between(DetailedLineItemColumn.COST, new BigDecimal("2"), new BigDecimal("3")))
+                .mightMatch(block);
+
+        // Verify
+        assertTrue(mightMatch);
+        assertFalse(RecordFilter.equalTo(DetailedLineItemColumn.RESOURCE_ID, "i-0").mightMatch(block));
+        assertTrue(RecordFilter.notIn(DetailedLineItemColumn.RESOURCE_ID, Arrays.asList("i-0")).mightMatch(block));
+        assertFalse(RecordFilter.between(DetailedLineItemColumn.COST, new BigDecimal("2.000000001"),
+                new BigDecimal("3")).mightMatch(block));
+        assertFalse(RecordFilter.between(DetailedLineItemColumn.COST, new BigDecimal("0"), BigDecimal.ONE)
+                .mightMatch(block));
+        assertTrue(RecordFilter.between(
+                DetailedLineItemColumn.USAGE_START_DATE,
+                DetailedLineItem.DATE_TIME_FORMATTER.parseDateTime("2015-12-01 00:00:00"),
+                DetailedLineItem.DATE_TIME_FORMATTER.parseDateTime("2015-12-01 01:00:00")).mightMatch(block));
+    }
+
+    @Test
+    public void testAnd() throws Exception {
+        // Setup
+        DetailedLineItem record = givenDetailedLineItem(LINE_ITEM);
+
+        // Execute
+        RecordFilter filter = RecordFilter.excludingTotals()
+                .and(RecordFilter.equalTo(DetailedLineItemColumn.AVAILABILITY_ZONE, "us-west-2"));
+
+        // Verify
+        assertFalse(filter.test(record));
+    }
+
+    private DetailedLineItem givenDetailedLineItem(String record) throws IOException {
+        CSVRecord csvRecord = CSVFormat.EXCEL.parse(new StringReader(record)).getRecords().get(0);
+        return new DetailedLineItem(csvRecord, Collections.emptyList());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Unit tests for the StringDictionary class.
+ */
+public class StringDictionaryTest {
+    @Test
+    public void testIntern_SameValueSameCode() {
+        // Setup
+        StringDictionary dictionary = new StringDictionary();
+        char[] chars = "xxus-east-1".toCharArray();
+
+        // Execute
+        int first = dictionary.intern("us-east-1");
+        int second = dictionary.intern(chars, 2, 9);
+        int other = dictionary.intern("us-west-2");
+
+        // Verify
+        assertEquals(0, first);
+        assertEquals(first, second);
+        assertEquals(1, other);
+        assertEquals(2, dictionary.size());
+        assertEquals("us-east-1", dictionary.get(first));
+        assertSame(dictionary.get(first), dictionary.get(second));
+    }
+
+    @Test
+    public void testGetCode_NotInterned() {
+        // Setup
+        StringDictionary dictionary = new StringDictionary();
+        dictionary.intern("foo");
+
+        // Execute
+        int code = dictionary.getCode("bar");
+
+        // Verify
+        assertEquals(StringDictionary.NOT_ENCODED, code);
+        assertEquals(0, dictionary.getCode(new StringBuilder("foo")));
+    }
+
+    @Test
+    public void testIntern_Full() {
+        // Setup
+        StringDictionary dictionary = new StringDictionary(2);
+        dictionary.intern("a");
+        dictionary.intern("b");
+
+        // Execute
+        int code = dictionary.intern("c");
+
+        // Verify
+        assertEquals(StringDictionary.NOT_ENCODED, code);
+        assertEquals(1, dictionary.intern("b"));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    public void testIntern_ManyValues() {
+        // Setup
+        StringDictionary dictionary = new StringDictionary();
+
+        // Execute
+        for(int i = 0; i < 10000; ++i) {
+            assertEquals(i, dictionary.intern("value" + i));
+        }
+
+        // Verify
+        for(int i = 0; i < 10000; ++i) {
+            assertEquals(i, dictionary.getCode("value" + i));
+            assertEquals("value" + i, dictionary.get(i));
+        }
+    }
+
+    @Test
+    public void testIntern_Concurrent() throws Exception {
+        // Setup
+        StringDictionary dictionary = new StringDictionary();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Callable<int[]> task = () -> {
+            final int[] codes = new int[1000];
+            for(int i = 0; i < codes.length; ++i) {
+                codes[i] = dictionary.intern("value" + i);
+            }
+            return codes;
+        };
+
+        // Execute
+        List<Future<int[]>> futures = new ArrayList<>();
+        for(int i = 0; i < 4; ++i) {
+            futures.add(executor.submit(task));
+        }
+        List<int[]> results = new ArrayList<>();
+        for(Future<int[]> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+
+        // Verify
+        assertEquals(1000, dictionary.size());
+        for(int[] codes : results) {
+            for(int i = 0; i < codes.length; ++i) {
+                assertEquals(results.get(0)[i], codes[i]);
+                assertEquals("value" + i, dictionary.get(codes[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+import java.util.Random;
+
+/**
+ * Unit tests for the TimestampDecoder class.
+ */
+public class TimestampDecoderTest {
+    @Test
+    public void testDecodeEpochMillis() {
+        // Execute
+        long millis = TimestampDecoder.decodeEpochMillis("2015-12-01 13:45:07");
+
+        // Verify
+        assertEquals(DetailedLineItem.DATE_TIME_FORMATTER.parseMillis("2015-12-01 13:45:07"), millis);
+    }
+
+    @Test
+    public void testDecodeEpochMillis_Empty() {
+        // Execute
+        long millis = TimestampDecoder.decodeEpochMillis("");
+
+        // Verify
+        assertEquals(TimestampDecoder.NO_TIMESTAMP, millis);
+    }
+
+    @Test
+    public void testDecodeEpochMillis_SameAsFormatter() {
+        // Setup
+        Random random = new Random(42);
+
+        for(int i = 0; i < 10000; ++i) {
+            String value = DetailedLineItem.DATE_TIME_FORMATTER.print(random.nextLong() % 10000000000000L);
+
+            // Execute
+            long millis = TimestampDecoder.decodeEpochMillis(value);
+
+            // Verify
+            assertEquals(value, DetailedLineItem.DATE_TIME_FORMATTER.parseMillis(value), millis);
+        }
+    }
+
+    @Test
+    public void testDecodeEpochMillis_LeapDay() {
+        // Execute
+        long millis = TimestampDecoder.decodeEpochMillis("2016-02-29 23:59:59");
+
+        // Verify
+        assertEquals(DetailedLineItem.DATE_TIME_FORMATTER.parseMillis("2016-02-29 23:59:59"), millis);
+    }
+
+    @Test
+    public void testDecodeEpochMillis_NotCanonical() {
+        // Execute
+        long millis = TimestampDecoder.decodeEpochMillis("2015-1-2 3:04:05");
+
+        // Verify
+        assertEquals(DetailedLineItem.DATE_TIME_FORMATTER.parseMillis("2015-1-2 3:04:05"), millis);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeEpochMillis_InvalidDay() {
+        // Execute
+        TimestampDecoder.decodeEpochMillis("2015-02-29 00:00:00");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeEpochMillis_Garbage() {
+        // Execute
+        TimestampDecoder.decodeEpochMillis("not a timestamp");
+    }
+
+    @Test
+    public void testDecodeHourOfMonth() {
+        // Execute
+        int hourOfMonth = TimestampDecoder.decodeHourOfMonth("2015-12-03 05:30:00");
+
+        // Verify
+        assertEquals(2 * 24 + 5, hourOfMonth);
+        assertEquals(2 * 24 + 5, TimestampDecoder.decodeHourOfMonth("2015-12-3 5:30:00"));
+        assertEquals(TimestampDecoder.NO_HOUR, TimestampDecoder.decodeHourOfMonth(""));
+    }
+
+    @Test
+    public void testDecodeDateTime() {
+        // Execute
+        DateTime dateTime = TimestampDecoder.decodeDateTime("2015-12-01 01:00:00");
+
+        // Verify
+        assertEquals(DetailedLineItem.DATE_TIME_FORMATTER.parseDateTime("2015-12-01 01:00:00"), dateTime);
+        assertNull(TimestampDecoder.decodeDateTime(""));
+    }
+}
@@ -34,6 +34,7 @@ import java.util.Map;
  */
 public class DetailedLineItemRecordConverter
         implements ElasticsearchBillingRecordConverter<DetailedLineItem> {
+    private static final int FIXED_FIELD_COUNT = 18;
 
     @Override
     public String getRecordId(DetailedLineItem record) {
@@ -47,7 +48,8 @@ public class DetailedLineItemRecordConverter
 
     @Override
     public Map<String, ?> getRecordFields(DetailedLineItem record) {
-        HashMap<String, Object> fields = new HashMap<>();
+        final Map<String, String> tags = record.getTags();
+        HashMap<String, Object> fields = new HashMap<>(2 * (FIXED_FIELD_COUNT + tags.size()));
         fields.put("invoiceId", record.getInvoiceId());
         fields.put("payerAccountId", record.getPayerAccountId());
         fields.put("linkedAccountId", record.getLinkedAccountId());
@@ -66,9 +68,7 @@ public class DetailedLineItemRecordConverter
         fields.put("rate", record.getRate());
         fields.put("cost", record.getCost());
         fields.put("resourceId", record.getResourceId());
-        record.getTags().forEach((key, value) -> {
-            fields.put(key, value);
-        });
+        tags.forEach(fields::put);
         return fields;
     }
 }
@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c)  2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.miovision.oss.awsbillingtools.elasticsearch;
+
+import com.miovision.oss.awsbillingtools.aggregation.Dimension;
+import com.miovision.oss.awsbillingtools.aggregation.Measure;
+import com.miovision.oss.awsbillingtools.aggregation.RollupRecord;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An implementation of ElasticsearchBillingRecordConverter for RollupRecord objects.
+ *
+ * <p>Column dimensions use the field names and value types of DetailedLineItemRecordConverter, e.g.
+ * {@code linkedAccountId} and a boolean {@code reserveInstance}, and tag dimensions use the tag name, so dashboards can
+ * query summary records and raw records the same way. Usage quantities of different usage types have different units,
+ * so {@code usageQuantity} is only written when the rollup is keyed by Dimension.USAGE_TYPE.
+ */
+public class RollupRecordConverter implements ElasticsearchBillingRecordConverter<RollupRecord> {
+    private static final int FIXED_FIELD_COUNT = 5;
+    private static final Map<DetailedLineItemColumn, String> FIELD_NAMES = new EnumMap<>(DetailedLineItemColumn.class);
+
+    static {
+        FIELD_NAMES.put(DetailedLineItemColumn.INVOICE_ID, "invoiceId");
+        FIELD_NAMES.put(DetailedLineItemColumn.PAYER_ACCOUNT_ID, "payerAccountId");
+        FIELD_NAMES.put(DetailedLineItemColumn.LINKED_ACCOUNT_ID, "linkedAccountId");
+        FIELD_NAMES.put(DetailedLineItemColumn.RECORD_TYPE, "recordType");
+        FIELD_NAMES.put(DetailedLineItemColumn.RECORD_ID, "recordId");
+        FIELD_NAMES.put(DetailedLineItemColumn.PRODUCT_NAME, "productName");
+        FIELD_NAMES.put(DetailedLineItemColumn.RATE_ID, "rateId");
+        FIELD_NAMES.put(DetailedLineItemColumn.SUBSCRIPTION_ID, "subscriptionId");
+        FIELD_NAMES.put(DetailedLineItemColumn.PRICING_PLAN_ID, "pricingPlanId");
+        FIELD_NAMES.put(DetailedLineItemColumn.USAGE_TYPE, "usageType");
+        FIELD_NAMES.put(DetailedLineItemColumn.OPERATION, "operation");
+        FIELD_NAMES.put(DetailedLineItemColumn.AVAILABILITY_ZONE, "availabilityZone");
+        FIELD_NAMES.put(DetailedLineItemColumn.RESERVED_INSTANCE, "reserveInstance");
+        FIELD_NAMES.put(DetailedLineItemColumn.ITEM_DESCRIPTION, "itemDescription");
+        FIELD_NAMES.put(DetailedLineItemColumn.USAGE_START_DATE, "usageStartDate");
+        FIELD_NAMES.put(DetailedLineItemColumn.USAGE_END_DATE, "usageEndDate");
+        FIELD_NAMES.put(DetailedLineItemColumn.USAGE_QUANTITY, "usageQuantity");
+        FIELD_NAMES.put(DetailedLineItemColumn.RATE, "rate");
+        FIELD_NAMES.put(DetailedLineItemColumn.COST, "cost");
+        FIELD_NAMES.put(DetailedLineItemColumn.RESOURCE_ID, "resourceId");
+    }
+
+    @Override
+    public String getRecordId(RollupRecord record) {
+        return record.getRecordId();
+    }
+
+    @Override
+    public String getRecordType(RollupRecord record) {
+        return record.getGranularity().getRecordType();
+    }
+
+    @Override
+    public Map<String, ?> getRecordFields(RollupRecord record) {
+        final List<Dimension> dimensions = record.getDimensions();
+        HashMap<String, Object> fields = new HashMap<>(2 * (FIXED_FIELD_COUNT + dimensions.size()));
+        fields.put("usageStartDate", record.getPeriodStart());
+        fields.put("usageEndDate", record.getPeriodEnd());
+        fields.put("recordCount", record.getCount());
+        fields.put("cost", record.getSum(Measure.COST));
+        if(dimensions.contains(Dimension.USAGE_TYPE)) {
+            fields.put("usageQuantity", record.getSum(Measure.USAGE_QUANTITY));
+        }
+        for(int i = 0; i < dimensions.size(); ++i) {
+            final Dimension dimension = dimensions.get(i);
+            fields.put(toFieldName(dimension), toFieldValue(dimension, record.getKey(i)));
+        }
+        return fields;
+    }
+
+    /**
+     * Get the field name of a dimension.
+     *
+     * @return The field name of DetailedLineItemRecordConverter for column dimensions and the name of other dimensions.
+     */
+    static String toFieldName(Dimension dimension) {
+        final DetailedLineItemColumn column = dimension.getColumn();
+        return column == null ? dimension.getName() : FIELD_NAMES.get(column);
+    }
+
+    private static Object toFieldValue(Dimension dimension, Object key) {
+        if(key != null && dimension.getColumn() == DetailedLineItemColumn.RESERVED_INSTANCE) {
+            return "Y".equals(key);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c)  2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.miovision.oss.awsbillingtools.elasticsearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.miovision.oss.awsbillingtools.aggregation.Dimension;
+import com.miovision.oss.awsbillingtools.aggregation.Granularity;
+import com.miovision.oss.awsbillingtools.aggregation.Rollup;
+import com.miovision.oss.awsbillingtools.aggregation.RollupRecord;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemParser;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the RollupRecordConverter class.
+ */
+public class RollupRecordConverterTest {
+    // CHECKSTYLE.OFF: LineLengthCheck
+    private static final String HEADER = "\"InvoiceID\",\"PayerAccountId\",\"LinkedAccountId\",\"RecordType\",\"RecordId\",\"ProductName\",\"RateId\",\"SubscriptionId\",\"PricingPlanId\",\"UsageType\",\"Operation\",\"AvailabilityZone\",\"ReservedInstance\",\"ItemDescription\",\"UsageStartDate\",\"UsageEndDate\",\"UsageQuantity\",\"Rate\",\"Cost\",\"ResourceId\",\"user:foo\"\n";
+    private static final String RECORD_1 = "\"12345678\",\"111111111111\",\"222222222222\",\"LineItem\",\"12345678901234567890123456\",\"Product Name Here\",\"9191919\",\"723456723\",\"515253\",\"Usage Type Here\",\"Hourly\",\"us-east-1\",\"Y\",\"$0.05 per hour for a thing\",\"2015-12-01 00:00:00\",\"2015-12-01 01:00:00\",\"1.02007083\",\"0.0500000000\",\"0.05100354\",\"Resource ID\",\"bar\"\n";
+    private static final String RECORD_2 = "\"12345678\",\"111111111111\",\"222222222222\",\"LineItem\",\"12345678901234567890123457\",\"Product Name Here\",\"9191919\",\"723456723\",\"515253\",\"Usage Type Here\",\"Hourly\",\"us-east-1\",\"Y\",\"$0.05 per hour for a thing\",\"2015-12-01 01:00:00\",\"2015-12-01 02:00:00\",\"1\",\"0.0400000000\",\"0.04\",\"Resource ID\",\"\"\n";
+    // CHECKSTYLE.ON: LineLengthCheck
+    private static final RollupRecord rollupRecord;
+
+    static {
+        DetailedLineItemParser parser = new DetailedLineItemParser();
+        Rollup rollup = Rollup.of(Dimension.LINKED_ACCOUNT, Dimension.PRODUCT, Dimension.tag("user:foo"))
+                .withGranularities(Granularity.DAY);
+        try(Stream<DetailedLineItem> stream = parser.parse(new StringReader(HEADER + RECORD_1 + RECORD_2))) {
+            rollupRecord = rollup.rollup(stream)
+                    .filter(record -> "bar".equals(record.getKey(2)))
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("Unexpected end of stream"));
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private RollupRecordConverter recordConverter;
+
+    @Before
+    public void setUp() throws Exception {
+        recordConverter = new RollupRecordConverter();
+    }
+
+    @Test
+    public void testGetRecordId() throws Exception {
+        // Exercise
+        final String recordId = recordConverter.getRecordId(rollupRecord);
+
+        // Verify
+        assertEquals(rollupRecord.getRecordId(), recordId);
+    }
+
+    @Test
+    public void testGetRecordType() throws Exception {
+        // Exercise
+        final String recordType = recordConverter.getRecordType(rollupRecord);
+
+        // Verify
+        assertEquals("DailyRollup", recordType);
+    }
+
+    @Test
+    public void testGetRecordFields() throws Exception {
+        // Exercise
+        Map<String, ?> fields = recordConverter.getRecordFields(rollupRecord);
+
+        // Verify
+        assertEquals("222222222222", fields.get("linkedAccountId"));
+        assertEquals("Product Name Here", fields.get("productName"));
+        assertEquals("bar", fields.get("user:foo"));
+        assertEquals("2015-12-01T00:00:00.000Z", fields.get("usageStartDate").toString());
+        assertEquals("2015-12-02T00:00:00.000Z", fields.get("usageEndDate").toString());
+        assertEquals(1L, fields.get("recordCount"));
+        assertEquals(0.05100354, (Double)fields.get("cost"), 0.0000000001);
+        assertNull(fields.get("usageQuantity"));
+        assertNull(fields.get("minRate"));
+        assertNull(fields.get("invoiceId"));
+    }
+
+    @Test
+    public void testGetRecordFields_ColumnDimensions() throws Exception {
+        // Setup
+        Rollup rollup = Rollup.of(Dimension.column(DetailedLineItemColumn.INVOICE_ID),
+                Dimension.column(DetailedLineItemColumn.RESERVED_INSTANCE), Dimension.USAGE_TYPE)
+                .withGranularities(Granularity.DAY);
+        RollupRecord record = parse(HEADER + RECORD_1 + RECORD_2).collect(rollup.toCollector()).get(0);
+
+        // Exercise
+        Map<String, ?> fields = recordConverter.getRecordFields(record);
+
+        // Verify
+        assertEquals("12345678", fields.get("invoiceId"));
+        assertEquals(Boolean.TRUE, fields.get("reserveInstance"));
+        assertEquals("Usage Type Here", fields.get("usageType"));
+        assertEquals(2.02007083, (Double)fields.get("usageQuantity"), 0.0000000001);
+        assertNull(fields.get("invoiceID"));
+        assertNull(fields.get("reservedInstance"));
+    }
+
+    @Test
+    public void testToFieldName_SameAsDetailedLineItemRecordConverter() throws Exception {
+        // Setup
+        DetailedLineItem detailedLineItem = parse(HEADER + RECORD_1).findFirst()
+                .orElseThrow(() -> new RuntimeException("Unexpected end of stream"));
+        Set<String> fieldNames = new DetailedLineItemRecordConverter().getRecordFields(detailedLineItem).keySet();
+
+        // Verify
+        for(DetailedLineItemColumn column : DetailedLineItemColumn.values()) {
+            if(column != DetailedLineItemColumn.RECORD_TYPE && column != DetailedLineItemColumn.RECORD_ID) {
+                String fieldName = RollupRecordConverter.toFieldName(Dimension.column(column));
+                assertTrue(fieldName, fieldNames.contains(fieldName));
+            }
+        }
+        assertEquals("user:foo", RollupRecordConverter.toFieldName(Dimension.tag("user:foo")));
+    }
+
+    private static Stream<DetailedLineItem> parse(String fileContents) throws IOException {
+        return new DetailedLineItemParser().parse(new StringReader(fileContents));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c)  2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.miovision.oss.awsbillingtools.examples;
+
+import com.miovision.oss.awsbillingtools.generator.BillingFileGenerator;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * An example application for BillingFileGenerator.
+ *
+ * <p>Usage: {@code [--rows=N] [--accounts=N] [--products=N] [--resources=N] [--tags=N] [--tag-cardinality=N]
+ * [--tag-fill-rate=F] [--skew=F] [--seed=N] [--month=YYYY-MM] [--zip] [output file or directory]}
+ */
+public class BillingFileGeneratorExampleApplication {
+    public static void main(String[] args) throws Exception {
+        // Every setting starts at a default, so the generator writes a small but realistic file when given no options.
+        BillingFileGenerator generator = new BillingFileGenerator();
+        boolean zip = false;
+        Path output = Paths.get(".");
+
+        for(String arg : args) {
+            if(!arg.startsWith("--")) {
+                output = Paths.get(arg);
+                continue;
+            }
+
+            final int separator = arg.indexOf('=');
+            final String name = separator < 0 ? arg.substring(2) : arg.substring(2, separator);
+            final String value = separator < 0 ? "" : arg.substring(separator + 1);
+            switch(name) {
+                case "rows":
+                    generator = generator.withRowCount(Long.parseLong(value));
+                    break;
+                case "accounts":
+                    generator = generator.withAccountCount(Integer.parseInt(value));
+                    break;
+                case "products":
+                    generator = generator.withProductCount(Integer.parseInt(value));
+                    break;
+                case "resources":
+                    generator = generator.withResourceCount(Integer.parseInt(value));
+                    break;
+                case "tags":
+                    generator = generator.withTagCount(Integer.parseInt(value));
+                    break;
+                case "tag-cardinality":
+                    generator = generator.withTagCardinality(Integer.parseInt(value));
+                    break;
+                case "tag-fill-rate":
+                    generator = generator.withTagFillRate(Double.parseDouble(value));
+                    break;
+                case "skew":
+                    generator = generator.withSkew(Double.parseDouble(value));
+                    break;
+                case "seed":
+                    generator = generator.withSeed(Long.parseLong(value));
+                    break;
+                case "month":
+                    final String[] yearMonth = value.split("-");
+                    generator = generator.withMonth(Integer.parseInt(yearMonth[0]), Integer.parseInt(yearMonth[1]));
+                    break;
+                case "zip":
+                    zip = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        // When given a directory, name the file the way AWS names the files it delivers to the billing bucket, so it
+        // can be uploaded and read back by S3BillingRecordFileScanner. Files whose names end in .zip are zipped.
+        if(output.toFile().isDirectory()) {
+            output = output.resolve(generator.getFileName(zip));
+        }
+
+        final long start = System.nanoTime();
+        generator.write(output);
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("Wrote %d rows to %s in %.1f s (%.0f rows/s)",
+                generator.getRowCount(), output, seconds, generator.getRowCount() / seconds));
+    }
+}
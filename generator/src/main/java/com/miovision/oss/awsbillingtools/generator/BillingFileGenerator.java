@@ -0,0 +1,420 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.generator;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemColumn;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates synthetic detailed-line-items-with-resources-and-tags files for benchmarks and load tests.
+ *
+ * <p>Example: a month of 10 million rows for 50 accounts with 30 tags, zipped like the files AWS delivers.
+ * <pre>
+ * new BillingFileGenerator()
+ *         .withRowCount(10000000)
+ *         .withAccountCount(50)
+ *         .withTagCount(30)
+ *         .write(Paths.get("billing.csv.zip"));
+ * </pre>
+ *
+ * <p>Rows are spread evenly over the hours of the month. Each row bills a resource drawn from a Zipf distribution,
+ * and the resource determines the product, linked account, availability zone and tag values, so a few resources
+ * and accounts make up most of the cost the way they do in real files. Output depends only on the settings and the
+ * seed, so the same generator always writes the same bytes.
+ */
+public final class BillingFileGenerator {
+    public static final long DEFAULT_ROW_COUNT = 100000;
+    public static final int DEFAULT_ACCOUNT_COUNT = 10;
+    public static final int DEFAULT_RESOURCE_COUNT = 10000;
+    public static final int DEFAULT_TAG_COUNT = 10;
+    public static final int DEFAULT_TAG_CARDINALITY = 20;
+    public static final double DEFAULT_TAG_FILL_RATE = 0.5;
+    public static final double DEFAULT_SKEW = 1.0;
+    public static final long DEFAULT_SEED = 1;
+
+    private static final String[] TAG_NAMES = {"Name", "Environment", "Team", "CostCenter", "Project", "Owner"};
+    private static final String[] AVAILABILITY_ZONES = {"us-east-1a", "us-east-1b", "us-east-1c", "us-east-1d"};
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss").withZoneUTC();
+    private static final long QUANTITY_ONE = 100000000L;
+    private static final long MAX_METERED_QUANTITY = 1000 * QUANTITY_ONE;
+    private static final double RATE_ONE = 1e10;
+    private static final int QUANTITY_SCALE = 8;
+    private static final int RATE_SCALE = 10;
+    private static final int RESERVED_PERCENT = 10;
+    private static final int RECORD_ID_ROW_DIGITS = 18;
+
+    private long rowCount = DEFAULT_ROW_COUNT;
+    private int accountCount = DEFAULT_ACCOUNT_COUNT;
+    private int productCount = Product.CATALOG.size();
+    private int resourceCount = DEFAULT_RESOURCE_COUNT;
+    private int tagCount = DEFAULT_TAG_COUNT;
+    private int tagCardinality = DEFAULT_TAG_CARDINALITY;
+    private double tagFillRate = DEFAULT_TAG_FILL_RATE;
+    private double skew = DEFAULT_SKEW;
+    private long seed = DEFAULT_SEED;
+    private int year = 2016;
+    private int month = 1;
+
+    public BillingFileGenerator() {
+    }
+
+    private BillingFileGenerator(BillingFileGenerator other) {
+        this.rowCount = other.rowCount;
+        this.accountCount = other.accountCount;
+        this.productCount = other.productCount;
+        this.resourceCount = other.resourceCount;
+        this.tagCount = other.tagCount;
+        this.tagCardinality = other.tagCardinality;
+        this.tagFillRate = other.tagFillRate;
+        this.skew = other.skew;
+        this.seed = other.seed;
+        this.year = other.year;
+        this.month = other.month;
+    }
+
+    public BillingFileGenerator withRowCount(long rowCount) {
+        final BillingFileGenerator generator = new BillingFileGenerator(this);
+        generator.rowCount = requireAtLeast(rowCount, 0, "row count");
+        return generator;
+    }
+
+    public BillingFileGenerator withAccountCount(int accountCount) {
+        final BillingFileGenerator generator = new BillingFileGenerator(this);
+        generator.accountCount = (int) requireAtLeast(accountCount, 1, "account count");
+        return generator;
+    }
+
+    /**
+     * Create a copy of this generator that bills fewer products.
+     *
+     * @param productCount The number of products, from 1 to the 8 products the generator knows.
+     *
+     * @return The new generator.
+     */
+    public BillingFileGenerator withProductCount(int productCount) {
+        if(productCount > Product.CATALOG.size()) {
+            throw new IllegalArgumentException("At most " + Product.CATALOG.size() + " products are supported");
+        }
+        final BillingFileGenerator generator = new BillingFileGenerator(this);
+        generator.productCount = (int) requireAtLeast(productCount, 1, "product count");
+        return generator;
+    }
+
+    public BillingFileGenerator withResourceCount(int resourceCount) {
+        final BillingFileGenerator generator = new BillingFileGenerator(this);
+        generator.resourceCount = (int) requireAtLeast(resourceCount, 1, "resource count");
+        return generator;
+    }
+
+    public BillingFileGenerator withTagCount(int tagCount) {
+        final BillingFileGenerator generator = new BillingFileGenerator(this);
+        generator.tagCount = (int) requireAtLeast(tagCount, 0, "tag count");
+        return generator;
+    }
+
+    /**
+     * Create a copy of this generator with another number of distinct values per tag.
+     *
+     * @param tagCardinality The number of distinct non-empty values of each tag.
+     *
+     * @return The new generator.
+     */
+    public BillingFileGenerator withTagCardinality(int tagCardinality) {
+        final BillingFileGenerator generator = new BillingFileGenerator(this);
+        generator.tagCardinality = (int) requireAtLeast(tagCardinality, 1, "tag cardinality");
+        return generator;
+    }
+
+    /**
+     * Create a copy of this generator with another share of resources that have a value for each tag.
+     *
+     * @param tagFillRate The share, from 0 to 1.
+     *
+     * @return The new generator.
+     */
+    public BillingFileGenerator withTagFillRate(double tagFillRate) {
+        if(!(tagFillRate >= 0.0 && tagFillRate <= 1.0)) {
+            throw new IllegalArgumentException("The tag fill rate must be between 0 and 1");
+        }
+        final BillingFileGenerator generator = new BillingFileGenerator(this);
+        generator.tagFillRate = tagFillRate;
+        return generator;
+    }
+
+    /**
+     * Create a copy of this generator with another skew.
+     *
+     * @param skew The Zipf exponent of resources, accounts and tag values: 0 is uniform and larger values concentrate
+     *             rows on fewer resources.
+     *
+     * @return The new generator.
+     */
+    public BillingFileGenerator withSkew(double skew) {
+        if(!(skew >= 0.0)) {
+            throw new IllegalArgumentException("The skew must not be negative");
+        }
+        final BillingFileGenerator generator = new BillingFileGenerator(this);
+        generator.skew = skew;
+        return generator;
+    }
+
+    public BillingFileGenerator withSeed(long seed) {
+        final BillingFileGenerator generator = new BillingFileGenerator(this);
+        generator.seed = seed;
+        return generator;
+    }
+
+    /**
+     * Create a copy of this generator for another billing month.
+     *
+     * @param year The year.
+     * @param month The month, from 1 to 12.
+     *
+     * @return The new generator.
+     */
+    public BillingFileGenerator withMonth(int year, int month) {
+        if(month < 1 || month > 12) {
+            throw new IllegalArgumentException("The month must be between 1 and 12");
+        }
+        final BillingFileGenerator generator = new BillingFileGenerator(this);
+        generator.year = year;
+        generator.month = month;
+        return generator;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getTagCount() {
+        return tagCount;
+    }
+
+    /**
+     * Get the payer account ID of the generated files, which is derived from the seed.
+     *
+     * @return The 12 digit account ID.
+     */
+    public String getPayerAccountId() {
+        return accountId(-1);
+    }
+
+    /**
+     * Get the name AWS gives the file of the generated month.
+     *
+     * @param zip Whether the name is of the zipped file.
+     *
+     * @return The file name.
+     */
+    public String getFileName(boolean zip) {
+        return String.format("%s-aws-billing-detailed-line-items-with-resources-and-tags-%04d-%02d.csv%s",
+                getPayerAccountId(), year, month, zip ? ".zip" : "");
+    }
+
+    /**
+     * Write a plain CSV file.
+     *
+     * @param outputStream The output stream, which is not closed.
+     *
+     * @throws IOException Thrown when the output cannot be written.
+     */
+    public void write(OutputStream outputStream) throws IOException {
+        new Generation(outputStream).run();
+    }
+
+    /**
+     * Write a file, zipped if its name ends with {@code .zip}.
+     *
+     * @param file The file, which is replaced if it exists.
+     *
+     * @throws IOException Thrown when the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        final String fileName = file.getFileName().toString();
+        try(OutputStream outputStream = Files.newOutputStream(file)) {
+            if(fileName.endsWith(".zip")) {
+                writeZip(outputStream, fileName.substring(0, fileName.length() - ".zip".length()));
+            }
+            else {
+                write(outputStream);
+            }
+        }
+    }
+
+    /**
+     * Write a zip file with one CSV entry, like the files AWS delivers, compressed for speed rather than size.
+     *
+     * @param outputStream The output stream, which is not closed.
+     * @param entryName The name of the CSV entry.
+     *
+     * @throws IOException Thrown when the output cannot be written.
+     */
+    public void writeZip(OutputStream outputStream, String entryName) throws IOException {
+        final ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+        zipOutputStream.setLevel(Deflater.BEST_SPEED);
+        zipOutputStream.putNextEntry(new ZipEntry(entryName));
+        write(zipOutputStream);
+        zipOutputStream.closeEntry();
+        zipOutputStream.finish();
+    }
+
+    private String accountId(int account) {
+        final long hash = mix(seed * 31 + account);
+        return Long.toString(100000000000L + Math.floorMod(hash, 900000000000L));
+    }
+
+    private static long requireAtLeast(long value, long minimum, String name) {
+        if(value < minimum) {
+            throw new IllegalArgumentException("The " + name + " must be at least " + minimum);
+        }
+        return value;
+    }
+
+    /**
+     * The SplitMix64 finalizer, which turns consecutive numbers into well mixed hashes.
+     */
+    private static long mix(long value) {
+        long hash = value + 0x9e3779b97f4a7c15L;
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static double toFraction(long hash) {
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * The state of writing one file.
+     */
+    private final class Generation {
+        private final RowWriter writer;
+        private final SplittableRandom random = new SplittableRandom(seed);
+        private final ZipfDistribution resources = new ZipfDistribution(resourceCount, skew);
+        private final ZipfDistribution accounts = new ZipfDistribution(accountCount, skew);
+        private final ZipfDistribution tagValues = new ZipfDistribution(tagCardinality, skew);
+        private final String payerAccountId = getPayerAccountId();
+        private final String invoiceId = Long.toString(100000000L + Math.floorMod(mix(seed), 900000000L));
+        private final long recordIdPrefix = 40000000L + Math.floorMod(mix(seed + 1), 10000000L);
+        private final String[] accountIds = new String[accountCount];
+        private final String[] tagNames = new String[tagCount];
+        private final String[] tagValuePrefixes = new String[tagCount];
+        private final String[] timestamps;
+
+        Generation(OutputStream outputStream) {
+            this.writer = new RowWriter(outputStream);
+            for(int account = 0; account < accountCount; ++account) {
+                accountIds[account] = accountId(account);
+            }
+            for(int tag = 0; tag < tagCount; ++tag) {
+                tagNames[tag] = tag < TAG_NAMES.length ? TAG_NAMES[tag] : "Tag" + tag;
+                tagValuePrefixes[tag] = tagNames[tag].toLowerCase(Locale.ROOT) + "-";
+            }
+
+            final DateTime start = new DateTime(year, month, 1, 0, 0, DateTimeZone.UTC);
+            final int hourCount = start.dayOfMonth().getMaximumValue() * 24;
+            timestamps = new String[hourCount + 1];
+            for(int hour = 0; hour <= hourCount; ++hour) {
+                timestamps[hour] = TIMESTAMP_FORMAT.print(start.plusHours(hour));
+            }
+        }
+
+        void run() throws IOException {
+            for(DetailedLineItemColumn column : DetailedLineItemColumn.values()) {
+                writer.field(column.getHeaderName());
+            }
+            for(int tag = 0; tag < tagCount; ++tag) {
+                writer.startField().append("user:").append(tagNames[tag]).endField();
+            }
+            writer.endRow();
+
+            final int hourCount = timestamps.length - 1;
+            for(long row = 0; row < rowCount; ++row) {
+                writeRow(row, (int) (row * hourCount / rowCount));
+            }
+            writer.flush();
+        }
+
+        private void writeRow(long row, int hour) throws IOException {
+            final int resource = resources.rank(random.nextDouble());
+            final long resourceHash = mix(seed ^ mix(resource));
+            final int productIndex = resource % productCount;
+            final Product product = Product.CATALOG.get(productIndex);
+            final int account = accounts.rank(toFraction(resourceHash));
+            final String linkedAccountId = accountIds[account];
+            final long quantity = product.isMetered() ? 1 + random.nextLong(MAX_METERED_QUANTITY) : QUANTITY_ONE;
+            final long cost = Math.round(quantity * (product.getRate() / RATE_ONE));
+            final boolean reserved = !product.isMetered()
+                    && Math.floorMod(resourceHash >>> 16, 100) < RESERVED_PERCENT;
+
+            writer.field(invoiceId);
+            writer.field(payerAccountId);
+            writer.field(linkedAccountId);
+            writer.field("LineItem");
+            writer.startField().appendDigits(recordIdPrefix, 8).appendDigits(row, RECORD_ID_ROW_DIGITS).endField();
+            writer.field(product.getName());
+            writer.startField().appendDigits(10000000L + productIndex, 1).endField();
+            writer.startField().appendDigits(200000000L + account, 1).endField();
+            writer.startField().appendDigits(3000000L + productIndex, 1).endField();
+            writer.field(product.getUsageType());
+            writer.field(product.getOperation());
+            writer.field(product.isMetered() ? "" : AVAILABILITY_ZONES[(int) ((resourceHash >>> 8) & 3)]);
+            writer.field(reserved ? "Y" : "N");
+            writer.field(product.getItemDescription());
+            writer.field(timestamps[hour]);
+            writer.field(timestamps[hour + 1]);
+            writer.startField().appendDecimal(quantity, QUANTITY_SCALE).endField();
+            writer.startField().appendDecimal(product.getRate(), RATE_SCALE).endField();
+            writer.startField().appendDecimal(cost, QUANTITY_SCALE).endField();
+            writer.startField();
+            product.appendResourceId(writer, linkedAccountId, resource);
+            writer.endField();
+
+            for(int tag = 0; tag < tagCount; ++tag) {
+                final long tagHash = mix(resourceHash + tag);
+                writer.startField();
+                if(toFraction(tagHash) < tagFillRate) {
+                    final int value = tagValues.rank(toFraction(mix(tagHash)));
+                    writer.append(tagValuePrefixes[tag]).appendDigits(value, 1);
+                }
+                writer.endField();
+            }
+            writer.endRow();
+        }
+    }
+}
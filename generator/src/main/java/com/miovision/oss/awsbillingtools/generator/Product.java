@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.generator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A product that generated line items are billed for, with the usage type, rate and resource naming AWS uses for it.
+ */
+final class Product {
+    static final List<Product> CATALOG = Collections.unmodifiableList(Arrays.asList(
+            new Product("Amazon Elastic Compute Cloud", "BoxUsage:m4.large", "RunInstances",
+                    "$0.12 per On Demand Linux m4.large Instance Hour", 1200000000L, false, "i-"),
+            new Product("Amazon Simple Storage Service", "TimedStorage-ByteHrs", "StandardStorage",
+                    "$0.030 per GB - first 1 TB / month of storage used", 300000000L, true, "bucket-"),
+            new Product("Amazon RDS Service", "InstanceUsage:db.m4.large", "CreateDBInstance:0002",
+                    "$0.175 per RDS db.m4.large instance hour (or partial hour) running MySQL", 1750000000L, false,
+                    "arn:aws:rds:us-east-1:%s:db:db-"),
+            new Product("Amazon Elastic Compute Cloud", "EBS:VolumeUsage.gp2", "CreateVolume-Gp2",
+                    "$0.10 per GB-month of General Purpose SSD (gp2) provisioned storage", 1000000000L, true, "vol-"),
+            new Product("AWS Lambda", "Request", "Invoke",
+                    "AWS Lambda - Total Requests - US East (Northern Virginia)", 2000L, true,
+                    "arn:aws:lambda:us-east-1:%s:function:function-"),
+            new Product("Amazon CloudFront", "DataTransfer-Out-Bytes", "GET",
+                    "$0.085 per GB - first 10 TB / month data transfer out", 850000000L, true, "E2QWRUHAPOMQZ"),
+            new Product("Amazon ElastiCache", "NodeUsage:cache.m3.medium", "CreateCacheCluster:0002",
+                    "$0.090 per Cache Node-Hour (or partial hour)", 900000000L, false,
+                    "arn:aws:elasticache:us-east-1:%s:cluster:cache-"),
+            new Product("Amazon Simple Queue Service", "Requests-Tier1", "ReceiveMessage",
+                    "$0.00 per request - first 1 million requests per month", 4000L, true,
+                    "arn:aws:sqs:us-east-1:%s:queue-")));
+
+    private final String name;
+    private final String usageType;
+    private final String operation;
+    private final String itemDescription;
+    private final long rate;
+    private final boolean metered;
+    private final String resourcePrefix;
+    private final String resourceInfix;
+
+    /**
+     * Create a product.
+     *
+     * @param rate The rate in units of 10^-10 dollars, the precision of the Rate column.
+     * @param metered Whether usage is a fractional quantity rather than one instance hour.
+     * @param resourcePrefix The prefix of resource IDs, where %s is replaced by the linked account ID.
+     */
+    Product(String name, String usageType, String operation, String itemDescription, long rate, boolean metered,
+            String resourcePrefix) {
+        this.name = name;
+        this.usageType = usageType;
+        this.operation = operation;
+        this.itemDescription = itemDescription;
+        this.rate = rate;
+        this.metered = metered;
+        final int accountIndex = resourcePrefix.indexOf("%s");
+        this.resourcePrefix = accountIndex < 0 ? resourcePrefix : resourcePrefix.substring(0, accountIndex);
+        this.resourceInfix = accountIndex < 0 ? null : resourcePrefix.substring(accountIndex + 2);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getUsageType() {
+        return usageType;
+    }
+
+    String getOperation() {
+        return operation;
+    }
+
+    String getItemDescription() {
+        return itemDescription;
+    }
+
+    long getRate() {
+        return rate;
+    }
+
+    boolean isMetered() {
+        return metered;
+    }
+
+    void appendResourceId(RowWriter writer, String linkedAccountId, int resource) {
+        writer.append(resourcePrefix);
+        if(resourceInfix != null) {
+            writer.append(linkedAccountId).append(resourceInfix);
+        }
+        writer.appendHex(resource);
+    }
+}
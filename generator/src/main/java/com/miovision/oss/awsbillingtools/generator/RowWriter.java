@@ -0,0 +1,155 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.generator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes quoted CSV rows of ASCII values straight into a byte buffer, which is flushed to the output in large chunks.
+ *
+ * <p>Numbers and decimals are written digit by digit without intermediate strings, so generating a row allocates
+ * nothing and generation is limited by the speed of the output.
+ */
+final class RowWriter {
+    private static final int FLUSH_SIZE = 1 << 16;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream outputStream;
+    private final byte[] digits = new byte[20];
+    private byte[] buffer = new byte[2 * FLUSH_SIZE];
+    private int length;
+    private boolean firstField = true;
+
+    RowWriter(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Write a whole field.
+     */
+    RowWriter field(String value) {
+        return startField().append(value).endField();
+    }
+
+    RowWriter startField() {
+        ensureCapacity(2);
+        if(!firstField) {
+            buffer[length++] = ',';
+        }
+        buffer[length++] = '"';
+        firstField = false;
+        return this;
+    }
+
+    RowWriter endField() {
+        ensureCapacity(1);
+        buffer[length++] = '"';
+        return this;
+    }
+
+    void endRow() throws IOException {
+        ensureCapacity(1);
+        buffer[length++] = '\n';
+        firstField = true;
+        if(length >= FLUSH_SIZE) {
+            flush();
+        }
+    }
+
+    void flush() throws IOException {
+        outputStream.write(buffer, 0, length);
+        length = 0;
+    }
+
+    RowWriter append(String value) {
+        final int valueLength = value.length();
+        ensureCapacity(valueLength);
+        for(int i = 0; i < valueLength; ++i) {
+            buffer[length++] = (byte) value.charAt(i);
+        }
+        return this;
+    }
+
+    /**
+     * Append a non-negative number, padded with zeros to a minimum number of digits.
+     */
+    RowWriter appendDigits(long value, int minDigits) {
+        int count = 0;
+        long remaining = value;
+        do {
+            digits[count++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        while(remaining != 0);
+        while(count < minDigits) {
+            digits[count++] = '0';
+        }
+
+        ensureCapacity(count);
+        while(count > 0) {
+            buffer[length++] = digits[--count];
+        }
+        return this;
+    }
+
+    /**
+     * Append a non-negative fixed-point number with a number of decimal places.
+     */
+    RowWriter appendDecimal(long units, int scale) {
+        long divisor = 1;
+        for(int i = 0; i < scale; ++i) {
+            divisor *= 10;
+        }
+        appendDigits(units / divisor, 1);
+        ensureCapacity(1);
+        buffer[length++] = '.';
+        return appendDigits(units % divisor, scale);
+    }
+
+    RowWriter appendHex(int value) {
+        int count = 0;
+        int remaining = value;
+        do {
+            digits[count++] = HEX_DIGITS[remaining & 0xf];
+            remaining >>>= 4;
+        }
+        while(remaining != 0);
+
+        ensureCapacity(count);
+        while(count > 0) {
+            buffer[length++] = digits[--count];
+        }
+        return this;
+    }
+
+    private void ensureCapacity(int extra) {
+        if(length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(2 * buffer.length, length + extra));
+        }
+    }
+}
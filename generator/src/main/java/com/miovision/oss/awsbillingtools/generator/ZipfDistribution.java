@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.generator;
+
+import java.util.Arrays;
+
+/**
+ * A Zipf distribution over the ranks 0 to size - 1, where rank r has a weight of 1 / (r + 1)^exponent.
+ *
+ * <p>An exponent of 0 is uniform and an exponent of about 1 gives the long tail of real billing data, where a few
+ * accounts and resources make up most of the rows. Ranks are found by binary search over the cumulative weights.
+ */
+final class ZipfDistribution {
+    private final double[] cumulative;
+
+    ZipfDistribution(int size, double exponent) {
+        if(size <= 0) {
+            throw new IllegalArgumentException("The size must be positive");
+        }
+        if(exponent < 0.0) {
+            throw new IllegalArgumentException("The exponent must not be negative");
+        }
+
+        cumulative = new double[size];
+        double total = 0.0;
+        for(int rank = 0; rank < size; ++rank) {
+            total += Math.pow(rank + 1, -exponent);
+            cumulative[rank] = total;
+        }
+        for(int rank = 0; rank < size; ++rank) {
+            cumulative[rank] /= total;
+        }
+        cumulative[size - 1] = 1.0;
+    }
+
+    int size() {
+        return cumulative.length;
+    }
+
+    /**
+     * Get the rank at a point of the cumulative distribution.
+     *
+     * @param fraction A number from 0 inclusive to 1 exclusive, usually uniformly random.
+     */
+    int rank(double fraction) {
+        final int index = Arrays.binarySearch(cumulative, fraction);
+        return Math.min(index >= 0 ? index + 1 : -index - 1, cumulative.length - 1);
+    }
+}
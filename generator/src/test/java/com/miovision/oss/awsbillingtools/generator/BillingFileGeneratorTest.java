@@ -0,0 +1,164 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.generator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.FastDetailedLineItemParser;
+import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Unit tests for the BillingFileGenerator class.
+ */
+public class BillingFileGeneratorTest {
+    @Test
+    public void testWrite_SameSeedWritesSameBytes() throws IOException {
+        // Setup
+        BillingFileGenerator generator = new BillingFileGenerator().withRowCount(2000).withSeed(42);
+
+        // Execute
+        byte[] first = generate(generator);
+        byte[] second = generate(generator);
+        byte[] other = generate(generator.withSeed(43));
+
+        // Verify
+        assertArrayEquals(first, second);
+        assertFalse(Arrays.equals(first, other));
+    }
+
+    @Test
+    public void testWrite_Parses() throws IOException {
+        // Setup
+        BillingFileGenerator generator = new BillingFileGenerator()
+                .withRowCount(5000)
+                .withAccountCount(3)
+                .withTagCount(12)
+                .withMonth(2016, 2);
+
+        // Execute
+        List<DetailedLineItem> records = parse(generate(generator));
+
+        // Verify
+        assertEquals(5000, records.size());
+        assertEquals(12, records.get(0).getTagHeader().size());
+        assertEquals("2016-02-01T00:00:00.000Z", records.get(0).getUsageStartDate().toString());
+        assertEquals("2016-03-01T00:00:00.000Z", records.get(4999).getUsageEndDate().toString());
+        Set<String> accounts = records.stream().map(DetailedLineItem::getLinkedAccountId).collect(Collectors.toSet());
+        assertTrue(accounts.size() > 1 && accounts.size() <= 3);
+        for(DetailedLineItem record : records) {
+            assertEquals(generator.getPayerAccountId(), record.getPayerAccountId());
+            assertEquals(26, record.getRecordId().length());
+            assertTrue(record.getCostValue() >= 0.0);
+            assertEquals(record.getUsageQuantityValue() * record.getRateValue(), record.getCostValue(), 1e-8);
+        }
+    }
+
+    @Test
+    public void testWrite_TagFillRate() throws IOException {
+        // Setup
+        BillingFileGenerator generator = new BillingFileGenerator().withRowCount(1000).withTagCount(3);
+
+        // Execute
+        List<DetailedLineItem> empty = parse(generate(generator.withTagFillRate(0.0)));
+        List<DetailedLineItem> full = parse(generate(generator.withTagFillRate(1.0).withTagCardinality(5)));
+
+        // Verify
+        assertTrue(empty.stream().allMatch(record -> record.getTag("user:Team").isEmpty()));
+        Set<String> teams = full.stream().map(record -> record.getTag("user:Team")).collect(Collectors.toSet());
+        assertFalse(teams.contains(""));
+        assertTrue(teams.size() <= 5);
+        assertTrue(teams.contains("team-0"));
+        assertNull(full.get(0).getTag("user:Tag3"));
+    }
+
+    @Test
+    public void testWriteZip() throws IOException {
+        // Setup
+        BillingFileGenerator generator = new BillingFileGenerator().withRowCount(1000);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Execute
+        generator.writeZip(outputStream, generator.getFileName(false));
+
+        // Verify
+        try(ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            ZipEntry entry = zipInputStream.getNextEntry();
+            assertEquals(generator.getFileName(false), entry.getName());
+            ByteArrayOutputStream contents = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for(int read = zipInputStream.read(buffer); read >= 0; read = zipInputStream.read(buffer)) {
+                contents.write(buffer, 0, read);
+            }
+            assertArrayEquals(generate(generator), contents.toByteArray());
+        }
+    }
+
+    @Test
+    public void testGetFileName() {
+        // Setup
+        BillingFileGenerator generator = new BillingFileGenerator().withMonth(2016, 3);
+
+        // Execute
+        String fileName = generator.getFileName(true);
+
+        // Verify
+        assertEquals(generator.getPayerAccountId()
+                + "-aws-billing-detailed-line-items-with-resources-and-tags-2016-03.csv.zip", fileName);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWithProductCount_TooMany() {
+        // Execute
+        new BillingFileGenerator().withProductCount(9);
+    }
+
+    private static byte[] generate(BillingFileGenerator generator) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        generator.write(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static List<DetailedLineItem> parse(byte[] contents) throws IOException {
+        try(Stream<DetailedLineItem> records = new FastDetailedLineItemParser()
+                .parse(new ByteArrayInputStream(contents))) {
+            return records.map(DetailedLineItem::copy).collect(Collectors.toList());
+        }
+    }
+}
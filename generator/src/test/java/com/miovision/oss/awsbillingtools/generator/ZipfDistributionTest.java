@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the ZipfDistribution class.
+ */
+public class ZipfDistributionTest {
+    @Test
+    public void testRank_Uniform() {
+        // Setup
+        ZipfDistribution distribution = new ZipfDistribution(4, 0.0);
+
+        // Execute and verify
+        assertEquals(0, distribution.rank(0.0));
+        assertEquals(0, distribution.rank(0.24));
+        assertEquals(1, distribution.rank(0.25));
+        assertEquals(3, distribution.rank(0.99));
+    }
+
+    @Test
+    public void testRank_Skewed() {
+        // Setup
+        ZipfDistribution distribution = new ZipfDistribution(1000, 1.0);
+        int[] counts = new int[distribution.size()];
+
+        // Execute
+        for(int i = 0; i < 100000; ++i) {
+            ++counts[distribution.rank(i / 100000.0)];
+        }
+
+        // Verify
+        assertTrue(counts[0] > 10 * counts[99]);
+        assertEquals(counts[0] / 2.0, counts[1], counts[0] * 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_Empty() {
+        // Execute
+        new ZipfDistribution(0, 1.0);
+    }
+}
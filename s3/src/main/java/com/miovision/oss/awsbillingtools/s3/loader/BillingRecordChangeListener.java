@@ -0,0 +1,53 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.s3.loader;
+
+/**
+ * Receives the differences between two versions of a billing record file.
+ *
+ * @param <T> The record type.
+ */
+public interface BillingRecordChangeListener<T> {
+    /**
+     * Called for a record that was not in the previous version.
+     *
+     * @param record The record.
+     */
+    void added(T record);
+
+    /**
+     * Called for a record whose content differs from the previous version.
+     *
+     * @param record The record.
+     */
+    void changed(T record);
+
+    /**
+     * Called for a record of the previous version that is no longer in the file, after all additions and changes.
+     *
+     * @param recordId The id of the record, as tracked by IncrementalLoadState.
+     */
+    void removed(String recordId);
+}
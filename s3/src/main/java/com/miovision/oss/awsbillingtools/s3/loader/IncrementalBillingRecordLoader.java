@@ -0,0 +1,162 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.s3.loader;
+
+import com.miovision.oss.awsbillingtools.s3.scanner.BillingRecordFileNotFoundException;
+import com.miovision.oss.awsbillingtools.s3.scanner.S3BillingRecordFile;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.stream.Stream;
+
+/**
+ * Loads only the records that changed since the previous load of a billing file.
+ *
+ * <p>AWS rewrites the current month's billing file several times a day. Instead of handing every record to the caller
+ * again, this loader compares each record with an IncrementalLoadState of the previous run and reports only the added,
+ * changed and removed records. When the file's ETag has not changed the file is not downloaded at all.
+ *
+ * <p>Records without an id are identified by their content, so a change to such a record is reported as a removal of
+ * the old record and an addition of the new one. Records with duplicate ids get an occurrence suffix, e.g. {@code #2}.
+ *
+ * @param <T> The record type.
+ */
+public class IncrementalBillingRecordLoader<T> {
+    private static final String CONTENT_ID_PREFIX = "#";
+    private static final String OCCURRENCE_SEPARATOR = "#";
+
+    private final S3BillingRecordLoader<T> billingRecordLoader;
+    private final RecordIdentity<? super T> recordIdentity;
+
+    public IncrementalBillingRecordLoader(
+            S3BillingRecordLoader<T> billingRecordLoader,
+            RecordIdentity<? super T> recordIdentity) {
+        this.billingRecordLoader = billingRecordLoader;
+        this.recordIdentity = recordIdentity;
+    }
+
+    /**
+     * Load the changes to the billing file of a month.
+     *
+     * @param year The year.
+     * @param month The month.
+     * @param previousState The state returned by the previous load of the month, or IncrementalLoadState.empty().
+     * @param listener The listener that receives the changes.
+     *
+     * @return The state to pass to the next load.
+     *
+     * @throws BillingRecordFileNotFoundException Thrown when there is no billing file for the month.
+     * @throws IOException Thrown when the file cannot be loaded.
+     */
+    public IncrementalLoadState load(
+            int year,
+            int month,
+            IncrementalLoadState previousState,
+            BillingRecordChangeListener<? super T> listener) throws BillingRecordFileNotFoundException, IOException {
+        return load(billingRecordLoader.find(year, month), previousState, listener);
+    }
+
+    /**
+     * Load the changes to a billing file. A previous state of a different file is treated as empty.
+     *
+     * @param billingRecordFile The file.
+     * @param previousState The state returned by the previous load of the file, or IncrementalLoadState.empty().
+     * @param listener The listener that receives the changes.
+     *
+     * @return The state to pass to the next load.
+     *
+     * @throws IOException Thrown when the file cannot be loaded.
+     */
+    public IncrementalLoadState load(
+            S3BillingRecordFile billingRecordFile,
+            IncrementalLoadState previousState,
+            BillingRecordChangeListener<? super T> listener) throws IOException {
+        final String eTag = billingRecordLoader.getETag(billingRecordFile);
+        final boolean sameFile = billingRecordFile.getKey().equals(previousState.getFileKey());
+        if(sameFile && eTag != null && eTag.equals(previousState.getETag())) {
+            return previousState;
+        }
+
+        final Differ differ = new Differ(
+                sameFile ? previousState.getRecords() : IncrementalLoadState.empty().getRecords(), listener);
+        try(Stream<T> records = billingRecordLoader.load(billingRecordFile)) {
+            records.forEachOrdered(differ::accept);
+        }
+        differ.reportRemoved();
+        return new IncrementalLoadState(billingRecordFile.getKey(), eTag, differ.currentRecords);
+    }
+
+    /**
+     * Compares the records of one load with the previous state.
+     */
+    private class Differ {
+        private final RecordIdTable previousRecords;
+        private final BillingRecordChangeListener<? super T> listener;
+        private final BitSet seen;
+        private final RecordIdTable currentRecords = new RecordIdTable();
+
+        Differ(RecordIdTable previousRecords, BillingRecordChangeListener<? super T> listener) {
+            this.previousRecords = previousRecords;
+            this.listener = listener;
+            this.seen = new BitSet(previousRecords.size());
+        }
+
+        void accept(T record) {
+            final long fingerprint = recordIdentity.getFingerprint(record);
+            final String recordId = uniqueRecordId(recordIdentity.getRecordId(record), fingerprint);
+            currentRecords.add(recordId, fingerprint);
+
+            final int previousIndex = previousRecords.indexOf(recordId);
+            if(previousIndex < 0) {
+                listener.added(record);
+            }
+            else {
+                seen.set(previousIndex);
+                if(previousRecords.getFingerprint(previousIndex) != fingerprint) {
+                    listener.changed(record);
+                }
+            }
+        }
+
+        void reportRemoved() {
+            int index = seen.nextClearBit(0);
+            while(index < previousRecords.size()) {
+                listener.removed(previousRecords.getRecordId(index));
+                index = seen.nextClearBit(index + 1);
+            }
+        }
+
+        private String uniqueRecordId(String recordId, long fingerprint) {
+            final String baseId = recordId == null || recordId.isEmpty()
+                    ? CONTENT_ID_PREFIX + Long.toHexString(fingerprint)
+                    : recordId;
+
+            String uniqueId = baseId;
+            for(int occurrence = 2; currentRecords.indexOf(uniqueId) >= 0; ++occurrence) {
+                uniqueId = baseId + OCCURRENCE_SEPARATOR + occurrence;
+            }
+            return uniqueId;
+        }
+    }
+}
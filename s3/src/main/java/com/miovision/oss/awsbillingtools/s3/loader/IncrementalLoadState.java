@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.s3.loader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * What an IncrementalBillingRecordLoader knows about the last version of a billing file it loaded: the S3 key and
+ * ETag of the file plus the id and content fingerprint of every record.
+ *
+ * <p>States are immutable. Persist them with writeTo and readFrom between runs.
+ */
+public final class IncrementalLoadState {
+    private static final int FORMAT_VERSION = 1;
+    private static final IncrementalLoadState EMPTY = new IncrementalLoadState(null, null, new RecordIdTable());
+
+    private final String fileKey;
+    private final String eTag;
+    private final RecordIdTable records;
+
+    IncrementalLoadState(String fileKey, String eTag, RecordIdTable records) {
+        this.fileKey = fileKey;
+        this.eTag = eTag;
+        this.records = records;
+    }
+
+    /**
+     * Get the state of a file that has never been loaded, which reports every record as added.
+     *
+     * @return The empty state.
+     */
+    public static IncrementalLoadState empty() {
+        return EMPTY;
+    }
+
+    public String getFileKey() {
+        return fileKey;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Get the number of records in the loaded version of the file.
+     *
+     * @return The number of records.
+     */
+    public int size() {
+        return records.size();
+    }
+
+    /**
+     * Write this state.
+     *
+     * @param outputStream The stream to write to, which is flushed but not closed.
+     *
+     * @throws IOException Thrown when the state cannot be written.
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        final DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(outputStream));
+        dataOutputStream.writeInt(FORMAT_VERSION);
+        writeNullableString(dataOutputStream, fileKey);
+        writeNullableString(dataOutputStream, eTag);
+        dataOutputStream.writeInt(records.size());
+        for(int i = 0; i < records.size(); ++i) {
+            dataOutputStream.writeUTF(records.getRecordId(i));
+            dataOutputStream.writeLong(records.getFingerprint(i));
+        }
+        dataOutputStream.flush();
+    }
+
+    /**
+     * Read a state that was written with writeTo.
+     *
+     * @param inputStream The stream to read from, which is not closed. It is read ahead, so it should not contain
+     *                    anything after the state.
+     *
+     * @return The state.
+     *
+     * @throws IOException Thrown when the state cannot be read.
+     */
+    public static IncrementalLoadState readFrom(InputStream inputStream) throws IOException {
+        final DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(inputStream));
+        final int formatVersion = dataInputStream.readInt();
+        if(formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported incremental load state version " + formatVersion);
+        }
+
+        final String fileKey = readNullableString(dataInputStream);
+        final String eTag = readNullableString(dataInputStream);
+        final int size = dataInputStream.readInt();
+        final RecordIdTable records = new RecordIdTable();
+        for(int i = 0; i < size; ++i) {
+            records.add(dataInputStream.readUTF(), dataInputStream.readLong());
+        }
+        return new IncrementalLoadState(fileKey, eTag, records);
+    }
+
+    RecordIdTable getRecords() {
+        return records;
+    }
+
+    private static void writeNullableString(DataOutputStream dataOutputStream, String value) throws IOException {
+        dataOutputStream.writeBoolean(value != null);
+        if(value != null) {
+            dataOutputStream.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream dataInputStream) throws IOException {
+        return dataInputStream.readBoolean() ? dataInputStream.readUTF() : null;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.s3.loader;
+
+import java.util.Arrays;
+
+/**
+ * A compact open addressing table of record ids and content fingerprints, in insertion order.
+ *
+ * <p>The ids are stored back to back in one char array, so a table of millions of records costs a few dozen bytes per
+ * record instead of a String and a map entry each. Tables are not thread safe.
+ */
+final class RecordIdTable {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private char[] chars = new char[INITIAL_CAPACITY * 32];
+    private int[] offsets = new int[INITIAL_CAPACITY + 1];
+    private long[] fingerprints = new long[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int[] slots = newSlots(INITIAL_CAPACITY * 2);
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    String getRecordId(int index) {
+        return new String(chars, offsets[index], offsets[index + 1] - offsets[index]);
+    }
+
+    long getFingerprint(int index) {
+        return fingerprints[index];
+    }
+
+    /**
+     * Find a record id.
+     *
+     * @return The index of the record, or -1 if the table does not contain it.
+     */
+    int indexOf(String recordId) {
+        final int hash = hash(recordId);
+        final int mask = slots.length - 1;
+        for(int slot = hash & mask; slots[slot] != EMPTY; slot = (slot + 1) & mask) {
+            final int index = slots[slot];
+            if(hashes[index] == hash && idEquals(index, recordId)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Add a record id that the table does not contain yet.
+     *
+     * @return The index of the record.
+     */
+    int add(String recordId, long fingerprint) {
+        final int index = size++;
+        if(index == fingerprints.length) {
+            fingerprints = Arrays.copyOf(fingerprints, index * 2);
+            hashes = Arrays.copyOf(hashes, index * 2);
+            offsets = Arrays.copyOf(offsets, index * 2 + 1);
+        }
+        final int start = offsets[index];
+        if(start + recordId.length() > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(start + recordId.length(), chars.length * 2));
+        }
+        recordId.getChars(0, recordId.length(), chars, start);
+        offsets[index + 1] = start + recordId.length();
+        fingerprints[index] = fingerprint;
+        hashes[index] = hash(recordId);
+
+        if(2 * size > slots.length) {
+            rehash(slots.length * 2);
+        }
+        else {
+            insert(index);
+        }
+        return index;
+    }
+
+    private void insert(int index) {
+        final int mask = slots.length - 1;
+        int slot = hashes[index] & mask;
+        while(slots[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index;
+    }
+
+    private void rehash(int capacity) {
+        slots = newSlots(capacity);
+        for(int index = 0; index < size; ++index) {
+            insert(index);
+        }
+    }
+
+    private boolean idEquals(int index, String recordId) {
+        final int start = offsets[index];
+        if(offsets[index + 1] - start != recordId.length()) {
+            return false;
+        }
+        for(int i = 0; i < recordId.length(); ++i) {
+            if(chars[start + i] != recordId.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(String recordId) {
+        final int mixed = recordId.hashCode() * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    private static int[] newSlots(int capacity) {
+        final int[] slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.s3.loader;
+
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Identifies billing records across versions of the same billing file.
+ *
+ * @param <T> The record type.
+ */
+public interface RecordIdentity<T> {
+    /**
+     * Get the id of a record.
+     *
+     * @param record The record.
+     *
+     * @return The id, or an empty string if the record has none. Records without an id are identified by content.
+     */
+    String getRecordId(T record);
+
+    /**
+     * Get a hash of the content of a record.
+     *
+     * @param record The record.
+     *
+     * @return The fingerprint.
+     */
+    long getFingerprint(T record);
+
+    static <T> RecordIdentity<T> of(Function<? super T, String> recordId, ToLongFunction<? super T> fingerprint) {
+        return new RecordIdentity<T>() {
+            @Override
+            public String getRecordId(T record) {
+                return recordId.apply(record);
+            }
+
+            @Override
+            public long getFingerprint(T record) {
+                return fingerprint.applyAsLong(record);
+            }
+        };
+    }
+
+    /**
+     * Identify detailed line items by their RecordId and DetailedLineItem.getFingerprint().
+     *
+     * @return The identity.
+     */
+    static RecordIdentity<DetailedLineItem> forDetailedLineItems() {
+        return of(DetailedLineItem::getRecordId, DetailedLineItem::getFingerprint);
+    }
+}
@@ -30,11 +30,10 @@ import com.miovision.oss.awsbillingtools.s3.scanner.BillingRecordFileNotFoundExc
 import com.miovision.oss.awsbillingtools.s3.scanner.S3BillingRecordFile;
 import com.miovision.oss.awsbillingtools.s3.scanner.S3BillingRecordFileScanner;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
 import java.util.stream.Stream;
 import java.util.zip.ZipInputStream;
 
@@ -60,17 +59,34 @@ public class S3BillingRecordLoader<T> {
     }
 
     public Stream<T> load(int year, int month) throws BillingRecordFileNotFoundException, IOException {
-        final S3BillingRecordFile billingRecordFile =
-                fileScanner
-                        .scan(fileType, year, month)
-                        .findFirst()
-                        .orElseThrow(() -> new BillingRecordFileNotFoundException(fileType, year, month));
-
-        return load(billingRecordFile);
+        return load(find(year, month));
     }
 
     public Stream<T> load(S3BillingRecordFile billingRecordFile) throws IOException {
-        S3Object s3Object = amazonS3.getObject(billingRecordFile.getBucketName(), billingRecordFile.getKey());
+        final S3Object s3Object = amazonS3.getObject(billingRecordFile.getBucketName(), billingRecordFile.getKey());
+        return parse(billingRecordFile, s3Object);
+    }
+
+    /**
+     * Load a specific version of a billing record file. The download only succeeds while the file still has the given
+     * ETag, so the records are guaranteed to belong to that version.
+     *
+     * @param billingRecordFile The file.
+     * @param eTag The ETag the file must still have.
+     *
+     * @return The records, or null when the file has been rewritten and no longer has the ETag.
+     *
+     * @throws IOException Thrown when the file cannot be read.
+     */
+    public Stream<T> load(S3BillingRecordFile billingRecordFile, String eTag) throws IOException {
+        final GetObjectRequest request =
+                new GetObjectRequest(billingRecordFile.getBucketName(), billingRecordFile.getKey())
+                        .withMatchingETagConstraint(eTag);
+        final S3Object s3Object = amazonS3.getObject(request);
+        return s3Object == null ? null : parse(billingRecordFile, s3Object);
+    }
+
+    private Stream<T> parse(S3BillingRecordFile billingRecordFile, S3Object s3Object) throws IOException {
         try {
             InputStream inputStream = s3Object.getObjectContent();
             if(billingRecordFile.isZip()) {
@@ -78,7 +94,7 @@ public class S3BillingRecordLoader<T> {
                 zipInputStream.getNextEntry();
                 inputStream = zipInputStream;
             }
-            return billingRecordParser.parse(new InputStreamReader(inputStream, Charset.defaultCharset()));
+            return billingRecordParser.parse(inputStream);
         }
         catch(Exception e) {
             s3Object.close();
@@ -86,6 +102,34 @@ public class S3BillingRecordLoader<T> {
         }
     }
 
+    /**
+     * Find the billing record file of a month that this loader can load.
+     *
+     * @param year The year.
+     * @param month The month.
+     *
+     * @return The file.
+     *
+     * @throws BillingRecordFileNotFoundException Thrown when there is no such file.
+     */
+    public S3BillingRecordFile find(int year, int month) throws BillingRecordFileNotFoundException {
+        return fileScanner
+                .scan(fileType, year, month)
+                .findFirst()
+                .orElseThrow(() -> new BillingRecordFileNotFoundException(fileType, year, month));
+    }
+
+    /**
+     * Get the ETag of a billing record file without downloading it. The ETag changes whenever AWS rewrites the file.
+     *
+     * @param billingRecordFile The file.
+     *
+     * @return The ETag.
+     */
+    public String getETag(S3BillingRecordFile billingRecordFile) {
+        return amazonS3.getObjectMetadata(billingRecordFile.getBucketName(), billingRecordFile.getKey()).getETag();
+    }
+
     public boolean canLoad(S3BillingRecordFile s3BillingRecordFile) {
         final Class<T> recordTypeClass = billingRecordParser.getRecordTypeClass();
         final FileType parserFileType = FileType.forClass(recordTypeClass);
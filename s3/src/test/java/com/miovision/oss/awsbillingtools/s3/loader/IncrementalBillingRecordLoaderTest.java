@@ -0,0 +1,220 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 the original author or authors.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.miovision.oss.awsbillingtools.s3.loader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.miovision.oss.awsbillingtools.FileType;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItem;
+import com.miovision.oss.awsbillingtools.parser.DetailedLineItemParser;
+import com.miovision.oss.awsbillingtools.s3.scanner.S3BillingRecordFile;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the IncrementalBillingRecordLoader class.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class IncrementalBillingRecordLoaderTest {
+    //CHECKSTYLE.OFF: LineLength
+    private static final String HEADER = "\"InvoiceID\",\"PayerAccountId\",\"LinkedAccountId\",\"RecordType\",\"RecordId\",\"ProductName\",\"RateId\",\"SubscriptionId\",\"PricingPlanId\",\"UsageType\",\"Operation\",\"AvailabilityZone\",\"ReservedInstance\",\"ItemDescription\",\"UsageStartDate\",\"UsageEndDate\",\"UsageQuantity\",\"Rate\",\"Cost\",\"ResourceId\",\"user:foo\"\n";
+    //CHECKSTYLE.ON: LineLength
+
+    @Mock
+    private S3BillingRecordLoader<DetailedLineItem> billingRecordLoader;
+
+    private S3BillingRecordFile billingRecordFile;
+
+    private IncrementalBillingRecordLoader<DetailedLineItem> incrementalLoader;
+
+    @Before
+    public void setUp() {
+        billingRecordFile = new S3BillingRecordFile(
+                "bucket", "123456789012-aws-billing-detailed-line-items-with-resources-and-tags-2015-12.csv.zip",
+                "123456789012", FileType.DETAILED_LINE_ITEMS, 2015, 12, true);
+        incrementalLoader = new IncrementalBillingRecordLoader<>(
+                billingRecordLoader, RecordIdentity.forDetailedLineItems());
+    }
+
+    @Test
+    public void testLoad_EmptyState_AllAdded() throws IOException {
+        // Setup
+        givenFile("etag1", givenRecord("1", "0.5"), givenRecord("2", "1.5"));
+        RecordingListener listener = new RecordingListener();
+
+        // Execute
+        IncrementalLoadState state = incrementalLoader.load(billingRecordFile, IncrementalLoadState.empty(), listener);
+
+        // Verify
+        assertEquals(Arrays.asList("added 1", "added 2"), listener.changes);
+        assertEquals(2, state.size());
+        assertEquals("etag1", state.getETag());
+    }
+
+    @Test
+    public void testLoad_RewrittenFile_OnlyChanges() throws IOException {
+        // Setup
+        givenFile("etag1", givenRecord("1", "0.5"), givenRecord("2", "1.5"), givenRecord("3", "2.5"));
+        IncrementalLoadState state = incrementalLoader.load(
+                billingRecordFile, IncrementalLoadState.empty(), new RecordingListener());
+        givenFile("etag2", givenRecord("1", "0.5"), givenRecord("3", "3.5"), givenRecord("4", "1"));
+        RecordingListener listener = new RecordingListener();
+
+        // Execute
+        IncrementalLoadState newState = incrementalLoader.load(billingRecordFile, state, listener);
+
+        // Verify
+        assertEquals(Arrays.asList("changed 3", "added 4", "removed 2"), listener.changes);
+        assertEquals(3, newState.size());
+    }
+
+    @Test
+    public void testLoad_UnchangedETag_NotDownloaded() throws IOException {
+        // Setup
+        givenFile("etag1", givenRecord("1", "0.5"));
+        IncrementalLoadState state = incrementalLoader.load(
+                billingRecordFile, IncrementalLoadState.empty(), new RecordingListener());
+        RecordingListener listener = new RecordingListener();
+
+        // Execute
+        IncrementalLoadState newState = incrementalLoader.load(billingRecordFile, state, listener);
+
+        // Verify
+        assertSame(state, newState);
+        assertEquals(0, listener.changes.size());
+        verify(billingRecordLoader).load(billingRecordFile);
+    }
+
+    @Test
+    public void testLoad_RecordsWithoutIds_IdentifiedByContent() throws IOException {
+        // Setup
+        givenFile("etag1", givenRecord("", "0.5"), givenRecord("", "0.5"), givenRecord("", "1"));
+        IncrementalLoadState state = incrementalLoader.load(
+                billingRecordFile, IncrementalLoadState.empty(), new RecordingListener());
+        givenFile("etag2", givenRecord("", "0.5"), givenRecord("", "0.5"), givenRecord("", "2"));
+        RecordingListener listener = new RecordingListener();
+
+        // Execute
+        incrementalLoader.load(billingRecordFile, state, listener);
+
+        // Verify
+        assertEquals(2, listener.changes.size());
+        assertEquals("added ", listener.changes.get(0));
+        assertEquals(0, listener.changes.get(1).indexOf("removed #"));
+    }
+
+    @Test
+    public void testLoad_StateRoundTrip() throws IOException {
+        // Setup
+        givenFile("etag1", givenRecord("1", "0.5"), givenRecord("2", "1.5"));
+        IncrementalLoadState state = incrementalLoader.load(
+                billingRecordFile, IncrementalLoadState.empty(), new RecordingListener());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        state.writeTo(outputStream);
+        IncrementalLoadState readState = IncrementalLoadState.readFrom(
+                new ByteArrayInputStream(outputStream.toByteArray()));
+        givenFile("etag2", givenRecord("1", "0.75"), givenRecord("2", "1.5"));
+        RecordingListener listener = new RecordingListener();
+
+        // Execute
+        incrementalLoader.load(billingRecordFile, readState, listener);
+
+        // Verify
+        assertEquals(billingRecordFile.getKey(), readState.getFileKey());
+        assertEquals("etag1", readState.getETag());
+        assertEquals(Arrays.asList("changed 1"), listener.changes);
+    }
+
+    @Test
+    public void testLoad_DifferentFile_PreviousStateIgnored() throws IOException {
+        // Setup
+        givenFile("etag1", givenRecord("1", "0.5"));
+        IncrementalLoadState state = incrementalLoader.load(
+                billingRecordFile, IncrementalLoadState.empty(), new RecordingListener());
+        S3BillingRecordFile nextMonth = new S3BillingRecordFile(
+                "bucket", "123456789012-aws-billing-detailed-line-items-with-resources-and-tags-2016-01.csv.zip",
+                "123456789012", FileType.DETAILED_LINE_ITEMS, 2016, 1, true);
+        when(billingRecordLoader.getETag(nextMonth)).thenReturn("etag1");
+        when(billingRecordLoader.load(nextMonth)).thenReturn(parse(givenRecord("1", "0.5")));
+        RecordingListener listener = new RecordingListener();
+
+        // Execute
+        incrementalLoader.load(nextMonth, state, listener);
+
+        // Verify
+        assertEquals(Arrays.asList("added 1"), listener.changes);
+    }
+
+    private void givenFile(String eTag, String... records) throws IOException {
+        when(billingRecordLoader.getETag(billingRecordFile)).thenReturn(eTag);
+        when(billingRecordLoader.load(billingRecordFile)).thenReturn(parse(records));
+    }
+
+    private static Stream<DetailedLineItem> parse(String... records) throws IOException {
+        return new DetailedLineItemParser().parse(new StringReader(HEADER + String.join("", records)));
+    }
+
+    private static String givenRecord(String recordId, String cost) {
+        return "\"12345678\",\"111111111111\",\"222222222222\",\"LineItem\",\"" + recordId + "\",\"Product\",\"1\","
+                + "\"1\",\"1\",\"Usage\",\"Hourly\",\"us-east-1\",\"N\",\"Description\",\"2015-12-01 00:00:00\","
+                + "\"2015-12-01 01:00:00\",\"1\",\"0.05\",\"" + cost + "\",\"\",\"bar\"\n";
+    }
+
+    /**
+     * Records the changes it receives as strings.
+     */
+    private static class RecordingListener implements BillingRecordChangeListener<DetailedLineItem> {
+        private final List<String> changes = new ArrayList<>();
+
+        @Override
+        public void added(DetailedLineItem record) {
+            changes.add("added " + record.getRecordId());
+        }
+
+        @Override
+        public void changed(DetailedLineItem record) {
+            changes.add("changed " + record.getRecordId());
+        }
+
+        @Override
+        public void removed(String recordId) {
+            changes.add("removed " + recordId);
+        }
+    }
+}
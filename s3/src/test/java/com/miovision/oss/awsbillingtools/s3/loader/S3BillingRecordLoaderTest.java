@@ -26,8 +26,11 @@ package com.miovision.oss.awsbillingtools.s3.loader;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.miovision.oss.awsbillingtools.FileType;
@@ -38,11 +41,13 @@ import com.miovision.oss.awsbillingtools.s3.scanner.BillingRecordFileNotFoundExc
 import com.miovision.oss.awsbillingtools.s3.scanner.S3BillingRecordFile;
 import com.miovision.oss.awsbillingtools.s3.scanner.S3BillingRecordFileScanner;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.util.StringInputStream;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import java.io.ByteArrayInputStream;
@@ -51,6 +56,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -114,6 +120,40 @@ public class S3BillingRecordLoaderTest {
         }
     }
 
+    @Test
+    public void testLoad_WithETag_PinsTheDownloadToTheETag() throws Exception {
+        // Setup
+        S3BillingRecordFile billingRecordFile = givenAS3BillingRecordFile(false);
+        S3Object s3Object = new S3Object();
+        s3Object.setObjectContent(new StringInputStream(HEADER + RECORD_1));
+        when(amazonS3.getObject(any(GetObjectRequest.class))).thenReturn(s3Object);
+
+        // Execute
+        try(Stream<DetailedLineItem> stream = billingRecordLoader.load(billingRecordFile, "\"abc-1\"")) {
+            // Verify
+            List<DetailedLineItem> billingRecords = stream.collect(Collectors.toList());
+            assertEquals(1, billingRecords.size());
+            assertEquals("12345678", billingRecords.get(0).getInvoiceId());
+        }
+        ArgumentCaptor<GetObjectRequest> request = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(amazonS3).getObject(request.capture());
+        assertEquals("bucketName", request.getValue().getBucketName());
+        assertEquals("key", request.getValue().getKey());
+        assertEquals(Collections.singletonList("\"abc-1\""), request.getValue().getMatchingETagConstraints());
+    }
+
+    @Test
+    public void testLoad_WithETag_FileChanged() throws Exception {
+        // Setup
+        when(amazonS3.getObject(any(GetObjectRequest.class))).thenReturn(null);
+
+        // Execute
+        Stream<DetailedLineItem> stream = billingRecordLoader.load(givenAS3BillingRecordFile(false), "\"abc-1\"");
+
+        // Verify
+        assertNull(stream);
+    }
+
     @Test
     public void testLoad_WithYearAndMonth_BillingFileFound() throws IOException, BillingRecordFileNotFoundException {
         // Setup